@@ -0,0 +1,254 @@
+package geometries;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Batch intersection kernel using the SIMD instructions of the CPU through the incubating
+ * vector API: a ray is intersected with a vector of primitives at once, or a vector of
+ * rays with a primitive. The operations and their order are those of the scalar kernel
+ * (no fused multiply-add), and the branches of the scalar code become masks, so the
+ * distances are exactly the same.
+ * <p>
+ * The JIT compiles the vector operations to SIMD instructions only when the shape of the
+ * vectors is a constant and the whole calculation is compiled as one method, so the width
+ * is fixed for the whole program, by the system property {@code geometries.vector.bits}
+ * (128, 256 or 512 bits, the preferred width of the CPU by default), and every kernel
+ * method holds its calculation in full.
+ * The class is kept in its own source root, compiled with
+ * {@code --add-modules jdk.incubator.vector}, and loaded by reflection only (see
+ * {@link IntersectionKernel#vector()}), so the rest of the geometries compile and work
+ * where the module is not available.
+ *
+ * @author Shay and Asaf
+ */
+final class VectorKernel extends IntersectionKernel {
+	/** The shape of the vectors */
+	private static final VectorSpecies<Double> SPECIES = species(Integer.getInteger("geometries.vector.bits", 0));
+	/** Number of doubles in a vector */
+	private static final int LANES = SPECIES.length();
+	/** Threshold of {@link primitives.Util#isZero(double)} */
+	private static final double ZERO = 0x1p-40;
+
+	/** Use {@link IntersectionKernel#vector()} */
+	VectorKernel() {
+	}
+
+	/**
+	 * Finds the shape of the vectors of a width.
+	 *
+	 * @param bits the width of the vectors in bits: 128, 256 or 512, or 0 for the preferred
+	 *             width of the CPU
+	 * @return the shape
+	 * @throws IllegalArgumentException if the width is not supported
+	 */
+	private static VectorSpecies<Double> species(int bits) {
+		return switch (bits) {
+			case 0 -> DoubleVector.SPECIES_PREFERRED;
+			case 128 -> DoubleVector.SPECIES_128;
+			case 256 -> DoubleVector.SPECIES_256;
+			case 512 -> DoubleVector.SPECIES_512;
+			default -> throw new IllegalArgumentException("Unsupported vector width " + bits);
+		};
+	}
+
+	@Override
+	public String name() {
+		return "vector" + SPECIES.vectorBitSize();
+	}
+
+	@Override
+	public int lanes() {
+		return LANES;
+	}
+
+	@Override
+	public void intersect(SphereBatch batch, double ox, double oy, double oz, double dx, double dy, double dz,
+						  double maxDistance, double[] distances, int offset) {
+		for (int i = 0; i < batch.spheres.length; i += LANES) {
+			DoubleVector r = DoubleVector.fromArray(SPECIES, batch.radius, i);
+			DoubleVector ux = DoubleVector.fromArray(SPECIES, batch.centerX, i).sub(ox);
+			DoubleVector uy = DoubleVector.fromArray(SPECIES, batch.centerY, i).sub(oy);
+			DoubleVector uz = DoubleVector.fromArray(SPECIES, batch.centerZ, i).sub(oz);
+			VectorMask<Double> atCenter = ux.abs().lt(ZERO).and(uy.abs().lt(ZERO)).and(uz.abs().lt(ZERO));
+
+			DoubleVector tm = ux.mul(dx).add(uy.mul(dy)).add(uz.mul(dz));
+			DoubleVector d = ux.mul(ux).add(uy.mul(uy)).add(uz.mul(uz)).sub(tm.mul(tm)).sqrt();
+			VectorMask<Double> miss = d.compare(VectorOperators.GE, r).or(d.sub(r).abs().lt(ZERO));
+
+			DoubleVector th = r.mul(r).sub(d.mul(d)).sqrt();
+			DoubleVector far = tm.add(th), near = tm.sub(th);
+			miss = miss.or(far.lt(0)).or(far.abs().lt(ZERO));
+			// The near intersection if it is in front of the head, otherwise the far one
+			DoubleVector t = near.blend(far, near.lt(0).or(near.abs().lt(ZERO))).blend(Double.NaN, miss)
+					.blend(r, atCenter);
+			// Only the intersections closer than the maximum distance, as HitRecord#isCloser
+			DoubleVector difference = t.sub(maxDistance);
+			t.blend(Double.NaN, difference.lt(0).andNot(difference.abs().lt(ZERO)).not())
+					.intoArray(distances, offset + i);
+		}
+	}
+
+	@Override
+	public void intersect(SphereBatch batch, int index, RayPacket packet, int first, double[] distances) {
+		double cx = batch.centerX[index], cy = batch.centerY[index], cz = batch.centerZ[index];
+		double r = batch.radius[index];
+		for (int lane = first - first % LANES; lane < packet.size; lane += LANES) {
+			DoubleVector dx = DoubleVector.fromArray(SPECIES, packet.directionX, lane);
+			DoubleVector dy = DoubleVector.fromArray(SPECIES, packet.directionY, lane);
+			DoubleVector dz = DoubleVector.fromArray(SPECIES, packet.directionZ, lane);
+			// -o + c is exactly c - o
+			DoubleVector ux = DoubleVector.fromArray(SPECIES, packet.originX, lane).neg().add(cx);
+			DoubleVector uy = DoubleVector.fromArray(SPECIES, packet.originY, lane).neg().add(cy);
+			DoubleVector uz = DoubleVector.fromArray(SPECIES, packet.originZ, lane).neg().add(cz);
+			VectorMask<Double> atCenter = ux.abs().lt(ZERO).and(uy.abs().lt(ZERO)).and(uz.abs().lt(ZERO));
+
+			DoubleVector tm = ux.mul(dx).add(uy.mul(dy)).add(uz.mul(dz));
+			DoubleVector d = ux.mul(ux).add(uy.mul(uy)).add(uz.mul(uz)).sub(tm.mul(tm)).sqrt();
+			VectorMask<Double> miss = d.compare(VectorOperators.GE, r).or(d.sub(r).abs().lt(ZERO));
+
+			DoubleVector th = DoubleVector.broadcast(SPECIES, r * r).sub(d.mul(d)).sqrt();
+			DoubleVector far = tm.add(th), near = tm.sub(th);
+			miss = miss.or(far.lt(0)).or(far.abs().lt(ZERO));
+			DoubleVector t = near.blend(far, near.lt(0).or(near.abs().lt(ZERO))).blend(Double.NaN, miss)
+					.blend(r, atCenter);
+			DoubleVector difference = t.sub(DoubleVector.fromArray(SPECIES, packet.t, lane));
+			t.blend(Double.NaN, difference.lt(0).andNot(difference.abs().lt(ZERO)).not()).intoArray(distances, lane);
+		}
+	}
+
+	@Override
+	public void entryDistances(BoundingBox box, RayPacket packet, int from, int to, double[] entries) {
+		for (int lane = from - from % LANES; lane < to; lane += LANES) {
+			DoubleVector tNear = DoubleVector.zero(SPECIES);
+			DoubleVector tFar = DoubleVector.fromArray(SPECIES, packet.t, lane);
+			VectorMask<Double> miss = SPECIES.maskAll(false);
+
+			// The slabs of BoundingBox#entryDistance, with the branches as masks. The gap between
+			// the entry and the exit only grows from slab to slab, so it is checked once at the end.
+			DoubleVector o, d, inverse, t0, t1, near, far;
+			VectorMask<Double> parallel, swap;
+
+			// x slab
+			o = DoubleVector.fromArray(SPECIES, packet.originX, lane);
+			d = DoubleVector.fromArray(SPECIES, packet.directionX, lane);
+			parallel = d.eq(0);
+			miss = miss.or(parallel.and(o.lt(box.minX).or(o.compare(VectorOperators.GT, box.maxX))));
+			inverse = DoubleVector.broadcast(SPECIES, 1).div(d);
+			t0 = DoubleVector.broadcast(SPECIES, box.minX).sub(o).mul(inverse);
+			t1 = DoubleVector.broadcast(SPECIES, box.maxX).sub(o).mul(inverse);
+			swap = t0.compare(VectorOperators.GT, t1);
+			near = t0.blend(t1, swap);
+			far = t1.blend(t0, swap);
+			tNear = tNear.blend(near, near.compare(VectorOperators.GT, tNear).andNot(parallel));
+			tFar = tFar.blend(far, far.lt(tFar).andNot(parallel));
+
+			// y slab
+			o = DoubleVector.fromArray(SPECIES, packet.originY, lane);
+			d = DoubleVector.fromArray(SPECIES, packet.directionY, lane);
+			parallel = d.eq(0);
+			miss = miss.or(parallel.and(o.lt(box.minY).or(o.compare(VectorOperators.GT, box.maxY))));
+			inverse = DoubleVector.broadcast(SPECIES, 1).div(d);
+			t0 = DoubleVector.broadcast(SPECIES, box.minY).sub(o).mul(inverse);
+			t1 = DoubleVector.broadcast(SPECIES, box.maxY).sub(o).mul(inverse);
+			swap = t0.compare(VectorOperators.GT, t1);
+			near = t0.blend(t1, swap);
+			far = t1.blend(t0, swap);
+			tNear = tNear.blend(near, near.compare(VectorOperators.GT, tNear).andNot(parallel));
+			tFar = tFar.blend(far, far.lt(tFar).andNot(parallel));
+
+			// z slab
+			o = DoubleVector.fromArray(SPECIES, packet.originZ, lane);
+			d = DoubleVector.fromArray(SPECIES, packet.directionZ, lane);
+			parallel = d.eq(0);
+			miss = miss.or(parallel.and(o.lt(box.minZ).or(o.compare(VectorOperators.GT, box.maxZ))));
+			inverse = DoubleVector.broadcast(SPECIES, 1).div(d);
+			t0 = DoubleVector.broadcast(SPECIES, box.minZ).sub(o).mul(inverse);
+			t1 = DoubleVector.broadcast(SPECIES, box.maxZ).sub(o).mul(inverse);
+			swap = t0.compare(VectorOperators.GT, t1);
+			near = t0.blend(t1, swap);
+			far = t1.blend(t0, swap);
+			tNear = tNear.blend(near, near.compare(VectorOperators.GT, tNear).andNot(parallel));
+			tFar = tFar.blend(far, far.lt(tFar).andNot(parallel));
+
+			DoubleVector gap = tNear.sub(tFar);
+			miss = miss.or(gap.compare(VectorOperators.GT, 0).andNot(gap.abs().lt(ZERO)));
+			tNear.blend(Double.POSITIVE_INFINITY, miss).intoArray(entries, lane);
+		}
+	}
+
+	@Override
+	public void intersect(TriangleBatch batch, double ox, double oy, double oz, double dx, double dy, double dz,
+						  double maxDistance, double[] distances, int offset) {
+		for (int i = 0; i < batch.triangles.length; i += LANES) {
+			DoubleVector e1x = DoubleVector.fromArray(SPECIES, batch.e1X, i);
+			DoubleVector e1y = DoubleVector.fromArray(SPECIES, batch.e1Y, i);
+			DoubleVector e1z = DoubleVector.fromArray(SPECIES, batch.e1Z, i);
+			DoubleVector e2x = DoubleVector.fromArray(SPECIES, batch.e2X, i);
+			DoubleVector e2y = DoubleVector.fromArray(SPECIES, batch.e2Y, i);
+			DoubleVector e2z = DoubleVector.fromArray(SPECIES, batch.e2Z, i);
+			// Moller-Trumbore as Triangle#intersectionDistance, with the branches as one mask
+			DoubleVector px = e2z.mul(dy).sub(e2y.mul(dz));
+			DoubleVector py = e2x.mul(dz).sub(e2z.mul(dx));
+			DoubleVector pz = e2y.mul(dx).sub(e2x.mul(dy));
+			DoubleVector det = e1x.mul(px).add(e1y.mul(py)).add(e1z.mul(pz));
+			DoubleVector inverseDet = DoubleVector.broadcast(SPECIES, 1).div(det);
+			// -a + o is exactly o - a
+			DoubleVector sx = DoubleVector.fromArray(SPECIES, batch.ax, i).neg().add(ox);
+			DoubleVector sy = DoubleVector.fromArray(SPECIES, batch.ay, i).neg().add(oy);
+			DoubleVector sz = DoubleVector.fromArray(SPECIES, batch.az, i).neg().add(oz);
+			DoubleVector u = sx.mul(px).add(sy.mul(py)).add(sz.mul(pz)).mul(inverseDet);
+			DoubleVector qx = sy.mul(e1z).sub(sz.mul(e1y));
+			DoubleVector qy = sz.mul(e1x).sub(sx.mul(e1z));
+			DoubleVector qz = sx.mul(e1y).sub(sy.mul(e1x));
+			DoubleVector v = qx.mul(dx).add(qy.mul(dy)).add(qz.mul(dz)).mul(inverseDet);
+			DoubleVector t = e2x.mul(qx).add(e2y.mul(qy)).add(e2z.mul(qz)).mul(inverseDet);
+			DoubleVector uv = u.add(v), difference = t.sub(maxDistance);
+			VectorMask<Double> hit = det.mul(DoubleVector.fromArray(SPECIES, batch.inverseArea, i)).abs()
+					.compare(VectorOperators.GE, ZERO)
+					.and(u.compare(VectorOperators.GT, 0)).andNot(u.abs().lt(ZERO))
+					.and(v.compare(VectorOperators.GT, 0)).andNot(v.abs().lt(ZERO))
+					.and(uv.lt(1)).andNot(uv.sub(1).abs().lt(ZERO))
+					.and(t.compare(VectorOperators.GT, 0)).andNot(t.abs().lt(ZERO))
+					.and(difference.lt(0)).andNot(difference.abs().lt(ZERO));
+			t.blend(Double.NaN, hit.not()).intoArray(distances, offset + i);
+		}
+	}
+
+	@Override
+	public void intersect(TriangleBatch batch, int index, RayPacket packet, int first, double[] distances) {
+		double ax = batch.ax[index], ay = batch.ay[index], az = batch.az[index];
+		double e1x = batch.e1X[index], e1y = batch.e1Y[index], e1z = batch.e1Z[index];
+		double e2x = batch.e2X[index], e2y = batch.e2Y[index], e2z = batch.e2Z[index];
+		double inverseArea = batch.inverseArea[index];
+		for (int lane = first - first % LANES; lane < packet.size; lane += LANES) {
+			DoubleVector dx = DoubleVector.fromArray(SPECIES, packet.directionX, lane);
+			DoubleVector dy = DoubleVector.fromArray(SPECIES, packet.directionY, lane);
+			DoubleVector dz = DoubleVector.fromArray(SPECIES, packet.directionZ, lane);
+			DoubleVector px = dy.mul(e2z).sub(dz.mul(e2y));
+			DoubleVector py = dz.mul(e2x).sub(dx.mul(e2z));
+			DoubleVector pz = dx.mul(e2y).sub(dy.mul(e2x));
+			DoubleVector det = px.mul(e1x).add(py.mul(e1y)).add(pz.mul(e1z));
+			DoubleVector inverseDet = DoubleVector.broadcast(SPECIES, 1).div(det);
+			DoubleVector sx = DoubleVector.fromArray(SPECIES, packet.originX, lane).sub(ax);
+			DoubleVector sy = DoubleVector.fromArray(SPECIES, packet.originY, lane).sub(ay);
+			DoubleVector sz = DoubleVector.fromArray(SPECIES, packet.originZ, lane).sub(az);
+			DoubleVector u = sx.mul(px).add(sy.mul(py)).add(sz.mul(pz)).mul(inverseDet);
+			DoubleVector qx = sy.mul(e1z).sub(sz.mul(e1y));
+			DoubleVector qy = sz.mul(e1x).sub(sx.mul(e1z));
+			DoubleVector qz = sx.mul(e1y).sub(sy.mul(e1x));
+			DoubleVector v = dx.mul(qx).add(dy.mul(qy)).add(dz.mul(qz)).mul(inverseDet);
+			DoubleVector t = qx.mul(e2x).add(qy.mul(e2y)).add(qz.mul(e2z)).mul(inverseDet);
+			DoubleVector uv = u.add(v), difference = t.sub(DoubleVector.fromArray(SPECIES, packet.t, lane));
+			VectorMask<Double> hit = det.mul(inverseArea).abs().compare(VectorOperators.GE, ZERO)
+					.and(u.compare(VectorOperators.GT, 0)).andNot(u.abs().lt(ZERO))
+					.and(v.compare(VectorOperators.GT, 0)).andNot(v.abs().lt(ZERO))
+					.and(uv.lt(1)).andNot(uv.sub(1).abs().lt(ZERO))
+					.and(t.compare(VectorOperators.GT, 0)).andNot(t.abs().lt(ZERO))
+					.and(difference.lt(0)).andNot(difference.abs().lt(ZERO));
+			t.blend(Double.NaN, hit.not()).intoArray(distances, lane);
+		}
+	}
+}
@@ -0,0 +1,249 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+
+import static primitives.Util.alignZero;
+
+/**
+ * Axis-aligned bounding box (AABB) in a 3D Cartesian coordinate system.
+ * A box is described by its minimal and maximal corner and is used by acceleration
+ * structures to cheaply reject rays before running the exact intersection code of the
+ * geometries it encloses.
+ *
+ * @author Shay and Asaf
+ */
+public class BoundingBox {
+	/** Minimal corner coordinates */
+	final double minX, minY, minZ;
+	/** Maximal corner coordinates */
+	final double maxX, maxY, maxZ;
+
+	/**
+	 * Constructs a bounding box from its raw corner coordinates.
+	 *
+	 * @param minX minimal x coordinate
+	 * @param minY minimal y coordinate
+	 * @param minZ minimal z coordinate
+	 * @param maxX maximal x coordinate
+	 * @param maxY maximal y coordinate
+	 * @param maxZ maximal z coordinate
+	 * @throws IllegalArgumentException if a minimal coordinate is bigger than the maximal one
+	 */
+	public BoundingBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+		if (minX > maxX || minY > maxY || minZ > maxZ)
+			throw new IllegalArgumentException("Minimal corner must not exceed the maximal corner");
+		this.minX = minX;
+		this.minY = minY;
+		this.minZ = minZ;
+		this.maxX = maxX;
+		this.maxY = maxY;
+		this.maxZ = maxZ;
+	}
+
+	/**
+	 * Constructs the smallest bounding box enclosing all the given points.
+	 *
+	 * @param points the points to enclose
+	 * @throws IllegalArgumentException if no points are given
+	 */
+	public BoundingBox(Point... points) {
+		if (points.length == 0)
+			throw new IllegalArgumentException("A bounding box needs at least one point");
+		double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY, z0 = Double.POSITIVE_INFINITY;
+		double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY, z1 = Double.NEGATIVE_INFINITY;
+		for (Point p : points) {
+			x0 = Math.min(x0, p.getX());
+			y0 = Math.min(y0, p.getY());
+			z0 = Math.min(z0, p.getZ());
+			x1 = Math.max(x1, p.getX());
+			y1 = Math.max(y1, p.getY());
+			z1 = Math.max(z1, p.getZ());
+		}
+		minX = x0;
+		minY = y0;
+		minZ = z0;
+		maxX = x1;
+		maxY = y1;
+		maxZ = z1;
+	}
+
+	/**
+	 * Returns the smallest bounding box enclosing both this box and the other one.
+	 *
+	 * @param other the other box
+	 * @return the union box
+	 */
+	public BoundingBox union(BoundingBox other) {
+		return new BoundingBox(Math.min(minX, other.minX), Math.min(minY, other.minY), Math.min(minZ, other.minZ),
+				Math.max(maxX, other.maxX), Math.max(maxY, other.maxY), Math.max(maxZ, other.maxZ));
+	}
+
+	/**
+	 * Calculates the surface area of the box, used by the surface area heuristic.
+	 *
+	 * @return the surface area
+	 */
+	public double surfaceArea() {
+		double dx = maxX - minX, dy = maxY - minY, dz = maxZ - minZ;
+		return 2 * (dx * dy + dy * dz + dz * dx);
+	}
+
+	/**
+	 * Returns the minimal coordinate of the box along an axis.
+	 *
+	 * @param axis 0 for x, 1 for y, 2 for z
+	 * @return the minimal coordinate
+	 */
+	public double getMin(int axis) {
+		return axis == 0 ? minX : axis == 1 ? minY : minZ;
+	}
+
+	/**
+	 * Returns the maximal coordinate of the box along an axis.
+	 *
+	 * @param axis 0 for x, 1 for y, 2 for z
+	 * @return the maximal coordinate
+	 */
+	public double getMax(int axis) {
+		return axis == 0 ? maxX : axis == 1 ? maxY : maxZ;
+	}
+
+	/**
+	 * Returns the center coordinate of the box along an axis.
+	 *
+	 * @param axis 0 for x, 1 for y, 2 for z
+	 * @return the center coordinate
+	 */
+	public double getCenter(int axis) {
+		return (getMin(axis) + getMax(axis)) / 2;
+	}
+
+	/**
+	 * Checks whether the ray passes through the box before the given distance.
+	 *
+	 * @param ray         the ray
+	 * @param maxDistance the maximum distance along the ray
+	 * @return true if the ray enters the box closer than maxDistance
+	 */
+	public boolean intersects(Ray ray, double maxDistance) {
+		return entryDistance(ray, maxDistance) != Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Calculates the distance along the ray at which it enters the box (slab test).
+	 * A ray starting inside the box has entry distance 0.
+	 *
+	 * @param ray         the ray
+	 * @param maxDistance the maximum distance along the ray
+	 * @return the entry distance, or positive infinity if the ray misses the box or
+	 *         enters it beyond maxDistance
+	 */
+	public double entryDistance(Ray ray, double maxDistance) {
+		return entryDistance(ray.getHeadX(), ray.getHeadY(), ray.getHeadZ(), ray.getDirectionX(), ray.getDirectionY(), ray.getDirectionZ(), maxDistance);
+	}
+
+	/**
+	 * Finds the first lane of a packet, from the given one on, whose ray enters the box
+	 * before its current distance. The lanes are tested a vector of the default
+	 * {@link IntersectionKernel} at a time, so the search stops after the vector holding
+	 * the first lane that enters the box.
+	 *
+	 * @param packet the ray packet
+	 * @param first  the first lane to test
+	 * @return the lane, or -1 if no lane from the first one on enters the box
+	 */
+	public int firstHit(RayPacket packet, int first) {
+		IntersectionKernel kernel = IntersectionKernel.getDefault();
+		int width = kernel.lanes();
+		double[] entries = packet.entries;
+		for (int from = first, to; from < packet.size; from = to) {
+			to = Math.min(from - from % width + width, packet.size);
+			kernel.entryDistances(this, packet, from, to, entries);
+			for (int lane = from; lane < to; ++lane)
+				if (entries[lane] != Double.POSITIVE_INFINITY)
+					return lane;
+		}
+		return -1;
+	}
+
+	/**
+	 * Calculates the distance along the ray of a packet lane at which it enters the box,
+	 * see {@link #entryDistance(Ray, double)}. The maximum distance is the current distance
+	 * of the lane.
+	 *
+	 * @param packet the ray packet
+	 * @param lane   the lane
+	 * @return the entry distance, or positive infinity if the ray of the lane misses the box
+	 *         or enters it beyond its current distance
+	 */
+	double entryDistance(RayPacket packet, int lane) {
+		return entryDistance(packet.originX[lane], packet.originY[lane], packet.originZ[lane],
+				packet.directionX[lane], packet.directionY[lane], packet.directionZ[lane], packet.t[lane]);
+	}
+
+	/**
+	 * Slab test on the raw coordinates of a ray, see {@link #entryDistance(Ray, double)}.
+	 *
+	 * @param ox          x coordinate of the ray head
+	 * @param oy          y coordinate of the ray head
+	 * @param oz          z coordinate of the ray head
+	 * @param dx          x coordinate of the ray direction
+	 * @param dy          y coordinate of the ray direction
+	 * @param dz          z coordinate of the ray direction
+	 * @param maxDistance the maximum distance along the ray
+	 * @return the entry distance, or positive infinity if the ray misses the box or
+	 *         enters it beyond maxDistance
+	 */
+	private double entryDistance(double ox, double oy, double oz, double dx, double dy, double dz,
+								 double maxDistance) {
+		double tNear = 0, tFar = maxDistance;
+
+		// x slab
+		double o = ox, d = dx;
+		if (d == 0) {
+			if (o < minX || o > maxX) return Double.POSITIVE_INFINITY;
+		} else {
+			double inv = 1 / d;
+			double t0 = (minX - o) * inv, t1 = (maxX - o) * inv;
+			if (t0 > t1) { double t = t0; t0 = t1; t1 = t; }
+			if (t0 > tNear) tNear = t0;
+			if (t1 < tFar) tFar = t1;
+			if (alignZero(tNear - tFar) > 0) return Double.POSITIVE_INFINITY;
+		}
+
+		// y slab
+		o = oy;
+		d = dy;
+		if (d == 0) {
+			if (o < minY || o > maxY) return Double.POSITIVE_INFINITY;
+		} else {
+			double inv = 1 / d;
+			double t0 = (minY - o) * inv, t1 = (maxY - o) * inv;
+			if (t0 > t1) { double t = t0; t0 = t1; t1 = t; }
+			if (t0 > tNear) tNear = t0;
+			if (t1 < tFar) tFar = t1;
+			if (alignZero(tNear - tFar) > 0) return Double.POSITIVE_INFINITY;
+		}
+
+		// z slab
+		o = oz;
+		d = dz;
+		if (d == 0) {
+			if (o < minZ || o > maxZ) return Double.POSITIVE_INFINITY;
+		} else {
+			double inv = 1 / d;
+			double t0 = (minZ - o) * inv, t1 = (maxZ - o) * inv;
+			if (t0 > t1) { double t = t0; t0 = t1; t1 = t; }
+			if (t0 > tNear) tNear = t0;
+			if (t1 < tFar) tFar = t1;
+			if (alignZero(tNear - tFar) > 0) return Double.POSITIVE_INFINITY;
+		}
+		return tNear;
+	}
+
+	@Override
+	public String toString() {
+		return "Box[(" + minX + "," + minY + "," + minZ + ")-(" + maxX + "," + maxY + "," + maxZ + ")]";
+	}
+}
@@ -0,0 +1,594 @@
+package geometries;
+
+import primitives.Double3;
+import primitives.Ray;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Bounding volume hierarchy (BVH) acceleration structure over a set of intersectables.
+ * The tree is built top-down with the binned surface area heuristic (SAH): at every node
+ * the split minimizing the expected cost of intersecting a random ray is chosen.
+ * A ray that misses the box of a node never reaches the geometries below it.
+ * Unbounded objects (e.g. planes) cannot be placed in the tree and are kept in a separate
+ * list that is tested for every ray.
+ * The spheres and the triangles of a leaf are also kept in batches, and the closest hit
+ * queries intersect them all at once with the default {@link IntersectionKernel}. The cost
+ * of a leaf counts a batch as one intersection per vector of the kernel, so leaves of
+ * spheres and triangles grow to fill the vectors instead of stopping at a few objects.
+ *
+ * @author Shay and Asaf
+ */
+public class BoundingVolumeHierarchy extends Intersectable {
+	/** Number of centroid bins evaluated per axis when looking for a split */
+	private static final int BIN_COUNT = 16;
+	/** Maximal number of objects in a leaf */
+	private static final int MAX_LEAF_SIZE = 4;
+	/** Number of primitives the default kernel intersects at once */
+	private static final int LANES = IntersectionKernel.getDefault().lanes();
+	/** Maximal number of objects in a leaf whose spheres and triangles fill two vectors */
+	private static final int MAX_BATCH_LEAF_SIZE = Math.max(MAX_LEAF_SIZE, 2 * LANES);
+	/** Relative cost of traversing an inner node */
+	private static final double TRAVERSAL_COST = 1;
+	/** Relative cost of intersecting a single object */
+	private static final double INTERSECTION_COST = 2;
+	/**
+	 * Minimal number of spheres (or triangles) of a leaf kept in a batch: a vector kernel pays
+	 * off only for vectors that are at least half full
+	 */
+	private static final int MIN_BATCH_SIZE = Math.max(2, LANES / 2);
+
+	/**
+	 * A node of the hierarchy. Inner nodes have two children, leaves hold the objects.
+	 * A leaf with enough spheres (or triangles) holds them in a batch as well.
+	 */
+	private static final class Node {
+		/** Box enclosing everything below the node */
+		final BoundingBox box;
+		/** Children of an inner node, null for a leaf */
+		final Node left, right;
+		/** Objects of a leaf, null for an inner node */
+		final Intersectable[] objects;
+		/** Batch of the spheres of a leaf, null if there are too few */
+		final SphereBatch spheres;
+		/** Batch of the triangles of a leaf, null if there are too few */
+		final TriangleBatch triangles;
+		/** Index of the triangles in the distances calculated for a leaf, after the spheres */
+		final int triangleOffset;
+		/**
+		 * Index of every object of a leaf in the distances calculated for the leaf,
+		 * -1 for an object that is not in a batch
+		 */
+		final int[] slots;
+
+		/**
+		 * Constructs an inner node.
+		 *
+		 * @param box   the node box
+		 * @param left  the left child
+		 * @param right the right child
+		 */
+		Node(BoundingBox box, Node left, Node right) {
+			this.box = box;
+			this.left = left;
+			this.right = right;
+			this.objects = null;
+			this.spheres = null;
+			this.triangles = null;
+			this.triangleOffset = 0;
+			this.slots = null;
+		}
+
+		/**
+		 * Constructs a leaf node.
+		 *
+		 * @param box     the node box
+		 * @param objects the objects of the leaf
+		 */
+		Node(BoundingBox box, Intersectable[] objects) {
+			this.box = box;
+			this.left = null;
+			this.right = null;
+			this.objects = objects;
+
+			List<Sphere> sphereList = new ArrayList<>();
+			List<Triangle> triangleList = new ArrayList<>();
+			for (Intersectable object : objects) {
+				// Only the exact classes, whose intersections the kernels calculate
+				if (object.getClass() == Sphere.class)
+					sphereList.add((Sphere) object);
+				else if (object.getClass() == Triangle.class)
+					triangleList.add((Triangle) object);
+			}
+			spheres = sphereList.size() < MIN_BATCH_SIZE ? null : new SphereBatch(sphereList);
+			triangles = triangleList.size() < MIN_BATCH_SIZE ? null : new TriangleBatch(triangleList);
+			triangleOffset = spheres == null ? 0 : spheres.paddedSize();
+
+			slots = new int[objects.length];
+			int sphereSlot = 0, triangleSlot = triangleOffset;
+			for (int i = 0; i < objects.length; ++i) {
+				if (spheres != null && objects[i].getClass() == Sphere.class)
+					slots[i] = sphereSlot++;
+				else if (triangles != null && objects[i].getClass() == Triangle.class)
+					slots[i] = triangleSlot++;
+				else
+					slots[i] = -1;
+			}
+		}
+
+		/**
+		 * Retrieves the number of distances calculated for a leaf.
+		 *
+		 * @return the number of distances
+		 */
+		int distanceCount() {
+			return triangleOffset + (triangles == null ? 0 : triangles.paddedSize());
+		}
+	}
+
+	/** Root of the tree, null if there are no bounded objects */
+	private final Node root;
+	/** Objects without a bounding box, tested for every ray */
+	private final List<Intersectable> unbounded = new LinkedList<>();
+
+	/** Bounded objects while building the tree */
+	private Intersectable[] objects;
+	/** Bounding boxes of the objects while building the tree */
+	private BoundingBox[] boxes;
+
+	/**
+	 * Builds a hierarchy over the given intersectables.
+	 *
+	 * @param intersectables the objects to organize
+	 */
+	public BoundingVolumeHierarchy(List<Intersectable> intersectables) {
+		List<Intersectable> bounded = new LinkedList<>();
+		List<BoundingBox> boundedBoxes = new LinkedList<>();
+		for (Intersectable intersectable : intersectables) {
+			BoundingBox box = intersectable.getBoundingBox();
+			if (box == null) {
+				unbounded.add(intersectable);
+			} else {
+				bounded.add(intersectable);
+				boundedBoxes.add(box);
+			}
+		}
+
+		objects = bounded.toArray(new Intersectable[0]);
+		boxes = boundedBoxes.toArray(new BoundingBox[0]);
+		root = objects.length == 0 ? null : build(0, objects.length);
+		// The build arrays are not needed anymore
+		objects = null;
+		boxes = null;
+	}
+
+	/**
+	 * Recursively builds the sub-tree for the objects in the given range.
+	 *
+	 * @param from the first object index (inclusive)
+	 * @param to   the last object index (exclusive)
+	 * @return the sub-tree root
+	 */
+	private Node build(int from, int to) {
+		BoundingBox box = boxes[from];
+		for (int i = from + 1; i < to; ++i)
+			box = box.union(boxes[i]);
+		int count = to - from;
+		if (count == 1)
+			return leaf(box, from, to);
+
+		// Bounds of the centroids - the split candidates are placed along them
+		double[] cMin = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY };
+		double[] cMax = { Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+		for (int i = from; i < to; ++i) {
+			for (int axis = 0; axis < 3; ++axis) {
+				double c = boxes[i].getCenter(axis);
+				if (c < cMin[axis]) cMin[axis] = c;
+				if (c > cMax[axis]) cMax[axis] = c;
+			}
+		}
+
+		// Evaluate the SAH cost of splitting after every bin on every axis
+		double bestCost = Double.POSITIVE_INFINITY;
+		int bestAxis = -1, bestBin = -1;
+		for (int axis = 0; axis < 3; ++axis) {
+			double extent = cMax[axis] - cMin[axis];
+			if (extent <= 0) continue;
+
+			int[] binCounts = new int[BIN_COUNT];
+			BoundingBox[] binBoxes = new BoundingBox[BIN_COUNT];
+			for (int i = from; i < to; ++i) {
+				int b = binOf(boxes[i], axis, cMin[axis], extent);
+				binCounts[b]++;
+				binBoxes[b] = binBoxes[b] == null ? boxes[i] : binBoxes[b].union(boxes[i]);
+			}
+
+			// Sweep from the right to get the area and count of every right side
+			double[] rightAreas = new double[BIN_COUNT];
+			int[] rightCounts = new int[BIN_COUNT];
+			BoundingBox acc = null;
+			int accCount = 0;
+			for (int b = BIN_COUNT - 1; b > 0; --b) {
+				if (binBoxes[b] != null)
+					acc = acc == null ? binBoxes[b] : acc.union(binBoxes[b]);
+				accCount += binCounts[b];
+				rightAreas[b] = acc == null ? 0 : acc.surfaceArea();
+				rightCounts[b] = accCount;
+			}
+
+			// Sweep from the left and combine
+			acc = null;
+			accCount = 0;
+			for (int b = 0; b < BIN_COUNT - 1; ++b) {
+				if (binBoxes[b] != null)
+					acc = acc == null ? binBoxes[b] : acc.union(binBoxes[b]);
+				accCount += binCounts[b];
+				if (accCount == 0 || rightCounts[b + 1] == 0) continue;
+				double cost = acc.surfaceArea() * accCount + rightAreas[b + 1] * rightCounts[b + 1];
+				if (cost < bestCost) {
+					bestCost = cost;
+					bestAxis = axis;
+					bestBin = b;
+				}
+			}
+		}
+
+		// All the centroids coincide - the objects cannot be separated
+		if (bestAxis == -1)
+			return leaf(box, from, to);
+
+		double area = box.surfaceArea();
+		double splitCost = TRAVERSAL_COST + (area > 0 ? INTERSECTION_COST * bestCost / area : 0);
+		if (count <= MAX_BATCH_LEAF_SIZE && leafCost(from, to) <= splitCost)
+			return leaf(box, from, to);
+
+		// Partition the range in place around the chosen bin
+		double extent = cMax[bestAxis] - cMin[bestAxis];
+		int mid = from;
+		for (int i = from; i < to; ++i) {
+			if (binOf(boxes[i], bestAxis, cMin[bestAxis], extent) <= bestBin) {
+				swap(i, mid);
+				++mid;
+			}
+		}
+		return new Node(box, build(from, mid), build(mid, to));
+	}
+
+	/**
+	 * Calculates the cost of a leaf holding the objects of the given range: a batch of
+	 * spheres or triangles costs one intersection per vector of the default kernel, any
+	 * other object one intersection. A leaf of more than {@value #MAX_LEAF_SIZE} objects
+	 * that are not batched is never cheap enough.
+	 *
+	 * @param from the first object index (inclusive)
+	 * @param to   the last object index (exclusive)
+	 * @return the relative cost of the leaf
+	 */
+	private double leafCost(int from, int to) {
+		int sphereCount = 0, triangleCount = 0;
+		for (int i = from; i < to; ++i) {
+			if (objects[i].getClass() == Sphere.class)
+				++sphereCount;
+			else if (objects[i].getClass() == Triangle.class)
+				++triangleCount;
+		}
+		int others = to - from - sphereCount - triangleCount;
+		int tests = others + batchTests(sphereCount) + batchTests(triangleCount);
+		return tests > MAX_LEAF_SIZE ? Double.POSITIVE_INFINITY : INTERSECTION_COST * tests;
+	}
+
+	/**
+	 * Calculates the number of intersections of the kernel for the spheres (or the triangles) of a leaf.
+	 *
+	 * @param count the number of spheres (or triangles)
+	 * @return the number of vectors of a batch, or the count itself if there are too few to batch
+	 */
+	private static int batchTests(int count) {
+		return count < MIN_BATCH_SIZE ? count : (count + LANES - 1) / LANES;
+	}
+
+	/**
+	 * Calculates the centroid bin of a box along an axis.
+	 *
+	 * @param box    the box
+	 * @param axis   the axis
+	 * @param min    minimal centroid coordinate along the axis
+	 * @param extent extent of the centroids along the axis
+	 * @return the bin index
+	 */
+	private static int binOf(BoundingBox box, int axis, double min, double extent) {
+		int b = (int) (BIN_COUNT * (box.getCenter(axis) - min) / extent);
+		return b >= BIN_COUNT ? BIN_COUNT - 1 : b;
+	}
+
+	/**
+	 * Swaps two objects (and their boxes) in the build arrays.
+	 *
+	 * @param i first index
+	 * @param j second index
+	 */
+	private void swap(int i, int j) {
+		Intersectable o = objects[i];
+		objects[i] = objects[j];
+		objects[j] = o;
+		BoundingBox b = boxes[i];
+		boxes[i] = boxes[j];
+		boxes[j] = b;
+	}
+
+	/**
+	 * Creates a leaf holding the objects of the given range.
+	 *
+	 * @param box  the leaf box
+	 * @param from the first object index (inclusive)
+	 * @param to   the last object index (exclusive)
+	 * @return the leaf node
+	 */
+	private Node leaf(BoundingBox box, int from, int to) {
+		Intersectable[] leafObjects = new Intersectable[to - from];
+		System.arraycopy(objects, from, leafObjects, 0, to - from);
+		return new Node(box, leafObjects);
+	}
+
+	@Override
+	public BoundingBox getBoundingBox() {
+		return unbounded.isEmpty() && root != null ? root.box : null;
+	}
+
+	/**
+	 * Calculates the share of the objects in the tree that the closest hit queries intersect
+	 * in batches, for reports.
+	 *
+	 * @return the number of batched objects divided by the number of objects in the tree,
+	 *         0 if the tree is empty
+	 */
+	public double batchedShare() {
+		return root == null ? 0 : (double) batchedCount(root) / objectCount(root);
+	}
+
+	/**
+	 * Counts the objects in the batches of the leaves of a sub-tree.
+	 *
+	 * @param node the sub-tree root
+	 * @return the number of batched objects
+	 */
+	private static int batchedCount(Node node) {
+		if (node.objects == null)
+			return batchedCount(node.left) + batchedCount(node.right);
+		int count = 0;
+		for (int slot : node.slots)
+			if (slot >= 0) ++count;
+		return count;
+	}
+
+	/**
+	 * Counts the objects in the leaves of a sub-tree.
+	 *
+	 * @param node the sub-tree root
+	 * @return the number of objects
+	 */
+	private static int objectCount(Node node) {
+		return node.objects == null ? objectCount(node.left) + objectCount(node.right) : node.objects.length;
+	}
+
+	@Override
+	protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+		List<GeoPoint> res = null;
+		for (Intersectable intersectable : unbounded)
+			res = addIntersections(res, intersectable.findGeoIntersectionsHelper(ray, maxDistance));
+		return root == null ? res : findNodeIntersections(root, ray, maxDistance, res);
+	}
+
+	/**
+	 * Collects the intersections of the ray with the sub-tree of a node.
+	 *
+	 * @param node        the sub-tree root
+	 * @param ray         the ray
+	 * @param maxDistance the maximum distance to consider for intersections
+	 * @param res         the intersections found so far (may be null)
+	 * @return the intersections found so far including the sub-tree ones (may be null)
+	 */
+	private List<GeoPoint> findNodeIntersections(Node node, Ray ray, double maxDistance, List<GeoPoint> res) {
+		if (!node.box.intersects(ray, maxDistance))
+			return res;
+		if (node.objects == null)
+			return findNodeIntersections(node.right, ray, maxDistance,
+					findNodeIntersections(node.left, ray, maxDistance, res));
+		for (Intersectable intersectable : node.objects)
+			res = addIntersections(res, intersectable.findGeoIntersectionsHelper(ray, maxDistance));
+		return res;
+	}
+
+	@Override
+	protected boolean findClosestHitHelper(Ray ray, HitRecord hit) {
+		boolean found = false;
+		for (Intersectable intersectable : unbounded)
+			found |= intersectable.findClosestHitHelper(ray, hit);
+		if (root == null || !root.box.intersects(ray, hit.t))
+			return found;
+		return findNodeClosest(root, ray, hit) || found;
+	}
+
+	/**
+	 * Finds the closest intersection in the sub-tree of a node whose box is hit by the ray.
+	 * The children are visited front-to-back, and the farther one is skipped if its box
+	 * starts beyond the closest hit found in the nearer one.
+	 *
+	 * @param node the sub-tree root
+	 * @param ray  the ray
+	 * @param hit  the record holding the closest hit so far
+	 * @return true if the record was updated
+	 */
+	private boolean findNodeClosest(Node node, Ray ray, HitRecord hit) {
+		if (node.objects != null)
+			return findLeafClosest(node, ray, hit);
+
+		boolean found = false;
+		Node near = node.left, far = node.right;
+		double tNear = near.box.entryDistance(ray, hit.t), tFar = far.box.entryDistance(ray, hit.t);
+		if (tFar < tNear) {
+			near = node.right;
+			far = node.left;
+			double t = tNear;
+			tNear = tFar;
+			tFar = t;
+		}
+		if (tNear != Double.POSITIVE_INFINITY)
+			found = findNodeClosest(near, ray, hit);
+		if (tFar < hit.t)
+			found |= findNodeClosest(far, ray, hit);
+		return found;
+	}
+
+	/**
+	 * Finds the closest intersection of the ray with the objects of a leaf. The batches of
+	 * the leaf are intersected first, and then the distances are checked in the order of
+	 * the objects, as if every object was intersected by itself.
+	 *
+	 * @param node the leaf
+	 * @param ray  the ray
+	 * @param hit  the record holding the closest hit so far
+	 * @return true if the record was updated
+	 */
+	private static boolean findLeafClosest(Node node, Ray ray, HitRecord hit) {
+		double[] distances = null;
+		if (node.spheres != null || node.triangles != null) {
+			distances = hit.distances(node.distanceCount());
+			IntersectionKernel kernel = IntersectionKernel.getDefault();
+			if (node.spheres != null)
+				kernel.intersect(node.spheres, ray.getHeadX(), ray.getHeadY(), ray.getHeadZ(), ray.getDirectionX(), ray.getDirectionY(),
+						ray.getDirectionZ(), hit.t, distances, 0);
+			if (node.triangles != null)
+				kernel.intersect(node.triangles, ray.getHeadX(), ray.getHeadY(), ray.getHeadZ(), ray.getDirectionX(), ray.getDirectionY(),
+						ray.getDirectionZ(), hit.t, distances, node.triangleOffset);
+		}
+
+		boolean found = false;
+		for (int i = 0; i < node.objects.length; ++i) {
+			int slot = node.slots[i];
+			if (slot < 0) {
+				found |= node.objects[i].findClosestHitHelper(ray, hit);
+			} else if (!Double.isNaN(distances[slot]) && hit.isCloser(distances[slot])) {
+				hit.set(distances[slot], (Geometry) node.objects[i]);
+				found = true;
+			}
+		}
+		return found;
+	}
+
+	@Override
+	protected void findClosestHitsHelper(RayPacket packet, int first) {
+		for (Intersectable intersectable : unbounded)
+			intersectable.findClosestHitsHelper(packet, first);
+		if (root != null)
+			findNodeClosestHits(root, packet, first);
+	}
+
+	/**
+	 * Finds the closest intersections of the lanes of a packet in the sub-tree of a node.
+	 * The node is visited once for the whole packet, from the first lane that enters its box,
+	 * and the children are visited front-to-back along the ray of that lane.
+	 *
+	 * @param node   the sub-tree root
+	 * @param packet the ray packet
+	 * @param first  the first lane that entered the parent box
+	 */
+	private void findNodeClosestHits(Node node, RayPacket packet, int first) {
+		first = node.box.firstHit(packet, first);
+		if (first < 0)
+			return;
+		if (node.objects != null) {
+			findLeafClosestHits(node, packet, first);
+			return;
+		}
+
+		if (node.right.box.entryDistance(packet, first) < node.left.box.entryDistance(packet, first)) {
+			findNodeClosestHits(node.right, packet, first);
+			findNodeClosestHits(node.left, packet, first);
+		} else {
+			findNodeClosestHits(node.left, packet, first);
+			findNodeClosestHits(node.right, packet, first);
+		}
+	}
+
+	/**
+	 * Finds the closest intersections of the lanes of a packet with the objects of a leaf.
+	 * The objects in the batches are intersected with all the lanes at once.
+	 *
+	 * @param node   the leaf
+	 * @param packet the ray packet
+	 * @param first  the first lane that entered the leaf box
+	 */
+	private static void findLeafClosestHits(Node node, RayPacket packet, int first) {
+		IntersectionKernel kernel = IntersectionKernel.getDefault();
+		double[] distances = packet.distances;
+		for (int i = 0; i < node.objects.length; ++i) {
+			int slot = node.slots[i];
+			if (slot < 0) {
+				node.objects[i].findClosestHitsHelper(packet, first);
+				continue;
+			}
+			if (slot < node.triangleOffset)
+				kernel.intersect(node.spheres, slot, packet, first, distances);
+			else
+				kernel.intersect(node.triangles, slot - node.triangleOffset, packet, first, distances);
+			for (int lane = first; lane < packet.size; ++lane)
+				if (!Double.isNaN(distances[lane]) && packet.isCloser(lane, distances[lane]))
+					packet.set(lane, distances[lane], (Geometry) node.objects[i]);
+		}
+	}
+
+	@Override
+	protected Double3 findTransparencyHelper(Ray ray, double maxDistance) {
+		Double3 ktr = Double3.ONE;
+		for (Intersectable intersectable : unbounded) {
+			ktr = Geometries.multiplyTransparency(ktr, intersectable.findTransparencyHelper(ray, maxDistance));
+			if (ktr == Double3.ZERO)
+				return ktr;
+		}
+		return root == null ? ktr : findNodeTransparency(root, ray, maxDistance, ktr);
+	}
+
+	/**
+	 * Accumulates the transparency along the ray through the sub-tree of a node,
+	 * stopping at the first opaque hit.
+	 *
+	 * @param node        the sub-tree root
+	 * @param ray         the ray
+	 * @param maxDistance the maximum distance to consider
+	 * @param ktr         the transparency accumulated so far
+	 * @return the accumulated transparency including the sub-tree
+	 */
+	private Double3 findNodeTransparency(Node node, Ray ray, double maxDistance, Double3 ktr) {
+		if (!node.box.intersects(ray, maxDistance))
+			return ktr;
+		if (node.objects == null) {
+			ktr = findNodeTransparency(node.left, ray, maxDistance, ktr);
+			return ktr == Double3.ZERO ? ktr : findNodeTransparency(node.right, ray, maxDistance, ktr);
+		}
+		for (Intersectable intersectable : node.objects) {
+			ktr = Geometries.multiplyTransparency(ktr, intersectable.findTransparencyHelper(ray, maxDistance));
+			if (ktr == Double3.ZERO)
+				return ktr;
+		}
+		return ktr;
+	}
+
+	/**
+	 * Appends intersections to the result list, creating it on demand.
+	 *
+	 * @param res          the result list (may be null)
+	 * @param intersections the intersections to add (may be null)
+	 * @return the result list (may be null if there was nothing to add)
+	 */
+	private static List<GeoPoint> addIntersections(List<GeoPoint> res, List<GeoPoint> intersections) {
+		if (intersections == null)
+			return res;
+		if (res == null)
+			res = new LinkedList<>();
+		res.addAll(intersections);
+		return res;
+	}
+}
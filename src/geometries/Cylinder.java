@@ -68,5 +68,22 @@ public class Cylinder extends Tube {
 		return normal.normalize(); // Normal vector is radial
 	}
 
+	@Override
+	public BoundingBox getBoundingBox() {
+		Point p0 = axis.getHead();
+		Vector dir = axis.getDirection();
+		Point p1 = axis.getPoint(height);
+
+		// A disc of the given radius perpendicular to dir extends radius * sqrt(1 - dir_i^2) along axis i
+		double ex = radius * Math.sqrt(Math.max(0, 1 - dir.getX() * dir.getX()));
+		double ey = radius * Math.sqrt(Math.max(0, 1 - dir.getY() * dir.getY()));
+		double ez = radius * Math.sqrt(Math.max(0, 1 - dir.getZ() * dir.getZ()));
+		return new BoundingBox(
+				Math.min(p0.getX(), p1.getX()) - ex, Math.min(p0.getY(), p1.getY()) - ey,
+				Math.min(p0.getZ(), p1.getZ()) - ez,
+				Math.max(p0.getX(), p1.getX()) + ex, Math.max(p0.getY(), p1.getY()) + ey,
+				Math.max(p0.getZ(), p1.getZ()) + ez);
+	}
+
 
 }
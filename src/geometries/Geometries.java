@@ -1,9 +1,11 @@
 package geometries;
 
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -16,7 +18,69 @@ public class Geometries extends Intersectable {
 	/**
 	 * A list holding all the geometric shapes in the collection.
 	 */
-	private final List<Intersectable> intersectableList = new LinkedList<>();
+	private final List<Intersectable> intersectableList = new ArrayList<>();
+
+	/**
+	 * Collections holding this collection, whose snapshots of the shapes are dropped
+	 * together with the snapshot of this collection.
+	 */
+	private final List<Geometries> parents = new ArrayList<>();
+
+	/**
+	 * Snapshot of the shapes the queries test and of their bounding boxes, taken on the first
+	 * query after shapes were added to the collection or to a nested collection; null until then.
+	 */
+	private volatile Shapes shapes = null;
+
+	/**
+	 * Minimal number of shapes for which the queries build a bounding volume hierarchy
+	 * over the collection on their own
+	 */
+	private static final int BVH_MIN_SIZE = 16;
+
+	/**
+	 * Bounding volume hierarchy over the collection, null until it is built by
+	 * {@link #buildBVH()} or by the first query over a large enough collection.
+	 */
+	private volatile BoundingVolumeHierarchy bvh = null;
+
+	/**
+	 * The shapes of a collection the queries test - all of them but the empty nested
+	 * collections - with their bounding boxes.
+	 */
+	private static final class Shapes {
+		/** The shapes */
+		final Intersectable[] shapes;
+		/** Bounding boxes of the shapes, by the same index; a null entry marks an unbounded shape */
+		final BoundingBox[] boxes;
+		/** Bounding box enclosing all the shapes, null if a shape is unbounded or there are none */
+		final BoundingBox bounds;
+
+		/**
+		 * Takes the snapshot of the shapes of a collection.
+		 *
+		 * @param intersectables all the shapes of the collection
+		 */
+		Shapes(List<Intersectable> intersectables) {
+			List<Intersectable> tested = new ArrayList<>();
+			for (Intersectable intersectable : intersectables)
+				// An empty nested collection has no box, but cannot be hit either
+				if (!(intersectable instanceof Geometries nested && nested.isEmpty()))
+					tested.add(intersectable);
+			shapes = tested.toArray(new Intersectable[0]);
+			boxes = new BoundingBox[shapes.length];
+			BoundingBox all = null;
+			boolean unbounded = false;
+			for (int i = 0; i < shapes.length; ++i) {
+				boxes[i] = shapes[i].getBoundingBox();
+				if (boxes[i] == null)
+					unbounded = true;
+				else
+					all = all == null ? boxes[i] : all.union(boxes[i]);
+			}
+			bounds = unbounded ? null : all;
+		}
+	}
 
 	/**
 	 * Default constructor for creating an empty collection of geometries.
@@ -35,18 +99,112 @@ public class Geometries extends Intersectable {
 
 	/**
 	 * Adds one or more geometric shapes to the collection.
+	 * The shapes must not be added while the collection is queried by other threads.
 	 *
 	 * @param geometries geometric shapes to be added to the collection.
 	 */
 	public void add(Intersectable... geometries) {
-		intersectableList.addAll(List.of(geometries));
+		for (Intersectable geometry : geometries) {
+			intersectableList.add(geometry);
+			if (geometry instanceof Geometries nested)
+				nested.parents.add(this);
+		}
+		invalidate();
+	}
+
+	/**
+	 * Drops the snapshot of the shapes and the hierarchy, which do not know the new shapes
+	 * anymore, of this collection and of all the collections holding it.
+	 */
+	private void invalidate() {
+		shapes = null;
+		bvh = null;
+		for (Geometries parent : parents)
+			parent.invalidate();
+	}
+
+	/**
+	 * Retrieves the snapshot of the shapes the queries test, taking it first if shapes were
+	 * added since the last one.
+	 *
+	 * @return the snapshot
+	 */
+	private Shapes shapes() {
+		Shapes snapshot = shapes;
+		if (snapshot != null)
+			return snapshot;
+		synchronized (this) {
+			if (shapes == null)
+				shapes = new Shapes(intersectableList);
+			return shapes;
+		}
+	}
+
+	/**
+	 * Checks whether the collection holds no shapes, directly or in nested collections.
+	 *
+	 * @return true if the collection cannot be hit
+	 */
+	boolean isEmpty() {
+		return shapes().shapes.length == 0;
+	}
+
+	/**
+	 * Builds a bounding volume hierarchy over the current shapes of the collection.
+	 * From now on the intersection queries traverse the hierarchy instead of testing every shape.
+	 * A collection of at least {@value #BVH_MIN_SIZE} shapes builds its hierarchy by itself on
+	 * the first query, so this is needed only to build it ahead of time, or for a smaller
+	 * collection. Adding shapes afterwards drops the hierarchy, until the next query over a
+	 * large enough collection builds it again.
+	 *
+	 * @return the collection itself for chaining
+	 */
+	public synchronized Geometries buildBVH() {
+		bvh = new BoundingVolumeHierarchy(List.of(shapes().shapes));
+		return this;
+	}
+
+	/**
+	 * Retrieves the hierarchy the queries traverse, building it first for a large enough
+	 * collection.
+	 *
+	 * @return the hierarchy, or null if the queries test the shapes one by one
+	 */
+	private BoundingVolumeHierarchy hierarchy() {
+		BoundingVolumeHierarchy tree = bvh;
+		if (tree != null || intersectableList.size() < BVH_MIN_SIZE)
+			return tree;
+		synchronized (this) {
+			if (bvh == null)
+				bvh = new BoundingVolumeHierarchy(List.of(shapes().shapes));
+			return bvh;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The box is taken from the current shapes, also of the nested collections, on the
+	 * first call after shapes were added.
+	 */
+	@Override
+	public BoundingBox getBoundingBox() {
+		return shapes().bounds;
 	}
 
 	@Override
 	public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+		BoundingVolumeHierarchy tree = hierarchy();
+		if (tree != null)
+			return tree.findGeoIntersectionsHelper(ray, maxDistance);
+
+		Shapes snapshot = shapes();
 		List<GeoPoint> res = null, shapeGeoPoints;
-		for (var shape : intersectableList) {
-			shapeGeoPoints = shape.findGeoIntersectionsHelper(ray, maxDistance);
+		for (int i = 0; i < snapshot.shapes.length; ++i) {
+			// Skip the shape if the ray misses its box or enters it beyond maxDistance
+			BoundingBox box = snapshot.boxes[i];
+			if (box != null && !box.intersects(ray, maxDistance))
+				continue;
+			shapeGeoPoints = snapshot.shapes[i].findGeoIntersectionsHelper(ray, maxDistance);
 			if (shapeGeoPoints != null) {
 				if (res == null) {
 					res = new LinkedList<>();
@@ -56,4 +214,77 @@ public class Geometries extends Intersectable {
 		}
 		return res;
 	}
+
+	@Override
+	protected boolean findClosestHitHelper(Ray ray, HitRecord hit) {
+		BoundingVolumeHierarchy tree = hierarchy();
+		if (tree != null)
+			return tree.findClosestHitHelper(ray, hit);
+
+		Shapes snapshot = shapes();
+		boolean found = false;
+		for (int i = 0; i < snapshot.shapes.length; ++i) {
+			// The record distance shrinks with every hit, culling the boxes behind it
+			BoundingBox box = snapshot.boxes[i];
+			if (box != null && !box.intersects(ray, hit.t))
+				continue;
+			found |= snapshot.shapes[i].findClosestHitHelper(ray, hit);
+		}
+		return found;
+	}
+
+	@Override
+	protected void findClosestHitsHelper(RayPacket packet, int first) {
+		BoundingVolumeHierarchy tree = hierarchy();
+		if (tree != null) {
+			tree.findClosestHitsHelper(packet, first);
+			return;
+		}
+
+		Shapes snapshot = shapes();
+		for (int i = 0; i < snapshot.shapes.length; ++i) {
+			BoundingBox box = snapshot.boxes[i];
+			int lane = box == null ? first : box.firstHit(packet, first);
+			if (lane >= 0)
+				snapshot.shapes[i].findClosestHitsHelper(packet, lane);
+		}
+	}
+
+	@Override
+	protected Double3 findTransparencyHelper(Ray ray, double maxDistance) {
+		BoundingVolumeHierarchy tree = hierarchy();
+		if (tree != null)
+			return tree.findTransparencyHelper(ray, maxDistance);
+
+		Shapes snapshot = shapes();
+		Double3 ktr = Double3.ONE;
+		for (int i = 0; i < snapshot.shapes.length; ++i) {
+			BoundingBox box = snapshot.boxes[i];
+			if (box != null && !box.intersects(ray, maxDistance))
+				continue;
+			ktr = multiplyTransparency(ktr, snapshot.shapes[i].findTransparencyHelper(ray, maxDistance));
+			if (ktr == Double3.ZERO)
+				return ktr;
+		}
+		return ktr;
+	}
+
+	/**
+	 * Combines the transparency accumulated so far with the transparency of another object,
+	 * multiplying only when some transparent geometry is involved.
+	 *
+	 * @param ktr the transparency accumulated so far
+	 * @param kT  the transparency of the object
+	 * @return the combined transparency - {@link Double3#ZERO} if the light is fully blocked
+	 */
+	static Double3 multiplyTransparency(Double3 ktr, Double3 kT) {
+		if (kT == Double3.ONE)
+			return ktr;
+		if (kT == Double3.ZERO)
+			return Double3.ZERO;
+		if (ktr == Double3.ONE)
+			return kT;
+		ktr = ktr.product(kT);
+		return ktr.equals(Double3.ZERO) ? Double3.ZERO : ktr;
+	}
 }
@@ -1,8 +1,10 @@
 package geometries;
 
 import primitives.Color;
+import primitives.Double3;
 import primitives.Material;
 import primitives.Point;
+import primitives.Vec3;
 import primitives.Vector;
 
 /**
@@ -62,6 +64,17 @@ public abstract class Geometry extends Intersectable {
 		return material;
 	}
 
+	/**
+	 * Retrieves the material of a face of the geometry. Geometries made of faces with
+	 * different materials (meshes) override it, the others have a single material.
+	 *
+	 * @param face the index of the face, -1 if it is unknown
+	 * @return the material of the face
+	 */
+	public Material getMaterial(int face) {
+		return material;
+	}
+
 	/**
 	 * Calculates the normal vector to the geometry at the specified point.
 	 *
@@ -69,4 +82,48 @@ public abstract class Geometry extends Intersectable {
 	 * @return the normal vector at the given point
 	 */
 	public abstract Vector getNormal(Point point);
+
+	/**
+	 * Calculates the normal vector to the geometry at the specified point of a face.
+	 * Geometries made of faces (meshes) override it to avoid looking for the face of the
+	 * point, the others have no faces.
+	 *
+	 * @param point the point on the surface of the geometry
+	 * @param face  the index of the face of the point, -1 if it is unknown
+	 * @return the normal vector at the given point
+	 */
+	public Vector getNormal(Point point, int face) {
+		return getNormal(point);
+	}
+
+	/**
+	 * Calculates the normal vector to the geometry at the specified point of a face in place,
+	 * as {@link #getNormal(Point, int)}. The default implementation calls it, so it allocates;
+	 * the common geometries override it with allocation-free code.
+	 *
+	 * @param point  the point on the surface of the geometry
+	 * @param face   the index of the face of the point, -1 if it is unknown
+	 * @param normal receives the normal vector at the given point
+	 */
+	public void getNormal(Vec3 point, int face, Vec3 normal) {
+		normal.set(getNormal(point.toPoint(), face));
+	}
+
+	/**
+	 * Calculates the transparency of the geometry for a ray crossing its surface a number
+	 * of times, as the default {@link #findTransparencyHelper(primitives.Ray, double)} does
+	 * for the intersections, but without allocating unless the geometry is transparent and
+	 * crossed twice.
+	 *
+	 * @param crossings the number of intersections of the ray with the geometry
+	 * @return the transparency coefficient
+	 */
+	Double3 transparency(int crossings) {
+		if (crossings == 0)
+			return Double3.ONE;
+		Double3 kT = getMaterial().kT;
+		if (kT.equals(Double3.ZERO))
+			return Double3.ZERO; // opaque geometry blocks the light completely
+		return crossings == 1 ? kT : kT.product(kT);
+	}
 }
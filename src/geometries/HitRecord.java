@@ -0,0 +1,135 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vec3;
+import primitives.Vector;
+
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
+/**
+ * Mutable, reusable record of the closest intersection of a ray found so far.
+ * The intersection code fills it in place instead of allocating lists of {@link Intersectable.GeoPoint}s:
+ * during the query only the distance and the geometry are updated, and the distance serves as the
+ * maximum distance for the rest of the query. The hit point and the geometric normal are calculated
+ * once, when the query completes. They are always given as scalar copies as well, which is all
+ * that an in-place query (see {@link Intersectable#findClosestHitInPlace(Ray, HitRecord)}) calculates,
+ * so that the shading of the hit does not allocate.
+ * A record is not thread-safe - each thread should use its own records.
+ *
+ * @author Shay and Asaf
+ */
+public final class HitRecord {
+	/** Distance of the hit from the ray head; the maximum distance while the query runs */
+	public double t;
+	/** The geometry that was hit, null if nothing was hit */
+	public Geometry geometry;
+	/** Index of the face that was hit in a geometry made of faces (a mesh), -1 for other geometries */
+	public int face;
+	/** The hit point, available after the query completes */
+	public Point point;
+	/** The geometric normal at the hit point, available after the query completes */
+	public Vector normal;
+	/** The hit point, available after the query completes, also after an in-place query */
+	public final Vec3 hitPoint = new Vec3();
+	/** The geometric normal at the hit point, available after the query completes, also after an in-place query */
+	public final Vec3 hitNormal = new Vec3();
+	/** Scratch array for the distances calculated by the intersection kernels */
+	private double[] distances = new double[0];
+
+	/**
+	 * Constructs an empty record with infinite maximum distance.
+	 */
+	public HitRecord() {
+		reset(Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Clears the record before a new query.
+	 *
+	 * @param maxDistance the maximum distance to consider for intersections
+	 * @return the record itself
+	 */
+	public HitRecord reset(double maxDistance) {
+		t = maxDistance;
+		geometry = null;
+		face = -1;
+		point = null;
+		normal = null;
+		return this;
+	}
+
+	/**
+	 * Checks whether an intersection at the given distance is closer than the current one.
+	 *
+	 * @param distance the distance of the intersection from the ray head
+	 * @return true if the intersection is closer
+	 */
+	public boolean isCloser(double distance) {
+		return alignZero(distance - t) < 0;
+	}
+
+	/**
+	 * Records a closer intersection.
+	 *
+	 * @param distance the distance of the intersection from the ray head
+	 * @param geometry the intersected geometry
+	 */
+	public void set(double distance, Geometry geometry) {
+		set(distance, geometry, -1);
+	}
+
+	/**
+	 * Records a closer intersection with a face of a geometry made of faces.
+	 *
+	 * @param distance the distance of the intersection from the ray head
+	 * @param geometry the intersected geometry
+	 * @param face     the index of the intersected face, -1 for a geometry without faces
+	 */
+	public void set(double distance, Geometry geometry, int face) {
+		this.t = distance;
+		this.geometry = geometry;
+		this.face = face;
+	}
+
+	/**
+	 * Retrieves the scratch array for the distances calculated by the intersection kernels,
+	 * growing it as needed.
+	 *
+	 * @param length the minimal length of the array
+	 * @return the scratch array
+	 */
+	double[] distances(int length) {
+		if (distances.length < length)
+			distances = new double[length];
+		return distances;
+	}
+
+	/**
+	 * Completes the record after the query: calculates the hit point and the normal.
+	 *
+	 * @param ray the ray of the query
+	 */
+	void complete(Ray ray) {
+		point = ray.getPoint(t);
+		normal = geometry.getNormal(point, face);
+		hitPoint.set(point);
+		hitNormal.set(normal);
+	}
+
+	/**
+	 * Completes the record after the query in place: calculates only the scalar copies of
+	 * the hit point and the normal, without allocating.
+	 *
+	 * @param ray the ray of the query
+	 */
+	void completeInPlace(Ray ray) {
+		if (isZero(t))
+			hitPoint.set(ray.getHeadX(), ray.getHeadY(), ray.getHeadZ());
+		else
+			hitPoint.set(ray.getHeadX() + ray.getDirectionX() * t, ray.getHeadY() + ray.getDirectionY() * t,
+					ray.getHeadZ() + ray.getDirectionZ() * t);
+		geometry.getNormal(hitPoint, face, hitNormal);
+	}
+}
@@ -1,5 +1,6 @@
 package geometries;
 
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
@@ -105,6 +106,174 @@ public abstract class Intersectable {
 		return findGeoIntersectionsHelper(ray, maxDistance);
 	}
 
+	/**
+	 * Finds the intersection of the ray with this object which is closest to the ray head.
+	 *
+	 * @param ray the ray used for intersection
+	 * @return the closest intersection, or null if there is none
+	 */
+	public final GeoPoint findClosestGeoIntersection(Ray ray) {
+		return findClosestGeoIntersection(ray, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Finds the intersection of the ray with this object which is closest to the ray head,
+	 * considering a specified maximum distance.
+	 *
+	 * @param ray         the ray used for intersection
+	 * @param maxDistance the maximum distance to consider for intersections
+	 * @return the closest intersection, or null if there is none
+	 */
+	public final GeoPoint findClosestGeoIntersection(Ray ray, double maxDistance) {
+		HitRecord hit = new HitRecord().reset(maxDistance);
+		return findClosestHitHelper(ray, hit) ? new GeoPoint(hit.geometry, ray.getPoint(hit.t)) : null;
+	}
+
+	/**
+	 * Finds the intersection of the ray with this object which is closest to the ray head,
+	 * filling the given record in place. The current distance of the record is the maximum
+	 * distance to consider, so the record should be {@link HitRecord#reset(double) reset} first.
+	 * On success the hit point and the normal of the record are calculated as well.
+	 *
+	 * @param ray the ray used for intersection
+	 * @param hit the record to fill
+	 * @return true if an intersection was found
+	 */
+	public final boolean findClosestHit(Ray ray, HitRecord hit) {
+		if (!findClosestHitHelper(ray, hit))
+			return false;
+		hit.complete(ray);
+		return true;
+	}
+
+	/**
+	 * Finds the intersection of the ray with this object which is closest to the ray head,
+	 * as {@link #findClosestHit(Ray, HitRecord)}, but calculates only the scalar copies of the
+	 * hit point and the normal ({@link HitRecord#hitPoint} and {@link HitRecord#hitNormal}),
+	 * so the query does not allocate for geometries with allocation-free normals.
+	 *
+	 * @param ray the ray used for intersection
+	 * @param hit the record to fill
+	 * @return true if an intersection was found
+	 */
+	public final boolean findClosestHitInPlace(Ray ray, HitRecord hit) {
+		if (!findClosestHitHelper(ray, hit))
+			return false;
+		hit.completeInPlace(ray);
+		return true;
+	}
+
+	/**
+	 * A helper method for the closest-hit query. If the object has an intersection closer than
+	 * the current distance of the record, it updates the distance and the geometry of the record.
+	 * Geometries override it with allocation-free code. Collections keep only the best hit and pass
+	 * its distance down as the maximum distance to every subsequent child, so farther geometry is
+	 * culled early.
+	 * The default implementation picks the closest of the intersections of this object.
+	 *
+	 * @param ray the ray used for intersection
+	 * @param hit the record holding the closest hit so far
+	 * @return true if the record was updated
+	 */
+	protected boolean findClosestHitHelper(Ray ray, HitRecord hit) {
+		List<GeoPoint> intersections = findGeoIntersectionsHelper(ray, hit.t);
+		if (intersections == null)
+			return false;
+
+		boolean found = false;
+		for (GeoPoint gp : intersections) {
+			double distance = ray.getHead().distance(gp.point);
+			if (distance < hit.t) {
+				hit.set(distance, gp.geometry);
+				found = true;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Finds the closest intersections of all the rays of a packet with this object,
+	 * filling the results of the packet lanes in place. The current distance of every lane
+	 * is its maximum distance to consider.
+	 *
+	 * @param packet the ray packet
+	 */
+	public final void findClosestHits(RayPacket packet) {
+		if (packet.size > 0)
+			findClosestHitsHelper(packet, 0);
+	}
+
+	/**
+	 * A helper method for the packet closest-hit query. Updates the lanes, from the given
+	 * first one on, that have an intersection with this object closer than their current
+	 * distance. Collections override it to traverse their children once for the whole
+	 * packet, and geometries to test the lanes straight from the packet arrays.
+	 * The default implementation tests the lanes one by one with
+	 * {@link #findClosestHitHelper(Ray, HitRecord)}.
+	 *
+	 * @param packet the ray packet
+	 * @param first  the first lane that may hit this object
+	 */
+	protected void findClosestHitsHelper(RayPacket packet, int first) {
+		HitRecord hit = packet.laneHit;
+		for (int lane = first; lane < packet.size; ++lane) {
+			hit.reset(packet.t[lane]);
+			if (findClosestHitHelper(packet.rays[lane], hit))
+				packet.set(lane, hit.t, hit.geometry, hit.face);
+		}
+	}
+
+	/**
+	 * Occlusion (any-hit) query: calculates the transparency coefficient along the ray,
+	 * i.e. the product of the kT coefficients of all the geometries the ray passes through
+	 * before the given distance. Used for shadow rays, where the distance is the distance to the light.
+	 *
+	 * @param ray         the ray
+	 * @param maxDistance the maximum distance to consider (e.g. the distance to the light source)
+	 * @return {@link Double3#ONE} if nothing blocks the ray, {@link Double3#ZERO} if it is fully blocked,
+	 *         or the accumulated transparency coefficient otherwise
+	 */
+	public final Double3 findTransparency(Ray ray, double maxDistance) {
+		return findTransparencyHelper(ray, maxDistance);
+	}
+
+	/**
+	 * A helper method for the occlusion query. The default implementation checks the intersections
+	 * of this object: it stops at the first opaque one and multiplies the kT coefficients only for
+	 * the transparent ones. Collections override it to stop at the first opaque child.
+	 *
+	 * @param ray         the ray
+	 * @param maxDistance the maximum distance to consider
+	 * @return the transparency coefficient, see {@link #findTransparency(Ray, double)}
+	 */
+	protected Double3 findTransparencyHelper(Ray ray, double maxDistance) {
+		List<GeoPoint> intersections = findGeoIntersectionsHelper(ray, maxDistance);
+		if (intersections == null)
+			return Double3.ONE;
+
+		Double3 ktr = Double3.ONE;
+		for (GeoPoint gp : intersections) {
+			Double3 kT = gp.geometry.getMaterial().kT;
+			if (kT.equals(Double3.ZERO))
+				return Double3.ZERO; // opaque geometry blocks the light completely
+			ktr = ktr.product(kT);
+		}
+		return ktr;
+	}
+
+	/**
+	 * Returns the axis-aligned bounding box enclosing this object.
+	 * Every intersection point the object may return must lie inside the box, so that
+	 * acceleration structures and {@link Geometries} can skip the object for rays that
+	 * miss the box or enter it beyond the maximum distance.
+	 * The default implementation treats the object as unbounded.
+	 *
+	 * @return the bounding box, or null if the object is unbounded (e.g. a plane)
+	 */
+	public BoundingBox getBoundingBox() {
+		return null;
+	}
+
 	/**
 	 * A helper method for subclasses to implement specific intersection logic.
 	 *
@@ -0,0 +1,231 @@
+package geometries;
+
+import java.util.Arrays;
+
+/**
+ * Batch intersection kernel: intersects a ray with a whole batch of spheres or triangles
+ * kept in flat arrays ({@link SphereBatch}, {@link TriangleBatch}), or a whole packet of
+ * rays with a single primitive of a batch. The distances of the intersections are written
+ * to an array, NaN where there is no intersection closer than the maximum distance.
+ * The calculations are the same as those of {@link Sphere} and {@link Triangle}, operation
+ * by operation, so every kernel gives exactly the same distances as the geometries.
+ * <p>
+ * The default kernel uses the SIMD instructions of the CPU through the incubating vector
+ * API ({@code jdk.incubator.vector}) when the module is available (the program runs with
+ * {@code --add-modules jdk.incubator.vector}) and its vectors hold at least
+ * {@value #MIN_VECTOR_LANES} doubles, and falls back to a scalar kernel otherwise: with 128-bit
+ * vectors (2 doubles) the masks and the padding cost more than the lanes save.
+ * The vector kernel is kept in the separate source root {@code src-vector}, compiled only
+ * with the module, and loaded by reflection, so this class and the geometries using it
+ * neither compile nor run against the module.
+ * The system property {@code geometries.kernel} forces a kernel: {@code scalar}, or
+ * {@code vector} for the vector kernel of any width.
+ *
+ * @author Shay and Asaf
+ */
+public abstract class IntersectionKernel {
+	/** Multiple of the lengths of the batch arrays, the widest vector in doubles */
+	static final int PADDING = 8;
+	/** Minimal number of doubles in a vector for the vector kernel to be the default */
+	static final int MIN_VECTOR_LANES = 4;
+
+	/** The kernel used by the acceleration structures */
+	private static final IntersectionKernel DEFAULT = load();
+
+	/**
+	 * Retrieves the kernel used by the acceleration structures: the vector kernel if the
+	 * vector API is available and the vectors are wide enough, the scalar one otherwise.
+	 *
+	 * @return the default kernel
+	 */
+	public static IntersectionKernel getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Retrieves the scalar kernel, which intersects the primitives one by one.
+	 *
+	 * @return the scalar kernel
+	 */
+	public static IntersectionKernel scalar() {
+		return ScalarKernel.INSTANCE;
+	}
+
+	/**
+	 * Retrieves the vector kernel. Its width is fixed for the whole program by the system
+	 * property {@code geometries.vector.bits}: 128, 256 or 512 bits, the preferred width of
+	 * the CPU by default.
+	 *
+	 * @return the vector kernel
+	 * @throws UnsupportedOperationException if the vector API is not available or the width
+	 *                                       is not supported
+	 */
+	public static IntersectionKernel vector() {
+		if (VectorHolder.FAILURE != null)
+			throw new UnsupportedOperationException("Vector API is not available", VectorHolder.FAILURE);
+		return VectorHolder.KERNEL;
+	}
+
+	/**
+	 * Holder of the vector kernel, loaded on first use.
+	 */
+	private static final class VectorHolder {
+		/** The vector kernel, null if it is not available */
+		static final IntersectionKernel KERNEL;
+		/** The reason the vector kernel is not available, null if it is */
+		static final Throwable FAILURE;
+
+		static {
+			IntersectionKernel kernel = null;
+			Throwable failure = null;
+			try {
+				kernel = (IntersectionKernel) Class.forName("geometries.VectorKernel").getDeclaredConstructor()
+						.newInstance();
+			} catch (ReflectiveOperationException | LinkageError e) {
+				failure = e;
+			}
+			KERNEL = kernel;
+			FAILURE = failure;
+		}
+	}
+
+	/**
+	 * Loads the default kernel.
+	 *
+	 * @return the vector kernel if it is available, allowed and wide enough, the scalar kernel
+	 *         otherwise
+	 */
+	private static IntersectionKernel load() {
+		String forced = System.getProperty("geometries.kernel");
+		if ("scalar".equals(forced))
+			return scalar();
+		try {
+			IntersectionKernel kernel = vector();
+			return "vector".equals(forced) || kernel.lanes() >= MIN_VECTOR_LANES ? kernel : scalar();
+		} catch (UnsupportedOperationException e) {
+			return scalar();
+		}
+	}
+
+	/**
+	 * Rounds a number of primitives up to the padded length of the batch arrays.
+	 *
+	 * @param count the number of primitives
+	 * @return the padded length
+	 */
+	static int paddedLength(int count) {
+		return (count + PADDING - 1) / PADDING * PADDING;
+	}
+
+	/**
+	 * Creates an array of a batch, filled with NaN so the padding primitives are never hit.
+	 *
+	 * @param length the padded length
+	 * @return the array
+	 */
+	static double[] padded(int length) {
+		double[] array = new double[length];
+		Arrays.fill(array, Double.NaN);
+		return array;
+	}
+
+	/**
+	 * Retrieves the name of the kernel, for reports.
+	 *
+	 * @return the name
+	 */
+	public abstract String name();
+
+	/**
+	 * Retrieves the number of primitives (or rays) the kernel tests at once.
+	 *
+	 * @return the number of lanes, 1 for the scalar kernel
+	 */
+	public abstract int lanes();
+
+	/**
+	 * Intersects a ray, given by its raw coordinates, with all the spheres of a batch.
+	 *
+	 * @param batch       the spheres
+	 * @param ox          x coordinate of the ray head
+	 * @param oy          y coordinate of the ray head
+	 * @param oz          z coordinate of the ray head
+	 * @param dx          x coordinate of the ray direction
+	 * @param dy          y coordinate of the ray direction
+	 * @param dz          z coordinate of the ray direction
+	 * @param maxDistance the maximum distance to consider for intersections
+	 * @param distances   receives the distance of the first intersection with every sphere in
+	 *                    front of the ray head, or NaN; the kernel may write any entry up to
+	 *                    {@link SphereBatch#paddedSize()} entries from the offset
+	 * @param offset      the index in distances of the first sphere
+	 */
+	public abstract void intersect(SphereBatch batch, double ox, double oy, double oz, double dx, double dy,
+								   double dz, double maxDistance, double[] distances, int offset);
+
+	/**
+	 * Intersects a ray, given by its raw coordinates, with all the triangles of a batch.
+	 *
+	 * @param batch       the triangles
+	 * @param ox          x coordinate of the ray head
+	 * @param oy          y coordinate of the ray head
+	 * @param oz          z coordinate of the ray head
+	 * @param dx          x coordinate of the ray direction
+	 * @param dy          y coordinate of the ray direction
+	 * @param dz          z coordinate of the ray direction
+	 * @param maxDistance the maximum distance to consider for intersections
+	 * @param distances   receives the distance of the intersection with every triangle, or
+	 *                    NaN; the kernel may write any entry up to
+	 *                    {@link TriangleBatch#paddedSize()} entries from the offset
+	 * @param offset      the index in distances of the first triangle
+	 */
+	public abstract void intersect(TriangleBatch batch, double ox, double oy, double oz, double dx, double dy,
+								   double dz, double maxDistance, double[] distances, int offset);
+
+	/**
+	 * Intersects the rays of the lanes of a packet with a sphere of a batch, each up to the
+	 * current distance of its lane.
+	 *
+	 * @param batch     the spheres
+	 * @param index     the index of the sphere in the batch
+	 * @param packet    the ray packet
+	 * @param first     the first lane to test
+	 * @param distances receives the distance of the intersection of every lane from the first
+	 *                  one, or NaN, at the index of the lane; the kernel may write any entry
+	 *                  up to the capacity of the packet rounded up to a multiple of 8
+	 */
+	public abstract void intersect(SphereBatch batch, int index, RayPacket packet, int first, double[] distances);
+
+	/**
+	 * Intersects the rays of the lanes of a packet with a triangle of a batch, each up to the
+	 * current distance of its lane.
+	 *
+	 * @param batch     the triangles
+	 * @param index     the index of the triangle in the batch
+	 * @param packet    the ray packet
+	 * @param first     the first lane to test
+	 * @param distances receives the distance of the intersection of every lane from the first
+	 *                  one, or NaN, at the index of the lane; the kernel may write any entry
+	 *                  up to the capacity of the packet rounded up to a multiple of 8
+	 */
+	public abstract void intersect(TriangleBatch batch, int index, RayPacket packet, int first, double[] distances);
+
+	/**
+	 * Slab test of the rays of a range of lanes of a packet against a box, each up to the
+	 * current distance of its lane, as {@link BoundingBox#entryDistance(Ray, double)}.
+	 *
+	 * @param box     the box
+	 * @param packet  the ray packet
+	 * @param from    the first lane to test
+	 * @param to      the lane after the last one to test
+	 * @param entries receives the entry distance of every lane of the range, or positive
+	 *                infinity, at the index of the lane; the kernel may write any entry from
+	 *                the first lane rounded down to a multiple of {@link #lanes()} up to the
+	 *                last lane rounded up to a multiple of {@link #lanes()}
+	 */
+	public abstract void entryDistances(BoundingBox box, RayPacket packet, int from, int to, double[] entries);
+
+	@Override
+	public String toString() {
+		return name();
+	}
+}
@@ -1,7 +1,9 @@
 package geometries;
 
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
+import primitives.Vec3;
 import primitives.Vector;
 
 import java.util.List;
@@ -25,11 +27,8 @@ public class Plane extends Geometry {
 	 */
 	public Plane(Point q, Vector normal) {
 		this.q = q;
-		// Avoid normalizing if the vector is already normalized
-		if (normal.lengthSquared() != 1) {
-			normal = normal.normalize();
-		}
-		this.normal = normal;
+		// A vector that is known to be normalized is kept as it is
+		this.normal = normal.isNormalized() ? normal : normal.normalize();
 	}
 
 	/**
@@ -54,6 +53,11 @@ public class Plane extends Geometry {
 		return normal;
 	}
 
+	@Override
+	public void getNormal(Vec3 point, int face, Vec3 normal) {
+		normal.set(this.normal);
+	}
+
 	/**
 	 * Retrieves the normal vector of the plane.
 	 *
@@ -63,24 +67,88 @@ public class Plane extends Geometry {
 		return normal;
 	}
 
-	@Override
-	public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-		// Check if the ray starts from the plane's reference point
-		if (q.equals(ray.getHead())) {
-			return null;
-		}
+	/**
+	 * Calculates the distance along the ray to its intersection with the plane,
+	 * without allocating intermediate points or vectors.
+	 *
+	 * @param ray         the ray
+	 * @param maxDistance the maximum distance to consider
+	 * @return the distance, or NaN if there is no intersection closer than maxDistance
+	 */
+	double intersectionDistance(Ray ray, double maxDistance) {
+		return intersectionDistance(ray.getHeadX(), ray.getHeadY(), ray.getHeadZ(), ray.getDirectionX(), ray.getDirectionY(), ray.getDirectionZ(),
+				maxDistance);
+	}
 
+	/**
+	 * Calculates the distance along a ray given by its raw coordinates to its intersection
+	 * with the plane, see {@link #intersectionDistance(Ray, double)}.
+	 *
+	 * @param ox          x coordinate of the ray head
+	 * @param oy          y coordinate of the ray head
+	 * @param oz          z coordinate of the ray head
+	 * @param dx          x coordinate of the ray direction
+	 * @param dy          y coordinate of the ray direction
+	 * @param dz          z coordinate of the ray direction
+	 * @param maxDistance the maximum distance to consider
+	 * @return the distance, or NaN if there is no intersection closer than maxDistance
+	 */
+	double intersectionDistance(double ox, double oy, double oz, double dx, double dy, double dz,
+								double maxDistance) {
 		// Check if the ray is parallel to the plane
-		if (isZero(normal.dotProduct(ray.getDirection()))) {
-			return null;
+		double nd = normal.getX() * dx + normal.getY() * dy + normal.getZ() * dz;
+		if (isZero(nd)) {
+			return Double.NaN;
 		}
 
-		// Calculate the scalar t for the intersection point
-		double t = normal.dotProduct(q.subtract(ray.getHead())) / normal.dotProduct(ray.getDirection());
+		// Calculate the scalar t for the intersection point: n * (q - head) / (n * dir)
+		double t = (normal.getX() * (q.getX() - ox) + normal.getY() * (q.getY() - oy)
+				+ normal.getZ() * (q.getZ() - oz)) / nd;
 		if (t <= 0 || isZero(t) || alignZero(t - maxDistance) >= 0) {
-			return null;
+			return Double.NaN;
 		}
+		return t;
+	}
+
+	/**
+	 * Calculates the distance along the ray of a packet lane to its intersection with the
+	 * plane, closer than the current distance of the lane.
+	 *
+	 * @param packet the ray packet
+	 * @param lane   the lane
+	 * @return the distance, or NaN if there is no intersection closer than the lane distance
+	 */
+	double intersectionDistance(RayPacket packet, int lane) {
+		return intersectionDistance(packet.originX[lane], packet.originY[lane], packet.originZ[lane],
+				packet.directionX[lane], packet.directionY[lane], packet.directionZ[lane], packet.t[lane]);
+	}
+
+	@Override
+	public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+		double t = intersectionDistance(ray, maxDistance);
+		return Double.isNaN(t) ? null : List.of(new GeoPoint(this, ray.getPoint(t)));
+	}
 
-		return List.of(new GeoPoint(this, ray.getPoint(t)));
+	@Override
+	protected Double3 findTransparencyHelper(Ray ray, double maxDistance) {
+		return transparency(Double.isNaN(intersectionDistance(ray, maxDistance)) ? 0 : 1);
+	}
+
+	@Override
+	protected boolean findClosestHitHelper(Ray ray, HitRecord hit) {
+		double t = intersectionDistance(ray, hit.t);
+		if (Double.isNaN(t))
+			return false;
+		hit.set(t, this);
+		return true;
+	}
+
+	@Override
+	protected void findClosestHitsHelper(RayPacket packet, int first) {
+		for (int lane = first; lane < packet.size; ++lane) {
+			double t = intersectionDistance(packet, lane);
+			if (!Double.isNaN(t))
+				packet.set(lane, t, this);
+		}
 	}
 }
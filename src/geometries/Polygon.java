@@ -1,12 +1,13 @@
 package geometries;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import static primitives.Util.isZero;
 
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
+import primitives.Vec3;
 import primitives.Vector;
 
 /**
@@ -28,6 +29,14 @@ public class Polygon extends Geometry {
 	 */
 	private final int size;
 
+	/**
+	 * Planes through the edges, perpendicular to the polygon, four values per edge: the unit
+	 * normal, which points into the polygon, and the constant of the plane. A point of the
+	 * polygon plane is inside the polygon when it is on the inner side of all of them.
+	 * Null for a subclass with its own intersection test.
+	 */
+	private final double[] edgePlanes;
+
 	/**
 	 * Constructs a polygon using a list of vertices. The vertices must be ordered along the edge path,
 	 * and the polygon must be convex.
@@ -43,6 +52,18 @@ public class Polygon extends Geometry {
 	 *                                  </ul>
 	 */
 	public Polygon(Point... vertices) {
+		this(true, vertices);
+	}
+
+	/**
+	 * Constructs a polygon as {@link #Polygon(Point...)}, for a subclass that may have an
+	 * intersection test of its own and skip the edge planes of the polygon test.
+	 *
+	 * @param withEdgePlanes whether to calculate the edge planes of the polygon test
+	 * @param vertices       List of vertices ordered by edge path.
+	 * @throws IllegalArgumentException If the vertices do not form a valid polygon.
+	 */
+	Polygon(boolean withEdgePlanes, Point... vertices) {
 		if (vertices.length < 3) {
 			throw new IllegalArgumentException("A polygon must have at least 3 vertices.");
 		}
@@ -51,9 +72,46 @@ public class Polygon extends Geometry {
 
 		// Create the plane based on the first three vertices
 		plane = new Plane(vertices[0], vertices[1], vertices[2]);
-		if (size == 3) return; // No further checks needed for a triangle
-
 		Vector n = plane.getNormal();
+		if (size > 3) checkConvex(vertices, n); // No further checks needed for a triangle
+		edgePlanes = withEdgePlanes ? edgePlanes(vertices, n) : null;
+	}
+
+	/**
+	 * Constructs a polygon using a list of vertices. The vertices must be ordered along the edge path,
+	 * and the polygon must be convex.
+	 *
+	 * @param vertices List of vertices ordered by edge path.
+	 * @throws IllegalArgumentException If the vertices do not form a valid polygon.
+	 */
+	public Polygon(List<Point> vertices) {
+		this(vertices.toArray(new Point[0]));
+	}
+
+	@Override
+	public Vector getNormal(Point point) {
+		return plane.getNormal();
+	}
+
+	@Override
+	public void getNormal(Vec3 point, int face, Vec3 normal) {
+		normal.set(plane.getNormal());
+	}
+
+	@Override
+	public BoundingBox getBoundingBox() {
+		return new BoundingBox(vertices.toArray(new Point[0]));
+	}
+
+	/**
+	 * Checks that the vertices of a polygon with more than 3 vertices lie in the plane of the
+	 * first three, and are ordered along the edge path of a convex polygon.
+	 *
+	 * @param vertices the vertices
+	 * @param n        the normal of the plane of the first three vertices
+	 * @throws IllegalArgumentException if the vertices do not form a valid polygon
+	 */
+	private static void checkConvex(Point[] vertices, Vector n) {
 		Vector edge1 = vertices[vertices.length - 1].subtract(vertices[vertices.length - 2]);
 		Vector edge2 = vertices[0].subtract(vertices[vertices.length - 1]);
 
@@ -71,50 +129,97 @@ public class Polygon extends Geometry {
 	}
 
 	/**
-	 * Constructs a polygon using a list of vertices. The vertices must be ordered along the edge path,
-	 * and the polygon must be convex.
+	 * Calculates the planes through the edges of a convex polygon, perpendicular to it.
 	 *
-	 * @param vertices List of vertices ordered by edge path.
-	 * @throws IllegalArgumentException If the vertices do not form a valid polygon.
+	 * @param vertices the vertices ordered by edge path
+	 * @param n        the normal of the polygon plane
+	 * @return the normals into the polygon and the constants of the planes, four values per edge
 	 */
-	public Polygon(List<Point> vertices) {
-		this(vertices.toArray(new Point[0]));
+	private static double[] edgePlanes(Point[] vertices, Vector n) {
+		double[] planes = new double[vertices.length * 4];
+		for (int i = 0; i < vertices.length; ++i) {
+			Point from = vertices[i];
+			Vector normal = n.crossProduct(vertices[(i + 1) % vertices.length].subtract(from)).normalize();
+			planes[i * 4] = normal.getX();
+			planes[i * 4 + 1] = normal.getY();
+			planes[i * 4 + 2] = normal.getZ();
+			planes[i * 4 + 3] = planes[i * 4] * from.getX() + planes[i * 4 + 1] * from.getY()
+					+ planes[i * 4 + 2] * from.getZ();
+		}
+		// n x edge points into the polygon for a counterclockwise order around n, flip for a clockwise one
+		Point inner = vertices[2];
+		if (planes[0] * inner.getX() + planes[1] * inner.getY() + planes[2] * inner.getZ() - planes[3] < 0)
+			for (int i = 0; i < planes.length; ++i)
+				planes[i] = -planes[i];
+		return planes;
 	}
 
 	@Override
-	public Vector getNormal(Point point) {
-		return plane.getNormal();
+	public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+		double t = intersectionDistance(ray, maxDistance);
+		return Double.isNaN(t) ? null : List.of(new GeoPoint(this, ray.getPoint(t)));
 	}
 
 	@Override
-	public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-		var list = plane.findIntersections(ray, maxDistance);
-		if (list == null) return null;
-
-		List<Vector> vs = new ArrayList<>(size);
-		for (Point vertex : vertices) {
-			vs.add(vertex.subtract(ray.getHead()));
-		}
+	protected Double3 findTransparencyHelper(Ray ray, double maxDistance) {
+		return transparency(Double.isNaN(intersectionDistance(ray, maxDistance)) ? 0 : 1);
+	}
 
-		List<Double> ts = new ArrayList<>(size);
-		List<Vector> ns = new ArrayList<>(size);
-		for (int i = 0; i < size; i++) {
-			ns.add(vs.get(i).crossProduct(vs.get((i + 1) % size)));
-		}
+	@Override
+	protected boolean findClosestHitHelper(Ray ray, HitRecord hit) {
+		double t = intersectionDistance(ray, hit.t);
+		if (Double.isNaN(t)) return false;
+		hit.set(t, this);
+		return true;
+	}
 
-		for (Vector n : ns) {
-			ts.add(n.dotProduct(ray.getDirection()));
+	@Override
+	protected void findClosestHitsHelper(RayPacket packet, int first) {
+		for (int lane = first; lane < packet.size; ++lane) {
+			double t = intersectionDistance(packet.originX[lane], packet.originY[lane], packet.originZ[lane],
+					packet.directionX[lane], packet.directionY[lane], packet.directionZ[lane], packet.t[lane]);
+			if (!Double.isNaN(t)) packet.set(lane, t, this);
 		}
+	}
 
-		int flag;
-		if (isZero(ts.getFirst())) return null;
-		flag = ts.getFirst() > 0 ? 1 : -1;
+	/**
+	 * Calculates the distance along the ray to its intersection with the polygon,
+	 * without allocating intermediate points or vectors.
+	 *
+	 * @param ray         the ray
+	 * @param maxDistance the maximum distance to consider
+	 * @return the distance, or NaN if there is no intersection closer than maxDistance
+	 */
+	private double intersectionDistance(Ray ray, double maxDistance) {
+		return intersectionDistance(ray.getHeadX(), ray.getHeadY(), ray.getHeadZ(), ray.getDirectionX(), ray.getDirectionY(), ray.getDirectionZ(),
+				maxDistance);
+	}
 
-		for (Double t : ts) {
-			if (isZero(t)) return null;
-			if ((t > 0 && flag == -1) || (t < 0 && flag == 1)) return null;
+	/**
+	 * Calculates the distance along a ray given by its raw coordinates to its intersection
+	 * with the polygon: the intersection with the plane, which must be inside all the edges
+	 * (excluding the edges themselves).
+	 *
+	 * @param ox          x coordinate of the ray head
+	 * @param oy          y coordinate of the ray head
+	 * @param oz          z coordinate of the ray head
+	 * @param dx          x coordinate of the ray direction
+	 * @param dy          y coordinate of the ray direction
+	 * @param dz          z coordinate of the ray direction
+	 * @param maxDistance the maximum distance to consider
+	 * @return the distance, or NaN if there is no intersection closer than maxDistance
+	 */
+	private double intersectionDistance(double ox, double oy, double oz, double dx, double dy, double dz,
+										double maxDistance) {
+		double t = plane.intersectionDistance(ox, oy, oz, dx, dy, dz, maxDistance);
+		if (Double.isNaN(t)) return t;
+
+		// The hit point is calculated as Ray#getPoint does
+		double px = ox + dx * t, py = oy + dy * t, pz = oz + dz * t;
+		for (int i = 0; i < edgePlanes.length; i += 4) {
+			double distance = edgePlanes[i] * px + edgePlanes[i + 1] * py + edgePlanes[i + 2] * pz - edgePlanes[i + 3];
+			if (distance <= 0 || isZero(distance)) return Double.NaN;
 		}
-
-		return List.of(new GeoPoint(this, list.getFirst()));
+		return t;
 	}
 }
@@ -0,0 +1,182 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import static primitives.Util.alignZero;
+
+/**
+ * Packet of coherent rays traced together through the scene, such as the primary rays of
+ * a block of neighbouring pixels. The heads and the directions of the rays are kept in
+ * structure-of-arrays form - an array per coordinate - and so are the results: the
+ * distance and the geometry of the closest hit of every ray (lane) of the packet.
+ * The traversal of a packet visits a node of an acceleration structure once for all the
+ * lanes, and goes on while any lane may still hit something in it. It starts the tests of
+ * a node from the first lane that entered its parent, so lanes that already missed are
+ * skipped cheaply. The arrays are padded to a multiple of 8 lanes, so that vector kernels
+ * of any width can process the lanes as whole vectors.
+ * A packet is not thread-safe - each thread should use its own packets.
+ *
+ * @author Shay and Asaf
+ */
+public class RayPacket {
+	/** The rays of the lanes */
+	final Ray[] rays;
+	/** Coordinates of the heads of the rays */
+	final double[] originX, originY, originZ;
+	/** Coordinates of the directions of the rays */
+	final double[] directionX, directionY, directionZ;
+	/** Distance of the closest hit of every lane; the maximum distance while the query runs */
+	final double[] t;
+	/** Geometry of the closest hit of every lane, null if nothing was hit */
+	final Geometry[] geometries;
+	/** Face of the closest hit of every lane in a geometry made of faces, -1 for other geometries */
+	final int[] faces;
+	/** Scratch array for the distances calculated by the intersection kernels, per lane */
+	final double[] distances;
+	/** Scratch array for the box entry distances calculated by the intersection kernels, per lane */
+	final double[] entries;
+	/** Record used for testing the lanes one by one against objects without a packet test */
+	final HitRecord laneHit = new HitRecord();
+	/** Number of lanes in use */
+	int size = 0;
+
+	/**
+	 * Constructs an empty packet.
+	 *
+	 * @param capacity the maximal number of rays in the packet
+	 * @throws IllegalArgumentException if the capacity is not positive
+	 */
+	public RayPacket(int capacity) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("Packet capacity must be positive");
+		rays = new Ray[capacity];
+		int length = IntersectionKernel.paddedLength(capacity);
+		originX = new double[length];
+		originY = new double[length];
+		originZ = new double[length];
+		directionX = new double[length];
+		directionY = new double[length];
+		directionZ = new double[length];
+		t = new double[length];
+		distances = new double[length];
+		entries = new double[length];
+		geometries = new Geometry[capacity];
+		faces = new int[capacity];
+	}
+
+	/**
+	 * Retrieves the maximal number of rays in the packet.
+	 *
+	 * @return the capacity of the packet
+	 */
+	public int capacity() {
+		return rays.length;
+	}
+
+	/**
+	 * Retrieves the number of rays in the packet.
+	 *
+	 * @return the number of lanes in use
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes all the rays from the packet.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Adds a ray to the packet, with infinite maximum distance.
+	 *
+	 * @param ray the ray
+	 * @return the lane of the ray
+	 * @throws IllegalStateException if the packet is full
+	 */
+	public int add(Ray ray) {
+		if (size == rays.length)
+			throw new IllegalStateException("Ray packet is full");
+		Point head = ray.getHead();
+		Vector direction = ray.getDirection();
+		int lane = size++;
+		rays[lane] = ray;
+		originX[lane] = head.getX();
+		originY[lane] = head.getY();
+		originZ[lane] = head.getZ();
+		directionX[lane] = direction.getX();
+		directionY[lane] = direction.getY();
+		directionZ[lane] = direction.getZ();
+		t[lane] = Double.POSITIVE_INFINITY;
+		geometries[lane] = null;
+		return lane;
+	}
+
+	/**
+	 * Retrieves the ray of a lane.
+	 *
+	 * @param lane the lane
+	 * @return the ray
+	 */
+	public Ray getRay(int lane) {
+		return rays[lane];
+	}
+
+	/**
+	 * Copies the closest hit of a lane into a hit record, and completes the record with
+	 * the hit point and the normal.
+	 *
+	 * @param lane the lane
+	 * @param hit  the record to fill
+	 * @return true if the ray of the lane hit something
+	 */
+	public boolean getHit(int lane, HitRecord hit) {
+		hit.reset(t[lane]);
+		if (geometries[lane] == null)
+			return false;
+		hit.set(t[lane], geometries[lane], faces[lane]);
+		hit.complete(rays[lane]);
+		return true;
+	}
+
+	/**
+	 * Checks whether an intersection at the given distance is closer than the current hit
+	 * of a lane.
+	 *
+	 * @param lane     the lane
+	 * @param distance the distance of the intersection from the ray head
+	 * @return true if the intersection is closer
+	 */
+	boolean isCloser(int lane, double distance) {
+		return alignZero(distance - t[lane]) < 0;
+	}
+
+	/**
+	 * Records a closer intersection of a lane.
+	 *
+	 * @param lane     the lane
+	 * @param distance the distance of the intersection from the ray head
+	 * @param geometry the intersected geometry
+	 */
+	void set(int lane, double distance, Geometry geometry) {
+		set(lane, distance, geometry, -1);
+	}
+
+	/**
+	 * Records a closer intersection of a lane with a face of a geometry made of faces.
+	 *
+	 * @param lane     the lane
+	 * @param distance the distance of the intersection from the ray head
+	 * @param geometry the intersected geometry
+	 * @param face     the index of the intersected face, -1 for a geometry without faces
+	 */
+	void set(int lane, double distance, Geometry geometry, int face) {
+		t[lane] = distance;
+		geometries[lane] = geometry;
+		faces[lane] = face;
+	}
+}
@@ -0,0 +1,104 @@
+package geometries;
+
+import static primitives.Util.alignZero;
+
+/**
+ * Scalar batch intersection kernel, intersecting the primitives of a batch one by one.
+ * It is the fallback where the vector API is not available, and the reference of the
+ * vector kernels: they perform the same operations in the same order on whole vectors.
+ *
+ * @author Shay and Asaf
+ */
+final class ScalarKernel extends IntersectionKernel {
+	/** The single instance of the kernel */
+	static final ScalarKernel INSTANCE = new ScalarKernel();
+
+	/** Use {@link IntersectionKernel#scalar()} */
+	private ScalarKernel() {
+	}
+
+	@Override
+	public String name() {
+		return "scalar";
+	}
+
+	@Override
+	public int lanes() {
+		return 1;
+	}
+
+	@Override
+	public void intersect(SphereBatch batch, double ox, double oy, double oz, double dx, double dy, double dz,
+						  double maxDistance, double[] distances, int offset) {
+		for (int i = 0; i < batch.spheres.length; ++i)
+			distances[offset + i] = sphere(batch, i, ox, oy, oz, dx, dy, dz, maxDistance);
+	}
+
+	@Override
+	public void intersect(TriangleBatch batch, double ox, double oy, double oz, double dx, double dy, double dz,
+						  double maxDistance, double[] distances, int offset) {
+		for (int i = 0; i < batch.triangles.length; ++i)
+			distances[offset + i] = triangle(batch, i, ox, oy, oz, dx, dy, dz, maxDistance);
+	}
+
+	@Override
+	public void intersect(SphereBatch batch, int index, RayPacket packet, int first, double[] distances) {
+		for (int lane = first; lane < packet.size; ++lane)
+			distances[lane] = sphere(batch, index, packet.originX[lane], packet.originY[lane], packet.originZ[lane],
+					packet.directionX[lane], packet.directionY[lane], packet.directionZ[lane], packet.t[lane]);
+	}
+
+	@Override
+	public void intersect(TriangleBatch batch, int index, RayPacket packet, int first, double[] distances) {
+		for (int lane = first; lane < packet.size; ++lane)
+			distances[lane] = triangle(batch, index, packet.originX[lane], packet.originY[lane],
+					packet.originZ[lane], packet.directionX[lane], packet.directionY[lane], packet.directionZ[lane],
+					packet.t[lane]);
+	}
+
+	@Override
+	public void entryDistances(BoundingBox box, RayPacket packet, int from, int to, double[] entries) {
+		for (int lane = from; lane < to; ++lane)
+			entries[lane] = box.entryDistance(packet, lane);
+	}
+
+	/**
+	 * Intersects a ray with a sphere of a batch.
+	 *
+	 * @param batch       the spheres
+	 * @param i           the index of the sphere
+	 * @param ox          x coordinate of the ray head
+	 * @param oy          y coordinate of the ray head
+	 * @param oz          z coordinate of the ray head
+	 * @param dx          x coordinate of the ray direction
+	 * @param dy          y coordinate of the ray direction
+	 * @param dz          z coordinate of the ray direction
+	 * @param maxDistance the maximum distance to consider for intersections
+	 * @return the distance, or NaN if there is no intersection closer than the maximum distance
+	 */
+	private static double sphere(SphereBatch batch, int i, double ox, double oy, double oz, double dx, double dy,
+								 double dz, double maxDistance) {
+		double t = Sphere.intersectionDistance(batch.centerX[i], batch.centerY[i], batch.centerZ[i], batch.radius[i],
+				ox, oy, oz, dx, dy, dz);
+		return alignZero(t - maxDistance) < 0 ? t : Double.NaN;
+	}
+
+	/**
+	 * Intersects a ray with a triangle of a batch, as {@link Triangle} does.
+	 *
+	 * @param batch       the triangles
+	 * @param i           the index of the triangle
+	 * @param ox          x coordinate of the ray head
+	 * @param oy          y coordinate of the ray head
+	 * @param oz          z coordinate of the ray head
+	 * @param dx          x coordinate of the ray direction
+	 * @param dy          y coordinate of the ray direction
+	 * @param dz          z coordinate of the ray direction
+	 * @param maxDistance the maximum distance to consider for intersections
+	 * @return the distance, or NaN if there is no intersection closer than the maximum distance
+	 */
+	private static double triangle(TriangleBatch batch, int i, double ox, double oy, double oz, double dx, double dy,
+								   double dz, double maxDistance) {
+		return batch.triangles[i].intersectionDistance(ox, oy, oz, dx, dy, dz, maxDistance);
+	}
+}
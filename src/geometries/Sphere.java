@@ -1,7 +1,9 @@
 package geometries;
 
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
+import primitives.Vec3;
 import primitives.Vector;
 
 import java.util.List;
@@ -28,11 +30,31 @@ public class Sphere extends RadialGeometry {
 		this.center = center;
 	}
 
+	/**
+	 * Retrieves the center of the sphere.
+	 *
+	 * @return the center point
+	 */
+	Point getCenter() {
+		return center;
+	}
+
 	@Override
 	public Vector getNormal(Point point) {
 		return point.subtract(center).normalize();
 	}
 
+	@Override
+	public void getNormal(Vec3 point, int face, Vec3 normal) {
+		normal.set(point).subtract(center).normalize();
+	}
+
+	@Override
+	public BoundingBox getBoundingBox() {
+		return new BoundingBox(center.getX() - radius, center.getY() - radius, center.getZ() - radius,
+				center.getX() + radius, center.getY() + radius, center.getZ() + radius);
+	}
+
 	@Override
 	public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
 		if (center.equals(ray.getHead())) {
@@ -70,4 +92,85 @@ public class Sphere extends RadialGeometry {
 
 		return null;
 	}
+
+	@Override
+	protected Double3 findTransparencyHelper(Ray ray, double maxDistance) {
+		// Counts the intersections exactly as findGeoIntersectionsHelper finds them
+		double ux = center.getX() - ray.getHeadX(), uy = center.getY() - ray.getHeadY(), uz = center.getZ() - ray.getHeadZ();
+		if (isZero(ux) && isZero(uy) && isZero(uz))
+			return transparency(1);
+
+		double tm = ux * ray.getDirectionX() + uy * ray.getDirectionY() + uz * ray.getDirectionZ();
+		double d = Math.sqrt(ux * ux + uy * uy + uz * uz - tm * tm);
+		if (d >= radius || isZero(d - radius))
+			return Double3.ONE;
+
+		double th = Math.sqrt(radius * radius - d * d);
+		if (tm + th < 0 || isZero(tm + th))
+			return Double3.ONE;
+		boolean farInRange = alignZero(tm + th - maxDistance) < 0;
+		if (tm - th < 0 || isZero(tm - th))
+			return transparency(farInRange ? 1 : 0);
+		return transparency(farInRange ? 2 : alignZero(tm - th - maxDistance) < 0 ? 1 : 0);
+	}
+
+	@Override
+	protected boolean findClosestHitHelper(Ray ray, HitRecord hit) {
+		double t = intersectionDistance(center.getX(), center.getY(), center.getZ(), radius,
+				ray.getHeadX(), ray.getHeadY(), ray.getHeadZ(), ray.getDirectionX(), ray.getDirectionY(), ray.getDirectionZ());
+		if (Double.isNaN(t) || !hit.isCloser(t)) {
+			return false;
+		}
+		hit.set(t, this);
+		return true;
+	}
+
+	@Override
+	protected void findClosestHitsHelper(RayPacket packet, int first) {
+		for (int lane = first; lane < packet.size; ++lane) {
+			double t = intersectionDistance(center.getX(), center.getY(), center.getZ(), radius,
+					packet.originX[lane], packet.originY[lane], packet.originZ[lane],
+					packet.directionX[lane], packet.directionY[lane], packet.directionZ[lane]);
+			if (!Double.isNaN(t) && packet.isCloser(lane, t))
+				packet.set(lane, t, this);
+		}
+	}
+
+	/**
+	 * Calculates the distance along a ray given by its raw coordinates to its first
+	 * intersection with a sphere given by its raw coordinates, in front of the ray head.
+	 * Same calculation as findGeoIntersectionsHelper, on scalars only.
+	 *
+	 * @param cx     x coordinate of the center
+	 * @param cy     y coordinate of the center
+	 * @param cz     z coordinate of the center
+	 * @param radius the radius
+	 * @param ox     x coordinate of the ray head
+	 * @param oy     y coordinate of the ray head
+	 * @param oz     z coordinate of the ray head
+	 * @param dx     x coordinate of the ray direction
+	 * @param dy     y coordinate of the ray direction
+	 * @param dz     z coordinate of the ray direction
+	 * @return the distance, or NaN if the ray misses the sphere
+	 */
+	static double intersectionDistance(double cx, double cy, double cz, double radius,
+									   double ox, double oy, double oz, double dx, double dy, double dz) {
+		double ux = cx - ox, uy = cy - oy, uz = cz - oz;
+		if (isZero(ux) && isZero(uy) && isZero(uz)) {
+			return radius; // the head is the center
+		}
+
+		double tm = ux * dx + uy * dy + uz * dz;
+		double d = Math.sqrt(ux * ux + uy * uy + uz * uz - tm * tm);
+		if (d >= radius || isZero(d - radius)) {
+			return Double.NaN;
+		}
+
+		double th = Math.sqrt(radius * radius - d * d);
+		if (tm + th < 0 || isZero(tm + th)) {
+			return Double.NaN;
+		}
+		// The near intersection if it is in front of the head, otherwise the far one
+		return tm - th < 0 || isZero(tm - th) ? tm + th : tm - th;
+	}
 }
@@ -0,0 +1,70 @@
+package geometries;
+
+import java.util.List;
+
+/**
+ * Batch of spheres in flat structure-of-arrays form, for the batch intersection kernels:
+ * the coordinates of the centers and the radii are kept in an array each. The arrays are
+ * padded with NaN spheres, which no ray hits, to a multiple of 8 entries, so that vector
+ * kernels of any width can process whole vectors only.
+ *
+ * @author Shay and Asaf
+ */
+public final class SphereBatch {
+	/** The spheres of the batch */
+	final Sphere[] spheres;
+	/** Coordinates of the centers */
+	final double[] centerX, centerY, centerZ;
+	/** Radii */
+	final double[] radius;
+
+	/**
+	 * Constructs a batch of spheres.
+	 *
+	 * @param spheres the spheres
+	 */
+	public SphereBatch(List<Sphere> spheres) {
+		this.spheres = spheres.toArray(new Sphere[0]);
+		int length = IntersectionKernel.paddedLength(this.spheres.length);
+		centerX = IntersectionKernel.padded(length);
+		centerY = IntersectionKernel.padded(length);
+		centerZ = IntersectionKernel.padded(length);
+		radius = IntersectionKernel.padded(length);
+		for (int i = 0; i < this.spheres.length; ++i) {
+			Sphere sphere = this.spheres[i];
+			centerX[i] = sphere.getCenter().getX();
+			centerY[i] = sphere.getCenter().getY();
+			centerZ[i] = sphere.getCenter().getZ();
+			radius[i] = sphere.radius;
+		}
+	}
+
+	/**
+	 * Retrieves the number of spheres in the batch.
+	 *
+	 * @return the number of spheres
+	 */
+	public int size() {
+		return spheres.length;
+	}
+
+	/**
+	 * Retrieves the length of the padded arrays, which is the minimal length of the arrays
+	 * receiving the distances calculated by the kernels.
+	 *
+	 * @return the padded length
+	 */
+	public int paddedSize() {
+		return radius.length;
+	}
+
+	/**
+	 * Retrieves a sphere of the batch.
+	 *
+	 * @param index the index of the sphere
+	 * @return the sphere
+	 */
+	public Sphere get(int index) {
+		return spheres[index];
+	}
+}
@@ -1,20 +1,37 @@
 package geometries;
 
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
 import java.util.List;
 
+import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
 
 /**
  * Class Triangle is the basic class representing a Triangle of Euclidean geometry in Cartesian
  * 3-Dimensional coordinate system.
+ * The intersections are found by the Möller–Trumbore algorithm in a single pass over
+ * primitive values, which calculates the distance and the barycentric coordinates of the
+ * hit together, from the first vertex and the edges that are kept at construction.
  *
  * @author Shneor and Emanuel
  */
 public class Triangle extends Polygon {
+	/** Coordinates of the first vertex */
+	final double ax, ay, az;
+	/** Coordinates of the edge from the first vertex to the second one */
+	final double e1x, e1y, e1z;
+	/** Coordinates of the edge from the first vertex to the third one */
+	final double e2x, e2y, e2z;
+	/**
+	 * Inverse of the length of the cross product of the edges, which turns the determinant
+	 * of the algorithm into the cosine between the ray and the plane normal
+	 */
+	final double inverseArea;
+
 	/**
 	 * Constructs a triangle with the specified points.
 	 *
@@ -23,51 +40,99 @@ public class Triangle extends Polygon {
 	 * @param p3 the third vertex of the triangle
 	 */
 	public Triangle(Point p1, Point p2, Point p3) {
-		super(p1, p2, p3);
+		super(false, p1, p2, p3); // the Moller-Trumbore test does not use the edge planes
+		ax = p1.getX();
+		ay = p1.getY();
+		az = p1.getZ();
+		e1x = p2.getX() - ax;
+		e1y = p2.getY() - ay;
+		e1z = p2.getZ() - az;
+		e2x = p3.getX() - ax;
+		e2y = p3.getY() - ay;
+		e2z = p3.getZ() - az;
+		double cx = e1y * e2z - e1z * e2y, cy = e1z * e2x - e1x * e2z, cz = e1x * e2y - e1y * e2x;
+		inverseArea = 1 / Math.sqrt(cx * cx + cy * cy + cz * cz);
 	}
 
-
 	@Override
-	public List<GeoPoint> findGeoIntersectionsHelper(Ray ray,double maxDistance) {
-		// Step 1: Find intersection with the plane
-		List<Point> planeIntersections = plane.findIntersections(ray,maxDistance);
-		if (planeIntersections == null) {
-			return null;
-		}
-
-		// Step 2: Check if the intersection point is inside the triangle using barycentric coordinates
-		Point P = planeIntersections.getFirst();
-
-
-		// Handle case where P coincides with one of the vertices
-		if (P.equals(vertices.get(0)) || P.equals(vertices.get(1)) || P.equals(vertices.get(2))) {
-			return null;
-		}
-
-		// Vectors from triangle vertices to the point
-		Vector v0v1 = vertices.get(1).subtract(vertices.get(0)); //AB
-		Vector v0v2 = vertices.get(2).subtract(vertices.get(0)); //AC
-		Vector v0P = P.subtract(vertices.get(0)); //AP
+	public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+		double t = intersectionDistance(ray, maxDistance);
+		return Double.isNaN(t) ? null : List.of(new GeoPoint(this, ray.getPoint(t)));
+	}
 
-		// Dot products
-		double dot00 = v0v2.dotProduct(v0v2);
-		double dot01 = v0v2.dotProduct(v0v1);
-		double dot02 = v0v2.dotProduct(v0P);
-		double dot11 = v0v1.dotProduct(v0v1);
-		double dot12 = v0v1.dotProduct(v0P);
+	@Override
+	protected Double3 findTransparencyHelper(Ray ray, double maxDistance) {
+		return transparency(Double.isNaN(intersectionDistance(ray, maxDistance)) ? 0 : 1);
+	}
 
-		// Barycentric coordinates
-		double invDenom = 1 / (dot00 * dot11 - dot01 * dot01);
-		double u = (dot11 * dot02 - dot01 * dot12) * invDenom;
-		double v = (dot00 * dot12 - dot01 * dot02) * invDenom;
+	@Override
+	protected boolean findClosestHitHelper(Ray ray, HitRecord hit) {
+		double t = intersectionDistance(ray, hit.t);
+		if (Double.isNaN(t))
+			return false;
+		hit.set(t, this);
+		return true;
+	}
 
-		// Check if point is in triangle (excluding the boundaries)
-		if (!isZero(u) && u > 0 && !isZero(v) && v > 0 && !isZero(u + v - 1) && u + v < 1) {
-			return List.of(new GeoPoint(this,P));
+	@Override
+	protected void findClosestHitsHelper(RayPacket packet, int first) {
+		for (int lane = first; lane < packet.size; ++lane) {
+			double t = intersectionDistance(packet.originX[lane], packet.originY[lane], packet.originZ[lane],
+					packet.directionX[lane], packet.directionY[lane], packet.directionZ[lane], packet.t[lane]);
+			if (!Double.isNaN(t))
+				packet.set(lane, t, this);
 		}
-		return null;
 	}
 
+	/**
+	 * Calculates the distance along the ray to its intersection with the triangle,
+	 * without allocating intermediate points or vectors.
+	 *
+	 * @param ray         the ray
+	 * @param maxDistance the maximum distance to consider
+	 * @return the distance, or NaN if there is no intersection closer than maxDistance
+	 */
+	double intersectionDistance(Ray ray, double maxDistance) {
+		return intersectionDistance(ray.getHeadX(), ray.getHeadY(), ray.getHeadZ(), ray.getDirectionX(), ray.getDirectionY(), ray.getDirectionZ(),
+				maxDistance);
+	}
 
-
-}
\ No newline at end of file
+	/**
+	 * Calculates the distance along a ray given by its raw coordinates to its intersection
+	 * with the triangle. As with {@link Plane}, rays parallel to the plane and intersections
+	 * at the ray head or beyond the maximum distance are ignored, and the boundaries of the
+	 * triangle - its edges and vertices - are not part of it.
+	 *
+	 * @param ox          x coordinate of the ray head
+	 * @param oy          y coordinate of the ray head
+	 * @param oz          z coordinate of the ray head
+	 * @param dx          x coordinate of the ray direction
+	 * @param dy          y coordinate of the ray direction
+	 * @param dz          z coordinate of the ray direction
+	 * @param maxDistance the maximum distance to consider
+	 * @return the distance, or NaN if there is no intersection closer than maxDistance
+	 */
+	double intersectionDistance(double ox, double oy, double oz, double dx, double dy, double dz,
+								double maxDistance) {
+		// p = dir x e2, and the determinant is the cosine between the ray and the normal, scaled
+		double px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+		double det = e1x * px + e1y * py + e1z * pz;
+		if (isZero(det * inverseArea))
+			return Double.NaN;
+		double inverseDet = 1 / det;
+
+		// Barycentric coordinate of the second vertex, from s = head - a
+		double sx = ox - ax, sy = oy - ay, sz = oz - az;
+		double u = (sx * px + sy * py + sz * pz) * inverseDet;
+		if (u <= 0 || isZero(u) || u >= 1)
+			return Double.NaN;
+
+		// Barycentric coordinate of the third vertex and the distance, from q = s x e1
+		double qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+		double v = (dx * qx + dy * qy + dz * qz) * inverseDet;
+		if (v <= 0 || isZero(v) || u + v >= 1 || isZero(u + v - 1))
+			return Double.NaN;
+		double t = (e2x * qx + e2y * qy + e2z * qz) * inverseDet;
+		return t <= 0 || isZero(t) || alignZero(t - maxDistance) >= 0 ? Double.NaN : t;
+	}
+}
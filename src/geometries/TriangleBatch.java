@@ -0,0 +1,87 @@
+package geometries;
+
+import java.util.List;
+
+/**
+ * Batch of triangles in flat structure-of-arrays form, for the batch intersection kernels.
+ * Every triangle is kept as it is precomputed by {@link Triangle}: the coordinates of its
+ * first vertex, of the edges from it to the other vertices and the inverse of the length
+ * of their cross product. The arrays are padded with NaN triangles, which no ray hits, to
+ * a multiple of 8 entries, so that vector kernels of any width process whole vectors only.
+ *
+ * @author Shay and Asaf
+ */
+public final class TriangleBatch {
+	/** The triangles of the batch */
+	final Triangle[] triangles;
+	/** Coordinates of the first vertices */
+	final double[] ax, ay, az;
+	/** Coordinates of the edges from the first vertex to the second one */
+	final double[] e1X, e1Y, e1Z;
+	/** Coordinates of the edges from the first vertex to the third one */
+	final double[] e2X, e2Y, e2Z;
+	/** Inverse of the length of the cross products of the edges */
+	final double[] inverseArea;
+
+	/**
+	 * Constructs a batch of triangles.
+	 *
+	 * @param triangles the triangles
+	 */
+	public TriangleBatch(List<Triangle> triangles) {
+		this.triangles = triangles.toArray(new Triangle[0]);
+		int length = IntersectionKernel.paddedLength(this.triangles.length);
+		ax = IntersectionKernel.padded(length);
+		ay = IntersectionKernel.padded(length);
+		az = IntersectionKernel.padded(length);
+		e1X = IntersectionKernel.padded(length);
+		e1Y = IntersectionKernel.padded(length);
+		e1Z = IntersectionKernel.padded(length);
+		e2X = IntersectionKernel.padded(length);
+		e2Y = IntersectionKernel.padded(length);
+		e2Z = IntersectionKernel.padded(length);
+		inverseArea = IntersectionKernel.padded(length);
+		for (int i = 0; i < this.triangles.length; ++i) {
+			Triangle triangle = this.triangles[i];
+			ax[i] = triangle.ax;
+			ay[i] = triangle.ay;
+			az[i] = triangle.az;
+			e1X[i] = triangle.e1x;
+			e1Y[i] = triangle.e1y;
+			e1Z[i] = triangle.e1z;
+			e2X[i] = triangle.e2x;
+			e2Y[i] = triangle.e2y;
+			e2Z[i] = triangle.e2z;
+			inverseArea[i] = triangle.inverseArea;
+		}
+	}
+
+	/**
+	 * Retrieves the number of triangles in the batch.
+	 *
+	 * @return the number of triangles
+	 */
+	public int size() {
+		return triangles.length;
+	}
+
+	/**
+	 * Retrieves the length of the padded arrays, which is the minimal length of the arrays
+	 * receiving the distances calculated by the kernels.
+	 *
+	 * @return the padded length
+	 */
+	public int paddedSize() {
+		return ax.length;
+	}
+
+	/**
+	 * Retrieves a triangle of the batch.
+	 *
+	 * @param index the index of the triangle
+	 * @return the triangle
+	 */
+	public Triangle get(int index) {
+		return triangles[index];
+	}
+}
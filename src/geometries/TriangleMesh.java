@@ -0,0 +1,589 @@
+package geometries;
+
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vec3;
+import primitives.Vector;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
+/**
+ * Mesh of triangles with shared vertices, for large models. Nothing is kept per triangle
+ * but primitive arrays: the indices of the three vertices of every face, the two edges
+ * from the first vertex (for the Möller–Trumbore intersection test) and optionally the
+ * index of the material of the face. The faces are organized in a bounding volume
+ * hierarchy of their own, also kept in flat arrays, so the mesh is intersected without
+ * creating an object per face; the hits record the mesh and the index of the face.
+ * <p>
+ * Unlike a {@link Triangle}, the edges and the vertices of the faces belong to the faces,
+ * so rays passing between adjacent faces of a closed mesh do not leak through it.
+ * The faces are reordered while building the hierarchy, so the face indices of the hits
+ * refer to the order of the mesh, not to the order of the given indices.
+ *
+ * @author Shay and Asaf
+ */
+public class TriangleMesh extends Geometry {
+	/** Maximal number of faces in a leaf of the hierarchy */
+	private static final int MAX_LEAF_SIZE = 4;
+	/** Maximal depth of the hierarchy, which bounds the recursion of the queries */
+	private static final int MAX_DEPTH = 64;
+	/** Tolerance of the search of the face of a point without a known face */
+	private static final double POINT_TOLERANCE = 1e-6;
+
+	/** Coordinates of the vertices, three per vertex */
+	private final double[] vertices;
+	/** Indices of the vertices of the faces, three per face */
+	private final int[] indices;
+	/** Coordinates of the edges from the first vertex of every face to the second and to the third one, six per face */
+	private final double[] edges;
+	/**
+	 * Inverse of the length of the cross product of the edges of every face, which turns the
+	 * determinant of the intersection into the cosine between the ray and the face normal
+	 */
+	private final double[] inverseAreas;
+	/** Materials of the faces, null if the mesh has a single material */
+	private final Material[] materials;
+	/** Index of the material of every face, null if the mesh has a single material */
+	private final int[] faceMaterials;
+
+	/** Bounds of the nodes of the hierarchy: minimal x, y, z and maximal x, y, z per node */
+	private double[] nodeBounds;
+	/**
+	 * Contents of the nodes of the hierarchy, two per node: the index of the right child and 0
+	 * for an inner node (the left child follows its parent), the index of the first face and
+	 * the number of faces for a leaf
+	 */
+	private int[] nodes;
+	/** Number of nodes of the hierarchy */
+	private int nodeCount = 0;
+
+	/**
+	 * Constructs a mesh with a single material.
+	 *
+	 * @param vertices the coordinates of the vertices, three per vertex
+	 * @param indices  the indices of the vertices of the faces, three per face
+	 * @throws IllegalArgumentException if the arrays are not made of triplets, a face refers
+	 *                                  to a missing vertex or a face is degenerate
+	 */
+	public TriangleMesh(double[] vertices, int[] indices) {
+		this(vertices, indices, null, null);
+	}
+
+	/**
+	 * Constructs a mesh with a material per face.
+	 *
+	 * @param vertices      the coordinates of the vertices, three per vertex
+	 * @param indices       the indices of the vertices of the faces, three per face
+	 * @param materials     the materials of the faces, null for a single material
+	 * @param faceMaterials the index in materials of the material of every face, null for a
+	 *                      single material
+	 * @throws IllegalArgumentException if the arrays are not made of triplets, a face refers
+	 *                                  to a missing vertex or material, or a face is degenerate
+	 */
+	public TriangleMesh(double[] vertices, int[] indices, Material[] materials, int[] faceMaterials) {
+		if (vertices.length % 3 != 0 || indices.length % 3 != 0 || indices.length == 0)
+			throw new IllegalArgumentException("A mesh needs vertex and face triplets");
+		if ((materials == null) != (faceMaterials == null))
+			throw new IllegalArgumentException("Materials and face materials must be given together");
+		int faceCount = indices.length / 3;
+		if (faceMaterials != null && faceMaterials.length != faceCount)
+			throw new IllegalArgumentException("A material index is needed for every face");
+
+		this.vertices = vertices.clone();
+		this.indices = indices.clone();
+		this.materials = materials == null ? null : materials.clone();
+		this.faceMaterials = faceMaterials == null ? null : faceMaterials.clone();
+		this.edges = new double[faceCount * 6];
+		this.inverseAreas = new double[faceCount];
+		int vertexCount = vertices.length / 3;
+		for (int f = 0; f < faceCount; ++f) {
+			for (int k = 0; k < 3; ++k)
+				if (indices[f * 3 + k] < 0 || indices[f * 3 + k] >= vertexCount)
+					throw new IllegalArgumentException("Face " + f + " refers to a missing vertex");
+			if (faceMaterials != null && (faceMaterials[f] < 0 || faceMaterials[f] >= materials.length))
+				throw new IllegalArgumentException("Face " + f + " refers to a missing material");
+		}
+
+		build(faceCount);
+		for (int f = 0; f < faceCount; ++f) {
+			int a = this.indices[f * 3] * 3, b = this.indices[f * 3 + 1] * 3, c = this.indices[f * 3 + 2] * 3;
+			for (int axis = 0; axis < 3; ++axis) {
+				edges[f * 6 + axis] = this.vertices[b + axis] - this.vertices[a + axis];
+				edges[f * 6 + 3 + axis] = this.vertices[c + axis] - this.vertices[a + axis];
+			}
+			double nx = edges[f * 6 + 1] * edges[f * 6 + 5] - edges[f * 6 + 2] * edges[f * 6 + 4];
+			double ny = edges[f * 6 + 2] * edges[f * 6 + 3] - edges[f * 6] * edges[f * 6 + 5];
+			double nz = edges[f * 6] * edges[f * 6 + 4] - edges[f * 6 + 1] * edges[f * 6 + 3];
+			if (isZero(nx) && isZero(ny) && isZero(nz))
+				throw new IllegalArgumentException("A face of the mesh is degenerate");
+			inverseAreas[f] = 1 / Math.sqrt(nx * nx + ny * ny + nz * nz);
+		}
+	}
+
+	/**
+	 * Retrieves the number of faces of the mesh.
+	 *
+	 * @return the number of faces
+	 */
+	public int getFaceCount() {
+		return indices.length / 3;
+	}
+
+	/**
+	 * Retrieves the number of vertices of the mesh.
+	 *
+	 * @return the number of vertices
+	 */
+	public int getVertexCount() {
+		return vertices.length / 3;
+	}
+
+	/**
+	 * Builds the hierarchy of the faces, top-down, splitting every node in the middle of
+	 * the longest extent of the centroids of its faces. The faces are reordered so the faces
+	 * of every leaf are consecutive.
+	 * The build is iterative, as deep as the hierarchy may be: the left child of a node is
+	 * built right after it, and the right child after the whole left sub-tree.
+	 *
+	 * @param faceCount the number of faces
+	 */
+	private void build(int faceCount) {
+		double[] centroids = new double[faceCount * 3];
+		for (int f = 0; f < faceCount; ++f)
+			for (int axis = 0; axis < 3; ++axis)
+				centroids[f * 3 + axis] = (vertices[indices[f * 3] * 3 + axis] + vertices[indices[f * 3 + 1] * 3 + axis]
+						+ vertices[indices[f * 3 + 2] * 3 + axis]) / 3;
+
+		nodeBounds = new double[faceCount * 6];
+		nodes = new int[faceCount * 2];
+		// Pending ranges: first face, end face, depth and the parent to link as a right child (-1 for none)
+		int[] stack = new int[MAX_DEPTH * 4 + 4];
+		int top = 0;
+		stack[top++] = 0;
+		stack[top++] = faceCount;
+		stack[top++] = 0;
+		stack[top++] = -1;
+		while (top > 0) {
+			int parent = stack[--top], depth = stack[--top], to = stack[--top], from = stack[--top];
+			int node = newNode(from, to);
+			if (parent >= 0)
+				nodes[parent * 2] = node;
+
+			double[] cMin = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY };
+			double[] cMax = { Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+			for (int f = from; f < to; ++f)
+				for (int axis = 0; axis < 3; ++axis) {
+					cMin[axis] = Math.min(cMin[axis], centroids[f * 3 + axis]);
+					cMax[axis] = Math.max(cMax[axis], centroids[f * 3 + axis]);
+				}
+			int axis = 0;
+			for (int a = 1; a < 3; ++a)
+				if (cMax[a] - cMin[a] > cMax[axis] - cMin[axis])
+					axis = a;
+			// Leaf: few faces, too deep, or all the centroids coincide
+			if (to - from <= MAX_LEAF_SIZE || depth == MAX_DEPTH - 1 || cMax[axis] <= cMin[axis]) {
+				nodes[node * 2] = from;
+				nodes[node * 2 + 1] = to - from;
+				continue;
+			}
+
+			// Partition around the middle - both sides are not empty since the extent is positive
+			double middle = (cMin[axis] + cMax[axis]) / 2;
+			int mid = from;
+			for (int f = from; f < to; ++f)
+				if (centroids[f * 3 + axis] < middle)
+					swapFaces(f, mid++, centroids);
+			if (mid == to) // rounding of the middle
+				mid = (from + to) / 2;
+
+			stack[top++] = mid;
+			stack[top++] = to;
+			stack[top++] = depth + 1;
+			stack[top++] = node;
+			stack[top++] = from;
+			stack[top++] = mid;
+			stack[top++] = depth + 1;
+			stack[top++] = -1;
+		}
+		nodeBounds = Arrays.copyOf(nodeBounds, nodeCount * 6);
+		nodes = Arrays.copyOf(nodes, nodeCount * 2);
+	}
+
+	/**
+	 * Appends a node of the hierarchy with the bounds of a range of faces.
+	 *
+	 * @param from the first face (inclusive)
+	 * @param to   the last face (exclusive)
+	 * @return the index of the node
+	 */
+	private int newNode(int from, int to) {
+		if (nodeCount * 2 == nodes.length) {
+			nodes = Arrays.copyOf(nodes, nodes.length * 2);
+			nodeBounds = Arrays.copyOf(nodeBounds, nodeBounds.length * 2);
+		}
+		int node = nodeCount++;
+		for (int axis = 0; axis < 3; ++axis) {
+			nodeBounds[node * 6 + axis] = Double.POSITIVE_INFINITY;
+			nodeBounds[node * 6 + 3 + axis] = Double.NEGATIVE_INFINITY;
+		}
+		for (int i = from * 3; i < to * 3; ++i)
+			for (int axis = 0; axis < 3; ++axis) {
+				double c = vertices[indices[i] * 3 + axis];
+				nodeBounds[node * 6 + axis] = Math.min(nodeBounds[node * 6 + axis], c);
+				nodeBounds[node * 6 + 3 + axis] = Math.max(nodeBounds[node * 6 + 3 + axis], c);
+			}
+		return node;
+	}
+
+	/**
+	 * Swaps two faces (and their centroids) while building the hierarchy.
+	 *
+	 * @param i         first face
+	 * @param j         second face
+	 * @param centroids the centroids of the faces
+	 */
+	private void swapFaces(int i, int j, double[] centroids) {
+		for (int k = 0; k < 3; ++k) {
+			int index = indices[i * 3 + k];
+			indices[i * 3 + k] = indices[j * 3 + k];
+			indices[j * 3 + k] = index;
+			double c = centroids[i * 3 + k];
+			centroids[i * 3 + k] = centroids[j * 3 + k];
+			centroids[j * 3 + k] = c;
+		}
+		if (faceMaterials != null) {
+			int m = faceMaterials[i];
+			faceMaterials[i] = faceMaterials[j];
+			faceMaterials[j] = m;
+		}
+	}
+
+	@Override
+	public BoundingBox getBoundingBox() {
+		return new BoundingBox(nodeBounds[0], nodeBounds[1], nodeBounds[2], nodeBounds[3], nodeBounds[4],
+				nodeBounds[5]);
+	}
+
+	@Override
+	public Material getMaterial(int face) {
+		return faceMaterials == null || face < 0 ? getMaterial() : materials[faceMaterials[face]];
+	}
+
+	@Override
+	public Vector getNormal(Point point) {
+		return getNormal(point, findFace(point));
+	}
+
+	@Override
+	public Vector getNormal(Point point, int face) {
+		if (face < 0)
+			return getNormal(point);
+		// As the normal of a Triangle: (c - a) x (b - a)
+		int e = face * 6;
+		return new Vector(edges[e + 4] * edges[e + 2] - edges[e + 5] * edges[e + 1],
+				edges[e + 5] * edges[e] - edges[e + 3] * edges[e + 2],
+				edges[e + 3] * edges[e + 1] - edges[e + 4] * edges[e]).normalize();
+	}
+
+	@Override
+	public void getNormal(Vec3 point, int face, Vec3 normal) {
+		if (face < 0) {
+			super.getNormal(point, face, normal);
+			return;
+		}
+		int e = face * 6;
+		normal.set(edges[e + 4] * edges[e + 2] - edges[e + 5] * edges[e + 1],
+				edges[e + 5] * edges[e] - edges[e + 3] * edges[e + 2],
+				edges[e + 3] * edges[e + 1] - edges[e + 4] * edges[e]).normalize();
+	}
+
+	/**
+	 * Finds the face of a point on the surface of the mesh, for the queries that do not
+	 * record the face: the face closest to the point among the faces the point is in, up to
+	 * a small tolerance.
+	 *
+	 * @param point the point on the surface of the mesh
+	 * @return the index of the face
+	 * @throws IllegalArgumentException if the point is not on the mesh
+	 */
+	private int findFace(Point point) {
+		double[] bestDistance = { POINT_TOLERANCE };
+		int face = findNodeFace(0, point.getX(), point.getY(), point.getZ(), -1, bestDistance);
+		if (face < 0)
+			throw new IllegalArgumentException("The point is not on the mesh");
+		return face;
+	}
+
+	/**
+	 * Finds the face of a point in the sub-tree of a node, see {@link #findFace(Point)}.
+	 *
+	 * @param node         the sub-tree root
+	 * @param px           x coordinate of the point
+	 * @param py           y coordinate of the point
+	 * @param pz           z coordinate of the point
+	 * @param best         the closest face found so far, -1 if none
+	 * @param bestDistance holds the distance of the point from the closest face so far
+	 * @return the closest face including the sub-tree, -1 if none
+	 */
+	private int findNodeFace(int node, double px, double py, double pz, int best, double[] bestDistance) {
+		int b = node * 6;
+		if (px < nodeBounds[b] - POINT_TOLERANCE || px > nodeBounds[b + 3] + POINT_TOLERANCE
+				|| py < nodeBounds[b + 1] - POINT_TOLERANCE || py > nodeBounds[b + 4] + POINT_TOLERANCE
+				|| pz < nodeBounds[b + 2] - POINT_TOLERANCE || pz > nodeBounds[b + 5] + POINT_TOLERANCE)
+			return best;
+		int count = nodes[node * 2 + 1];
+		if (count == 0)
+			return findNodeFace(nodes[node * 2], px, py, pz,
+					findNodeFace(node + 1, px, py, pz, best, bestDistance), bestDistance);
+
+		for (int f = nodes[node * 2], end = f + count; f < end; ++f) {
+			// The distance of the point from the plane of the face, and its barycentric coordinates
+			int a = indices[f * 3] * 3, e = f * 6;
+			double nx = edges[e + 4] * edges[e + 2] - edges[e + 5] * edges[e + 1];
+			double ny = edges[e + 5] * edges[e] - edges[e + 3] * edges[e + 2];
+			double nz = edges[e + 3] * edges[e + 1] - edges[e + 4] * edges[e];
+			double apX = px - vertices[a], apY = py - vertices[a + 1], apZ = pz - vertices[a + 2];
+			double distance = Math.abs(nx * apX + ny * apY + nz * apZ) / Math.sqrt(nx * nx + ny * ny + nz * nz);
+			if (distance >= bestDistance[0]) continue;
+			double d00 = edges[e] * edges[e] + edges[e + 1] * edges[e + 1] + edges[e + 2] * edges[e + 2];
+			double d01 = edges[e] * edges[e + 3] + edges[e + 1] * edges[e + 4] + edges[e + 2] * edges[e + 5];
+			double d11 = edges[e + 3] * edges[e + 3] + edges[e + 4] * edges[e + 4] + edges[e + 5] * edges[e + 5];
+			double d20 = apX * edges[e] + apY * edges[e + 1] + apZ * edges[e + 2];
+			double d21 = apX * edges[e + 3] + apY * edges[e + 4] + apZ * edges[e + 5];
+			double denom = d00 * d11 - d01 * d01;
+			double u = (d11 * d20 - d01 * d21) / denom, v = (d00 * d21 - d01 * d20) / denom;
+			if (u >= -POINT_TOLERANCE && v >= -POINT_TOLERANCE && u + v <= 1 + POINT_TOLERANCE) {
+				best = f;
+				bestDistance[0] = distance;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Möller–Trumbore intersection of a ray, given by its raw coordinates, with a face.
+	 * The edges and the vertices of the face belong to it.
+	 *
+	 * @param face        the index of the face
+	 * @param ox          x coordinate of the ray head
+	 * @param oy          y coordinate of the ray head
+	 * @param oz          z coordinate of the ray head
+	 * @param dx          x coordinate of the ray direction
+	 * @param dy          y coordinate of the ray direction
+	 * @param dz          z coordinate of the ray direction
+	 * @param maxDistance the maximum distance to consider
+	 * @return the distance of the intersection, or NaN if there is no intersection in front
+	 *         of the ray head closer than the maximum distance
+	 */
+	private double intersectFace(int face, double ox, double oy, double oz, double dx, double dy, double dz,
+								 double maxDistance) {
+		int e = face * 6, a = indices[face * 3] * 3;
+		double e1x = edges[e], e1y = edges[e + 1], e1z = edges[e + 2];
+		double e2x = edges[e + 3], e2y = edges[e + 4], e2z = edges[e + 5];
+		// p = d x e2
+		double px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+		double det = e1x * px + e1y * py + e1z * pz;
+		if (isZero(det * inverseAreas[face])) // the ray is parallel to the face
+			return Double.NaN;
+
+		double inv = 1 / det;
+		double sx = ox - vertices[a], sy = oy - vertices[a + 1], sz = oz - vertices[a + 2];
+		double u = (sx * px + sy * py + sz * pz) * inv;
+		if (u < 0 || u > 1)
+			return Double.NaN;
+		// q = s x e1
+		double qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+		double v = (dx * qx + dy * qy + dz * qz) * inv;
+		if (v < 0 || u + v > 1)
+			return Double.NaN;
+
+		double t = (e2x * qx + e2y * qy + e2z * qz) * inv;
+		return t <= 0 || isZero(t) || alignZero(t - maxDistance) >= 0 ? Double.NaN : t;
+	}
+
+	/**
+	 * Slab test of a ray, given by its raw coordinates, with the box of a node, as
+	 * {@link BoundingBox#entryDistance(Ray, double)}.
+	 *
+	 * @param node        the node
+	 * @param ox          x coordinate of the ray head
+	 * @param oy          y coordinate of the ray head
+	 * @param oz          z coordinate of the ray head
+	 * @param ix          inverse of the x coordinate of the ray direction
+	 * @param iy          inverse of the y coordinate of the ray direction
+	 * @param iz          inverse of the z coordinate of the ray direction
+	 * @param maxDistance the maximum distance along the ray
+	 * @return the entry distance, or positive infinity if the ray misses the box or enters it
+	 *         beyond the maximum distance
+	 */
+	private double entryDistance(int node, double ox, double oy, double oz, double ix, double iy, double iz,
+								 double maxDistance) {
+		int b = node * 6;
+		double tNear = 0, tFar = maxDistance;
+		double t0 = (nodeBounds[b] - ox) * ix, t1 = (nodeBounds[b + 3] - ox) * ix;
+		// NaN (a direction parallel to the slab, with the head on its boundary) is ignored
+		if (t0 > t1) { double t = t0; t0 = t1; t1 = t; }
+		if (t0 > tNear) tNear = t0;
+		if (t1 < tFar) tFar = t1;
+		t0 = (nodeBounds[b + 1] - oy) * iy;
+		t1 = (nodeBounds[b + 4] - oy) * iy;
+		if (t0 > t1) { double t = t0; t0 = t1; t1 = t; }
+		if (t0 > tNear) tNear = t0;
+		if (t1 < tFar) tFar = t1;
+		t0 = (nodeBounds[b + 2] - oz) * iz;
+		t1 = (nodeBounds[b + 5] - oz) * iz;
+		if (t0 > t1) { double t = t0; t0 = t1; t1 = t; }
+		if (t0 > tNear) tNear = t0;
+		if (t1 < tFar) tFar = t1;
+		return alignZero(tNear - tFar) > 0 ? Double.POSITIVE_INFINITY : tNear;
+	}
+
+	@Override
+	protected boolean findClosestHitHelper(Ray ray, HitRecord hit) {
+		double ox = ray.getHeadX(), oy = ray.getHeadY(), oz = ray.getHeadZ();
+		double dx = ray.getDirectionX(), dy = ray.getDirectionY(), dz = ray.getDirectionZ();
+		double ix = 1 / dx, iy = 1 / dy, iz = 1 / dz;
+		if (entryDistance(0, ox, oy, oz, ix, iy, iz, hit.t) == Double.POSITIVE_INFINITY)
+			return false;
+		return findNodeClosest(0, ox, oy, oz, dx, dy, dz, ix, iy, iz, hit);
+	}
+
+	/**
+	 * Finds the closest intersection in the sub-tree of a node whose box is hit by the ray.
+	 * The children are visited front-to-back, and the farther one is skipped if its box
+	 * starts beyond the closest hit found in the nearer one.
+	 *
+	 * @param node the sub-tree root
+	 * @param ox   x coordinate of the ray head
+	 * @param oy   y coordinate of the ray head
+	 * @param oz   z coordinate of the ray head
+	 * @param dx   x coordinate of the ray direction
+	 * @param dy   y coordinate of the ray direction
+	 * @param dz   z coordinate of the ray direction
+	 * @param ix   inverse of the x coordinate of the ray direction
+	 * @param iy   inverse of the y coordinate of the ray direction
+	 * @param iz   inverse of the z coordinate of the ray direction
+	 * @param hit  the record holding the closest hit so far
+	 * @return true if the record was updated
+	 */
+	private boolean findNodeClosest(int node, double ox, double oy, double oz, double dx, double dy, double dz,
+									double ix, double iy, double iz, HitRecord hit) {
+		int count = nodes[node * 2 + 1];
+		if (count > 0) {
+			boolean found = false;
+			for (int f = nodes[node * 2], end = f + count; f < end; ++f) {
+				double t = intersectFace(f, ox, oy, oz, dx, dy, dz, hit.t);
+				if (!Double.isNaN(t)) {
+					hit.set(t, this, f);
+					found = true;
+				}
+			}
+			return found;
+		}
+
+		int near = node + 1, far = nodes[node * 2];
+		double tNear = entryDistance(near, ox, oy, oz, ix, iy, iz, hit.t);
+		double tFar = entryDistance(far, ox, oy, oz, ix, iy, iz, hit.t);
+		if (tFar < tNear) {
+			near = far;
+			far = node + 1;
+			double t = tNear;
+			tNear = tFar;
+			tFar = t;
+		}
+		boolean found = false;
+		if (tNear != Double.POSITIVE_INFINITY)
+			found = findNodeClosest(near, ox, oy, oz, dx, dy, dz, ix, iy, iz, hit);
+		if (tFar < hit.t)
+			found |= findNodeClosest(far, ox, oy, oz, dx, dy, dz, ix, iy, iz, hit);
+		return found;
+	}
+
+	@Override
+	protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+		List<GeoPoint> res = new LinkedList<>();
+		findNodeIntersections(0, ray.getHeadX(), ray.getHeadY(), ray.getHeadZ(), ray.getDirectionX(), ray.getDirectionY(), ray.getDirectionZ(),
+				maxDistance, ray, res);
+		return res.isEmpty() ? null : res;
+	}
+
+	/**
+	 * Collects the intersections of the ray with the faces in the sub-tree of a node.
+	 *
+	 * @param node        the sub-tree root
+	 * @param ox          x coordinate of the ray head
+	 * @param oy          y coordinate of the ray head
+	 * @param oz          z coordinate of the ray head
+	 * @param dx          x coordinate of the ray direction
+	 * @param dy          y coordinate of the ray direction
+	 * @param dz          z coordinate of the ray direction
+	 * @param maxDistance the maximum distance to consider
+	 * @param ray         the ray
+	 * @param res         the list collecting the intersections
+	 */
+	private void findNodeIntersections(int node, double ox, double oy, double oz, double dx, double dy, double dz,
+									   double maxDistance, Ray ray, List<GeoPoint> res) {
+		if (entryDistance(node, ox, oy, oz, 1 / dx, 1 / dy, 1 / dz, maxDistance) == Double.POSITIVE_INFINITY)
+			return;
+		int count = nodes[node * 2 + 1];
+		if (count == 0) {
+			findNodeIntersections(node + 1, ox, oy, oz, dx, dy, dz, maxDistance, ray, res);
+			findNodeIntersections(nodes[node * 2], ox, oy, oz, dx, dy, dz, maxDistance, ray, res);
+			return;
+		}
+		for (int f = nodes[node * 2], end = f + count; f < end; ++f) {
+			double t = intersectFace(f, ox, oy, oz, dx, dy, dz, maxDistance);
+			if (!Double.isNaN(t))
+				res.add(new GeoPoint(this, ray.getPoint(t)));
+		}
+	}
+
+	@Override
+	protected Double3 findTransparencyHelper(Ray ray, double maxDistance) {
+		return findNodeTransparency(0, ray.getHeadX(), ray.getHeadY(), ray.getHeadZ(), ray.getDirectionX(), ray.getDirectionY(), ray.getDirectionZ(),
+				maxDistance, Double3.ONE);
+	}
+
+	/**
+	 * Accumulates the transparency along the ray through the faces in the sub-tree of a node,
+	 * stopping at the first opaque face.
+	 *
+	 * @param node        the sub-tree root
+	 * @param ox          x coordinate of the ray head
+	 * @param oy          y coordinate of the ray head
+	 * @param oz          z coordinate of the ray head
+	 * @param dx          x coordinate of the ray direction
+	 * @param dy          y coordinate of the ray direction
+	 * @param dz          z coordinate of the ray direction
+	 * @param maxDistance the maximum distance to consider
+	 * @param ktr         the transparency accumulated so far
+	 * @return the accumulated transparency including the sub-tree
+	 */
+	private Double3 findNodeTransparency(int node, double ox, double oy, double oz, double dx, double dy, double dz,
+										 double maxDistance, Double3 ktr) {
+		if (entryDistance(node, ox, oy, oz, 1 / dx, 1 / dy, 1 / dz, maxDistance) == Double.POSITIVE_INFINITY)
+			return ktr;
+		int count = nodes[node * 2 + 1];
+		if (count == 0) {
+			ktr = findNodeTransparency(node + 1, ox, oy, oz, dx, dy, dz, maxDistance, ktr);
+			return ktr == Double3.ZERO ? ktr
+					: findNodeTransparency(nodes[node * 2], ox, oy, oz, dx, dy, dz, maxDistance, ktr);
+		}
+		for (int f = nodes[node * 2], end = f + count; f < end; ++f) {
+			if (Double.isNaN(intersectFace(f, ox, oy, oz, dx, dy, dz, maxDistance)))
+				continue;
+			Double3 kT = getMaterial(f).kT;
+			ktr = Geometries.multiplyTransparency(ktr, kT.equals(Double3.ZERO) ? Double3.ZERO : kT);
+			if (ktr == Double3.ZERO)
+				return ktr;
+		}
+		return ktr;
+	}
+}
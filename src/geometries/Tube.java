@@ -27,6 +27,15 @@ public class Tube extends RadialGeometry {
 		this.axis = axis;
 	}
 
+	/**
+	 * Retrieves the central axis of the tube.
+	 *
+	 * @return the axis ray
+	 */
+	public Ray getAxisRay() {
+		return axis;
+	}
+
 	@Override
 	public Vector getNormal(Point point) throws IllegalArgumentException {
 		// Calculate the vector from the axis head to the given point
@@ -0,0 +1,326 @@
+package geometries;
+
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Uniform grid acceleration structure over a set of intersectables.
+ * The bounds of the objects are divided into equal cells, sized from the scene bounds and
+ * the object count, and every object is binned into all the cells its box overlaps.
+ * Rays walk the cells front-to-back with a 3D-DDA, so only the objects in cells the ray
+ * passes through are tested. It suits dense scenes of evenly distributed, similarly sized
+ * objects, where a tree is overkill.
+ * Unbounded objects (e.g. planes) are kept in a separate list that is tested for every ray.
+ *
+ * @author Shay and Asaf
+ */
+public class UniformGrid extends Intersectable {
+	/** Target average number of objects per cell */
+	private static final double DENSITY = 3;
+	/** Maximal number of cells along an axis */
+	private static final int MAX_RESOLUTION = 128;
+	/** Relative padding of the object boxes when binning, so boundary hits are in both cells */
+	private static final double BIN_EPSILON = 1e-9;
+
+	/** Objects without a bounding box, tested for every ray */
+	private final List<Intersectable> unbounded = new LinkedList<>();
+	/** Bounds of the grid, null if there are no bounded objects */
+	private final BoundingBox bounds;
+	/** Number of cells along each axis */
+	private final int[] resolution = { 1, 1, 1 };
+	/** Size of a cell along each axis */
+	private final double[] cellSize = new double[3];
+	/** Objects of every cell, indexed by x + nx * (y + ny * z); null for an empty cell */
+	private final Intersectable[][] cells;
+
+	/**
+	 * Builds a grid over the given intersectables.
+	 *
+	 * @param intersectables the objects to organize
+	 */
+	public UniformGrid(List<Intersectable> intersectables) {
+		List<Intersectable> bounded = new ArrayList<>();
+		List<BoundingBox> boxes = new ArrayList<>();
+		BoundingBox all = null;
+		for (Intersectable intersectable : intersectables) {
+			BoundingBox box = intersectable.getBoundingBox();
+			if (box == null) {
+				unbounded.add(intersectable);
+			} else {
+				bounded.add(intersectable);
+				boxes.add(box);
+				all = all == null ? box : all.union(box);
+			}
+		}
+		bounds = all;
+		if (all == null) {
+			cells = null;
+			return;
+		}
+
+		// Cells per axis proportional to the extent, DENSITY objects per cell on average
+		double[] extent = new double[3];
+		double maxExtent = 0;
+		for (int axis = 0; axis < 3; ++axis) {
+			extent[axis] = all.getMax(axis) - all.getMin(axis);
+			maxExtent = Math.max(maxExtent, extent[axis]);
+		}
+		if (maxExtent > 0) {
+			// Flat axes get a token thickness so the volume is not zero
+			double volume = 1;
+			for (int axis = 0; axis < 3; ++axis)
+				volume *= Math.max(extent[axis], maxExtent * 1e-3);
+			double cellsPerUnit = Math.cbrt(DENSITY * bounded.size() / volume);
+			for (int axis = 0; axis < 3; ++axis)
+				resolution[axis] = Math.max(1, Math.min(MAX_RESOLUTION, (int) Math.round(extent[axis] * cellsPerUnit)));
+		}
+		for (int axis = 0; axis < 3; ++axis)
+			cellSize[axis] = extent[axis] / resolution[axis];
+
+		// Bin every object into all the cells its box overlaps
+		int cellCount = resolution[0] * resolution[1] * resolution[2];
+		List<List<Intersectable>> binned = new ArrayList<>(cellCount);
+		for (int c = 0; c < cellCount; ++c)
+			binned.add(null);
+		double epsilon = maxExtent * BIN_EPSILON;
+		for (int k = 0; k < bounded.size(); ++k) {
+			BoundingBox box = boxes.get(k);
+			int x0 = cellIndex(box.getMin(0) - epsilon, 0), x1 = cellIndex(box.getMax(0) + epsilon, 0);
+			int y0 = cellIndex(box.getMin(1) - epsilon, 1), y1 = cellIndex(box.getMax(1) + epsilon, 1);
+			int z0 = cellIndex(box.getMin(2) - epsilon, 2), z1 = cellIndex(box.getMax(2) + epsilon, 2);
+			for (int z = z0; z <= z1; ++z)
+				for (int y = y0; y <= y1; ++y)
+					for (int x = x0; x <= x1; ++x) {
+						int c = x + resolution[0] * (y + resolution[1] * z);
+						if (binned.get(c) == null)
+							binned.set(c, new ArrayList<>());
+						binned.get(c).add(bounded.get(k));
+					}
+		}
+		cells = new Intersectable[cellCount][];
+		for (int c = 0; c < cellCount; ++c)
+			if (binned.get(c) != null)
+				cells[c] = binned.get(c).toArray(new Intersectable[0]);
+	}
+
+	/**
+	 * Calculates the index of the cell containing a coordinate along an axis,
+	 * clamped to the grid.
+	 *
+	 * @param coordinate the coordinate
+	 * @param axis       the axis
+	 * @return the cell index
+	 */
+	private int cellIndex(double coordinate, int axis) {
+		if (cellSize[axis] == 0)
+			return 0;
+		int i = (int) Math.floor((coordinate - bounds.getMin(axis)) / cellSize[axis]);
+		return i < 0 ? 0 : i >= resolution[axis] ? resolution[axis] - 1 : i;
+	}
+
+	@Override
+	public BoundingBox getBoundingBox() {
+		return unbounded.isEmpty() ? bounds : null;
+	}
+
+	/**
+	 * Walks the grid cells pierced by a ray front-to-back with a 3D-DDA.
+	 * Each step exposes the current cell objects and the segment [tEnter, tExit) of the ray
+	 * inside the cell. The first segment starts at negative infinity and the last one ends at
+	 * positive infinity, so the segments partition the whole ray.
+	 */
+	private final class CellWalker {
+		/** Maximum distance along the ray to walk */
+		private final double maxDistance;
+		/** Current cell indices, step direction per axis */
+		private final int[] cell = new int[3], step = new int[3];
+		/** Distance to the next cell boundary and between boundaries per axis */
+		private final double[] tNext = new double[3], tDelta = new double[3];
+		/** The ray segment inside the current cell */
+		double tEnter, tExit;
+		/** Objects of the current cell (may be null) */
+		Intersectable[] objects;
+		/** Whether the walk is not started yet, and whether the current cell is the last one */
+		private boolean first = true, last;
+
+		/**
+		 * Prepares the walk of a ray through the grid.
+		 *
+		 * @param ray         the ray
+		 * @param tEntry      the distance at which the ray enters the grid bounds
+		 * @param maxDistance maximum distance along the ray to walk
+		 */
+		CellWalker(Ray ray, double tEntry, double maxDistance) {
+			this.maxDistance = maxDistance;
+			double[] o = { ray.getHeadX(), ray.getHeadY(), ray.getHeadZ() };
+			double[] d = { ray.getDirectionX(), ray.getDirectionY(), ray.getDirectionZ() };
+			for (int axis = 0; axis < 3; ++axis) {
+				cell[axis] = cellIndex(o[axis] + d[axis] * tEntry, axis);
+				if (d[axis] == 0 || cellSize[axis] == 0) {
+					tNext[axis] = Double.POSITIVE_INFINITY;
+					tDelta[axis] = Double.POSITIVE_INFINITY;
+				} else {
+					step[axis] = d[axis] > 0 ? 1 : -1;
+					double boundary = bounds.getMin(axis) + (cell[axis] + (d[axis] > 0 ? 1 : 0)) * cellSize[axis];
+					tNext[axis] = (boundary - o[axis]) / d[axis];
+					tDelta[axis] = cellSize[axis] / Math.abs(d[axis]);
+				}
+			}
+			tExit = Double.NEGATIVE_INFINITY;
+		}
+
+		/**
+		 * Moves to the next cell along the ray.
+		 *
+		 * @return false if the ray has left the grid or passed the maximum distance
+		 */
+		boolean next() {
+			if (last)
+				return false;
+			if (!first) {
+				int axis = exitAxis();
+				cell[axis] += step[axis];
+				tNext[axis] += tDelta[axis];
+			}
+			first = false;
+			int axis = exitAxis();
+			int next = cell[axis] + step[axis];
+			last = step[axis] == 0 || next < 0 || next >= resolution[axis] || tNext[axis] > maxDistance;
+			tEnter = tExit;
+			tExit = last ? Double.POSITIVE_INFINITY : tNext[axis];
+			objects = cells[cell[0] + resolution[0] * (cell[1] + resolution[1] * cell[2])];
+			return true;
+		}
+
+		/**
+		 * Finds the axis whose cell boundary the ray crosses first.
+		 *
+		 * @return the axis
+		 */
+		private int exitAxis() {
+			return tNext[0] < tNext[1] ? (tNext[0] < tNext[2] ? 0 : 2) : (tNext[1] < tNext[2] ? 1 : 2);
+		}
+	}
+
+	/**
+	 * Starts a walk of the ray through the grid cells.
+	 *
+	 * @param ray         the ray
+	 * @param maxDistance maximum distance along the ray to walk
+	 * @return the walker, or null if the ray misses the grid bounds before the maximum distance
+	 */
+	private CellWalker walk(Ray ray, double maxDistance) {
+		double tEntry = bounds == null ? Double.POSITIVE_INFINITY : bounds.entryDistance(ray, maxDistance);
+		return tEntry == Double.POSITIVE_INFINITY ? null : new CellWalker(ray, tEntry, maxDistance);
+	}
+
+	@Override
+	protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+		List<GeoPoint> res = null;
+		for (Intersectable intersectable : unbounded) {
+			List<GeoPoint> intersections = intersectable.findGeoIntersectionsHelper(ray, maxDistance);
+			if (intersections == null) continue;
+			if (res == null) res = new LinkedList<>();
+			res.addAll(intersections);
+		}
+
+		CellWalker walker = walk(ray, maxDistance);
+		if (walker == null)
+			return res;
+		Point head = ray.getHead();
+		while (walker.next()) {
+			if (walker.objects == null) continue;
+			for (Intersectable intersectable : walker.objects) {
+				List<GeoPoint> intersections = intersectable.findGeoIntersectionsHelper(ray, maxDistance);
+				if (intersections == null) continue;
+				for (GeoPoint gp : intersections) {
+					// Objects spanning several cells are reported only by the cell containing the hit
+					double t = head.distance(gp.point);
+					if (t >= walker.tEnter && t < walker.tExit) {
+						if (res == null) res = new LinkedList<>();
+						res.add(gp);
+					}
+				}
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The cells are visited front-to-back and the walk stops at the first cell that
+	 * produces a hit closer than the next cell boundary.
+	 */
+	@Override
+	protected boolean findClosestHitHelper(Ray ray, HitRecord hit) {
+		boolean found = false;
+		for (Intersectable intersectable : unbounded)
+			found |= intersectable.findClosestHitHelper(ray, hit);
+
+		CellWalker walker = walk(ray, hit.t);
+		if (walker == null)
+			return found;
+		while (walker.next()) {
+			if (walker.objects != null)
+				for (Intersectable intersectable : walker.objects)
+					found |= intersectable.findClosestHitHelper(ray, hit);
+			// Nothing behind the next boundary can be closer than the hit found so far
+			if (found && hit.t <= walker.tExit)
+				break;
+		}
+		return found;
+	}
+
+	@Override
+	protected Double3 findTransparencyHelper(Ray ray, double maxDistance) {
+		Double3 ktr = Double3.ONE;
+		for (Intersectable intersectable : unbounded) {
+			ktr = Geometries.multiplyTransparency(ktr, intersectable.findTransparencyHelper(ray, maxDistance));
+			if (ktr == Double3.ZERO)
+				return ktr;
+		}
+
+		CellWalker walker = walk(ray, maxDistance);
+		if (walker == null)
+			return ktr;
+		Intersectable[] previous = null;
+		while (walker.next()) {
+			if (walker.objects == null) {
+				previous = null;
+				continue;
+			}
+			for (Intersectable intersectable : walker.objects) {
+				// Objects spanning several cells are queried once, in the first cell of the walk
+				if (contains(previous, intersectable)) continue;
+				ktr = Geometries.multiplyTransparency(ktr, intersectable.findTransparencyHelper(ray, maxDistance));
+				if (ktr == Double3.ZERO)
+					return ktr;
+			}
+			previous = walker.objects;
+		}
+		return ktr;
+	}
+
+	/**
+	 * Checks whether an object is binned into a cell. The cells of an object form a box of
+	 * cells, which a ray walks through in consecutive steps, so an object met in the previous
+	 * cell of the walk has already been met.
+	 *
+	 * @param cell          the objects of the cell, may be null
+	 * @param intersectable the object
+	 * @return true if the cell holds the object
+	 */
+	private static boolean contains(Intersectable[] cell, Intersectable intersectable) {
+		if (cell == null)
+			return false;
+		for (Intersectable other : cell)
+			if (other == intersectable)
+				return true;
+		return false;
+	}
+}
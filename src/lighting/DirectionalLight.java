@@ -1,7 +1,9 @@
 package lighting;
 
 import primitives.Color;
+import primitives.Color3;
 import primitives.Point;
+import primitives.Vec3;
 import primitives.Vector;
 
 /**
@@ -39,4 +41,19 @@ public class DirectionalLight extends Light implements LightSource {
 	public double getDistance(Point point) {
 		return Double.POSITIVE_INFINITY;
 	}
+
+	@Override
+	public void getIntensity(Vec3 p, Color3 intensity) {
+		intensity.set(this.intensity);
+	}
+
+	@Override
+	public void getL(Vec3 p, Vec3 l) {
+		l.set(direction);
+	}
+
+	@Override
+	public double getDistance(Vec3 point) {
+		return Double.POSITIVE_INFINITY;
+	}
 }
@@ -1,7 +1,9 @@
 package lighting;
 
 import primitives.Color;
+import primitives.Color3;
 import primitives.Point;
+import primitives.Vec3;
 import primitives.Vector;
 
 /**
@@ -9,6 +11,9 @@ import primitives.Vector;
  * Includes methods for obtaining light intensity at a specific point,
  * the direction vector of the light relative to a point, and the distance
  * to a given point.
+ * Every query has an in-place form as well, for the allocation-free shading of the renderer.
+ * Their default implementations call the allocating queries; the lights of the library
+ * override them with allocation-free code that gives exactly the same results.
  */
 public interface LightSource {
 	/**
@@ -34,4 +39,35 @@ public interface LightSource {
 	 * @return the distance from the light source to the specified point
 	 */
 	double getDistance(Point point);
+
+	/**
+	 * Gets the intensity of the light at a specified point in place, as {@link #getIntensity(Point)}.
+	 *
+	 * @param p         the point at which the light intensity is calculated
+	 * @param intensity receives the color intensity of the light at the specified point
+	 */
+	default void getIntensity(Vec3 p, Color3 intensity) {
+		intensity.set(getIntensity(p.toPoint()));
+	}
+
+	/**
+	 * Gets the direction vector of the light from the source to a specified point in place,
+	 * as {@link #getL(Point)}.
+	 *
+	 * @param p the point at which the direction is calculated
+	 * @param l receives the direction vector of the light at the specified point
+	 */
+	default void getL(Vec3 p, Vec3 l) {
+		l.set(getL(p.toPoint()));
+	}
+
+	/**
+	 * Computes the distance from the light source to the specified point, as {@link #getDistance(Point)}.
+	 *
+	 * @param point the point to compute the distance to
+	 * @return the distance from the light source to the specified point
+	 */
+	default double getDistance(Vec3 point) {
+		return getDistance(point.toPoint());
+	}
 }
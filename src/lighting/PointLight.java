@@ -1,9 +1,13 @@
 package lighting;
 
 import primitives.Color;
+import primitives.Color3;
 import primitives.Point;
+import primitives.Vec3;
 import primitives.Vector;
 
+import static primitives.Util.isZero;
+
 /**
  * Represents a point light source that emits light equally in all directions from a specific position in space.
  * The intensity of the light diminishes with distance based on attenuation factors.
@@ -85,4 +89,50 @@ public class PointLight extends Light implements LightSource {
 		}
 		return point.distance(position);
 	}
+
+	@Override
+	public void getIntensity(Vec3 p, Color3 intensity) {
+		double d = getDistance(p);
+		intensity.set(this.intensity).scale(1 / (kC + kL * d + kQ * d * d));
+	}
+
+	@Override
+	public void getL(Vec3 p, Vec3 l) {
+		checkPosition(p);
+		l.set(p).subtract(position).normalize();
+	}
+
+	@Override
+	public double getDistance(Vec3 point) {
+		checkPosition(point);
+		double dx = point.x - position.getX(), dy = point.y - position.getY(), dz = point.z - position.getZ();
+		return Math.sqrt(dx * dx + dy * dy + dz * dz);
+	}
+
+	/**
+	 * Calculates the dot product of a vector with the direction of the light to a point,
+	 * as {@code v.dotProduct(getL(p))}, without allocating.
+	 *
+	 * @param v the vector
+	 * @param p the point
+	 * @return the dot product
+	 */
+	double dotL(Vector v, Vec3 p) {
+		checkPosition(p);
+		double lx = p.x - position.getX(), ly = p.y - position.getY(), lz = p.z - position.getZ();
+		double scale = 1 / Math.sqrt(lx * lx + ly * ly + lz * lz);
+		return v.getX() * (lx * scale) + v.getY() * (ly * scale) + v.getZ() * (lz * scale);
+	}
+
+	/**
+	 * Checks that a point is not the position of the light, as the allocating queries do.
+	 *
+	 * @param p the point
+	 * @throws IllegalArgumentException if the point is the position of the light
+	 */
+	private void checkPosition(Vec3 p) {
+		if (isZero(p.x - position.getX()) && isZero(p.y - position.getY()) && isZero(p.z - position.getZ())) {
+			throw new IllegalArgumentException("The point cannot be equal to the position of the point light.");
+		}
+	}
 }
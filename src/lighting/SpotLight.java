@@ -1,7 +1,9 @@
 package lighting;
 
 import primitives.Color;
+import primitives.Color3;
 import primitives.Point;
+import primitives.Vec3;
 import primitives.Vector;
 
 /**
@@ -55,4 +57,15 @@ public class SpotLight extends PointLight {
 		}
 		return super.getIntensity(p).scale(nlOr0).scale(1 + (double) (beamWidth - 1) / 10);
 	}
+
+	@Override
+	public void getIntensity(Vec3 p, Color3 intensity) {
+		double nlOr0 = 1.0;
+		double dirL = Math.max(0, dotL(this.direction, p));
+		for (int i = 0; i < beamWidth; ++i) {
+			nlOr0 *= dirL;
+		}
+		super.getIntensity(p, intensity);
+		intensity.scale(nlOr0).scale(1 + (double) (beamWidth - 1) / 10);
+	}
 }
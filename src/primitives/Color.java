@@ -82,6 +82,33 @@ public class Color {
 		return new java.awt.Color(ir > 255 ? 255 : ir, ig > 255 ? 255 : ig, ib > 255 ? 255 : ib);
 	}
 
+	/**
+	 * Red component getter
+	 * 
+	 * @return the red component (not limited to 255)
+	 */
+	public double getRed() {
+		return rgb.d1;
+	}
+
+	/**
+	 * Green component getter
+	 * 
+	 * @return the green component (not limited to 255)
+	 */
+	public double getGreen() {
+		return rgb.d2;
+	}
+
+	/**
+	 * Blue component getter
+	 * 
+	 * @return the blue component (not limited to 255)
+	 */
+	public double getBlue() {
+		return rgb.d3;
+	}
+
 	/**
 	 * Operation of adding this and one or more other colors (by component)
 	 * 
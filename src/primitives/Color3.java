@@ -0,0 +1,183 @@
+package primitives;
+
+/**
+ * Mutable color accumulator for the allocation-free shading of the renderer. It holds
+ * either a color or a triad of color coefficients (such as the accumulated attenuation of a
+ * ray). Unlike {@link Color} and {@link Double3}, every operation changes the object itself
+ * and returns it, so that the color of a ray is summed on a few scratch objects that are
+ * allocated once and reused for every ray.
+ * The operations do the same arithmetic, in the same order, as the matching operations of
+ * {@link Color} and {@link Double3}, so both give exactly the same results.
+ * A Color3 is not thread-safe - each thread should use its own objects.
+ *
+ * @author Shay and Asaf
+ */
+public final class Color3 {
+	/** Red, green and blue components, or the three coefficients */
+	public double r, g, b;
+
+	/**
+	 * Constructs a black color
+	 */
+	public Color3() {
+	}
+
+	/**
+	 * Sets the components
+	 *
+	 * @param r red component
+	 * @param g green component
+	 * @param b blue component
+	 * @return this object
+	 */
+	public Color3 set(double r, double g, double b) {
+		this.r = r;
+		this.g = g;
+		this.b = b;
+		return this;
+	}
+
+	/**
+	 * Sets the components to those of a color
+	 *
+	 * @param c the color
+	 * @return this object
+	 */
+	public Color3 set(Color c) {
+		return set(c.getRed(), c.getGreen(), c.getBlue());
+	}
+
+	/**
+	 * Sets the components to a triad of coefficients
+	 *
+	 * @param k the coefficients
+	 * @return this object
+	 */
+	public Color3 set(Double3 k) {
+		return set(k.d1, k.d2, k.d3);
+	}
+
+	/**
+	 * Sets the components to those of another accumulator
+	 *
+	 * @param c the other accumulator
+	 * @return this object
+	 */
+	public Color3 set(Color3 c) {
+		return set(c.r, c.g, c.b);
+	}
+
+	/**
+	 * Adds a color, as {@link Color#add(Color...)}
+	 *
+	 * @param c the color
+	 * @return this object
+	 */
+	public Color3 add(Color c) {
+		r += c.getRed();
+		g += c.getGreen();
+		b += c.getBlue();
+		return this;
+	}
+
+	/**
+	 * Adds another accumulator
+	 *
+	 * @param c the other accumulator
+	 * @return this object
+	 */
+	public Color3 add(Color3 c) {
+		r += c.r;
+		g += c.g;
+		b += c.b;
+		return this;
+	}
+
+	/**
+	 * Adds scaled coefficients, as {@code add(k.scale(s))} of {@link Double3}
+	 *
+	 * @param k the coefficients
+	 * @param s the scale factor
+	 * @return this object
+	 */
+	public Color3 addScaled(Double3 k, double s) {
+		r += k.d1 * s;
+		g += k.d2 * s;
+		b += k.d3 * s;
+		return this;
+	}
+
+	/**
+	 * Scales the components, as {@link Color#scale(double)}
+	 *
+	 * @param k the scale factor
+	 * @return this object
+	 */
+	public Color3 scale(double k) {
+		r *= k;
+		g *= k;
+		b *= k;
+		return this;
+	}
+
+	/**
+	 * Scales the components by coefficients, as {@link Color#scale(Double3)}
+	 *
+	 * @param k the coefficients
+	 * @return this object
+	 */
+	public Color3 scale(Double3 k) {
+		r *= k.d1;
+		g *= k.d2;
+		b *= k.d3;
+		return this;
+	}
+
+	/**
+	 * Scales the components by the components of another accumulator
+	 *
+	 * @param k the other accumulator
+	 * @return this object
+	 */
+	public Color3 scale(Color3 k) {
+		r *= k.r;
+		g *= k.g;
+		b *= k.b;
+		return this;
+	}
+
+	/**
+	 * Checks whether all the components are lower than a value, as {@link Double3#lowerThan(double)}
+	 *
+	 * @param k the value
+	 * @return true if all the components are lower
+	 */
+	public boolean lowerThan(double k) {
+		return r < k && g < k && b < k;
+	}
+
+	/**
+	 * Checks whether all the components are greater than a value, as {@link Double3#greaterThan(double)}
+	 *
+	 * @param k the value
+	 * @return true if all the components are greater
+	 */
+	public boolean greaterThan(double k) {
+		return r > k && g > k && b > k;
+	}
+
+	/**
+	 * Creates a color of the components
+	 *
+	 * @return a new color
+	 * @throws IllegalArgumentException if a component is negative
+	 */
+	public Color toColor() {
+		return new Color(r, g, b);
+	}
+
+	@Override
+	public String toString() {
+		return "rgb3:(" + r + "," + g + "," + b + ")";
+	}
+}
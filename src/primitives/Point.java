@@ -1,15 +1,19 @@
 package primitives;
 
+import static primitives.Util.isZero;
+
 /**
  * The Point class represents a location in 3-dimensional space within the Cartesian coordinate system.
  * It is a fundamental class used in Euclidean geometry to describe positions in space.
  * Points are immutable and can be used to perform geometric operations such as vector calculations.
+ * The coordinates are kept directly in the object, so a point is a single small allocation
+ * that the JIT can often replace by its three values.
  *
  * @author Shay and Asaf
  */
 public class Point {
 	/** Coordinate values of the point */
-	protected final Double3 xyz;
+	final double x, y, z;
 
 	/** Zero triad (0,0,0) */
 	public static final Point ZERO = new Point(0, 0, 0);
@@ -23,7 +27,9 @@ public class Point {
 	 * @param z coordinate value
 	 */
 	public Point(double x, double y, double z) {
-		this.xyz = new Double3(x, y, z);
+		this.x = x;
+		this.y = y;
+		this.z = z;
 	}
 
 	/**
@@ -33,7 +39,7 @@ public class Point {
 	 * @param xyz1 representing the coordinates
 	 */
 	public Point(Double3 xyz1) {
-		this.xyz = xyz1;
+		this(xyz1.d1, xyz1.d2, xyz1.d3);
 	}
 
 	/**
@@ -44,7 +50,7 @@ public class Point {
 	 * @return Vector from 'other' to 'this' point
 	 */
 	public Vector subtract(Point other) {
-		return new Vector(xyz.subtract(other.xyz));
+		return new Vector(x - other.x, y - other.y, z - other.z);
 	}
 
 	/**
@@ -54,7 +60,7 @@ public class Point {
 	 * @return New point after adding the vector
 	 */
 	public Point add(Vector vec) {
-		return new Point(xyz.add(vec.xyz));
+		return new Point(x + vec.x, y + vec.y, z + vec.z);
 	}
 
 	/**
@@ -64,7 +70,8 @@ public class Point {
 	 * @return The squared distance between the two points.
 	 */
 	public double distanceSquared(Point p) {
-		return Math.pow(xyz.d1 - p.xyz.d1, 2) + Math.pow(xyz.d2 - p.xyz.d2, 2) + Math.pow(xyz.d3 - p.xyz.d3, 2);
+		double dx = x - p.x, dy = y - p.y, dz = z - p.z;
+		return dx * dx + dy * dy + dz * dz;
 	}
 
 	/**
@@ -83,7 +90,7 @@ public class Point {
 	 * @return the X coordinate.
 	 */
 	public double getX() {
-		return xyz.d1;
+		return x;
 	}
 
 	/**
@@ -92,7 +99,7 @@ public class Point {
 	 * @return the Y coordinate.
 	 */
 	public double getY() {
-		return xyz.d2;
+		return y;
 	}
 
 	/**
@@ -101,24 +108,24 @@ public class Point {
 	 * @return the Z coordinate.
 	 */
 	public double getZ() {
-		return xyz.d3;
+		return z;
 	}
 
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj)
 			return true;
-		return (obj instanceof Point other) && this.xyz.equals(other.xyz);
+		return (obj instanceof Point other) && isZero(x - other.x) && isZero(y - other.y) && isZero(z - other.z);
 	}
 
 	@Override
 	public int hashCode() {
-		return xyz.hashCode();
+		return (int) Math.round(x + y + z);
 	}
 
 	@Override
 	public String toString() {
-		return "P" + xyz;
+		return "P(" + x + "," + y + "," + z + ")";
 	}
 
 }
@@ -0,0 +1,147 @@
+package primitives;
+
+/**
+ * Counter-based, splittable random number stream.
+ * The n-th number of a stream is a pure function of the stream key and n (a SplitMix64
+ * mix of them), so there is no shared state to contend on, and the numbers do not depend
+ * on which thread draws them or in what order the pixels are rendered.
+ * The renderer keys a stream by (frame, pixel, sample) before tracing each sample, which
+ * makes any stochastic sampling bit-reproducible regardless of the threads count or the
+ * tile order. Independent sub-streams are derived by {@link #split(long)}.
+ * Every thread has a current stream, used by {@link Util#random(double, double)}.
+ * A stream is not thread-safe - each thread should use its own streams.
+ *
+ * @author Shay and Asaf
+ */
+public final class RandomStream {
+	/** The golden ratio increment of the SplitMix64 counter */
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	/** The current stream of each thread */
+	private static final ThreadLocal<RandomStream> CURRENT = ThreadLocal
+			.withInitial(() -> new RandomStream(hash(Thread.currentThread().threadId(), 0)));
+
+	/** The key of the stream */
+	private long key;
+	/** Number of values drawn from the stream since it was keyed */
+	private long counter;
+
+	/**
+	 * Constructs a stream with the given key
+	 *
+	 * @param key the key of the stream
+	 */
+	public RandomStream(long key) {
+		this.key = key;
+	}
+
+	/**
+	 * Constructs a stream keyed by a frame, a pixel and a sample index
+	 *
+	 * @param frame  the frame
+	 * @param pixel  the pixel index
+	 * @param sample the sample index
+	 */
+	public RandomStream(long frame, long pixel, long sample) {
+		this(key(frame, pixel, sample));
+	}
+
+	/**
+	 * Calculates the key of the stream of a frame, a pixel and a sample index
+	 *
+	 * @param frame  the frame
+	 * @param pixel  the pixel index
+	 * @param sample the sample index
+	 * @return the key
+	 */
+	private static long key(long frame, long pixel, long sample) {
+		return hash(hash(hash(0, frame), pixel), sample);
+	}
+
+	/**
+	 * Mixes a value into a seed, producing well scrambled bits (a SplitMix64 step)
+	 *
+	 * @param seed  the seed
+	 * @param value the value to mix in
+	 * @return the mixed bits
+	 */
+	public static long hash(long seed, long value) {
+		long z = seed + (value + 1) * GOLDEN_GAMMA;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Converts random bits to a uniform number in the range [0, 1)
+	 *
+	 * @param bits the random bits
+	 * @return the number
+	 */
+	public static double toUnit(long bits) {
+		return (bits >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * Retrieves the current stream of the calling thread
+	 *
+	 * @return the current stream
+	 */
+	public static RandomStream current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Re-keys the stream by a frame, a pixel and a sample index, restarting its counter
+	 *
+	 * @param frame  the frame
+	 * @param pixel  the pixel index
+	 * @param sample the sample index
+	 * @return the stream itself
+	 */
+	public RandomStream reset(long frame, long pixel, long sample) {
+		key = key(frame, pixel, sample);
+		counter = 0;
+		return this;
+	}
+
+	/**
+	 * Derives an independent stream from the key of this stream and an id.
+	 * The derived stream does not depend on the values drawn from this stream.
+	 *
+	 * @param id the id of the sub-stream
+	 * @return the new stream
+	 */
+	public RandomStream split(long id) {
+		return new RandomStream(hash(key, -1 - id));
+	}
+
+	/**
+	 * Draws the next 64 random bits
+	 *
+	 * @return the bits
+	 */
+	public long nextLong() {
+		return hash(key, counter++);
+	}
+
+	/**
+	 * Draws the next uniform number in the range [0, 1)
+	 *
+	 * @return the number
+	 */
+	public double nextDouble() {
+		return toUnit(nextLong());
+	}
+
+	/**
+	 * Draws the next uniform number in a range
+	 *
+	 * @param min value (included)
+	 * @param max value (excluded)
+	 * @return the number
+	 */
+	public double nextDouble(double min, double max) {
+		return nextDouble() * (max - min) + min;
+	}
+}
@@ -8,60 +8,185 @@ import static primitives.Util.isZero;
 /**
  * The Ray class represents a directed line segment in Euclidean space.
  * It is defined by a starting point (head) and a direction vector.
+ * The coordinates of the head and the direction are kept as scalars, which the intersection
+ * code reads without touching the point and the vector.
+ * A ray is immutable, except for the reusable rays of the renderer: subclasses may move a ray
+ * in place by {@link #move(double, double, double, double, double, double)}, so that the
+ * secondary rays of a rendering thread are not allocated per ray. Such a ray must not be
+ * shared between threads, nor kept beyond the query it was moved for.
  *
  * @author Shay and Asaf
  */
 public class Ray {
 
-	private final Point head;
-	private final Vector direction;
+	/** The head, null until asked for after the ray was moved */
+	private Point head;
+	/** The direction, null until asked for after the ray was moved */
+	private Vector direction;
+	/** Coordinates of the head */
+	private double hx, hy, hz;
+	/** Coordinates of the direction */
+	private double dx, dy, dz;
 	private static final double DELTA = 0.1;
 
 	/**
 	 * ray constructor
 	 *
 	 * @param point  the starting point (head) of the ray
-	 * @param vector  the direction vector of the ray; it is normalized internally
+	 * @param vector  the direction vector of the ray; it is normalized internally, without
+	 *                calculating its length if it is already known to be normalized
+	 *                (see {@link Vector#isNormalized()})
 	 */
 	public Ray(Point point, Vector vector) {
-		head = point;
-		direction = vector.normalize();
+		set(point, vector.normalize());
 	}
 
 	/**
 	 * Constructor to initialize a Ray object with a given head point, direction vector and normal vector.
-	 * The direction vector is normalized.
+	 * The direction vector is normalized, without calculating its length if it is already known to be normalized.
 	 * @param pHead the starting point of the ray
 	 * @param vDirection the direction vector of the ray
 	 * @param n the normal vector
 	 */
 	public Ray(Point pHead, Vector vDirection, Vector n) {
-		this.direction = vDirection.normalize();
-		double nDir = this.direction.dotProduct(n);
-		this.head = isZero(nDir) ? pHead :
-				nDir > 0 ? pHead.add(n.scale(0.1)) : pHead.add(n.scale(-0.1));
+		Vector dir = vDirection.normalize();
+		double nDir = dir.dotProduct(n);
+		set(isZero(nDir) ? pHead : pHead.add(n.scale(nDir > 0 ? DELTA : -DELTA)), dir);
 	}
+
+	/**
+	 * Sets the head and the normalized direction of a new ray.
+	 *
+	 * @param point the head
+	 * @param dir   the normalized direction
+	 */
+	private void set(Point point, Vector dir) {
+		head = point;
+		direction = dir;
+		hx = point.getX();
+		hy = point.getY();
+		hz = point.getZ();
+		dx = dir.getX();
+		dy = dir.getY();
+		dz = dir.getZ();
+	}
+
+	/**
+	 * Moves the ray in place to a new head and direction, for the reusable rays of subclasses.
+	 *
+	 * @param hx x coordinate of the new head
+	 * @param hy y coordinate of the new head
+	 * @param hz z coordinate of the new head
+	 * @param dx x coordinate of the new direction
+	 * @param dy y coordinate of the new direction
+	 * @param dz z coordinate of the new direction, which must be normalized
+	 * @throws IllegalArgumentException if the direction is not normalized
+	 */
+	protected final void move(double hx, double hy, double hz, double dx, double dy, double dz) {
+		if (!isZero(dx * dx + dy * dy + dz * dz - 1))
+			throw new IllegalArgumentException("Direction of a ray must be normalized");
+		this.hx = hx;
+		this.hy = hy;
+		this.hz = hz;
+		this.dx = dx;
+		this.dy = dy;
+		this.dz = dz;
+		head = null;
+		direction = null;
+	}
+
+	/**
+	 * Moves the ray in place to a new head, moved off the surface along its normal, and a new
+	 * direction - the same ray as {@link #Ray(Point, Vector, Vector)} constructs.
+	 *
+	 * @param hx x coordinate of the point on the surface
+	 * @param hy y coordinate of the point on the surface
+	 * @param hz z coordinate of the point on the surface
+	 * @param dx x coordinate of the new direction
+	 * @param dy y coordinate of the new direction
+	 * @param dz z coordinate of the new direction, which must be normalized
+	 * @param nx x coordinate of the normal of the surface at the point
+	 * @param ny y coordinate of the normal of the surface at the point
+	 * @param nz z coordinate of the normal of the surface at the point
+	 * @throws IllegalArgumentException if the direction is not normalized
+	 */
+	protected final void move(double hx, double hy, double hz, double dx, double dy, double dz,
+							  double nx, double ny, double nz) {
+		double nDir = dx * nx + dy * ny + dz * nz;
+		double delta = isZero(nDir) ? 0 : nDir > 0 ? DELTA : -DELTA;
+		if (delta == 0)
+			move(hx, hy, hz, dx, dy, dz);
+		else
+			move(hx + nx * delta, hy + ny * delta, hz + nz * delta, dx, dy, dz);
+	}
+
 	/**
 	 * @param d the distance
 	 * @return the ray points from a given distance
 	 */
-	public Point getPoint(double d) {
-		return isZero(d) ? head : head.add(direction.scale(d));
+	public final Point getPoint(double d) {
+		return isZero(d) ? getHead() : getHead().add(getDirection().scale(d));
 	}
 
 	/**
 	 * @return the starting point of the ray.
 	 */
-	public Point getHead() {
+	public final Point getHead() {
+		if (head == null)
+			head = new Point(hx, hy, hz);
 		return head;
 	}
 	/**
 	 * @return the direction of the ray.
 	 */
-	public Vector getDirection() {
+	public final Vector getDirection() {
+		if (direction == null)
+			direction = Vector.uncheckedUnit(dx, dy, dz);
 		return direction;
 	}
 
+	/**
+	 * @return the x coordinate of the starting point of the ray.
+	 */
+	public final double getHeadX() {
+		return hx;
+	}
+
+	/**
+	 * @return the y coordinate of the starting point of the ray.
+	 */
+	public final double getHeadY() {
+		return hy;
+	}
+
+	/**
+	 * @return the z coordinate of the starting point of the ray.
+	 */
+	public final double getHeadZ() {
+		return hz;
+	}
+
+	/**
+	 * @return the x coordinate of the direction of the ray.
+	 */
+	public final double getDirectionX() {
+		return dx;
+	}
+
+	/**
+	 * @return the y coordinate of the direction of the ray.
+	 */
+	public final double getDirectionY() {
+		return dy;
+	}
+
+	/**
+	 * @return the z coordinate of the direction of the ray.
+	 */
+	public final double getDirectionZ() {
+		return dz;
+	}
+
 	/**
 	 * Finds the closest point to the head of the ray from a list of points.
 	 * @param points the list of points
@@ -89,7 +214,7 @@ public class Ray {
 		// Iterate through the list of GeoPoints
 		for (GeoPoint geoPoint : intersections) {
 			// Calculate the distance between the origin of the ray and the current GeoPoint
-			double distance = head.distance(geoPoint.point);
+			double distance = getHead().distance(geoPoint.point);
 
 			// Check if the current GeoPoint is closer than the previous closest GeoPoint
 			if (distance < closestDistance) {
@@ -106,11 +231,11 @@ public class Ray {
 	public final boolean equals(Object o) {
 		if (this == o) return true;
 		if (!(o instanceof Ray ray)) return false;
-		return head.equals(ray.head) && direction.equals(ray.direction);
+		return getHead().equals(ray.getHead()) && getDirection().equals(ray.getDirection());
 	}
 
 	@Override
 	public String toString() {
-		return "Ray:" + head + "->" + direction;
+		return "Ray:" + getHead() + "->" + getDirection();
 	}
 }
@@ -63,14 +63,15 @@ public final class Util {
 	}
 
 	/**
-	 * Provide a real random number in range between min and max
+	 * Provide a real random number in range between min and max, drawn from the
+	 * current random stream of the thread (see {@link RandomStream#current()})
 	 * 
 	 * @param min value (included)
 	 * @param max value (excluded)
 	 * @return the random value
 	 */
 	public static double random(double min, double max) {
-		return Math.random() * (max - min) + min;
+		return RandomStream.current().nextDouble(min, max);
 	}
 
 }
\ No newline at end of file
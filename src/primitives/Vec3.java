@@ -0,0 +1,173 @@
+package primitives;
+
+import static primitives.Util.alignZero;
+
+/**
+ * Mutable triad of coordinates - a point or a vector - for the allocation-free calculations
+ * of the renderer. Unlike {@link Point} and {@link Vector}, every operation changes the
+ * object itself and returns it, so that a calculation can be chained on a few scratch
+ * objects that are allocated once and reused for every ray.
+ * The operations do the same arithmetic, in the same order, as the matching operations of
+ * {@link Point} and {@link Vector}, so both give exactly the same results.
+ * A Vec3 is not thread-safe - each thread should use its own objects, and must not keep
+ * them beyond the calculation they were taken for.
+ *
+ * @author Shay and Asaf
+ */
+public final class Vec3 {
+	/** Coordinate values */
+	public double x, y, z;
+
+	/**
+	 * Constructs a zero triad
+	 */
+	public Vec3() {
+	}
+
+	/**
+	 * Sets the coordinates
+	 *
+	 * @param x coordinate value
+	 * @param y coordinate value
+	 * @param z coordinate value
+	 * @return this object
+	 */
+	public Vec3 set(double x, double y, double z) {
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		return this;
+	}
+
+	/**
+	 * Sets the coordinates to those of a point or a vector
+	 *
+	 * @param p the point or the vector
+	 * @return this object
+	 */
+	public Vec3 set(Point p) {
+		return set(p.x, p.y, p.z);
+	}
+
+	/**
+	 * Sets the coordinates to those of another triad
+	 *
+	 * @param v the other triad
+	 * @return this object
+	 */
+	public Vec3 set(Vec3 v) {
+		return set(v.x, v.y, v.z);
+	}
+
+	/**
+	 * Subtracts a point, as {@link Point#subtract(Point)}
+	 *
+	 * @param p the point
+	 * @return this object
+	 */
+	public Vec3 subtract(Point p) {
+		x -= p.x;
+		y -= p.y;
+		z -= p.z;
+		return this;
+	}
+
+	/**
+	 * Adds a scaled vector, as {@code add(v.scale(k))}
+	 *
+	 * @param v the vector
+	 * @param k the scale factor
+	 * @return this object
+	 */
+	public Vec3 addScaled(Point v, double k) {
+		x += v.x * k;
+		y += v.y * k;
+		z += v.z * k;
+		return this;
+	}
+
+	/**
+	 * Subtracts a scaled vector, as {@code subtract(v.scale(k))}
+	 *
+	 * @param v the vector
+	 * @param k the scale factor
+	 * @return this object
+	 */
+	public Vec3 subtractScaled(Vec3 v, double k) {
+		x -= v.x * k;
+		y -= v.y * k;
+		z -= v.z * k;
+		return this;
+	}
+
+	/**
+	 * Scales the triad, as {@link Vector#scale(double)}
+	 *
+	 * @param k the scale factor
+	 * @return this object
+	 */
+	public Vec3 scale(double k) {
+		x *= k;
+		y *= k;
+		z *= k;
+		return this;
+	}
+
+	/**
+	 * Calculates the dot product with a vector, as {@link Vector#dotProduct(Vector)}
+	 *
+	 * @param v the vector
+	 * @return the dot product
+	 */
+	public double dotProduct(Point v) {
+		return x * v.x + y * v.y + z * v.z;
+	}
+
+	/**
+	 * Calculates the dot product with another triad, as {@link Vector#dotProduct(Vector)}
+	 *
+	 * @param v the other triad
+	 * @return the dot product
+	 */
+	public double dotProduct(Vec3 v) {
+		return x * v.x + y * v.y + z * v.z;
+	}
+
+	/**
+	 * Normalizes the triad, as {@link Vector#normalize()} does to a vector not known to be
+	 * normalized
+	 *
+	 * @return this object
+	 * @throws ArithmeticException if the triad is zero
+	 */
+	public Vec3 normalize() {
+		double length = Math.sqrt(dotProduct(this));
+		if (alignZero(length) == 0)
+			throw new ArithmeticException("Cannot normalize vector(0,0,0)");
+		return scale(1 / length);
+	}
+
+	/**
+	 * Creates a point at the coordinates
+	 *
+	 * @return a new point
+	 */
+	public Point toPoint() {
+		return new Point(x, y, z);
+	}
+
+	/**
+	 * Creates a vector of the coordinates
+	 *
+	 * @return a new vector
+	 * @throws IllegalArgumentException if the triad is zero
+	 */
+	public Vector toVector() {
+		return new Vector(x, y, z);
+	}
+
+	@Override
+	public String toString() {
+		return "V3(" + x + "," + y + "," + z + ")";
+	}
+}
@@ -1,15 +1,21 @@
 package primitives;
 
 import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
 
 /**
  * The Vector class represents a vector in 3-dimensional space.
  * It extends the {@link Point} class, where a vector is essentially a point with an origin at (0,0,0).
  * A zero vector is not allowed.
+ * A vector knows whether it is normalized, when it was created by {@link #normalize()} or
+ * as a unit vector, so normalizing it again (as {@link Ray} does with its direction) skips
+ * the square root and the division.
  *
  * @author Shay and Asaf
  */
 public class Vector extends Point {
+	/** Whether the vector is known to be of length 1 */
+	private final boolean normalized;
 
 	/**
 	 * Constructs a Vector with the specified coordinates.
@@ -18,10 +24,7 @@ public class Vector extends Point {
 	 * @throws IllegalArgumentException if the vector is a zero vector (i.e., has all coordinates as zero)
 	 */
 	public Vector(Double3 xyz1) {
-		super(xyz1);
-		if (xyz1.equals(Double3.ZERO)) {
-			throw new IllegalArgumentException("Zero vector is not allowed");
-		}
+		this(xyz1.d1, xyz1.d2, xyz1.d3);
 	}
 
 	/**
@@ -33,12 +36,65 @@ public class Vector extends Point {
 	 * @throws IllegalArgumentException If the vector is a zero vector.
 	 */
 	public Vector(double x, double y, double z) {
-		super(x, y, z);
-		if (xyz.equals(Double3.ZERO)) {
+		this(x, y, z, false);
+		if (isZero(x) && isZero(y) && isZero(z)) {
 			throw new IllegalArgumentException("Zero vector is not allowed");
 		}
 	}
 
+	/**
+	 * Constructor of a vector that is known not to be zero, without the check.
+	 *
+	 * @param x          The x-coordinate of the vector.
+	 * @param y          The y-coordinate of the vector.
+	 * @param z          The z-coordinate of the vector.
+	 * @param normalized whether the vector is known to be of length 1
+	 */
+	private Vector(double x, double y, double z, boolean normalized) {
+		super(x, y, z);
+		this.normalized = normalized;
+	}
+
+	/**
+	 * Creates a vector from coordinates that the caller guarantees are not all zero, skipping
+	 * the zero vector check. It is meant for the hot loops of the renderer, which calculate
+	 * such coordinates themselves, e.g. by normalizing a vector; anywhere else use the
+	 * constructor.
+	 *
+	 * @param x The x-coordinate of the vector.
+	 * @param y The y-coordinate of the vector.
+	 * @param z The z-coordinate of the vector.
+	 * @return the vector
+	 */
+	public static Vector unchecked(double x, double y, double z) {
+		return new Vector(x, y, z, false);
+	}
+
+	/**
+	 * Creates a unit vector from coordinates that the caller has just normalized, skipping the
+	 * zero vector check, and marks it as normalized so it is never normalized again.
+	 * Like {@link #unchecked(double, double, double)}, it is meant for the hot loops of the renderer.
+	 *
+	 * @param x The x-coordinate of the vector.
+	 * @param y The y-coordinate of the vector.
+	 * @param z The z-coordinate of the vector.
+	 * @return the vector
+	 */
+	public static Vector uncheckedUnit(double x, double y, double z) {
+		return new Vector(x, y, z, true);
+	}
+
+	/**
+	 * Checks whether the vector is known to be of length 1: it was created by
+	 * {@link #normalize()}, as a unit vector, or by scaling such a vector by 1 or -1.
+	 * A vector created from coordinates is not known to be normalized, even if it is.
+	 *
+	 * @return true if the vector is known to be normalized
+	 */
+	public boolean isNormalized() {
+		return normalized;
+	}
+
 	/**
 	 * Adds this vector to another vector, returning a new vector that is the sum of the two vectors.
 	 *
@@ -46,7 +102,7 @@ public class Vector extends Point {
 	 * @return a new vector representing the sum of this vector and the given vector
 	 */
 	public Vector add(Vector v) {
-		return new Vector(xyz.add(v.xyz));
+		return new Vector(x + v.x, y + v.y, z + v.z);
 	}
 
 	/**
@@ -57,7 +113,12 @@ public class Vector extends Point {
 	 * @throws IllegalArgumentException if the scalar is zero
 	 */
 	public Vector scale(double num) {
-		return new Vector(this.xyz.scale(num));
+		double sx = x * num, sy = y * num, sz = z * num;
+		if (isZero(sx) && isZero(sy) && isZero(sz)) {
+			throw new IllegalArgumentException("Zero vector is not allowed");
+		}
+		// Reversing a unit vector keeps it normalized
+		return new Vector(sx, sy, sz, normalized && (num == 1 || num == -1));
 	}
 
 	/**
@@ -67,59 +128,27 @@ public class Vector extends Point {
 	 * @return the dot product of this vector and the given vector
 	 */
 	public double dotProduct(Vector other) {
-		return (this.xyz.d1 * other.xyz.d1) + (this.xyz.d2 * other.xyz.d2) + (this.xyz.d3 * other.xyz.d3);
+		return x * other.x + y * other.y + z * other.z;
 	}
 
 	/**
 	 * Computes the cross product between this vector and another vector, returning a new vector that is
-	 * perpendicular to both. If either vector is zero or if the vectors are parallel, an exception is thrown.
+	 * perpendicular to both. If the vectors are parallel, the cross product is zero and an exception is thrown.
 	 *
 	 * @param other the other vector
 	 * @return a new vector that is the cross product of this vector and the given vector
-	 * @throws IllegalArgumentException if either vector is zero or if the vectors are parallel
+	 * @throws IllegalArgumentException if the vectors are parallel
 	 */
 	public Vector crossProduct(Vector other) {
-		if (this.equals(ZERO) || other.equals(ZERO)) {
-			throw new IllegalArgumentException("Zero vector is not allowed");
-		}
-		if (isParallel(other)) {
+		double cx = y * other.z - z * other.y;
+		double cy = z * other.x - x * other.z;
+		double cz = x * other.y - y * other.x;
+		if (isZero(cx) && isZero(cy) && isZero(cz)) {
 			throw new IllegalArgumentException("Cross Product of parallel vectors is illegal");
 		}
-
-		return new Vector(
-				this.xyz.d2 * other.xyz.d3 - this.xyz.d3 * other.xyz.d2,
-				this.xyz.d3 * other.xyz.d1 - this.xyz.d1 * other.xyz.d3,
-				this.xyz.d1 * other.xyz.d2 - this.xyz.d2 * other.xyz.d1
-		);
+		return new Vector(cx, cy, cz, false);
 	}
 
-	/**
-	 * Helper method to determine if this vector and another vector are parallel.
-	 *
-	 * @param vector the other vector
-	 * @return true if the vectors are parallel, false otherwise
-	 */
-	private boolean isParallel(Vector vector) {
-		// Check for division by zero
-		if (vector.xyz.d1 == 0 || vector.xyz.d2 == 0 || vector.xyz.d3 == 0) {
-			return false;
-		}
-
-		double ratio1 = this.xyz.d1 / vector.xyz.d1;
-		double ratio2 = this.xyz.d2 / vector.xyz.d2;
-		double ratio3 = this.xyz.d3 / vector.xyz.d3;
-
-		boolean ratio1IsValid = !Double.isInfinite(ratio1) && !Double.isNaN(ratio1);
-		boolean ratio2IsValid = !Double.isInfinite(ratio2) && !Double.isNaN(ratio2);
-		boolean ratio3IsValid = !Double.isInfinite(ratio3) && !Double.isNaN(ratio3);
-
-		if (ratio1IsValid && ratio2IsValid && ratio3IsValid) {
-			return ratio1 == ratio2 && ratio2 == ratio3;
-		}
-		return false;
-	}
-
-
 	/**
 	 * Calculate the squared length of the vector
 	 * 
@@ -140,34 +169,41 @@ public class Vector extends Point {
 	}
 
 	/**
-	 * Method to normalize this vector (make its length 1).
+	 * Method to normalize this vector (make its length 1). The length of a vector that is
+	 * already known to be normalized is not calculated again.
 	 *
 	 * @return a new normalized vector
 	 * @throws ArithmeticException if the vector is the zero vector
 	 */
 	public Vector normalize() {
-		double length = alignZero(length());
-		if (length == 0) {
-			throw new ArithmeticException("Cannot normalize vector(0,0,0)");
+		// Always a single new vector, never this one: an object that may be either of two lets
+		// neither be eliminated by the JIT, so temporary vectors would be allocated
+		double scale = 1;
+		if (!normalized) {
+			double length = length();
+			if (alignZero(length) == 0) {
+				throw new ArithmeticException("Cannot normalize vector(0,0,0)");
+			}
+			scale = 1 / length;
 		}
-		return scale(1 / this.length());
+		return new Vector(x * scale, y * scale, z * scale, true);
 	}
 
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj)
 			return true;
-		return (obj instanceof Vector other) && this.xyz.equals(other.xyz);
+		return (obj instanceof Vector other) && isZero(x - other.x) && isZero(y - other.y) && isZero(z - other.z);
 	}
 
 	@Override
 	public int hashCode() {
-		return xyz.hashCode();
+		return (int) Math.round(x + y + z);
 	}
 
 	@Override
 	public String toString() {
-		return "V" + xyz;
+		return "V(" + x + "," + y + "," + z + ")";
 	}
 
 }
@@ -0,0 +1,91 @@
+package renderer;
+
+import java.util.Random;
+
+import primitives.RandomStream;
+
+/**
+ * Blue noise sampler: the samples come from a tile pattern of points in the unit square,
+ * built once by Mitchell's best-candidate algorithm on the torus. Every point is placed as
+ * far as possible from the points before it, so any prefix of the pattern is spread evenly
+ * without regular structure - the remaining error is high-frequency noise that the eye
+ * (and the pixel filter) hardly notices.
+ * Every pixel, and every pair of dimensions, gets its own random toroidal shift of the tile.
+ *
+ * @author Shay and Asaf
+ */
+public class BlueNoiseSampler implements Sampler {
+	/** Number of points in the tile pattern */
+	private static final int TILE_SIZE = 256;
+	/** Maximal number of candidates tested for each point of the pattern */
+	private static final int MAX_CANDIDATES = 64;
+	/** The tile pattern: coordinates of point i are at 2i and 2i+1 */
+	private static final double[] TILE = buildTile();
+
+	/** Seed of the per-pixel shifts */
+	private final long seed;
+
+	/**
+	 * Constructs a blue noise sampler
+	 *
+	 * @param seed the seed of the per-pixel shifts
+	 */
+	public BlueNoiseSampler(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Constructs a blue noise sampler with a default seed
+	 */
+	public BlueNoiseSampler() {
+		this(0);
+	}
+
+	/**
+	 * Builds the tile pattern by the best-candidate algorithm.
+	 *
+	 * @return the coordinates of the points
+	 */
+	private static double[] buildTile() {
+		Random random = new Random(0x5EED);
+		double[] tile = new double[2 * TILE_SIZE];
+		tile[0] = random.nextDouble();
+		tile[1] = random.nextDouble();
+		for (int i = 1; i < TILE_SIZE; ++i) {
+			double bestDistance = -1;
+			int candidates = Math.min(10 * i, MAX_CANDIDATES);
+			for (int c = 0; c < candidates; ++c) {
+				double x = random.nextDouble(), y = random.nextDouble();
+				double distance = Double.POSITIVE_INFINITY;
+				for (int j = 0; j < i && distance > bestDistance; ++j) {
+					double dx = Math.abs(x - tile[2 * j]), dy = Math.abs(y - tile[2 * j + 1]);
+					dx = Math.min(dx, 1 - dx); // toroidal distance
+					dy = Math.min(dy, 1 - dy);
+					distance = Math.min(distance, dx * dx + dy * dy);
+				}
+				if (distance > bestDistance) {
+					bestDistance = distance;
+					tile[2 * i] = x;
+					tile[2 * i + 1] = y;
+				}
+			}
+		}
+		return tile;
+	}
+
+	@Override
+	public double sample(int pixel, int index, int count, int dimension) {
+		int pair = dimension / 2;
+		// Beyond the tile size, every repetition of the tile gets a different shift
+		long shiftSeed = RandomStream.hash(RandomStream.hash(RandomStream.hash(seed, pixel), pair),
+				index / TILE_SIZE);
+		double shifted = TILE[2 * (index % TILE_SIZE) + dimension % 2]
+				+ RandomStream.toUnit(RandomStream.hash(shiftSeed, dimension % 2));
+		return shifted >= 1 ? shifted - 1 : shifted;
+	}
+
+	@Override
+	public boolean isProgressive() {
+		return true;
+	}
+}
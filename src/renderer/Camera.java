@@ -1,10 +1,20 @@
 package renderer;
 
+import geometries.Geometry;
+import geometries.HitRecord;
+import geometries.RayPacket;
 import primitives.*;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.MissingResourceException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
 import static primitives.Util.*;
 
 /**
@@ -14,6 +24,121 @@ import static primitives.Util.*;
  * @autor Shay and Asaf
  */
 public class Camera implements Cloneable {
+	/** Default edge size in pixels of the square rendering tiles */
+	private static final int DEFAULT_TILE_SIZE = 16;
+	/** Hit record of the primary rays of the edge detection pass, reused by each rendering thread */
+	private static final ThreadLocal<HitRecord> PRIMARY_HIT = ThreadLocal.withInitial(HitRecord::new);
+	/** Maximal number of pixels along each side of a block traced as a packet */
+	private static final int MAX_PACKET_SIDE = 8;
+	/** Ray packet of the primary rays of a pixel block, reused by each rendering thread */
+	private static final ThreadLocal<RayPacket> PACKET = ThreadLocal
+			.withInitial(() -> new RayPacket(MAX_PACKET_SIDE * MAX_PACKET_SIDE));
+	/**
+	 * Sampler of the progressive and the deadline renderings when the sampler of the camera
+	 * is not progressive
+	 */
+	private static final Sampler PROGRESSIVE_SAMPLER = new SobolSampler();
+	/** Number of samples per pixel of the first round of a deadline rendering */
+	private static final int PILOT_SAMPLES = 4;
+	/** Part of the remaining time budget given to each refinement round of a deadline rendering */
+	private static final double ROUND_FRACTION = 0.5;
+	/**
+	 * Minimal standard deviation assumed for the samples of a pixel, so that flat
+	 * pixels get a share of the budget too
+	 */
+	private static final double MIN_DEVIATION = 0.5;
+
+	/**
+	 * The way the tiles of a multithreaded rendering are scheduled
+	 */
+	public enum ThreadingMode {
+		/** A fixed pool of platform threads, stealing tiles from each other */
+		FORK_JOIN,
+		/**
+		 * A virtual thread per tile inside a per-frame scope, at most the number of
+		 * rendering threads of them running at a time
+		 */
+		VIRTUAL_THREADS
+	}
+
+	/**
+	 * Order of traversal of the cells of a grid - the tiles of the image or the pixels of
+	 * a tile. The space-filling curves visit the cells in small compact blocks, so
+	 * consecutive rays go through neighbouring pixels and reuse the nodes and the
+	 * geometries of the acceleration structure already in the CPU caches.
+	 * Grids that are not power-of-2 squares are traversed along the curve of the
+	 * enclosing square, skipping the cells outside the grid.
+	 */
+	public enum TraversalOrder {
+		/** Row by row, each row from left to right */
+		RASTER,
+		/** Z-order curve: the bits of the column and row indices are interleaved */
+		MORTON,
+		/** Hilbert curve: every cell is adjacent to the one before it */
+		HILBERT;
+
+		/**
+		 * Lists the cells of a grid in the traversal order.
+		 *
+		 * @param width  the number of columns of the grid
+		 * @param height the number of rows of the grid
+		 * @return the row-major indices of the cells, in the traversal order
+		 */
+		public int[] order(int width, int height) {
+			int[] cells = new int[width * height];
+			if (this == RASTER) {
+				for (int i = 0; i < cells.length; ++i)
+					cells[i] = i;
+				return cells;
+			}
+
+			int side = Integer.highestOneBit(Math.max(Math.max(width, height) - 1, 1)) << 1;
+			int count = 0;
+			for (int d = 0; count < cells.length; ++d) {
+				int x, y;
+				if (this == MORTON) {
+					x = compactBits(d);
+					y = compactBits(d >>> 1);
+				} else {
+					x = 0;
+					y = 0;
+					// Hilbert index to coordinates, from the lowest quadrant level up
+					for (int s = 1, t = d; s < side; s <<= 1, t >>>= 2) {
+						int rx = 1 & t >>> 1, ry = 1 & (t ^ rx);
+						if (ry == 0) {
+							if (rx == 1) {
+								x = s - 1 - x;
+								y = s - 1 - y;
+							}
+							int swap = x;
+							x = y;
+							y = swap;
+						}
+						x += s * rx;
+						y += s * ry;
+					}
+				}
+				if (x < width && y < height)
+					cells[count++] = y * width + x;
+			}
+			return cells;
+		}
+
+		/**
+		 * Gathers the even bits of a number into its lower half.
+		 *
+		 * @param d the number
+		 * @return the even bits, compacted
+		 */
+		private static int compactBits(int d) {
+			d &= 0x55555555;
+			d = (d | d >>> 1) & 0x33333333;
+			d = (d | d >>> 2) & 0x0F0F0F0F;
+			d = (d | d >>> 4) & 0x00FF00FF;
+			return (d | d >>> 8) & 0x0000FFFF;
+		}
+	}
+
 	// parameters of view plain
 	private Point position; // location
 	private Vector vTo, vUp, vRight;
@@ -64,46 +189,44 @@ public class Camera implements Cloneable {
 	 * @return The constructed ray.
 	 */
 	public Ray constructRay(int nX, int nY, int j, int i) {
-		Point pc = position.add(vTo.scale(viewPlaneDistance));
 		double ry = viewPlaneHeight / nY;
 		double rx = viewPlaneWidth / nX;
 		double yi = -(i - (nY - 1) / 2.0) * ry;
 		double xj = (j - (nX - 1) / 2.0) * rx;
-		Point pij = pc;
-		if (xj != 0)
-			pij = pij.add(vRight.scale(xj));
-		if (yi != 0)
-			pij = pij.add(vUp.scale(yi));
-		Vector Vij = pij.subtract(position);
-		return new Ray(position, Vij.normalize());
+		return constructRay(xj, yi);
 	}
 
-
-	public List<Ray> constructRays(int nX, int nY, int j, int i, int raysPerPixel) {
-		List<Ray> rays = new ArrayList<>();
-		double ry = viewPlaneHeight / nY;
-		double rx = viewPlaneWidth / nX;
-		double pixelWidth = rx / raysPerPixel;
-		double pixelHeight = ry / raysPerPixel;
-
-		for (int row = 0; row < raysPerPixel; row++) {
-			for (int col = 0; col < raysPerPixel; col++) {
-				double xj = (j - (nX - 1) / 2.0) * rx + (col + 0.5) * pixelWidth;
-				double yi = -(i - (nY - 1) / 2.0) * ry + (row + 0.5) * pixelHeight;
-				Point pij = position.add(vTo.scale(viewPlaneDistance));
-				if (xj != 0)
-					pij = pij.add(vRight.scale(xj));
-				if (yi != 0)
-					pij = pij.add(vUp.scale(yi));
-				Vector Vij = pij.subtract(position);
-				rays.add(new Ray(position, Vij.normalize()));
-			}
+	/**
+	 * Constructs a ray from the camera through a point of the view plane.
+	 *
+	 * @param xj The offset of the point from the view plane center along the right vector.
+	 * @param yi The offset of the point from the view plane center along the up vector.
+	 * @return The constructed ray.
+	 */
+	private Ray constructRay(double xj, double yi) {
+		// The point and the vector are calculated coordinate by coordinate, in the order of
+		// Point#add, Point#subtract and Vector#normalize, without the intermediate objects
+		double x = position.getX() + vTo.getX() * viewPlaneDistance;
+		double y = position.getY() + vTo.getY() * viewPlaneDistance;
+		double z = position.getZ() + vTo.getZ() * viewPlaneDistance;
+		if (xj != 0) {
+			x += vRight.getX() * xj;
+			y += vRight.getY() * xj;
+			z += vRight.getZ() * xj;
 		}
-
-		return rays;
+		if (yi != 0) {
+			x += vUp.getX() * yi;
+			y += vUp.getY() * yi;
+			z += vUp.getZ() * yi;
+		}
+		x -= position.getX();
+		y -= position.getY();
+		z -= position.getZ();
+		// The view plane is in front of the camera, so the vector is never zero
+		double scale = 1 / Math.sqrt(x * x + y * y + z * z);
+		return new Ray(position, Vector.uncheckedUnit(x * scale, y * scale, z * scale));
 	}
 
-
 	/**
 	 * Builder class for Camera, implementing the Builder Pattern.
 	 */
@@ -230,6 +353,222 @@ public class Camera implements Cloneable {
 			return this;
 		}
 
+		/**
+		 * Sets the super-sampling of the pixels: the color of each pixel is the average of
+		 * a regular grid of rays through the centers of its sub-pixels.
+		 *
+		 * @param samplesPerSide the number of rays along each side of the pixel grid
+		 *                       (e.g. 4 for 16 rays), 1 for a single ray through the pixel center (default)
+		 * @return the current Builder object
+		 * @throws IllegalArgumentException if the number of rays is non-positive
+		 */
+		public Builder setSuperSampling(int samplesPerSide) {
+			if (samplesPerSide <= 0)
+				throw new IllegalArgumentException("Samples per side must be positive");
+
+			camera.samplesPerSide = samplesPerSide;
+			return this;
+		}
+
+		/**
+		 * Sets the sampler distributing the super-sampling rays inside the pixels.
+		 * The progressive and the deadline renderings trace prefixes of the samples of a
+		 * pixel, so they use a {@link SobolSampler} instead of a sampler that is not
+		 * {@link Sampler#isProgressive() progressive}.
+		 *
+		 * @param sampler the sampler, a {@link GridSampler} by default
+		 * @return the current Builder object
+		 * @throws IllegalArgumentException if the sampler is null
+		 */
+		public Builder setSampler(Sampler sampler) {
+			if (sampler == null)
+				throw new IllegalArgumentException("Sampler cannot be null");
+
+			camera.sampler = sampler;
+			return this;
+		}
+
+		/**
+		 * Sets adaptive super-sampling of the pixels. Each pixel is first sampled by rays
+		 * through its 4 corners; while the colors of the 4 corners of a square vary more
+		 * than the threshold, the square is split into 4 quarters, sampling only the 5 new
+		 * corners, up to the maximum depth. Flat areas cost 4 rays per pixel and only edges
+		 * and fine details get the full sampling density.
+		 * The adaptive sampling takes precedence over the regular super-sampling.
+		 *
+		 * @param maxDepth  the maximal number of subdivisions, 0 to disable adaptive
+		 *                  sampling (default)
+		 * @param threshold the maximal standard deviation of a color component (on the
+		 *                  0..255 scale) of the 4 corners of a square that is not split
+		 * @return the current Builder object
+		 * @throws IllegalArgumentException if the depth or the threshold is negative
+		 */
+		public Builder setAdaptiveSuperSampling(int maxDepth, double threshold) {
+			if (maxDepth < 0)
+				throw new IllegalArgumentException("Adaptive sampling depth cannot be negative");
+			if (threshold < 0)
+				throw new IllegalArgumentException("Adaptive sampling threshold cannot be negative");
+
+			camera.adaptiveDepth = maxDepth;
+			camera.adaptiveThreshold = threshold;
+			return this;
+		}
+
+		/**
+		 * Sets edge detection anti-aliasing. A first pass traces a single ray per pixel and
+		 * records the geometry it hits and the hit distance. A second pass super-samples only
+		 * the pixels whose geometry differs from a neighbour's, or whose distance differs from
+		 * a neighbour's by more than the depth threshold. The choice of the pixels depends on
+		 * the geometry alone, so it is deterministic and stable between frames.
+		 * The adaptive sampling takes precedence over the edge detection.
+		 *
+		 * @param samplesPerSide the number of rays along each side of the grid of an edge
+		 *                       pixel, 0 to disable edge detection (default)
+		 * @param depthThreshold the relative difference of the hit distances of neighbour
+		 *                       pixels that is considered a depth discontinuity, 0 to detect
+		 *                       only the edges between geometries
+		 * @return the current Builder object
+		 * @throws IllegalArgumentException if the number of rays or the threshold is negative
+		 */
+		public Builder setEdgeAntiAliasing(int samplesPerSide, double depthThreshold) {
+			if (samplesPerSide < 0)
+				throw new IllegalArgumentException("Samples per side cannot be negative");
+			if (depthThreshold < 0)
+				throw new IllegalArgumentException("Depth threshold cannot be negative");
+
+			camera.edgeSamplesPerSide = samplesPerSide;
+			camera.depthThreshold = depthThreshold;
+			return this;
+		}
+
+		/**
+		 * Sets the frame number of the rendering. The random numbers drawn while tracing
+		 * a sample (by {@link primitives.Util#random(double, double)}) depend only on the
+		 * frame, the pixel and the sample index, so a frame is reproducible bit by bit
+		 * whatever the threading, and different frames get different random numbers.
+		 *
+		 * @param frame the frame number, 0 by default
+		 * @return the current Builder object
+		 */
+		public Builder setFrame(long frame) {
+			camera.frame = frame;
+			return this;
+		}
+
+		/**
+		 * Sets the clock of the time budgets of the progressive and the deadline renderings.
+		 * The clock is read by the rendering threads, so it must be thread-safe.
+		 *
+		 * @param clock the clock, in nanoseconds; {@link System#nanoTime()} by default
+		 * @return the current Builder object
+		 * @throws IllegalArgumentException if the clock is null
+		 */
+		public Builder setClock(LongSupplier clock) {
+			if (clock == null)
+				throw new IllegalArgumentException("Clock cannot be null");
+
+			camera.clock = clock;
+			return this;
+		}
+
+		/**
+		 * Sets the number of threads rendering the image in parallel.
+		 * The image is split into tiles that are distributed among the threads
+		 * by a work stealing pool, so expensive tiles do not hold back the others.
+		 *
+		 * @param threads the number of threads: 0 to render in the calling thread (default),
+		 *                -1 to use all the available processors
+		 * @return the current Builder object
+		 * @throws IllegalArgumentException if the number of threads is less than -1
+		 */
+		public Builder setMultithreading(int threads) {
+			if (threads < -1)
+				throw new IllegalArgumentException("Threads count must be -1, 0 or positive");
+
+			camera.threadsCount = threads == -1 ? Runtime.getRuntime().availableProcessors() : threads;
+			return this;
+		}
+
+		/**
+		 * Sets the way the tiles are scheduled when rendering with multithreading.
+		 *
+		 * @param mode the threading mode, {@link ThreadingMode#FORK_JOIN} by default
+		 * @return the current Builder object
+		 * @throws IllegalArgumentException if the mode is null
+		 */
+		public Builder setThreadingMode(ThreadingMode mode) {
+			if (mode == null)
+				throw new IllegalArgumentException("Threading mode cannot be null");
+
+			camera.threadingMode = mode;
+			return this;
+		}
+
+		/**
+		 * Sets packet tracing of the primary rays: the rays of every square block of pixels
+		 * traverse the scene together as a single {@link RayPacket}. It is used when a single
+		 * ray is cast through each pixel (no super-sampling, adaptive or edge anti-aliasing).
+		 * The block side should divide the tile size, so that no block spans two tiles.
+		 *
+		 * @param packetSide the number of pixels along each side of a block, 1 to 8; 0 disables
+		 *                   packet tracing (the default)
+		 * @return the current Builder object
+		 * @throws IllegalArgumentException if the side is negative or larger than 8
+		 */
+		public Builder setPacketTracing(int packetSide) {
+			if (packetSide < 0 || packetSide > MAX_PACKET_SIDE)
+				throw new IllegalArgumentException("Packet side must be between 0 and " + MAX_PACKET_SIDE);
+
+			camera.packetSide = packetSide;
+			return this;
+		}
+
+		/**
+		 * Sets the order in which the tiles of the image are rendered. In multithreaded
+		 * rendering this is the order the tiles are handed out to the threads.
+		 *
+		 * @param order the tile order, {@link TraversalOrder#RASTER} by default
+		 * @return the current Builder object
+		 * @throws IllegalArgumentException if the order is null
+		 */
+		public Builder setTileOrder(TraversalOrder order) {
+			if (order == null)
+				throw new IllegalArgumentException("Tile order cannot be null");
+
+			camera.tileOrder = order;
+			return this;
+		}
+
+		/**
+		 * Sets the order in which the pixels inside each tile are rendered.
+		 *
+		 * @param order the pixel order, {@link TraversalOrder#RASTER} by default
+		 * @return the current Builder object
+		 * @throws IllegalArgumentException if the order is null
+		 */
+		public Builder setPixelOrder(TraversalOrder order) {
+			if (order == null)
+				throw new IllegalArgumentException("Pixel order cannot be null");
+
+			camera.pixelOrder = order;
+			return this;
+		}
+
+		/**
+		 * Sets the edge size of the square tiles the image is split into for parallel rendering.
+		 *
+		 * @param size the tile edge size in pixels
+		 * @return the current Builder object
+		 * @throws IllegalArgumentException if the size is non-positive
+		 */
+		public Builder setTileSize(int size) {
+			if (size <= 0)
+				throw new IllegalArgumentException("Tile size must be positive");
+
+			camera.tileSize = size;
+			return this;
+		}
+
 		/**
 		 * Builds the Camera object.
 		 *
@@ -358,6 +697,73 @@ public class Camera implements Cloneable {
 	 * The ray tracer base used by this camera to trace rays and render the scene.
 	 */
 	private RayTracerBase rayTracer;
+	/** Target number of samples per pixel of the running progressive rendering */
+	private int progressiveSamples;
+	/** Index of the running pass of the progressive rendering */
+	private int progressivePass;
+	/** Number of passes done by the last progressive rendering */
+	private int completedPasses;
+	/** Frame number, keying the random streams of the samples */
+	private long frame = 0;
+	/** Clock of the time budgets, in nanoseconds */
+	private LongSupplier clock = System::nanoTime;
+	/** Number of super-sampling rays along each side of a pixel */
+	private int samplesPerSide = 1;
+	/** Distribution of the super-sampling rays inside the pixels */
+	private Sampler sampler = new GridSampler();
+	/** Maximal number of subdivisions of adaptive super-sampling, 0 if disabled */
+	private int adaptiveDepth = 0;
+	/** Maximal color standard deviation of the corners of a square that is not subdivided */
+	private double adaptiveThreshold = 0;
+	/** Number of pixels along each side of a block of primary rays traced as a packet, 0 if disabled */
+	private int packetSide = 0;
+	/** Number of rays along each side of an edge pixel grid, 0 if edge detection is disabled */
+	private int edgeSamplesPerSide = 0;
+	/** Relative difference of neighbour hit distances considered a depth discontinuity, 0 if the depth is not tested */
+	private double depthThreshold = 0;
+	/** Geometries hit by the primary rays of the edge detection pass, null for the background */
+	private Geometry[] pixelGeometries;
+	/** Distances of the hits of the primary rays of the edge detection pass */
+	private double[] pixelDepths;
+	/**
+	 * Number of rays traced for each pixel by the last adaptive, edge detection or
+	 * deadline rendering, in row-major order
+	 */
+	private int[] sampleCounts;
+	/** Maximal number of samples per pixel of the last deadline rendering, 0 if none */
+	private int deadlineSamples = 0;
+	/** Time of the {@link #clock} after which a deadline round skips the pixels */
+	private long deadlineNanos;
+	/** Number of samples to add to each pixel in the running round of a deadline rendering */
+	private int[] extraSamples;
+	/** Means of the sample luminances of each pixel of a deadline rendering */
+	private double[] luminanceMeans;
+	/**
+	 * Sums of the squared deviations of the sample luminances from their mean, of each
+	 * pixel of a deadline rendering
+	 */
+	private double[] luminanceDeviations;
+	/** Estimated standard deviation of the pixel colors of the last deadline rendering */
+	private double estimatedNoise;
+	/** Number of rendering threads, 0 for rendering in the calling thread */
+	private int threadsCount = 0;
+	/** Edge size in pixels of the square tiles rendered by the threads */
+	private int tileSize = DEFAULT_TILE_SIZE;
+	/** Scheduling of the tiles among the rendering threads */
+	private ThreadingMode threadingMode = ThreadingMode.FORK_JOIN;
+	/** Order of rendering the tiles */
+	private TraversalOrder tileOrder = TraversalOrder.RASTER;
+	/** Order of rendering the pixels inside a tile */
+	private TraversalOrder pixelOrder = TraversalOrder.RASTER;
+	/** Tile indices of the running rendering in the tile order, null for raster order */
+	private int[] tileSequence;
+	/** Pixel offsets inside a tile of the running rendering in the pixel order, null for raster order */
+	private int[] pixelSequence;
+	/**
+	 * Handle of the asynchronous rendering done by this copy of the camera, null for a
+	 * camera rendering synchronously
+	 */
+	private RenderTask task;
 
 	// stage5
 	/**
@@ -412,6 +818,10 @@ public class Camera implements Cloneable {
 	 * in the image and computing their color. It utilizes the image dimensions
 	 * provided by the imageWriter object to determine the appropriate number of
 	 * rays for each pixel, then invokes the castRay method for each pixel.
+	 * With multithreading the pixels are rendered tile by tile in parallel; every pixel
+	 * is calculated exactly as in the serial rendering, so the image is identical.
+	 * With edge detection the image is rendered in two passes, the second one starting
+	 * after the whole first pass is done.
 	 *
 	 * @return The current state of the camera, for further use within this class or
 	 *         in closely related classes.
@@ -419,14 +829,301 @@ public class Camera implements Cloneable {
 	public Camera renderImage() {
 		int nX = imageWriter.getNx();
 		int nY = imageWriter.getNy();
-		for (int j = 0; j < nY; ++j) { // Iterate over rows
-			for (int i = 0; i < nX; ++i) { // Iterate over columns
-				castRay(nX, nY, i, j); // Notice the order of i and j here
-			}
+		boolean edges = adaptiveDepth == 0 && edgeSamplesPerSide > 0;
+		sampleCounts = adaptiveDepth > 0 || edges ? new int[nX * nY] : null;
+		deadlineSamples = 0;
+		if (!edges) {
+			renderPixels(nX, nY, packetSide > 0 && adaptiveDepth == 0 && samplesPerSide == 1 ? this::castPacket
+					: this::castRay);
+			return this;
 		}
+
+		pixelGeometries = new Geometry[nX * nY];
+		pixelDepths = new double[nX * nY];
+		renderPixels(nX, nY, this::castPrimaryRay);
+		renderPixels(nX, nY, this::refineEdgePixel);
+		pixelGeometries = null;
+		pixelDepths = null;
 		return this;
 	}
 
+	/**
+	 * Starts rendering the image in the background, as {@link #renderImage()} does,
+	 * and returns immediately. The rendering is done by a copy of the camera, which holds
+	 * all the state of the rendering, so the camera itself may be used meanwhile - but the
+	 * renderings share the image writer. The copy is returned by the task once it is done,
+	 * with the statistics of the rendering, such as {@link #getSampleCount(int, int)}.
+	 *
+	 * @param listener The listener notified of every completed tile, or null.
+	 * @return The handle of the rendering, reporting its progress and allowing to wait
+	 *         for it or to cancel it.
+	 */
+	public RenderTask renderAsync(TileListener listener) {
+		Camera camera;
+		try {
+			camera = (Camera) clone();
+		} catch (CloneNotSupportedException e) {
+			throw new AssertionError(); // Can't happen
+		}
+		int passes = adaptiveDepth == 0 && edgeSamplesPerSide > 0 ? 2 : 1;
+		RenderTask running = new RenderTask(camera, (long) imageWriter.getNx() * imageWriter.getNy(), passes,
+				listener);
+		camera.task = running;
+		Thread.ofPlatform().name("camera-render").start(() -> {
+			Throwable failure = null;
+			try {
+				camera.renderImage();
+			} catch (Throwable e) {
+				failure = e;
+			}
+			running.finish(failure);
+		});
+		return running;
+	}
+
+	/**
+	 * Starts rendering the image in the background, without a tile listener.
+	 *
+	 * @return The handle of the rendering.
+	 * @see #renderAsync(TileListener)
+	 */
+	public RenderTask renderAsync() {
+		return renderAsync(null);
+	}
+
+	/**
+	 * Rendering operation applied to a single pixel
+	 */
+	@FunctionalInterface
+	private interface PixelRenderer {
+		/**
+		 * Renders a pixel.
+		 *
+		 * @param nX     The width of the image.
+		 * @param nY     The height of the image.
+		 * @param column The column index of the pixel.
+		 * @param row    The row index of the pixel.
+		 */
+		void render(int nX, int nY, int column, int row);
+	}
+
+	/**
+	 * Applies a rendering operation to all the pixels of the image tile by tile, in the
+	 * calling thread or by the rendering threads.
+	 *
+	 * @param nX       The width of the image.
+	 * @param nY       The height of the image.
+	 * @param renderer The rendering operation.
+	 */
+	private void renderPixels(int nX, int nY, PixelRenderer renderer) {
+		prepareTraversal(nX, nY);
+		// Closing the pool waits for all the threads, also when a tile has failed
+		try (ForkJoinPool pool = openPool()) {
+			renderPass(nX, nY, pool, renderer);
+		}
+	}
+
+	/**
+	 * Prepares the traversal orders of the tiles and of the pixels of a tile for the
+	 * passes of a rendering.
+	 *
+	 * @param nX The width of the image.
+	 * @param nY The height of the image.
+	 */
+	private void prepareTraversal(int nX, int nY) {
+		int tilesX = (nX + tileSize - 1) / tileSize;
+		int tilesY = (nY + tileSize - 1) / tileSize;
+		tileSequence = tileOrder == TraversalOrder.RASTER ? null : tileOrder.order(tilesX, tilesY);
+		pixelSequence = pixelOrder == TraversalOrder.RASTER ? null : pixelOrder.order(tileSize, tileSize);
+	}
+
+	/**
+	 * Creates the pool of the rendering threads, shared by all the passes of a rendering.
+	 *
+	 * @return The pool, or null if the passes are rendered in the calling thread or in
+	 *         virtual threads.
+	 */
+	private ForkJoinPool openPool() {
+		return threadsCount == 0 || threadingMode == ThreadingMode.VIRTUAL_THREADS ? null
+				: new ForkJoinPool(threadsCount);
+	}
+
+	/**
+	 * Applies a rendering operation to all the pixels of the image tile by tile, in the
+	 * traversal orders {@link #prepareTraversal(int, int) prepared} for the rendering.
+	 *
+	 * @param nX       The width of the image.
+	 * @param nY       The height of the image.
+	 * @param pool     The pool of the rendering threads, see {@link #openPool()}.
+	 * @param renderer The rendering operation.
+	 */
+	private void renderPass(int nX, int nY, ForkJoinPool pool, PixelRenderer renderer) {
+		int tilesX = (nX + tileSize - 1) / tileSize;
+		int tiles = tilesX * ((nY + tileSize - 1) / tileSize);
+		if (threadsCount == 0) {
+			for (int tile = 0; tile < tiles; ++tile)
+				renderTile(nX, nY, tilesX, tile, renderer);
+		} else if (pool == null) {
+			renderVirtual(nX, nY, tilesX, tiles, renderer);
+		} else {
+			pool.invoke(new TileTask(nX, nY, tilesX, 0, tiles, renderer));
+		}
+	}
+
+	/**
+	 * Renders the tiles of a frame, each one in its own virtual thread.
+	 * The frame is a structured scope: the method returns only after all the tiles
+	 * have finished, and the first tile failure cancels the tiles that have not
+	 * started yet and is rethrown to the caller.
+	 *
+	 * @param nX     The width of the image.
+	 * @param nY     The height of the image.
+	 * @param tilesX   The number of tiles in a row of tiles.
+	 * @param tiles    The number of tiles.
+	 * @param renderer The rendering operation of the pixels.
+	 */
+	private void renderVirtual(int nX, int nY, int tilesX, int tiles, PixelRenderer renderer) {
+		Semaphore permits = new Semaphore(threadsCount);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		try (ExecutorService frame = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int tile = 0; tile < tiles && failure.get() == null; ++tile) {
+				int index = tile;
+				try {
+					frame.submit(() -> {
+						try {
+							permits.acquire();
+						} catch (InterruptedException e) {
+							return; // the frame was cancelled
+						}
+						try {
+							if (failure.get() == null)
+								renderTile(nX, nY, tilesX, index, renderer);
+						} catch (Throwable e) {
+							if (failure.compareAndSet(null, e))
+								frame.shutdownNow();
+						} finally {
+							permits.release();
+						}
+					});
+				} catch (RejectedExecutionException e) {
+					break; // the frame was cancelled by a failed tile
+				}
+			}
+		}
+
+		Throwable e = failure.get();
+		if (e instanceof RuntimeException re)
+			throw re;
+		if (e instanceof Error error)
+			throw error;
+		if (e != null)
+			throw new IllegalStateException("Tile rendering failed", e);
+	}
+
+	/**
+	 * Renders a range of tiles, split recursively in halves so that idle threads
+	 * steal the pending halves of busy ones.
+	 */
+	private final class TileTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		/** Resolution of the image */
+		private final int nX, nY;
+		/** Number of tiles in a row of tiles */
+		private final int tilesX;
+		/** The range of tile positions in the tile order to render */
+		private final int from, to;
+		/** The rendering operation of the pixels */
+		private final transient PixelRenderer renderer;
+
+		/**
+		 * Constructs a task rendering the tiles in the range [from, to).
+		 *
+		 * @param nX     The width of the image.
+		 * @param nY     The height of the image.
+		 * @param tilesX The number of tiles in a row of tiles.
+		 * @param from     The first tile index.
+		 * @param to       The index after the last tile.
+		 * @param renderer The rendering operation of the pixels.
+		 */
+		TileTask(int nX, int nY, int tilesX, int from, int to, PixelRenderer renderer) {
+			this.nX = nX;
+			this.nY = nY;
+			this.tilesX = tilesX;
+			this.from = from;
+			this.to = to;
+			this.renderer = renderer;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				renderTile(nX, nY, tilesX, from, renderer);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new TileTask(nX, nY, tilesX, from, middle, renderer),
+					new TileTask(nX, nY, tilesX, middle, to, renderer));
+		}
+	}
+
+	/**
+	 * Renders all the pixels of a single tile. An asynchronous rendering checks for
+	 * cancellation before the tile and reports its completion after it.
+	 *
+	 * @param nX     The width of the image.
+	 * @param nY     The height of the image.
+	 * @param tilesX   The number of tiles in a row of tiles.
+	 * @param tile     The position of the tile in the tile order.
+	 * @param renderer The rendering operation of the pixels.
+	 */
+	private void renderTile(int nX, int nY, int tilesX, int tile, PixelRenderer renderer) {
+		if (tileSequence != null)
+			tile = tileSequence[tile];
+		int x0 = tile % tilesX * tileSize, y0 = tile / tilesX * tileSize;
+		int x1 = Math.min(x0 + tileSize, nX), y1 = Math.min(y0 + tileSize, nY);
+		if (task != null)
+			task.checkCancelled();
+		if (pixelSequence == null) {
+			for (int j = y0; j < y1; ++j)
+				for (int i = x0; i < x1; ++i)
+					renderer.render(nX, nY, i, j);
+		} else {
+			for (int offset : pixelSequence) {
+				int i = x0 + offset % tileSize, j = y0 + offset / tileSize;
+				if (i < x1 && j < y1) // the edge tiles are partial
+					renderer.render(nX, nY, i, j);
+			}
+		}
+		if (task != null)
+			task.tileCompleted(x0, y0, x1 - x0, y1 - y0);
+	}
+
+	/**
+	 * Traces a camera ray, counting it in the progress of an asynchronous rendering.
+	 *
+	 * @param ray The ray.
+	 * @return The color of the ray.
+	 */
+	private Color traceRay(Ray ray) {
+		if (task != null)
+			task.rayTraced();
+		return rayTracer.traceRay(ray);
+	}
+
+	/**
+	 * Traces a camera ray into a hit record, counting it in the progress of an
+	 * asynchronous rendering.
+	 *
+	 * @param ray The ray.
+	 * @param hit The hit record receiving the closest hit.
+	 * @return The color of the ray.
+	 */
+	private Color traceRay(Ray ray, HitRecord hit) {
+		if (task != null)
+			task.rayTraced();
+		return rayTracer.traceRay(ray, hit);
+	}
+
 
 	/**
 	 * Casts a ray through a specific pixel in the image, computes the color of the
@@ -439,10 +1136,607 @@ public class Camera implements Cloneable {
 	 * @param row    The row index of the pixel.
 	 */
 	private void castRay(int nX, int nY, int column, int row) {
-		Ray ray = constructRay(nX, nY, column, row);
-		Color color = rayTracer.traceRay(ray);
+		RandomStream.current().reset(frame, row * nX + column, 0);
+		Color color = adaptiveDepth > 0 ? adaptivePixel(nX, nY, column, row)
+				: samplesPerSide == 1 ? traceRay(constructRay(nX, nY, column, row))
+				: samplePixel(nX, nY, column, row, samplesPerSide);
 		imageWriter.writePixel(column, row, color);
+	}
+
+	/**
+	 * Casts the primary rays of a block of pixels as a single packet, and writes the colors
+	 * of the pixels. The blocks are laid from the top left corner of every tile and cut at
+	 * its edges, so a block never writes the pixels of another tile. The block is cast when
+	 * its top left pixel is rendered, and the other pixels of the block are skipped; the
+	 * colors are calculated one by one from the closest hits of the packet, exactly as
+	 * {@link #castRay(int, int, int, int)} does.
+	 *
+	 * @param nX     The width of the image.
+	 * @param nY     The height of the image.
+	 * @param column The column index of the pixel.
+	 * @param row    The row index of the pixel.
+	 */
+	private void castPacket(int nX, int nY, int column, int row) {
+		int x0 = column - column % tileSize, y0 = row - row % tileSize;
+		if ((column - x0) % packetSide != 0 || (row - y0) % packetSide != 0)
+			return;
+
+		int columns = Math.min(packetSide, Math.min(x0 + tileSize, nX) - column);
+		int rows = Math.min(packetSide, Math.min(y0 + tileSize, nY) - row);
+		RayPacket packet = PACKET.get();
+		packet.clear();
+		for (int j = row; j < row + rows; ++j)
+			for (int i = column; i < column + columns; ++i)
+				packet.add(constructRay(nX, nY, i, j));
+		rayTracer.findClosestHits(packet);
+
+		HitRecord hit = PRIMARY_HIT.get();
+		for (int lane = 0; lane < packet.size(); ++lane) {
+			int i = column + lane % columns, j = row + lane / columns;
+			RandomStream.current().reset(frame, j * nX + i, 0);
+			if (task != null)
+				task.rayTraced();
+			packet.getHit(lane, hit);
+			imageWriter.writePixel(i, j, rayTracer.traceHit(packet.getRay(lane), hit));
+		}
+	}
+
+	/**
+	 * First pass of edge detection: casts a single ray through the center of a pixel,
+	 * writes its color and records the geometry and the distance of its hit.
+	 *
+	 * @param nX     The width of the image.
+	 * @param nY     The height of the image.
+	 * @param column The column index of the pixel.
+	 * @param row    The row index of the pixel.
+	 */
+	private void castPrimaryRay(int nX, int nY, int column, int row) {
+		RandomStream.current().reset(frame, row * nX + column, 0);
+		HitRecord hit = PRIMARY_HIT.get();
+		imageWriter.writePixel(column, row, traceRay(constructRay(nX, nY, column, row), hit));
+		int pixel = row * nX + column;
+		pixelGeometries[pixel] = hit.geometry;
+		pixelDepths[pixel] = hit.t;
+		sampleCounts[pixel] = 1;
+	}
+
+	/**
+	 * Second pass of edge detection: super-samples a pixel if it lies on an edge
+	 * between geometries or on a depth discontinuity.
+	 *
+	 * @param nX     The width of the image.
+	 * @param nY     The height of the image.
+	 * @param column The column index of the pixel.
+	 * @param row    The row index of the pixel.
+	 */
+	private void refineEdgePixel(int nX, int nY, int column, int row) {
+		int pixel = row * nX + column;
+		if ((column == 0 || !isEdge(pixel, pixel - 1)) && (column == nX - 1 || !isEdge(pixel, pixel + 1))
+				&& (row == 0 || !isEdge(pixel, pixel - nX)) && (row == nY - 1 || !isEdge(pixel, pixel + nX)))
+			return;
+		imageWriter.writePixel(column, row, samplePixel(nX, nY, column, row, edgeSamplesPerSide));
+		sampleCounts[pixel] += edgeSamplesPerSide * edgeSamplesPerSide;
+	}
+
+	/**
+	 * Checks whether there is an edge between two pixels: they hit different
+	 * geometries, or their hit distances differ more than the depth threshold, if there is one.
+	 *
+	 * @param pixel     The index of the pixel.
+	 * @param neighbour The index of the neighbour pixel.
+	 * @return true if there is an edge between the pixels.
+	 */
+	private boolean isEdge(int pixel, int neighbour) {
+		if (pixelGeometries[pixel] != pixelGeometries[neighbour])
+			return true;
+		double depth = pixelDepths[pixel], other = pixelDepths[neighbour];
+		return depthThreshold > 0 && pixelGeometries[pixel] != null
+				&& Math.abs(depth - other) > depthThreshold * Math.min(depth, other);
+	}
+
+	/**
+	 * Calculates the super-sampled color of a pixel. The sub-pixel rays are generated
+	 * and traced one at a time and their colors are summed on the fly, so only a single
+	 * sample is held at any time whatever the resolution and the number of samples.
+	 * The positions of the rays in the pixel are drawn from the sampler.
+	 *
+	 * @param nX          The width of the image.
+	 * @param nY          The height of the image.
+	 * @param column      The column index of the pixel.
+	 * @param row         The row index of the pixel.
+	 * @param raysPerSide The number of rays along each side of the pixel grid.
+	 * @return The average color of the pixel samples.
+	 */
+	private Color samplePixel(int nX, int nY, int column, int row, int raysPerSide) {
+		int pixel = row * nX + column;
+		int count = raysPerSide * raysPerSide;
+
+		RandomStream random = RandomStream.current();
+		double r = 0, g = 0, b = 0;
+		for (int k = 0; k < count; ++k) {
+			random.reset(frame, pixel, k);
+			Color sample = traceRay(constructSampleRay(sampler, nX, nY, column, row, k, count));
+			r += sample.getRed();
+			g += sample.getGreen();
+			b += sample.getBlue();
+		}
+		return new Color(r / count, g / count, b / count);
+	}
+
+	/**
+	 * Constructs the ray of a sample of a pixel, at the position in the pixel drawn from
+	 * a sampler.
+	 *
+	 * @param sampler The sampler of the positions.
+	 * @param nX      The width of the image.
+	 * @param nY      The height of the image.
+	 * @param column  The column index of the pixel.
+	 * @param row     The row index of the pixel.
+	 * @param index   The index of the sample.
+	 * @param count   The number of samples of the pixel.
+	 * @return The ray of the sample.
+	 */
+	private Ray constructSampleRay(Sampler sampler, int nX, int nY, int column, int row, int index, int count) {
+		double ry = viewPlaneHeight / nY;
+		double rx = viewPlaneWidth / nX;
+		double yi = -(row - (nY - 1) / 2.0) * ry;
+		double xj = (column - (nX - 1) / 2.0) * rx;
+		double left = xj - rx / 2, top = yi + ry / 2;
+		int pixel = row * nX + column;
+		return constructRay(left + sampler.sample(pixel, index, count, 0) * rx,
+				top - sampler.sample(pixel, index, count, 1) * ry);
+	}
+
+	/**
+	 * Renders the image progressively, in passes of a single sample per pixel.
+	 * The samples are summed into the floating point accumulation buffer of the image
+	 * writer, and the image holds the average of the passes done so far. The passes go on
+	 * until the target number of samples per pixel, or until the time budget is exhausted.
+	 * Every pass traces exactly one ray per pixel, and the rendering threads and the
+	 * traversal orders are set up once for all the passes, so the full render costs the
+	 * same as a one-shot super-sampled render with the same number of samples. A pass cut short by
+	 * the budget leaves the image with a prefix of the samples of every pixel, so the passes
+	 * take their positions from a {@link Sampler#isProgressive() progressive} sampler: the
+	 * sampler of the camera, or a {@link SobolSampler} if the sampler of the camera fills
+	 * the pixel row by row. With a progressive sampler the full render produces the same
+	 * image as the one-shot render.
+	 *
+	 * @param samples        The target number of samples per pixel.
+	 * @param budgetMillis   The wall-clock time budget in milliseconds, 0 for no limit.
+	 *                       At least one pass is always done.
+	 * @param snapshotPasses The number of passes between snapshots of the current average
+	 *                       written to the image file, 0 for no snapshots.
+	 * @return The current state of the camera, for further use within this class or
+	 *         in closely related classes.
+	 * @throws IllegalArgumentException if the number of samples is non-positive or the
+	 *                                  budget or the snapshot interval is negative
+	 */
+	public Camera renderProgressive(int samples, long budgetMillis, int snapshotPasses) {
+		if (samples <= 0)
+			throw new IllegalArgumentException("Samples count must be positive");
+		if (budgetMillis < 0 || snapshotPasses < 0)
+			throw new IllegalArgumentException("Budget and snapshot interval cannot be negative");
+
+		int nX = imageWriter.getNx();
+		int nY = imageWriter.getNy();
+		long deadline = clock.getAsLong() + budgetMillis * 1_000_000;
+		imageWriter.clearAccumulation();
+		progressiveSamples = samples;
+		completedPasses = 0;
+		prepareTraversal(nX, nY);
+		try (ForkJoinPool pool = openPool()) {
+			while (completedPasses < samples) {
+				progressivePass = completedPasses;
+				renderPass(nX, nY, pool, this::accumulateSample);
+				++completedPasses;
+				if (budgetMillis > 0 && clock.getAsLong() >= deadline)
+					break;
+				if (snapshotPasses > 0 && completedPasses % snapshotPasses == 0 && completedPasses < samples) {
+					imageWriter.resolveAccumulation(completedPasses);
+					imageWriter.writeToImage();
+				}
+			}
+		}
+		imageWriter.resolveAccumulation(completedPasses);
+		return this;
+	}
+
+	/**
+	 * Traces the sample of the current progressive pass for a pixel and adds its color
+	 * to the accumulation buffer.
+	 *
+	 * @param nX     The width of the image.
+	 * @param nY     The height of the image.
+	 * @param column The column index of the pixel.
+	 * @param row    The row index of the pixel.
+	 */
+	private void accumulateSample(int nX, int nY, int column, int row) {
+		RandomStream.current().reset(frame, row * nX + column, progressivePass);
+		imageWriter.accumulatePixel(column, row,
+				traceRay(constructSampleRay(progressiveSampler(), nX, nY, column, row, progressivePass,
+						progressiveSamples)));
+	}
+
+	/**
+	 * Retrieves the sampler of the renderings tracing prefixes of the samples of a pixel.
+	 *
+	 * @return The sampler of the camera if it is progressive, a {@link SobolSampler} otherwise.
+	 */
+	private Sampler progressiveSampler() {
+		return sampler.isProgressive() ? sampler : PROGRESSIVE_SAMPLER;
+	}
+
+	/**
+	 * Retrieves the number of samples per pixel done by the last progressive rendering.
+	 *
+	 * @return The number of passes of the last progressive rendering.
+	 */
+	public int getCompletedPasses() {
+		return completedPasses;
+	}
+
+	/**
+	 * Renders the image within a wall-clock time budget. A first round traces a few
+	 * samples in every pixel - a single sample in the pixels it reaches after the
+	 * deadline - so the image is complete even if the budget is too short.
+	 * Then each refinement round measures the rendering throughput of the previous one,
+	 * estimates how many more rays fit into a part of the remaining time, and distributes
+	 * them among the pixels in proportion to the standard deviation of their samples - the
+	 * allocation minimizing the total variance of the image - so the noisy regions get most
+	 * of the samples. A round reaching the deadline skips the pixels it has not started yet,
+	 * and the image is resolved from the samples traced so far. The rendering threads are
+	 * set up once for all the rounds, so no round pays for starting them.
+	 * The throughput is measured over a whole round rather than per tile: the wall-clock
+	 * time of a round already accounts for the number of threads, their scheduling and
+	 * the imbalance between the tiles, which the times of the single tiles, spent in
+	 * parallel, would not add up to.
+	 * The rounds trace prefixes of the samples of a pixel with the maximal sample count,
+	 * so their positions come from a {@link Sampler#isProgressive() progressive} sampler:
+	 * the sampler of the camera, or a {@link SobolSampler} if the sampler of the camera
+	 * fills the pixel row by row.
+	 *
+	 * @param budgetMillis The wall-clock time budget in milliseconds.
+	 * @param maxSamples   The maximal number of samples per pixel.
+	 * @return The current state of the camera, for further use within this class or
+	 *         in closely related classes.
+	 * @throws IllegalArgumentException if the budget or the maximal number of samples is
+	 *                                  not positive
+	 */
+	public Camera renderWithDeadline(long budgetMillis, int maxSamples) {
+		if (budgetMillis <= 0 || maxSamples <= 0)
+			throw new IllegalArgumentException("Budget and samples count must be positive");
+
+		long start = clock.getAsLong();
+		long deadline = start + budgetMillis * 1_000_000;
+		int nX = imageWriter.getNx();
+		int nY = imageWriter.getNy();
+		int pixels = nX * nY;
+		imageWriter.clearAccumulation();
+		sampleCounts = new int[pixels];
+		extraSamples = new int[pixels];
+		luminanceMeans = new double[pixels];
+		luminanceDeviations = new double[pixels];
+		deadlineSamples = maxSamples;
+
+		prepareTraversal(nX, nY);
+		try (ForkJoinPool pool = openPool()) {
+			// The first round gives every pixel at least a sample, even after the deadline
+			Arrays.fill(extraSamples, Math.min(PILOT_SAMPLES, maxSamples));
+			deadlineNanos = deadline;
+			renderPass(nX, nY, pool, this::refinePixel);
+			// Wall-clock time per ray of the whole round, over all the threads
+			double nanosPerRay = (double) (clock.getAsLong() - start) / totalSamples();
+
+			for (long now = clock.getAsLong(); now < deadline; now = clock.getAsLong()) {
+				long rays = (long) ((deadline - now) * ROUND_FRACTION / nanosPerRay);
+				// A round too small for the pixels is not worth its overhead
+				if (rays < pixels / 16 + 1 || allocateSamples(rays) == 0)
+					break;
+				long before = totalSamples();
+				renderPass(nX, nY, pool, this::refinePixel);
+				long traced = totalSamples() - before;
+				if (traced > 0)
+					nanosPerRay = (double) (clock.getAsLong() - now) / traced;
+			}
+		}
+
+		imageWriter.resolveAccumulation(sampleCounts);
+		double noise = 0;
+		for (int pixel = 0; pixel < pixels; ++pixel)
+			noise += noiseVariance(nX, nY, pixel) / sampleCounts[pixel];
+		estimatedNoise = Math.sqrt(noise / pixels);
+		extraSamples = null;
+		luminanceMeans = null;
+		luminanceDeviations = null;
+		return this;
+	}
+
+	/**
+	 * Distributes rays among the pixels for the next round of a deadline rendering, so
+	 * that the sample counts approach being proportional to the standard deviations of
+	 * the pixels, without exceeding the maximal number of samples.
+	 *
+	 * @param rays The number of rays of the round.
+	 * @return The number of rays distributed.
+	 */
+	private long allocateSamples(long rays) {
+		int pixels = sampleCounts.length;
+		double deviations = 0;
+		long total = rays;
+		for (int pixel = 0; pixel < pixels; ++pixel) {
+			deviations += Math.max(Math.sqrt(sampleVariance(pixel)), MIN_DEVIATION);
+			total += sampleCounts[pixel];
+		}
+
+		double wanted = 0;
+		for (int pixel = 0; pixel < pixels; ++pixel) {
+			double target = total * Math.max(Math.sqrt(sampleVariance(pixel)), MIN_DEVIATION) / deviations;
+			wanted += Math.max(0, Math.min(target, deadlineSamples) - sampleCounts[pixel]);
+		}
+		if (wanted == 0)
+			return 0;
+
+		// The fractions are carried from pixel to pixel, so that the rounding keeps the total
+		double scale = Math.min(1, rays / wanted), carry = 0;
+		long allocated = 0;
+		for (int pixel = 0; pixel < pixels; ++pixel) {
+			double target = total * Math.max(Math.sqrt(sampleVariance(pixel)), MIN_DEVIATION) / deviations;
+			carry += Math.max(0, Math.min(target, deadlineSamples) - sampleCounts[pixel]) * scale;
+			int extra = Math.min((int) carry, deadlineSamples - sampleCounts[pixel]);
+			carry -= extra;
+			extraSamples[pixel] = extra;
+			allocated += extra;
+		}
+		return allocated;
+	}
+
+	/**
+	 * Traces the samples allocated to a pixel in the running round of a deadline rendering,
+	 * unless the deadline has passed, and adds them to the accumulation buffer and to the
+	 * statistics of the pixel. A pixel without samples gets a single one after the deadline.
+	 *
+	 * @param nX     The width of the image.
+	 * @param nY     The height of the image.
+	 * @param column The column index of the pixel.
+	 * @param row    The row index of the pixel.
+	 */
+	private void refinePixel(int nX, int nY, int column, int row) {
+		int pixel = row * nX + column;
+		int first = sampleCounts[pixel], end = first + extraSamples[pixel];
+		if (first == end)
+			return;
+		if (clock.getAsLong() >= deadlineNanos) {
+			if (first > 0)
+				return;
+			end = 1;
+		}
+
+		RandomStream random = RandomStream.current();
+		double mean = luminanceMeans[pixel], deviations = luminanceDeviations[pixel];
+		for (int k = first; k < end; ++k) {
+			random.reset(frame, pixel, k);
+			Color sample = traceRay(constructSampleRay(progressiveSampler(), nX, nY, column, row, k, deadlineSamples));
+			imageWriter.accumulatePixel(column, row, sample);
+			double luminance = 0.2126 * sample.getRed() + 0.7152 * sample.getGreen() + 0.0722 * sample.getBlue();
+			// Welford's update, free of the cancellation of the sums of squares
+			double delta = luminance - mean;
+			mean += delta / (k + 1);
+			deviations += delta * (luminance - mean);
+		}
+		luminanceMeans[pixel] = mean;
+		luminanceDeviations[pixel] = deviations;
+		sampleCounts[pixel] = end;
+	}
+
+	/**
+	 * Calculates the unbiased variance of the sample luminances of a pixel of a deadline
+	 * rendering.
+	 *
+	 * @param pixel The index of the pixel.
+	 * @return The variance, 0 for a single sample.
+	 */
+	private double sampleVariance(int pixel) {
+		int n = sampleCounts[pixel];
+		return n < 2 ? 0 : luminanceDeviations[pixel] / (n - 1);
+	}
+
+	/**
+	 * Estimates the variance of the sample luminances of a pixel of a deadline rendering
+	 * for its noise level. A pixel with a single sample - reached after the deadline - has
+	 * no variance of its own, so it takes the mean variance of its neighbours with more
+	 * samples, or the variance of {@link #MIN_DEVIATION} if it has none.
+	 *
+	 * @param nX    The width of the image.
+	 * @param nY    The height of the image.
+	 * @param pixel The index of the pixel.
+	 * @return The variance.
+	 */
+	private double noiseVariance(int nX, int nY, int pixel) {
+		if (sampleCounts[pixel] > 1)
+			return sampleVariance(pixel);
+		int column = pixel % nX, row = pixel / nX;
+		double sum = 0;
+		int count = 0;
+		for (int neighbour : new int[] { column > 0 ? pixel - 1 : -1, column < nX - 1 ? pixel + 1 : -1,
+				row > 0 ? pixel - nX : -1, row < nY - 1 ? pixel + nX : -1 })
+			if (neighbour >= 0 && sampleCounts[neighbour] > 1) {
+				sum += sampleVariance(neighbour);
+				++count;
+			}
+		return count == 0 ? MIN_DEVIATION * MIN_DEVIATION : sum / count;
+	}
+
+	/**
+	 * Sums the numbers of samples traced for all the pixels.
+	 *
+	 * @return The total number of samples.
+	 */
+	private long totalSamples() {
+		long total = 0;
+		for (int count : sampleCounts)
+			total += count;
+		return total;
+	}
 
+	/**
+	 * Retrieves the average number of samples per pixel of the last deadline rendering.
+	 *
+	 * @return The average number of samples per pixel.
+	 * @throws IllegalStateException if no deadline rendering was done
+	 */
+	public double getAverageSamplesPerPixel() {
+		if (deadlineSamples == 0)
+			throw new IllegalStateException("No deadline rendering was done");
+		return (double) totalSamples() / sampleCounts.length;
+	}
+
+	/**
+	 * Retrieves the estimated noise level of the last deadline rendering: the root mean
+	 * square over the pixels of the standard error of their luminance, in color units.
+	 * The pixels with a single sample are estimated from the variance of their neighbours.
+	 *
+	 * @return The estimated noise level.
+	 * @throws IllegalStateException if no deadline rendering was done
+	 */
+	public double getEstimatedNoise() {
+		if (deadlineSamples == 0)
+			throw new IllegalStateException("No deadline rendering was done");
+		return estimatedNoise;
+	}
+
+	/**
+	 * Calculates the color of a pixel by adaptive super-sampling, and records the
+	 * number of rays traced for it in the sample count map.
+	 *
+	 * @param nX     The width of the image.
+	 * @param nY     The height of the image.
+	 * @param column The column index of the pixel.
+	 * @param row    The row index of the pixel.
+	 * @return The color of the pixel.
+	 */
+	private Color adaptivePixel(int nX, int nY, int column, int row) {
+		double ry = viewPlaneHeight / nY;
+		double rx = viewPlaneWidth / nX;
+		double yi = -(row - (nY - 1) / 2.0) * ry;
+		double xj = (column - (nX - 1) / 2.0) * rx;
+		int pixel = row * nX + column;
+		double left = xj - rx / 2, right = xj + rx / 2, top = yi + ry / 2, bottom = yi - ry / 2;
+		sampleCounts[pixel] += 4;
+		return sampleSquare(left, top, right, bottom, traceRay(constructRay(left, top)),
+				traceRay(constructRay(right, top)), traceRay(constructRay(left, bottom)),
+				traceRay(constructRay(right, bottom)), adaptiveDepth, pixel);
+	}
+
+	/**
+	 * Calculates the average color of a square of the view plane from the colors of its
+	 * corners, splitting it into quarters while the corners vary too much.
+	 *
+	 * @param left        The offset of the left side along the right vector.
+	 * @param top         The offset of the top side along the up vector.
+	 * @param right       The offset of the right side along the right vector.
+	 * @param bottom      The offset of the bottom side along the up vector.
+	 * @param topLeft     The color of the top left corner.
+	 * @param topRight    The color of the top right corner.
+	 * @param bottomLeft  The color of the bottom left corner.
+	 * @param bottomRight The color of the bottom right corner.
+	 * @param depth       The number of subdivisions left.
+	 * @param pixel       The index of the pixel in the sample count map.
+	 * @return The average color of the square.
+	 */
+	private Color sampleSquare(double left, double top, double right, double bottom, Color topLeft,
+							   Color topRight, Color bottomLeft, Color bottomRight, int depth, int pixel) {
+		if (depth == 0 || !isVarying(topLeft, topRight, bottomLeft, bottomRight))
+			return topLeft.add(topRight, bottomLeft, bottomRight).reduce(4);
+
+		double x = (left + right) / 2, y = (top + bottom) / 2;
+		Color center = traceRay(constructRay(x, y));
+		Color upper = traceRay(constructRay(x, top));
+		Color lower = traceRay(constructRay(x, bottom));
+		Color leftMiddle = traceRay(constructRay(left, y));
+		Color rightMiddle = traceRay(constructRay(right, y));
+		sampleCounts[pixel] += 5;
+		return sampleSquare(left, top, x, y, topLeft, upper, leftMiddle, center, depth - 1, pixel)
+				.add(sampleSquare(x, top, right, y, upper, topRight, center, rightMiddle, depth - 1, pixel),
+						sampleSquare(left, y, x, bottom, leftMiddle, center, bottomLeft, lower, depth - 1, pixel),
+						sampleSquare(x, y, right, bottom, center, rightMiddle, lower, bottomRight, depth - 1, pixel))
+				.reduce(4);
+	}
+
+	/**
+	 * Checks whether the variance of any color component of 4 samples exceeds the
+	 * adaptive sampling threshold.
+	 *
+	 * @param c1 The first sample.
+	 * @param c2 The second sample.
+	 * @param c3 The third sample.
+	 * @param c4 The fourth sample.
+	 * @return true if the samples vary more than the threshold.
+	 */
+	private boolean isVarying(Color c1, Color c2, Color c3, Color c4) {
+		double limit = adaptiveThreshold * adaptiveThreshold;
+		return variance(c1.getRed(), c2.getRed(), c3.getRed(), c4.getRed()) > limit
+				|| variance(c1.getGreen(), c2.getGreen(), c3.getGreen(), c4.getGreen()) > limit
+				|| variance(c1.getBlue(), c2.getBlue(), c3.getBlue(), c4.getBlue()) > limit;
+	}
+
+	/**
+	 * Calculates the variance of 4 values.
+	 *
+	 * @param a The first value.
+	 * @param b The second value.
+	 * @param c The third value.
+	 * @param d The fourth value.
+	 * @return The variance.
+	 */
+	private static double variance(double a, double b, double c, double d) {
+		double mean = (a + b + c + d) / 4;
+		return ((a - mean) * (a - mean) + (b - mean) * (b - mean) + (c - mean) * (c - mean)
+				+ (d - mean) * (d - mean)) / 4;
+	}
+
+	/**
+	 * Retrieves the number of rays traced for a pixel by the last adaptive, edge
+	 * detection or deadline rendering.
+	 *
+	 * @param column The column index of the pixel.
+	 * @param row    The row index of the pixel.
+	 * @return The number of rays traced for the pixel.
+	 * @throws IllegalStateException if no adaptive or edge detection rendering was done
+	 */
+	public int getSampleCount(int column, int row) {
+		if (sampleCounts == null)
+			throw new IllegalStateException("No adaptive rendering was done");
+		return sampleCounts[row * imageWriter.getNx() + column];
+	}
+
+	/**
+	 * Writes the sample count map of the last adaptive, edge detection or deadline rendering
+	 * to an image file. The brightness of each pixel is proportional to the number of rays
+	 * traced for it, white being the number of rays of a pixel subdivided everywhere to the
+	 * full depth, of a super-sampled edge pixel, or the maximal number of samples of a
+	 * deadline rendering.
+	 *
+	 * @param imageName The name of the image file.
+	 * @return The current state of the camera
+	 * @throws IllegalStateException if no adaptive or edge detection rendering was done
+	 */
+	public Camera writeSampleCountMap(String imageName) {
+		if (sampleCounts == null)
+			throw new IllegalStateException("No adaptive rendering was done");
+		int nX = imageWriter.getNx();
+		int nY = imageWriter.getNy();
+		// Adaptive: 4 corners, and 5 more rays for every square split
+		double maxCount = deadlineSamples > 0 ? deadlineSamples
+				: adaptiveDepth > 0 ? 4 + 5 * ((1 << 2 * adaptiveDepth) - 1) / 3.0
+				: 1 + edgeSamplesPerSide * edgeSamplesPerSide;
+		ImageWriter map = new ImageWriter(imageName, nX, nY);
+		for (int row = 0; row < nY; ++row)
+			for (int column = 0; column < nX; ++column) {
+				double level = 255 * sampleCounts[row * nX + column] / maxCount;
+				map.writePixel(column, row, new Color(level, level, level));
+			}
+		map.writeToImage();
+		return this;
 	}
 
 }
@@ -0,0 +1,21 @@
+package renderer;
+
+/**
+ * Regular grid sampler: the samples are the centers of the cells of a grid, ordered row
+ * by row. The grid is square for a square number of samples, and has as many rows as
+ * needed for the samples otherwise. This is the classic uniform super-sampling, and the
+ * default sampler of the camera. A prefix of the samples covers only the top rows, so the
+ * sampler is not progressive.
+ *
+ * @author Shay and Asaf
+ */
+public class GridSampler implements Sampler {
+	@Override
+	public double sample(int pixel, int index, int count, int dimension) {
+		int columns = (int) Math.ceil(Math.sqrt(count));
+		if (dimension % 2 == 0)
+			return (index % columns + 0.5) / columns;
+		int rows = (count + columns - 1) / columns;
+		return (index / columns + 0.5) / rows;
+	}
+}
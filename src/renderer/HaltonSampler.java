@@ -0,0 +1,67 @@
+package renderer;
+
+import primitives.RandomStream;
+
+/**
+ * Halton sampler: dimension d of sample i is the radical inverse of i in the base of the
+ * d-th prime. The Halton sequence is low-discrepancy - every prefix of it covers the
+ * unit hypercube evenly - so the estimates converge faster than with random samples.
+ * Every pixel gets its own random toroidal shift (Cranley-Patterson rotation) of the
+ * sequence, so neighbour pixels do not share the same pattern.
+ *
+ * @author Shay and Asaf
+ */
+public class HaltonSampler implements Sampler {
+	/** Bases of the supported dimensions */
+	private static final int[] PRIMES = { 2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37, 41, 43, 47, 53 };
+
+	/** Seed of the per-pixel shifts */
+	private final long seed;
+
+	/**
+	 * Constructs a Halton sampler
+	 *
+	 * @param seed the seed of the per-pixel shifts
+	 */
+	public HaltonSampler(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Constructs a Halton sampler with a default seed
+	 */
+	public HaltonSampler() {
+		this(0);
+	}
+
+	/**
+	 * Calculates the radical inverse of a number: its digits in the base mirrored
+	 * around the radix point.
+	 *
+	 * @param index the number
+	 * @param base  the base
+	 * @return the radical inverse in the range [0, 1)
+	 */
+	static double radicalInverse(int index, int base) {
+		double inverse = 0, digitValue = 1.0 / base;
+		for (int i = index; i > 0; i /= base) {
+			inverse += (i % base) * digitValue;
+			digitValue /= base;
+		}
+		return inverse;
+	}
+
+	@Override
+	public double sample(int pixel, int index, int count, int dimension) {
+		if (dimension >= PRIMES.length)
+			throw new IllegalArgumentException("Halton sampler supports up to " + PRIMES.length + " dimensions");
+		double shifted = radicalInverse(index, PRIMES[dimension])
+				+ RandomStream.toUnit(RandomStream.hash(RandomStream.hash(seed, pixel), dimension));
+		return shifted >= 1 ? shifted - 1 : shifted;
+	}
+
+	@Override
+	public boolean isProgressive() {
+		return true;
+	}
+}
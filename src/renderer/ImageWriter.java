@@ -1,8 +1,10 @@
 package renderer;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -14,7 +16,9 @@ import primitives.Color;
  * Image writer class combines accumulation of pixel color matrix and finally
  * producing a non-optimized jpeg image from this matrix. The class although is
  * responsible of holding image related parameters of View Plane - pixel matrix
- * size and resolution
+ * size and resolution.
+ * Different pixels may be written concurrently by several threads, as long as the
+ * writing threads complete before the image is written to the file.
  * 
  * @author Dan
  */
@@ -31,6 +35,13 @@ public class ImageWriter {
 
 	/** Image generation buffer (the matrix of the pixels) */
 	private BufferedImage image;
+	/** The pixels of the image buffer, one RGB int per pixel in row-major order */
+	private int[] pixels;
+	/**
+	 * Accumulation buffer of progressive rendering: the sums of the sample colors,
+	 * 3 components per pixel in row-major order; null until accumulation starts
+	 */
+	private double[] accumulation;
 	/** image file name, not including the file extension '.png' */
 	private String imageName;
 	/** logger for reporting I/O failures */
@@ -50,6 +61,7 @@ public class ImageWriter {
 		this.nY = nY;
 
 		image = new BufferedImage(nX, nY, BufferedImage.TYPE_INT_RGB);
+		pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
 	}
 
 	// ***************** Getters/Setters ********************** //
@@ -89,14 +101,83 @@ public class ImageWriter {
 
 	/**
 	 * The function writePixel writes a color of a specific pixel into pixel color
-	 * matrix
+	 * matrix. Each pixel is a separate element of the buffer, so threads writing
+	 * different pixels do not interfere with each other.
 	 * 
 	 * @param xIndex X axis index of the pixel
 	 * @param yIndex Y axis index of the pixel
 	 * @param color  final color of the pixel
 	 */
 	public void writePixel(int xIndex, int yIndex, Color color) {
-		image.setRGB(xIndex, yIndex, color.getColor().getRGB());
+		if (xIndex < 0 || xIndex >= nX || yIndex < 0 || yIndex >= nY)
+			throw new ArrayIndexOutOfBoundsException("Coordinate out of bounds!");
+		pixels[yIndex * nX + xIndex] = color.getColor().getRGB() & 0xFFFFFF;
+	}
+
+	/**
+	 * Starts a new accumulation of samples: clears the accumulation buffer
+	 */
+	public void clearAccumulation() {
+		if (accumulation == null)
+			accumulation = new double[3 * nX * nY];
+		else
+			Arrays.fill(accumulation, 0);
+	}
+
+	/**
+	 * Adds the color of a sample to the accumulation buffer of a pixel. Each pixel is a
+	 * separate part of the buffer, so threads accumulating different pixels do not
+	 * interfere with each other.
+	 * 
+	 * @param xIndex X axis index of the pixel
+	 * @param yIndex Y axis index of the pixel
+	 * @param color  color of the sample
+	 */
+	public void accumulatePixel(int xIndex, int yIndex, Color color) {
+		int i = 3 * (yIndex * nX + xIndex);
+		accumulation[i] += color.getRed();
+		accumulation[i + 1] += color.getGreen();
+		accumulation[i + 2] += color.getBlue();
+	}
+
+	/**
+	 * Writes the average of the accumulated samples into the pixel color matrix
+	 * 
+	 * @param samples the number of samples accumulated for each pixel
+	 */
+	public void resolveAccumulation(int samples) {
+		for (int yIndex = 0; yIndex < nY; ++yIndex)
+			for (int xIndex = 0; xIndex < nX; ++xIndex) {
+				int i = 3 * (yIndex * nX + xIndex);
+				writePixel(xIndex, yIndex, new Color(accumulation[i] / samples, accumulation[i + 1] / samples,
+						accumulation[i + 2] / samples));
+			}
+	}
+
+	/**
+	 * Writes the average of the accumulated samples into the pixel color matrix, when
+	 * each pixel has its own number of samples
+	 * 
+	 * @param samples the number of samples accumulated for each pixel, in row-major order
+	 */
+	public void resolveAccumulation(int[] samples) {
+		for (int yIndex = 0; yIndex < nY; ++yIndex)
+			for (int xIndex = 0; xIndex < nX; ++xIndex) {
+				int pixel = yIndex * nX + xIndex, i = 3 * pixel;
+				writePixel(xIndex, yIndex, new Color(accumulation[i] / samples[pixel],
+						accumulation[i + 1] / samples[pixel], accumulation[i + 2] / samples[pixel]));
+			}
+	}
+
+	/**
+	 * Reads the color written to a specific pixel
+	 * 
+	 * @param xIndex X axis index of the pixel
+	 * @param yIndex Y axis index of the pixel
+	 * @return the RGB value of the pixel (without alpha)
+	 */
+	public int getRGB(int xIndex, int yIndex) {
+		return pixels[yIndex * nX + xIndex];
 	}
 
 }
@@ -1,5 +1,7 @@
 package renderer;
 
+import geometries.HitRecord;
+import geometries.RayPacket;
 import primitives.Color;
 import primitives.Ray;
 import scene.Scene;
@@ -32,4 +34,42 @@ public abstract class RayTracerBase {
 	 * @return the color at the intersection point
 	 */
 	public abstract Color traceRay(Ray ray);
+
+	/**
+	 * Traces a ray and returns the color at the intersection point, reporting the closest
+	 * intersection in the given hit record. The default implementation does not report the
+	 * intersection and leaves the record empty.
+	 *
+	 * @param ray the ray to be traced
+	 * @param hit the record to fill with the closest intersection of the ray
+	 * @return the color at the intersection point
+	 */
+	public Color traceRay(Ray ray, HitRecord hit) {
+		hit.reset(Double.POSITIVE_INFINITY);
+		return traceRay(ray);
+	}
+
+	/**
+	 * Finds the closest intersections of a packet of rays with the scene, all the rays
+	 * traversing the scene together.
+	 *
+	 * @param packet the ray packet, receiving the closest intersection of every ray
+	 */
+	public void findClosestHits(RayPacket packet) {
+		scene.geometries.findClosestHits(packet);
+	}
+
+	/**
+	 * Calculates the color of a ray whose closest intersection was already found, e.g. by
+	 * {@link #findClosestHits(RayPacket)}. The default implementation ignores the record
+	 * and traces the ray again.
+	 *
+	 * @param ray the ray
+	 * @param hit the completed record of the closest intersection of the ray, with a null
+	 *            geometry if the ray hits nothing
+	 * @return the color of the ray
+	 */
+	public Color traceHit(Ray ray, HitRecord hit) {
+		return traceRay(ray, hit);
+	}
 }
@@ -0,0 +1,232 @@
+package renderer;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Handle of an asynchronous rendering started by {@link Camera#renderAsync(TileListener)}.
+ * It reports the progress of the rendering while it runs, allows waiting for its
+ * completion, and cancels it cooperatively: the rendering threads check the cancellation
+ * before every tile, so they all stop within the time of rendering a single tile.
+ * The rendering is done (and {@link #get()} returns or throws) only after all the
+ * rendering threads have stopped.
+ * The task renders with its own copy of the camera, which holds all the state of the
+ * rendering, so several renderings of a camera may run at the same time.
+ *
+ * @author Shay and Asaf
+ */
+public class RenderTask {
+	/**
+	 * Outcome of a rendering, decided once by the first of a cancellation request and
+	 * the end of the rendering
+	 */
+	private enum State {
+		/** Neither cancelled nor finished yet */
+		RUNNING,
+		/** Cancelled before it finished - it ends cancelled whatever its threads do */
+		CANCELLED,
+		/** Finished before it was cancelled - it ends with its own result */
+		FINISHED
+	}
+
+	/** Completion of the rendering */
+	private final CompletableFuture<Camera> completion = new CompletableFuture<>();
+	/** The copy of the camera doing the rendering */
+	private final Camera camera;
+	/** Number of pixels of the image */
+	private final long totalPixels;
+	/** Number of passes over all the pixels */
+	private final int passes;
+	/** Listener notified of every completed tile, may be null */
+	private final TileListener listener;
+	/** Start time of the rendering in {@link System#nanoTime()} units */
+	private final long start = System.nanoTime();
+	/** Number of pixels rendered in all the passes */
+	private final LongAdder pixels = new LongAdder();
+	/** Number of camera rays traced */
+	private final LongAdder rays = new LongAdder();
+	/** End time of the rendering, valid once it is done */
+	private volatile long end;
+	/** Outcome of the rendering */
+	private final AtomicReference<State> state = new AtomicReference<>(State.RUNNING);
+
+	/**
+	 * Constructs the handle of a rendering
+	 *
+	 * @param camera      the copy of the camera doing the rendering
+	 * @param totalPixels number of pixels of the image
+	 * @param passes      number of passes over all the pixels
+	 * @param listener    listener notified of every completed tile, may be null
+	 */
+	RenderTask(Camera camera, long totalPixels, int passes, TileListener listener) {
+		this.camera = camera;
+		this.totalPixels = totalPixels;
+		this.passes = passes;
+		this.listener = listener;
+	}
+
+	/**
+	 * Throws if a cancellation was requested. Called by the rendering threads before
+	 * every tile.
+	 *
+	 * @throws CancellationException if the rendering was cancelled
+	 */
+	void checkCancelled() {
+		if (state.get() == State.CANCELLED)
+			throw new CancellationException("Rendering was cancelled");
+	}
+
+	/**
+	 * Records a completed tile and notifies the listener.
+	 *
+	 * @param column the column index of the top left pixel of the tile
+	 * @param row    the row index of the top left pixel of the tile
+	 * @param width  the width of the tile in pixels
+	 * @param height the height of the tile in pixels
+	 */
+	void tileCompleted(int column, int row, int width, int height) {
+		pixels.add((long) width * height);
+		if (listener != null)
+			listener.tileCompleted(column, row, width, height);
+	}
+
+	/**
+	 * Records a traced camera ray.
+	 */
+	void rayTraced() {
+		rays.increment();
+	}
+
+	/**
+	 * Marks the rendering as done, after all its threads have stopped: cancelled if a
+	 * cancellation was requested before, successfully or failed otherwise.
+	 *
+	 * @param failure the failure of the rendering, null if it succeeded
+	 */
+	void finish(Throwable failure) {
+		end = System.nanoTime();
+		if (!state.compareAndSet(State.RUNNING, State.FINISHED))
+			completion.cancel(false);
+		else if (failure == null)
+			completion.complete(camera);
+		else
+			completion.completeExceptionally(failure);
+	}
+
+	/**
+	 * Requests cancelling the rendering. The rendering threads stop after the tiles
+	 * they are rendering, and then the rendering is done and cancelled. The request and
+	 * the end of the rendering are decided atomically, so a rendering is cancelled exactly
+	 * when this method returns true.
+	 *
+	 * @return true if the rendering will end cancelled, false if it had already finished
+	 *         or was already cancelled
+	 */
+	public boolean cancel() {
+		return state.compareAndSet(State.RUNNING, State.CANCELLED);
+	}
+
+	/**
+	 * Checks whether the rendering was cancelled before it was completed.
+	 *
+	 * @return true if the rendering was cancelled
+	 */
+	public boolean isCancelled() {
+		return completion.isCancelled();
+	}
+
+	/**
+	 * Checks whether the rendering is done: completed, cancelled or failed.
+	 *
+	 * @return true if the rendering is done
+	 */
+	public boolean isDone() {
+		return completion.isDone();
+	}
+
+	/**
+	 * Waits for the rendering to be done.
+	 *
+	 * @return the copy of the camera that did the rendering, holding its statistics
+	 * @throws CancellationException if the rendering was cancelled
+	 * @throws ExecutionException    if the rendering failed
+	 * @throws InterruptedException  if interrupted while waiting
+	 */
+	public Camera get() throws InterruptedException, ExecutionException {
+		return completion.get();
+	}
+
+	/**
+	 * Waits at most the given time for the rendering to be done.
+	 *
+	 * @param timeout the maximal time to wait
+	 * @param unit    the unit of the timeout
+	 * @return the copy of the camera that did the rendering, holding its statistics
+	 * @throws CancellationException if the rendering was cancelled
+	 * @throws ExecutionException    if the rendering failed
+	 * @throws InterruptedException  if interrupted while waiting
+	 * @throws TimeoutException      if the rendering is not done in time
+	 */
+	public Camera get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+		return completion.get(timeout, unit);
+	}
+
+	/**
+	 * Retrieves the number of pixels of the image that were completed. In a rendering
+	 * in several passes, a pixel is counted as a fraction in every pass.
+	 *
+	 * @return the number of completed pixels
+	 */
+	public long getPixelsCompleted() {
+		return pixels.sum() / passes;
+	}
+
+	/**
+	 * Retrieves the number of pixels of the image.
+	 *
+	 * @return the number of pixels
+	 */
+	public long getTotalPixels() {
+		return totalPixels;
+	}
+
+	/**
+	 * Retrieves the number of camera rays traced so far, not including the secondary rays
+	 * of reflections, refractions and shadows.
+	 *
+	 * @return the number of traced rays
+	 */
+	public long getRaysTraced() {
+		return rays.sum();
+	}
+
+	/**
+	 * Retrieves the time elapsed since the start of the rendering, until it was done.
+	 *
+	 * @return the elapsed time in milliseconds
+	 */
+	public long getElapsedMillis() {
+		return ((isDone() ? end : System.nanoTime()) - start) / 1_000_000;
+	}
+
+	/**
+	 * Estimates the remaining time of the rendering, from its rate so far.
+	 *
+	 * @return the estimated remaining time in milliseconds, 0 if the rendering is
+	 *         done and -1 if no pixel was completed yet
+	 */
+	public long getEtaMillis() {
+		if (isDone())
+			return 0;
+		long done = pixels.sum();
+		if (done == 0)
+			return -1;
+		long nanos = System.nanoTime() - start;
+		return (long) ((double) nanos * (totalPixels * passes - done) / done / 1_000_000);
+	}
+}
@@ -0,0 +1,38 @@
+package renderer;
+
+/**
+ * Generator of sample positions in the unit hypercube, used for distributing the rays
+ * of a pixel (and any other sampled integral) over their domain.
+ * Every coordinate of a sample is calculated independently from the pixel index, the
+ * sample index, the number of samples and the dimension, so the samplers keep no state,
+ * allocate nothing and may be shared by all the rendering threads. The result is
+ * deterministic: the same pixel always gets the same samples.
+ * Consecutive pairs of dimensions (0-1, 2-3 etc.) form the 2D patterns of the sampler.
+ * The per-pixel randomization of the samplers uses {@link primitives.RandomStream#hash(long, long)}.
+ *
+ * @author Shay and Asaf
+ */
+public interface Sampler {
+	/**
+	 * Calculates a coordinate of a sample.
+	 *
+	 * @param pixel     the index of the pixel (or of any other sampled domain)
+	 * @param index     the index of the sample, from 0 to count - 1
+	 * @param count     the number of samples of the pixel
+	 * @param dimension the coordinate of the sample, 0 and 1 for the sub-pixel position
+	 * @return the coordinate in the range [0, 1)
+	 */
+	double sample(int pixel, int index, int count, int dimension);
+
+	/**
+	 * Checks whether every prefix of the samples of a pixel covers the unit square evenly,
+	 * so that the first samples of a count may be traced alone - as the progressive and the
+	 * deadline renderings do. Samplers ordering their samples row by row cover only the top
+	 * of the square with a prefix.
+	 *
+	 * @return true if the prefixes of the samples are spread evenly, false by default
+	 */
+	default boolean isProgressive() {
+		return false;
+	}
+}
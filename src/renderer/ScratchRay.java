@@ -0,0 +1,52 @@
+package renderer;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vec3;
+import primitives.Vector;
+
+/**
+ * Reusable ray of the allocation-free shading of {@link SimpleRayTracer}: the secondary
+ * rays of a rendering thread are moved in place instead of allocated per ray. The moves
+ * only adapt the mutable triads of the shading to the moves of {@link Ray}, which keeps
+ * the whole state of the ray.
+ * A scratch ray is not thread-safe - each thread should use its own rays.
+ *
+ * @author Shay and Asaf
+ */
+final class ScratchRay extends Ray {
+	/**
+	 * Constructs a ray along the x axis from the origin
+	 */
+	ScratchRay() {
+		super(Point.ZERO, Vector.uncheckedUnit(1, 0, 0));
+	}
+
+	/**
+	 * Moves the ray to a new head and direction.
+	 *
+	 * @param head      the new head
+	 * @param direction the new direction, which must be normalized
+	 * @return this ray
+	 * @throws IllegalArgumentException if the direction is not normalized
+	 */
+	ScratchRay set(Vec3 head, Vec3 direction) {
+		move(head.x, head.y, head.z, direction.x, direction.y, direction.z);
+		return this;
+	}
+
+	/**
+	 * Moves the ray to a new head, moved off the surface along its normal, and a new
+	 * direction - the same ray as {@link Ray#Ray(Point, Vector, Vector)} constructs.
+	 *
+	 * @param head      the point on the surface
+	 * @param direction the new direction, which must be normalized
+	 * @param n         the normal of the surface at the point
+	 * @return this ray
+	 * @throws IllegalArgumentException if the direction is not normalized
+	 */
+	ScratchRay set(Vec3 head, Vec3 direction, Vec3 n) {
+		move(head.x, head.y, head.z, direction.x, direction.y, direction.z, n.x, n.y, n.z);
+		return this;
+	}
+}
@@ -3,14 +3,16 @@ package renderer;
 import primitives.Ray;
 import scene.Scene;
 import primitives.Color;
+import primitives.Color3;
 import primitives.Double3;
 import primitives.Material;
+import geometries.HitRecord;
 import geometries.Intersectable.GeoPoint;
 import lighting.LightSource;
-import primitives.Vector;
+import primitives.Vec3;
 import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
 import static java.lang.Math.*;
-import java.util.List;
 
 /**
  * A simple ray tracer implementation.
@@ -27,6 +29,62 @@ public class SimpleRayTracer extends RayTracerBase {
     private static final double MIN_CALC_COLOR_K = 0.001;
     private static final Double3 INITIAL_K = Double3.ONE;
 
+    /**
+     * Scratch objects of a rendering thread, for shading without allocations: a hit record,
+     * a reusable secondary ray and color accumulators per recursion level, and the vectors
+     * and colors of the local lighting calculation. A level uses only its own objects and
+     * those of the level below it, so the recursion never overwrites the objects of a level
+     * while it is still shading.
+     */
+    private static final class Scratch {
+        /** Hit records of the levels */
+        final HitRecord[] hits = new HitRecord[MAX_CALC_COLOR_LEVEL + 1];
+        /** Reflected and refracted rays leading to the levels */
+        final ScratchRay[] rays = new ScratchRay[MAX_CALC_COLOR_LEVEL + 1];
+        /** Colors of the levels */
+        final Color3[] colors = new Color3[MAX_CALC_COLOR_LEVEL + 1];
+        /** Global effects of the levels */
+        final Color3[] globals = new Color3[MAX_CALC_COLOR_LEVEL + 1];
+        /** Accumulated coefficients of the levels */
+        final Color3[] ks = new Color3[MAX_CALC_COLOR_LEVEL + 1];
+        /** Ray from the shaded point towards a light */
+        final ScratchRay shadowRay = new ScratchRay();
+        /** Direction of a constructed ray */
+        final Vec3 direction = new Vec3();
+        /** Direction of the shaded ray */
+        final Vec3 view = new Vec3();
+        /** Direction from a light to the shaded point */
+        final Vec3 l = new Vec3();
+        /** Reflection of the light direction */
+        final Vec3 reflected = new Vec3();
+        /** Intensity of a light at the shaded point */
+        final Color3 light = new Color3();
+        /** Diffusive and specular coefficients of a light */
+        final Color3 coefficients = new Color3();
+        /** Coefficients compared against the contribution threshold */
+        final Color3 threshold = new Color3();
+        /** Color of the last shaded camera ray */
+        final Color3 result = new Color3();
+
+        /**
+         * Allocates the objects of all the levels
+         */
+        Scratch() {
+            for (int i = 0; i <= MAX_CALC_COLOR_LEVEL; ++i) {
+                hits[i] = new HitRecord();
+                rays[i] = new ScratchRay();
+                colors[i] = new Color3();
+                globals[i] = new Color3();
+                ks[i] = new Color3();
+            }
+        }
+    }
+
+    /**
+     * Scratch objects reused by each rendering thread, so tracing and shading do not allocate
+     * intersection lists, records, rays, vectors or colors per ray.
+     */
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
 
     /**
      * Constructs a new SimpleRayTracer with the specified scene.
@@ -45,202 +103,284 @@ public class SimpleRayTracer extends RayTracerBase {
      */
     @Override
     public Color traceRay(Ray ray) {
-        GeoPoint closestPoint = findClosestIntersection(ray);
-        return closestPoint == null ? scene.background : calcColor(closestPoint, ray);
+        return traceRay(ray, SCRATCH.get().hits[MAX_CALC_COLOR_LEVEL]);
+    }
+
+    @Override
+    public Color traceRay(Ray ray, HitRecord hit) {
+        hit.reset(Double.POSITIVE_INFINITY);
+        return scene.geometries.findClosestHitInPlace(ray, hit) ? calcColor(hit, ray) : scene.background;
+    }
+
+    /**
+     * Traces a ray in the scene and accumulates the color of the closest intersection point in place.
+     * Once the JIT has compiled the tracing, it does not allocate at all for scenes of spheres, planes,
+     * polygons, triangles and meshes lit by the lights of the library, except where a shadow ray
+     * crosses transparent geometry more than once and the transparency coefficients are multiplied.
+     *
+     * @param ray   The ray to trace, which may be a reusable ray.
+     * @param hit   The record to fill with the closest intersection of the ray.
+     * @param color Receives the color of the closest intersection point, or the background color if no
+     *              intersections are found.
+     * @return The color accumulator.
+     */
+    public Color3 traceRay(Ray ray, HitRecord hit, Color3 color) {
+        hit.reset(Double.POSITIVE_INFINITY);
+        return scene.geometries.findClosestHitInPlace(ray, hit) ? calcColor(hit, ray, color)
+                : color.set(scene.background);
+    }
+
+    @Override
+    public Color traceHit(Ray ray, HitRecord hit) {
+        return hit.geometry == null ? scene.background : calcColor(hit, ray);
     }
 
     /**
      * Calculates the color at a given geometric point considering ambient light, emission from the geometry, and local lighting effects.
      * This method uses recursive ray tracing to handle transparency and reflection up to a specified recursion level.
      *
-     * @param gp  The geometric point at which to calculate the color.
-     * @param ray The ray that intersected with the geometry at the geometric point.
-     * @return The calculated color at the geometric point, taking into account ambient light, emission, local lighting effects (diffuse and specular reflections), and recursive effects of transparency or reflection.
+     * @param hit The completed hit record of the intersection.
+     * @param ray The ray that intersected with the geometry at the hit point.
+     * @return The calculated color at the hit point, taking into account ambient light, emission, local lighting effects (diffuse and specular reflections), and recursive effects of transparency or reflection.
      */
-    private Color calcColor(GeoPoint gp, Ray ray) {
-        return calcColor(gp, ray, MAX_CALC_COLOR_LEVEL, INITIAL_K).add(scene.ambientLight.getIntensity());
+    private Color calcColor(HitRecord hit, Ray ray) {
+        return calcColor(hit, ray, SCRATCH.get().result).toColor();
     }
 
+    /**
+     * Calculates the color at a given geometric point in place, see {@link #calcColor(HitRecord, Ray)}.
+     *
+     * @param hit   The completed hit record of the intersection.
+     * @param ray   The ray that intersected with the geometry at the hit point.
+     * @param color Receives the calculated color at the hit point.
+     * @return The color accumulator.
+     */
+    private Color3 calcColor(HitRecord hit, Ray ray, Color3 color) {
+        Scratch scratch = SCRATCH.get();
+        scratch.ks[MAX_CALC_COLOR_LEVEL].set(INITIAL_K);
+        calcColor(scratch, hit, ray, MAX_CALC_COLOR_LEVEL);
+        return color.set(scratch.colors[MAX_CALC_COLOR_LEVEL]).add(scene.ambientLight.getIntensity());
+    }
+
+    /**
+     * Calculates the color at a geometric point found by {@link #findClosestIntersection(Ray)}.
+     *
+     * @param geoPoint The geometric point at which to calculate the color.
+     * @param ray      The ray that intersected with the geometry at the geometric point.
+     * @return The calculated color at the geometric point.
+     */
     public Color getColor(GeoPoint geoPoint, Ray ray) {
-        return calcColor(geoPoint, ray);
+        HitRecord hit = new HitRecord();
+        hit.set(ray.getHead().distance(geoPoint.point), geoPoint.geometry);
+        hit.point = geoPoint.point;
+        hit.normal = geoPoint.geometry.getNormal(geoPoint.point);
+        hit.hitPoint.set(hit.point);
+        hit.hitNormal.set(hit.normal);
+        return calcColor(hit, ray);
     }
 
     /**
      * Calculates the color at a given geometric intersection point considering local lighting effects and potentially global effects such as transparency or reflection.
+     * The color is accumulated in the color of the level, and the accumulated coefficient is taken from the coefficients of the level.
      *
-     * @param gp     The geometric point at which to calculate the color.
-     * @param ray    The ray that intersected with the geometry at the intersection point.
-     * @param level  The current recursion level for handling transparency or reflection effects.
-     * @param k      The accumulated coefficient (e.g., transparency or reflection coefficient) up to the current recursion level.
-     * @return The calculated color at the intersection point, considering local lighting effects and global effects up to the specified recursion level.
+     * @param scratch The scratch objects of the thread.
+     * @param hit     The completed hit record of the intersection.
+     * @param ray     The ray that intersected with the geometry at the intersection point.
+     * @param level   The current recursion level for handling transparency or reflection effects.
      */
-    private Color calcColor(GeoPoint gp, Ray ray, int level, Double3 k) {
-        Color color = calcLocalEffects(gp, ray, k);
-        return level == 1 ? color : color.add(calcGlobalEffects(gp, ray, level, k));
+    private void calcColor(Scratch scratch, HitRecord hit, Ray ray, int level) {
+        Color3 color = scratch.colors[level];
+        calcLocalEffects(scratch, hit, ray, scratch.ks[level], color);
+        if (level != 1)
+            color.add(calcGlobalEffects(scratch, hit, ray, level));
     }
 
     /**
-     * Constructs a reflected ray based on the intersection point and incoming ray.
+     * Moves a reusable ray to the reflected ray based on the intersection point and incoming ray.
      * The reflection ray moves in the direction opposite to the normal vector at the intersection point.
      *
-     * @param gp  The geometric point of intersection.
-     * @param v   The direction vector of the incoming ray.
-     * @param n   The normal vector at the intersection point.
-     * @return The reflected ray originating from the intersection point.
+     * @param scratch   The scratch objects of the thread.
+     * @param hit       The hit record of the intersection.
+     * @param ray       The incoming ray.
+     * @param reflected The reusable ray to move.
+     * @return The reflected ray originating from the intersection point, or null if the incoming ray is tangent to the surface.
      */
-    private Ray constructReflectedRay(GeoPoint gp, Vector v, Vector n) {
-        double nv = n.dotProduct(v);
+    private Ray constructReflectedRay(Scratch scratch, HitRecord hit, Ray ray, ScratchRay reflected) {
+        Vec3 n = hit.hitNormal;
+        Vec3 vec = direction(ray, scratch.direction);
+        double nv = n.dotProduct(vec);
         if (nv == 0) return null;
 
-        Vector vec = v.subtract(n.scale(2 * nv));
-        return new Ray(gp.point, vec, n);
+        return reflected.set(hit.hitPoint, vec.subtractScaled(n, 2 * nv).normalize(), n);
     }
 
     /**
-     * Constructs a refracted ray based on the intersection point and incoming ray.
+     * Moves a reusable ray to the refracted ray based on the intersection point and incoming ray.
      * The refraction ray is determined by Snell's law, considering the refractive indices of the materials involved.
      *
-     * @param gp  The geometric point of intersection.
-     * @param v   The direction vector of the incoming ray.
-     * @param n   The normal vector at the intersection point.
+     * @param scratch   The scratch objects of the thread.
+     * @param hit       The hit record of the intersection.
+     * @param ray       The incoming ray.
+     * @param refracted The reusable ray to move.
      * @return The refracted ray originating from the intersection point.
      */
-    private Ray constructRefractedRay(GeoPoint gp, Vector v, Vector n) {
-        return new Ray(gp.point, v, n);
+    private Ray constructRefractedRay(Scratch scratch, HitRecord hit, Ray ray, ScratchRay refracted) {
+        return refracted.set(hit.hitPoint, direction(ray, scratch.direction), hit.hitNormal);
+    }
+
+    /**
+     * Copies the direction of a ray, without creating its direction vector.
+     *
+     * @param ray The ray.
+     * @param v   Receives the direction of the ray.
+     * @return The direction.
+     */
+    private static Vec3 direction(Ray ray, Vec3 v) {
+        return v.set(ray.getDirectionX(), ray.getDirectionY(), ray.getDirectionZ());
     }
 
     /**
      * Calculates the combined global effects (such as reflection and refraction) at a given geometric point using recursive ray tracing.
+     * Both effects use the hit record, the ray and the colors of the level below.
      *
-     * @param gp     The geometric point at which to calculate global effects.
-     * @param ray    The view direction vector.
-     * @param level  The current recursion level for handling transparency or reflection effects.
-     * @param k      The accumulated coefficient (e.g., reflection coefficient kR or transparency coefficient kT).
-     * @return The calculated color representing combined global effects at the geometric point.
+     * @param scratch The scratch objects of the thread.
+     * @param hit     The completed hit record of the intersection.
+     * @param ray     The view direction vector.
+     * @param level   The current recursion level for handling transparency or reflection effects.
+     * @return The global effects accumulator of the level, holding the combined global effects at the geometric point.
      */
-    private Color calcGlobalEffects(GeoPoint gp, Ray ray, int level, Double3 k) {
-        Material material = gp.geometry.getMaterial();
-        Vector v = ray.getDirection();
-        Vector n = gp.geometry.getNormal(gp.point);
-        return calcGlobalEffect(constructRefractedRay(gp, v, n), material.kT, level, k)
-                .add(calcGlobalEffect(constructReflectedRay(gp, v, n), material.kR, level, k));
+    private Color3 calcGlobalEffects(Scratch scratch, HitRecord hit, Ray ray, int level) {
+        Material material = hit.geometry.getMaterial(hit.face);
+        ScratchRay next = scratch.rays[level - 1];
+        Color3 global = scratch.globals[level].set(0, 0, 0);
+        // The ray of this level is kept while the level below moves its own rays
+        calcGlobalEffect(scratch, constructRefractedRay(scratch, hit, ray, next), material.kT, level, global);
+        calcGlobalEffect(scratch, constructReflectedRay(scratch, hit, ray, next), material.kR, level, global);
+        return global;
     }
 
     /**
-     * Calculates the global effect (reflection or refraction) for a given ray and coefficient.
+     * Calculates the global effect (reflection or refraction) for a given ray and coefficient, and adds it to the global effects.
      *
-     * @param ray    The ray to trace for the global effect.
-     * @param kx     The coefficient for the specific effect being calculated (kR for reflection, kT for refraction).
-     * @param level  The current recursion level for handling transparency or reflection effects.
-     * @param k      The accumulated coefficient (e.g., reflection coefficient kR or transparency coefficient kT).
-     * @return The calculated color representing the global effect for the given ray and coefficient.
+     * @param scratch The scratch objects of the thread.
+     * @param ray     The ray to trace for the global effect, null for no contribution.
+     * @param kx      The coefficient for the specific effect being calculated (kR for reflection, kT for refraction).
+     * @param level   The current recursion level for handling transparency or reflection effects.
+     * @param global  The global effects accumulator to add the effect to.
      */
-    private Color calcGlobalEffect(Ray ray, Double3 kx, int level, Double3 k) {
-        Double3 kkx = k.product(kx);
-        if (kkx.lowerThan(MIN_CALC_COLOR_K))
-            return Color.BLACK; // Return no contribution if the combined coefficient is too small
+    private void calcGlobalEffect(Scratch scratch, Ray ray, Double3 kx, int level, Color3 global) {
+        Color3 kkx = scratch.ks[level - 1].set(scratch.ks[level]).scale(kx);
+        if (ray == null || kkx.lowerThan(MIN_CALC_COLOR_K))
+            return; // No contribution if the combined coefficient is too small
 
-        GeoPoint gp = findClosestIntersection(ray);
-        return gp == null ? scene.background // If no intersection found, return background color
-                // Recursively calculate color with scaled coefficient
-                : calcColor(gp, ray, level - 1, kkx).scale(kx);
+        // The record of the next level is free - the deeper levels use only lower ones
+        HitRecord hit = scratch.hits[level - 1].reset(Double.POSITIVE_INFINITY);
+        if (!scene.geometries.findClosestHitInPlace(ray, hit)) {
+            global.add(scene.background); // If no intersection found, add the background color
+            return;
+        }
+        // Recursively calculate color with scaled coefficient
+        calcColor(scratch, hit, ray, level - 1);
+        global.add(scratch.colors[level - 1].scale(kx));
     }
 
     /**
      * Finds the closest intersection point of a ray with the geometries in the scene.
+     * Uses the closest-hit query of the geometries, which culls everything beyond the best hit found so far.
      *
      * @param ray The ray for which to find the closest intersection.
      * @return The closest intersection point (GeoPoint) of the ray with the geometries, or null if no intersections are found.
      */
     public GeoPoint findClosestIntersection(Ray ray) {
-        return ray.findClosestGeoPoint(scene.geometries.findGeoIntersections(ray));
+        return scene.geometries.findClosestGeoIntersection(ray);
     }
 
     /**
      * Calculates the local effects (diffuse and specular reflections) of light on a given geometry point.
      * This method considers the contribution of each light source in the scene.
      *
-     * @param gp  The geometric point on which to calculate the local effects.
-     * @param ray The ray used to intersect with the geometry.
-     * @param k   The accumulated coefficient up to the current recursion level.
-     * @return The color resulting from local lighting effects, or the emission color if there is no interaction.
+     * @param scratch The scratch objects of the thread.
+     * @param hit     The completed hit record of the intersection.
+     * @param ray     The ray used to intersect with the geometry.
+     * @param k       The accumulated coefficient up to the current recursion level.
+     * @param color   Receives the color resulting from local lighting effects, or the emission color if there is no interaction.
      */
-    private Color calcLocalEffects(GeoPoint gp, Ray ray, Double3 k) {
-        Vector n = gp.geometry.getNormal(gp.point);
-        Vector v = ray.getDirection();
+    private void calcLocalEffects(Scratch scratch, HitRecord hit, Ray ray, Color3 k, Color3 color) {
+        Vec3 n = hit.hitNormal;
+        Vec3 v = direction(ray, scratch.view);
         double nv = alignZero(n.dotProduct(v));
-        Color color = gp.geometry.getEmission();
+        color.set(hit.geometry.getEmission());
         if (nv == 0)
-            return color;
+            return;
 
-        Material material = gp.geometry.getMaterial();
-        for (LightSource lightSource : scene.lights) {
-            Vector l = lightSource.getL(gp.point);
+        Material material = hit.geometry.getMaterial(hit.face);
+        Vec3 point = hit.hitPoint;
+        Vec3 l = scratch.l;
+        // By index - the iterator of a list is not always eliminated by the JIT
+        for (int i = 0; i < scene.lights.size(); ++i) {
+            LightSource lightSource = scene.lights.get(i);
+            lightSource.getL(point, l);
             double nl = alignZero(n.dotProduct(l));
             if (nl * nv > 0) {
-                Double3 ktr = transparency(gp, lightSource, l, n);
-                if (ktr.product(k).greaterThan(MIN_CALC_COLOR_K)) {
-                    Color iL = lightSource.getIntensity(gp.point).scale(ktr);
-                    color = color.add(iL.scale(calcDiffusive(material, nl).add(calcSpecular(material, n, l, nl, v))));
+                Double3 ktr = transparency(scratch, point, lightSource, l, n);
+                if (scratch.threshold.set(ktr).scale(k).greaterThan(MIN_CALC_COLOR_K)) {
+                    Color3 iL = scratch.light;
+                    lightSource.getIntensity(point, iL);
+                    Color3 coefficients = calcDiffusive(material, nl, scratch.coefficients);
+                    calcSpecular(material, n, l, nl, v, scratch.reflected, coefficients);
+                    color.add(iL.scale(ktr).scale(coefficients));
                 }
             }
         }
-        return color;
     }
 
     /**
      * Calculates the transparency coefficient for a given geometry point, light source, light direction vector, and normal vector.
+     * Uses the occlusion query of the geometries, which looks only up to the light source and stops at the first opaque hit.
      *
-     * @param gp  The geometric point at which to calculate transparency.
-     * @param ls  The light source affecting the geometric point.
-     * @param l   The direction vector from the light source to the geometric point.
-     * @param n   The normal vector at the geometric point.
+     * @param scratch The scratch objects of the thread.
+     * @param point   The point at which to calculate transparency.
+     * @param ls      The light source affecting the geometric point.
+     * @param l       The direction vector from the light source to the geometric point.
+     * @param n       The normal vector at the geometric point.
      * @return The transparency coefficient for the given geometry point and light source.
      */
-    private Double3 transparency(GeoPoint gp, LightSource ls, Vector l, Vector n) {
-        Vector lDir = l.scale(-1);
-        Ray lR = new Ray(gp.point, lDir, n);
-
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(lR);
-        if (intersections == null)
-            return Double3.ONE;
-
-        Double3 ktr = Double3.ONE;
-        double distanceToLight = ls.getDistance(gp.point);
-        for (GeoPoint intersectionPoint : intersections) {
-            if (alignZero(intersectionPoint.point.distance(gp.point) - distanceToLight) <= 0) {
-                ktr = ktr.product(intersectionPoint.geometry.getMaterial().kT);
-                if (ktr.equals(Double3.ZERO))
-                    break;
-            }
-        }
-        return ktr;
+    private Double3 transparency(Scratch scratch, Vec3 point, LightSource ls, Vec3 l, Vec3 n) {
+        Vec3 lDir = scratch.direction.set(l).scale(-1);
+        if (!isZero(lDir.dotProduct(lDir) - 1))
+            lDir.normalize(); // the direction of a light that is not a unit vector, as a new Ray would do
+        Ray lR = scratch.shadowRay.set(point, lDir, n);
+        return scene.geometries.findTransparency(lR, ls.getDistance(point));
     }
 
     /**
      * Calculates the diffuse reflection component based on the material properties and the cosine of the angle between the normal vector and the light direction vector.
      *
-     * @param material The material of the geometry.
-     * @param nl       The dot product of the normal vector and the light direction vector.
-     * @return The diffuse reflection color component.
+     * @param material     The material of the geometry.
+     * @param nl           The dot product of the normal vector and the light direction vector.
+     * @param coefficients Receives the diffuse reflection color component.
+     * @return The coefficients accumulator.
      */
-    private Double3 calcDiffusive(Material material, double nl) {
-        return material.kD.scale(abs(nl));
+    private Color3 calcDiffusive(Material material, double nl, Color3 coefficients) {
+        return coefficients.set(material.kD).scale(abs(nl));
     }
 
     /**
      * Calculates the specular reflection component based on the material properties, the normal vector, light direction vector, view direction vector, and the cosine of the angle between the view direction and the reflection direction.
      *
-     * @param material The material of the geometry.
-     * @param n        The normal vector at the geometric point.
-     * @param l        The direction vector from the point to the light source.
-     * @param nl       The dot product of the normal vector and the light direction vector.
-     * @param v        The view direction vector.
-     * @return The specular reflection color component.
-     */
-    private Double3 calcSpecular(Material material, Vector n, Vector l, double nl, Vector v) {
-        Vector reflectVector = l.subtract(n.scale(nl * 2));
-        double minusVR = -alignZero(v.dotProduct(reflectVector));
-        return minusVR <= 0 ? Double3.ZERO : material.kS.scale(pow(minusVR, material.shininess));
+     * @param material      The material of the geometry.
+     * @param n             The normal vector at the geometric point.
+     * @param l             The direction vector from the point to the light source.
+     * @param nl            The dot product of the normal vector and the light direction vector.
+     * @param v             The view direction vector.
+     * @param reflectVector Scratch vector for the reflection of the light direction.
+     * @param coefficients  The coefficients accumulator, to which the specular reflection color component is added.
+     */
+    private void calcSpecular(Material material, Vec3 n, Vec3 l, double nl, Vec3 v, Vec3 reflectVector,
+                              Color3 coefficients) {
+        reflectVector.set(l).subtractScaled(n, nl * 2);
+        double minusVR = -alignZero(reflectVector.dotProduct(v));
+        if (minusVR > 0)
+            coefficients.addScaled(material.kS, pow(minusVR, material.shininess));
     }
 }
@@ -0,0 +1,86 @@
+package renderer;
+
+import primitives.RandomStream;
+
+/**
+ * Sobol sampler with Owen scrambling. The first two Sobol dimensions form a (0,2)-sequence:
+ * for any power of 2 samples, every elementary interval of the unit square of that area
+ * contains exactly one sample. Owen scrambling randomly permutes the digits of every
+ * coordinate per pixel, which keeps this stratification while removing the structured
+ * artifacts of the plain sequence. It is implemented with the hash-based nested uniform
+ * scrambling of Laine and Karras, as refined by Burley.
+ * Higher pairs of dimensions reuse the two Sobol dimensions with a per-pixel shuffled
+ * sample order (padding), so they are not correlated with the first pair.
+ *
+ * @author Shay and Asaf
+ */
+public class SobolSampler implements Sampler {
+	/** Seed of the scrambling */
+	private final long seed;
+
+	/**
+	 * Constructs a Sobol sampler
+	 *
+	 * @param seed the seed of the scrambling
+	 */
+	public SobolSampler(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Constructs a Sobol sampler with a default seed
+	 */
+	public SobolSampler() {
+		this(0);
+	}
+
+	/**
+	 * Calculates one of the first two Sobol dimensions of a sample as 32 fixed point bits.
+	 *
+	 * @param index     the sample index
+	 * @param dimension 0 or 1
+	 * @return the bits of the coordinate
+	 */
+	static int sobol(int index, int dimension) {
+		if (dimension == 0)
+			return Integer.reverse(index);
+		int result = 0;
+		for (int v = 0x80000000; index != 0; index >>>= 1, v ^= v >>> 1)
+			if ((index & 1) != 0)
+				result ^= v;
+		return result;
+	}
+
+	/**
+	 * Owen scrambles 32 fixed point bits: each bit is flipped depending on the bits above it.
+	 *
+	 * @param x    the bits
+	 * @param seed the scrambling seed
+	 * @return the scrambled bits
+	 */
+	static int owenScramble(int x, int seed) {
+		// The Laine-Karras permutation scrambles each bit depending on the lower ones
+		x = Integer.reverse(x);
+		x += seed;
+		x ^= x * 0x6c50b47c;
+		x ^= x * 0xb82f1e52;
+		x ^= x * 0xc7afe638;
+		x ^= x * 0x8d22f6e6;
+		return Integer.reverse(x);
+	}
+
+	@Override
+	public double sample(int pixel, int index, int count, int dimension) {
+		long pixelSeed = RandomStream.hash(seed, pixel);
+		int pair = dimension / 2;
+		if (pair > 0)
+			index = owenScramble(index, (int) RandomStream.hash(pixelSeed, -pair));
+		int bits = owenScramble(sobol(index, dimension % 2), (int) RandomStream.hash(pixelSeed, dimension));
+		return (bits & 0xFFFFFFFFL) * 0x1.0p-32;
+	}
+
+	@Override
+	public boolean isProgressive() {
+		return true;
+	}
+}
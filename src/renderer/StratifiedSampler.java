@@ -0,0 +1,48 @@
+package renderer;
+
+import primitives.RandomStream;
+
+/**
+ * Stratified (jittered) sampler: the unit square is divided into a grid of cells as by
+ * {@link GridSampler}, and every sample is placed at a random position inside its own
+ * cell. The samples keep the even coverage of the grid without its aliasing patterns.
+ * Higher pairs of dimensions visit the cells in a different, per-pixel rotated order,
+ * so they are not correlated with the first pair.
+ * Like the grid, the cells are visited row by row, so the sampler is not progressive.
+ *
+ * @author Shay and Asaf
+ */
+public class StratifiedSampler implements Sampler {
+	/** Seed of the jitter, different seeds give different patterns */
+	private final long seed;
+
+	/**
+	 * Constructs a stratified sampler
+	 *
+	 * @param seed the seed of the jitter
+	 */
+	public StratifiedSampler(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Constructs a stratified sampler with a default seed
+	 */
+	public StratifiedSampler() {
+		this(0);
+	}
+
+	@Override
+	public double sample(int pixel, int index, int count, int dimension) {
+		int columns = (int) Math.ceil(Math.sqrt(count));
+		int pair = dimension / 2;
+		long pixelSeed = RandomStream.hash(seed, pixel);
+		if (pair > 0)
+			index = (int) ((index + Long.remainderUnsigned(RandomStream.hash(pixelSeed, pair), count)) % count);
+		double jitter = RandomStream.toUnit(RandomStream.hash(RandomStream.hash(pixelSeed, index), dimension));
+		if (dimension % 2 == 0)
+			return (index % columns + jitter) / columns;
+		int rows = (count + columns - 1) / columns;
+		return (index / columns + jitter) / rows;
+	}
+}
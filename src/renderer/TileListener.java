@@ -0,0 +1,24 @@
+package renderer;
+
+/**
+ * Listener notified by an asynchronous rendering whenever a tile of the image is
+ * completed, for streaming the partial results. The notifications come from the
+ * rendering threads, in no particular order, so the listener must be thread safe
+ * and should return quickly.
+ *
+ * @author Shay and Asaf
+ */
+@FunctionalInterface
+public interface TileListener {
+	/**
+	 * Called after all the pixels of a tile were written to the image writer.
+	 * A rendering in several passes (such as edge detection) notifies every tile
+	 * once in each pass.
+	 *
+	 * @param column the column index of the top left pixel of the tile
+	 * @param row    the row index of the top left pixel of the tile
+	 * @param width  the width of the tile in pixels
+	 * @param height the height of the tile in pixels
+	 */
+	void tileCompleted(int column, int row, int width, int height);
+}
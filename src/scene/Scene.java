@@ -5,7 +5,7 @@ import lighting.AmbientLight;
 import geometries.Geometries;
 import lighting.LightSource;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -28,8 +28,8 @@ public class Scene {
 	/** The geometries in the scene */
 	public Geometries geometries = new Geometries();
 
-	/** The lights in the scene */
-	public List<LightSource> lights = new LinkedList<>();
+	/** The lights in the scene, best in a random access list, which the renderer walks by index */
+	public List<LightSource> lights = new ArrayList<>();
 
 	/**
 	 * Constructs a Scene object with the given name.
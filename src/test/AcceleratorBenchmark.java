@@ -0,0 +1,93 @@
+package test;
+
+import geometries.*;
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark program comparing the acceleration structures against a flat {@link Geometries}
+ * on a particle-style scene: an even field of similarly sized spheres.
+ * Every structure traces the same set of random rays looking for the closest intersection.
+ * <p>
+ * Usage: {@code AcceleratorBenchmark [sphere count] [ray count]}
+ *
+ * @author Shay and Asaf
+ */
+public final class AcceleratorBenchmark {
+
+	/** Don't let anyone instantiate this class. */
+	private AcceleratorBenchmark() {
+	}
+
+	/**
+	 * Runs the benchmark
+	 *
+	 * @param args optional sphere count and ray count
+	 */
+	public static void main(String[] args) {
+		int sphereCount = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+		int rayCount = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+
+		Random random = new Random(42);
+		double side = Math.cbrt(sphereCount) * 10;
+		List<Intersectable> spheres = new ArrayList<>(sphereCount);
+		for (int i = 0; i < sphereCount; ++i)
+			spheres.add(new Sphere(new Point(random.nextDouble() * side, random.nextDouble() * side,
+					random.nextDouble() * side), 1 + random.nextDouble()));
+
+		List<Ray> rays = new ArrayList<>(rayCount);
+		Point eye = new Point(side / 2, side / 2, side * 2);
+		for (int i = 0; i < rayCount; ++i)
+			rays.add(new Ray(eye, new Point(random.nextDouble() * side, random.nextDouble() * side, 0).subtract(eye)));
+
+		long start = System.nanoTime();
+		Geometries flat = new Geometries(spheres.toArray(new Intersectable[0]));
+		report("flat geometries", start, 0);
+		start = System.nanoTime();
+		UniformGrid grid = new UniformGrid(spheres);
+		report("uniform grid", start, 0);
+		start = System.nanoTime();
+		BoundingVolumeHierarchy bvh = new BoundingVolumeHierarchy(spheres);
+		report("bvh", start, 0);
+
+		System.out.println(sphereCount + " spheres, " + rayCount + " rays");
+		int hits = 0;
+		start = System.nanoTime();
+		for (Ray ray : rays)
+			if (ray.findClosestGeoPoint(flat.findGeoIntersections(ray)) != null) ++hits;
+		report("flat list+scan", start, hits);
+
+		hits = 0;
+		start = System.nanoTime();
+		for (Ray ray : rays)
+			if (flat.findClosestGeoIntersection(ray) != null) ++hits;
+		report("flat geometries", start, hits);
+
+		hits = 0;
+		start = System.nanoTime();
+		for (Ray ray : rays)
+			if (grid.findClosestGeoIntersection(ray) != null) ++hits;
+		report("uniform grid", start, hits);
+
+		hits = 0;
+		start = System.nanoTime();
+		for (Ray ray : rays)
+			if (bvh.findClosestGeoIntersection(ray) != null) ++hits;
+		report("bvh", start, hits);
+	}
+
+	/**
+	 * Prints the time elapsed since the start of a measurement.
+	 *
+	 * @param name  name of the measurement
+	 * @param start start time in nanoseconds
+	 * @param hits  number of rays that hit something, or 0 for a build measurement
+	 */
+	private static void report(String name, long start, int hits) {
+		double ms = (System.nanoTime() - start) / 1e6;
+		System.out.printf("%-16s %10.1f ms%s%n", name, ms, hits == 0 ? " (build)" : ", " + hits + " hits");
+	}
+}
@@ -0,0 +1,87 @@
+package test;
+
+import geometries.*;
+import lighting.AmbientLight;
+import lighting.PointLight;
+import lighting.SpotLight;
+import primitives.*;
+import renderer.*;
+import scene.Scene;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Benchmark program measuring the memory allocated by the rendering, per camera ray.
+ * The camera renders in the calling thread, so the bytes allocated by the thread during
+ * a frame are all of the rendering; they are divided by the number of pixels, so every
+ * camera ray is charged with its reflections, refractions and shadow rays. The scene
+ * mixes spheres, triangles and polygons with reflective and transparent materials under
+ * two lights. The median frame time and bytes per ray are reported.
+ * <p>
+ * Usage: {@code AllocationBenchmark [frames] [resolution]}
+ *
+ * @author Shay and Asaf
+ */
+public final class AllocationBenchmark {
+
+	/** Don't let anyone instantiate this class. */
+	private AllocationBenchmark() {
+	}
+
+	/**
+	 * Runs the benchmark
+	 *
+	 * @param args optional frames count and image resolution
+	 */
+	public static void main(String[] args) {
+		int frames = args.length > 0 ? Integer.parseInt(args[0]) : 7;
+		int resolution = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+
+		Scene scene = new Scene("Benchmark").setAmbientLight(new AmbientLight(new Color(255, 255, 255), 0.1));
+		Random random = new Random(42);
+		for (int i = 0; i < 150; ++i) {
+			Point center = new Point(random.nextDouble() * 200 - 100, random.nextDouble() * 100 - 50,
+					-random.nextDouble() * 200);
+			Material material = new Material().setKD(0.4).setKS(0.3).setShininess(50).setKR(i % 3 == 0 ? 0.5 : 0)
+					.setKT(i % 3 == 1 ? 0.5 : 0);
+			Color emission = new Color(random.nextInt(100), random.nextInt(100), random.nextInt(100));
+			Geometry geometry = switch (i % 3) {
+				case 0 -> new Sphere(center, 3 + random.nextDouble() * 5);
+				case 1 -> new Triangle(center, center.add(new Vector(8, 1, 0.5)), center.add(new Vector(2, 9, -0.5)));
+				default -> new Polygon(center, center.add(new Vector(8, 0, 0)), center.add(new Vector(10, 6, 0)),
+						center.add(new Vector(4, 9, 0)), center.add(new Vector(-2, 5, 0)));
+			};
+			scene.geometries.add(geometry.setEmission(emission).setMaterial(material));
+		}
+		scene.geometries.add(new Plane(new Point(0, -60, 0), new Vector(0, 1, 0))
+				.setMaterial(new Material().setKD(0.5).setKR(0.3)));
+		scene.geometries.buildBVH();
+		scene.lights.add(new PointLight(new Color(600, 600, 600), new Point(0, 100, 100)).setKL(1e-4).setKQ(1e-6));
+		scene.lights.add(new SpotLight(new Color(400, 300, 300), new Point(-100, 50, 50), new Vector(1, -0.5, -1))
+				.setKL(1e-4).setKQ(1e-6));
+
+		Camera camera = Camera.getBuilder().setRayTracer(new SimpleRayTracer(scene))
+				.setImageWriter(new ImageWriter("benchmark", resolution, resolution))
+				.setLocation(new Point(0, 0, 300)).setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+				.setVpDistance(300).setVpSize(250, 250).build();
+		for (int f = 0; f < frames; ++f) // warm up until the JIT has compiled the whole rendering
+			camera.renderImage();
+
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().threadId();
+		double[] times = new double[frames], bytes = new double[frames];
+		for (int f = 0; f < frames; ++f) {
+			long allocated = threads.getThreadAllocatedBytes(thread);
+			long start = System.nanoTime();
+			camera.renderImage();
+			times[f] = (System.nanoTime() - start) / 1e6;
+			bytes[f] = (double) (threads.getThreadAllocatedBytes(thread) - allocated) / resolution / resolution;
+		}
+		Arrays.sort(times);
+		Arrays.sort(bytes);
+		System.out.printf("%d frames of %dx%d: median %.1f ms, %.0f bytes per camera ray%n", frames, resolution,
+				resolution, times[frames / 2], bytes[frames / 2]);
+	}
+}
@@ -0,0 +1,155 @@
+package test;
+
+import geometries.*;
+import primitives.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark program comparing the batch intersection kernels: the scalar kernel and the
+ * vector kernel of every lane width. Every kernel intersects the same random rays with
+ * batches of random spheres and triangles, and the median time per ray-primitive test is
+ * reported against the scalar kernel.
+ * The width of the vector kernel is fixed for a whole program, so the benchmark runs
+ * itself again for every width, unless the width is already given by the system property
+ * {@code geometries.vector.bits}. The vector kernel is available only when the program
+ * runs with {@code --add-modules jdk.incubator.vector}.
+ * <p>
+ * Usage: {@code KernelBenchmark [batch size] [rays count] [rounds]}
+ *
+ * @author Shay and Asaf
+ */
+public final class KernelBenchmark {
+	/** Vector widths in bits */
+	private static final int[] WIDTHS = { 128, 256, 512 };
+	/** Number of measured repetitions of every kernel, after as many for warming up */
+	private static final int REPETITIONS = 9;
+
+	/** Don't let anyone instantiate this class. */
+	private KernelBenchmark() {
+	}
+
+	/**
+	 * Runs the benchmark
+	 *
+	 * @param args optional batch size, rays count and rounds over the rays per repetition
+	 * @throws IOException          if a run for a width cannot start
+	 * @throws InterruptedException if interrupted while waiting for a run for a width
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (System.getProperty("geometries.vector.bits") == null) {
+			try {
+				IntersectionKernel.vector();
+			} catch (UnsupportedOperationException e) {
+				System.out.println("Vector API is not available, run with --add-modules jdk.incubator.vector");
+				run(args);
+				return;
+			}
+			for (int bits : WIDTHS) {
+				List<String> command = new ArrayList<>(List.of(ProcessHandle.current().info().command().orElse("java"),
+						"--add-modules", "jdk.incubator.vector", "-Dgeometries.vector.bits=" + bits, "-cp",
+						System.getProperty("java.class.path"), KernelBenchmark.class.getName()));
+				command.addAll(List.of(args));
+				new ProcessBuilder(command).inheritIO().start().waitFor();
+			}
+			return;
+		}
+		run(args);
+	}
+
+	/**
+	 * Measures the kernels available in this program.
+	 *
+	 * @param args optional batch size, rays count and rounds over the rays per repetition
+	 */
+	private static void run(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+		int count = args.length > 1 ? Integer.parseInt(args[1]) : 1024;
+		int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+		Random random = new Random(42);
+		List<Sphere> spheres = new ArrayList<>();
+		List<Triangle> triangles = new ArrayList<>();
+		for (int i = 0; i < size; ++i) {
+			Point center = randomPoint(random, 20);
+			spheres.add(new Sphere(center, 0.5 + random.nextDouble()));
+			triangles.add(new Triangle(center, center.add(new Vector(random.nextDouble() + 0.5, random.nextDouble(), 0.1)),
+					center.add(new Vector(random.nextDouble(), random.nextDouble() + 0.5, -0.1))));
+		}
+		SphereBatch sphereBatch = new SphereBatch(spheres);
+		TriangleBatch triangleBatch = new TriangleBatch(triangles);
+		double[] rays = new double[count * 6];
+		for (int i = 0; i < count; ++i) {
+			Point head = randomPoint(random, 60);
+			Vector direction = randomPoint(random, 20).subtract(head).normalize();
+			rays[i * 6] = head.getX();
+			rays[i * 6 + 1] = head.getY();
+			rays[i * 6 + 2] = head.getZ();
+			rays[i * 6 + 3] = direction.getX();
+			rays[i * 6 + 4] = direction.getY();
+			rays[i * 6 + 5] = direction.getZ();
+		}
+
+		List<IntersectionKernel> kernels = new ArrayList<>();
+		kernels.add(IntersectionKernel.scalar());
+		if (IntersectionKernel.getDefault() != IntersectionKernel.scalar())
+			kernels.add(IntersectionKernel.getDefault());
+
+		System.out.println(count + " rays x " + size + " primitives, " + rounds + " rounds");
+		double[] distances = new double[Math.max(sphereBatch.paddedSize(), triangleBatch.paddedSize())];
+		double sphereScalar = 0, triangleScalar = 0;
+		for (IntersectionKernel kernel : kernels) {
+			double[] sphereTimes = new double[REPETITIONS], triangleTimes = new double[REPETITIONS];
+			long hits = 0;
+			for (int r = -REPETITIONS; r < REPETITIONS; ++r) {
+				long start = System.nanoTime();
+				for (int round = 0; round < rounds; ++round)
+					for (int i = 0; i < rays.length; i += 6) {
+						kernel.intersect(sphereBatch, rays[i], rays[i + 1], rays[i + 2], rays[i + 3], rays[i + 4],
+								rays[i + 5], Double.POSITIVE_INFINITY, distances, 0);
+						if (!Double.isNaN(distances[i / 6 % size]))
+							++hits;
+					}
+				long middle = System.nanoTime();
+				for (int round = 0; round < rounds; ++round)
+					for (int i = 0; i < rays.length; i += 6) {
+						kernel.intersect(triangleBatch, rays[i], rays[i + 1], rays[i + 2], rays[i + 3], rays[i + 4],
+								rays[i + 5], Double.POSITIVE_INFINITY, distances, 0);
+						if (!Double.isNaN(distances[i / 6 % size]))
+							++hits;
+					}
+				long end = System.nanoTime();
+				if (r >= 0) { // the first repetitions warm up the kernel
+					double tests = (double) rounds * count * size;
+					sphereTimes[r] = (middle - start) / tests;
+					triangleTimes[r] = (end - middle) / tests;
+				}
+			}
+			Arrays.sort(sphereTimes);
+			Arrays.sort(triangleTimes);
+			double sphere = sphereTimes[REPETITIONS / 2], triangle = triangleTimes[REPETITIONS / 2];
+			if (sphereScalar == 0) {
+				sphereScalar = sphere;
+				triangleScalar = triangle;
+			}
+			System.out.printf("%-10s %2d lanes: spheres %6.2f ns/test (x%.2f), triangles %6.2f ns/test (x%.2f), %d hits%n",
+					kernel, kernel.lanes(), sphere, sphereScalar / sphere, triangle, triangleScalar / triangle, hits);
+		}
+	}
+
+	/**
+	 * Creates a random point in a cube around the origin.
+	 *
+	 * @param random the random generator
+	 * @param size   the edge length of the cube
+	 * @return the point
+	 */
+	private static Point randomPoint(Random random, double size) {
+		return new Point((random.nextDouble() - 0.5) * size, (random.nextDouble() - 0.5) * size,
+				(random.nextDouble() - 0.5) * size);
+	}
+}
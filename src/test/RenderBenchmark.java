@@ -0,0 +1,87 @@
+package test;
+
+import geometries.*;
+import lighting.AmbientLight;
+import lighting.PointLight;
+import primitives.*;
+import renderer.*;
+import scene.Scene;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Benchmark program comparing the threading modes of the camera on the same scene:
+ * a fork-join pool of platform threads against a virtual thread per tile.
+ * Every mode renders the same number of frames; the throughput and the median and
+ * tail frame times are reported. The scene mixes cheap background pixels with
+ * reflective and transparent spheres, so tile costs are uneven.
+ * <p>
+ * Usage: {@code RenderBenchmark [threads] [frames] [resolution] [tile size]}
+ *
+ * @author Shay and Asaf
+ */
+public final class RenderBenchmark {
+
+	/** Don't let anyone instantiate this class. */
+	private RenderBenchmark() {
+	}
+
+	/**
+	 * Runs the benchmark
+	 *
+	 * @param args optional threads count, frames count, image resolution and tile size
+	 */
+	public static void main(String[] args) {
+		int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		int frames = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		int resolution = args.length > 2 ? Integer.parseInt(args[2]) : 400;
+		int tileSize = args.length > 3 ? Integer.parseInt(args[3]) : 16;
+
+		Scene scene = new Scene("Benchmark").setAmbientLight(new AmbientLight(new Color(255, 255, 255), 0.1));
+		Random random = new Random(42);
+		for (int i = 0; i < 200; ++i)
+			scene.geometries.add(new Sphere(new Point(random.nextDouble() * 200 - 100, random.nextDouble() * 100 - 50,
+					-random.nextDouble() * 200), 3 + random.nextDouble() * 5)
+					.setEmission(new Color(random.nextInt(100), random.nextInt(100), random.nextInt(100)))
+					.setMaterial(new Material().setKD(0.4).setKS(0.3).setShininess(50)
+							.setKR(i % 3 == 0 ? 0.6 : 0).setKT(i % 3 == 1 ? 0.5 : 0)));
+		scene.geometries.add(new Plane(new Point(0, -60, 0), new Vector(0, 1, 0))
+				.setMaterial(new Material().setKD(0.5).setKR(0.3)));
+		scene.geometries.buildBVH();
+		scene.lights.add(new PointLight(new Color(800, 800, 800), new Point(0, 100, 100)).setKL(1e-4).setKQ(1e-6));
+
+		System.out.println(threads + " threads, " + frames + " frames of " + resolution + "x" + resolution
+				+ ", tiles of " + tileSize);
+		for (Camera.ThreadingMode mode : Camera.ThreadingMode.values()) {
+			Camera camera = Camera.getBuilder().setRayTracer(new SimpleRayTracer(scene))
+					.setImageWriter(new ImageWriter("benchmark", resolution, resolution))
+					.setLocation(new Point(0, 0, 300)).setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+					.setVpDistance(300).setVpSize(250, 250).setMultithreading(threads).setTileSize(tileSize)
+					.setThreadingMode(mode).build();
+			camera.renderImage(); // warm up
+
+			double[] times = new double[frames];
+			for (int f = 0; f < frames; ++f) {
+				long start = System.nanoTime();
+				camera.renderImage();
+				times[f] = (System.nanoTime() - start) / 1e6;
+			}
+			report(mode.name(), times);
+		}
+	}
+
+	/**
+	 * Prints the throughput and the frame time distribution of a mode.
+	 *
+	 * @param name  name of the mode
+	 * @param times frame times in milliseconds
+	 */
+	private static void report(String name, double[] times) {
+		Arrays.sort(times);
+		double total = Arrays.stream(times).sum();
+		System.out.printf("%-16s %6.2f frames/s, median %8.1f ms, p95 %8.1f ms, max %8.1f ms%n", name,
+				times.length * 1000 / total, times[times.length / 2], times[(int) Math.ceil(times.length * 0.95) - 1],
+				times[times.length - 1]);
+	}
+}
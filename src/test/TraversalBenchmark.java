@@ -0,0 +1,97 @@
+package test;
+
+import geometries.*;
+import lighting.AmbientLight;
+import lighting.DirectionalLight;
+import primitives.*;
+import renderer.*;
+import scene.Scene;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Benchmark program comparing the traversal orders of the camera on a large scene:
+ * a BVH over a dense field of small triangles and spheres, far bigger than the CPU
+ * caches, so the rendering speed depends on how much consecutive rays share the nodes
+ * and the geometries they visit. Every combination of tile and pixel order renders the
+ * same frames; the throughput in primary rays per second and the median frame time are
+ * reported against the raster order.
+ * <p>
+ * Usage: {@code TraversalBenchmark [threads] [frames] [resolution] [geometries count] [tile size]}
+ *
+ * @author Shay and Asaf
+ */
+public final class TraversalBenchmark {
+
+	/** Don't let anyone instantiate this class. */
+	private TraversalBenchmark() {
+	}
+
+	/**
+	 * Runs the benchmark
+	 *
+	 * @param args optional threads count, frames count, image resolution, geometries count
+	 *             and tile size
+	 */
+	public static void main(String[] args) {
+		int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		int frames = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		int resolution = args.length > 2 ? Integer.parseInt(args[2]) : 600;
+		int count = args.length > 3 ? Integer.parseInt(args[3]) : 200000;
+		int tileSize = args.length > 4 ? Integer.parseInt(args[4]) : 32;
+
+		Scene scene = new Scene("Benchmark").setAmbientLight(new AmbientLight(new Color(255, 255, 255), 0.1));
+		Random random = new Random(42);
+		for (int i = 0; i < count; ++i) {
+			Point center = new Point(random.nextDouble() * 200 - 100, random.nextDouble() * 200 - 100,
+					-random.nextDouble() * 200);
+			Material material = new Material().setKD(0.6).setKS(0.2).setShininess(20);
+			Color emission = new Color(random.nextInt(100), random.nextInt(100), random.nextInt(100));
+			if (i % 2 == 0)
+				scene.geometries.add(new Sphere(center, 0.3 + random.nextDouble() * 0.5).setEmission(emission)
+						.setMaterial(material));
+			else
+				scene.geometries.add(new Triangle(center,
+						center.add(new Vector(random.nextDouble() + 0.5, random.nextDouble(), 0.1)),
+						center.add(new Vector(random.nextDouble(), random.nextDouble() + 0.5, -0.1)))
+						.setEmission(emission).setMaterial(material));
+		}
+		scene.geometries.buildBVH();
+		scene.lights.add(new DirectionalLight(new Color(400, 400, 400), new Vector(-1, -1, -1)));
+
+		System.out.println(threads + " threads, " + frames + " frames of " + resolution + "x" + resolution + ", "
+				+ count + " geometries, tiles of " + tileSize);
+		Camera.TraversalOrder[][] orders = { //
+				{ Camera.TraversalOrder.RASTER, Camera.TraversalOrder.RASTER },
+				{ Camera.TraversalOrder.MORTON, Camera.TraversalOrder.RASTER },
+				{ Camera.TraversalOrder.HILBERT, Camera.TraversalOrder.RASTER },
+				{ Camera.TraversalOrder.MORTON, Camera.TraversalOrder.MORTON },
+				{ Camera.TraversalOrder.HILBERT, Camera.TraversalOrder.HILBERT } };
+		Camera[] cameras = new Camera[orders.length];
+		for (int k = 0; k < orders.length; ++k) {
+			cameras[k] = Camera.getBuilder().setRayTracer(new SimpleRayTracer(scene))
+					.setImageWriter(new ImageWriter("benchmark", resolution, resolution))
+					.setLocation(new Point(0, 0, 300)).setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+					.setVpDistance(300).setVpSize(250, 250).setMultithreading(threads).setTileSize(tileSize)
+					.setTileOrder(orders[k][0]).setPixelOrder(orders[k][1]).build();
+			cameras[k].renderImage(); // warm up all the orders before measuring any of them
+		}
+
+		double rasterRate = 0;
+		for (int k = 0; k < orders.length; ++k) {
+			double[] times = new double[frames];
+			for (int f = 0; f < frames; ++f) {
+				long start = System.nanoTime();
+				cameras[k].renderImage();
+				times[f] = (System.nanoTime() - start) / 1e6;
+			}
+			Arrays.sort(times);
+			double rate = (double) resolution * resolution * frames / Arrays.stream(times).sum() * 1000;
+			if (rasterRate == 0)
+				rasterRate = rate;
+			System.out.printf("tiles %-8s pixels %-8s %10.0f rays/s (x%.2f), median %8.1f ms%n", orders[k][0],
+					orders[k][1], rate, rate / rasterRate, times[frames / 2]);
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package test;
+
+import geometries.*;
+import primitives.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark program comparing the ray-triangle test of {@link Triangle}, which runs the
+ * Möller–Trumbore algorithm on the vertex and edges kept at construction, against the
+ * previous test: intersecting the plane of the triangle through a list of points, and
+ * then checking the hit point by its barycentric coordinates calculated from scratch.
+ * Both tests intersect the same random rays with the same random triangles; the median
+ * time and the bytes allocated per ray-triangle test are reported, and the hits of the
+ * two tests are counted to check that they agree.
+ * <p>
+ * Usage: {@code TriangleBenchmark [triangles count] [rays count] [rounds]}
+ *
+ * @author Shay and Asaf
+ */
+public final class TriangleBenchmark {
+	/** Number of measured repetitions of every test, after as many for warming up */
+	private static final int REPETITIONS = 9;
+
+	/** Don't let anyone instantiate this class. */
+	private TriangleBenchmark() {
+	}
+
+	/**
+	 * The previous ray-triangle test, kept for the comparison.
+	 *
+	 * @param a     the first vertex of the triangle
+	 * @param b     the second vertex of the triangle
+	 * @param c     the third vertex of the triangle
+	 * @param plane the plane of the triangle
+	 * @param ray   the ray
+	 * @return true if the ray hits the triangle (excluding the boundaries)
+	 */
+	private static boolean previousIntersects(Point a, Point b, Point c, Plane plane, Ray ray) {
+		List<Point> points = plane.findIntersections(ray);
+		if (points == null)
+			return false;
+		Point p = points.getFirst();
+		if (p.equals(a) || p.equals(b) || p.equals(c))
+			return false;
+
+		Vector ab = b.subtract(a), ac = c.subtract(a), ap = p.subtract(a);
+		double dot00 = ac.dotProduct(ac);
+		double dot01 = ac.dotProduct(ab);
+		double dot02 = ac.dotProduct(ap);
+		double dot11 = ab.dotProduct(ab);
+		double dot12 = ab.dotProduct(ap);
+		double invDenom = 1 / (dot00 * dot11 - dot01 * dot01);
+		double u = (dot11 * dot02 - dot01 * dot12) * invDenom;
+		double v = (dot00 * dot12 - dot01 * dot02) * invDenom;
+		return !Util.isZero(u) && u > 0 && !Util.isZero(v) && v > 0 && !Util.isZero(u + v - 1) && u + v < 1;
+	}
+
+	/**
+	 * Runs the benchmark
+	 *
+	 * @param args optional triangles count, rays count and rounds over the rays per repetition
+	 */
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+		int count = args.length > 1 ? Integer.parseInt(args[1]) : 1024;
+		int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+		Random random = new Random(42);
+		Point[][] vertices = new Point[size][];
+		Plane[] planes = new Plane[size];
+		Triangle[] triangles = new Triangle[size];
+		for (int i = 0; i < size; ++i) {
+			Point a = randomPoint(random, 20);
+			Point b = a.add(new Vector(random.nextDouble() + 0.5, random.nextDouble(), 0.1));
+			Point c = a.add(new Vector(random.nextDouble(), random.nextDouble() + 0.5, -0.1));
+			vertices[i] = new Point[] { a, b, c };
+			planes[i] = new Plane(a, b, c);
+			triangles[i] = new Triangle(a, b, c);
+		}
+		List<Ray> rays = new ArrayList<>(count);
+		for (int i = 0; i < count; ++i) {
+			Point head = randomPoint(random, 60);
+			rays.add(new Ray(head, randomPoint(random, 20).subtract(head)));
+		}
+
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().threadId();
+		double tests = (double) rounds * count * size;
+		System.out.println(count + " rays x " + size + " triangles, " + rounds + " rounds");
+		double previousTime = 0;
+		for (int test = 0; test < 2; ++test) {
+			double[] times = new double[REPETITIONS];
+			long hits = 0, bytes = 0;
+			HitRecord hit = new HitRecord();
+			for (int r = -REPETITIONS; r < REPETITIONS; ++r) {
+				hits = 0;
+				long allocated = threads.getThreadAllocatedBytes(thread);
+				long start = System.nanoTime();
+				for (int round = 0; round < rounds; ++round)
+					for (Ray ray : rays)
+						for (int i = 0; i < size; ++i)
+							if (test == 0 ? previousIntersects(vertices[i][0], vertices[i][1], vertices[i][2], planes[i], ray)
+									: triangles[i].findClosestHit(ray, hit.reset(Double.POSITIVE_INFINITY)))
+								++hits;
+				long end = System.nanoTime();
+				if (r >= 0) { // the first repetitions warm up the test
+					times[r] = (end - start) / tests;
+					bytes = threads.getThreadAllocatedBytes(thread) - allocated;
+				}
+			}
+			Arrays.sort(times);
+			double time = times[REPETITIONS / 2];
+			if (previousTime == 0)
+				previousTime = time;
+			System.out.printf("%-9s %6.2f ns/test (x%.2f), %6.1f bytes/test, %d hits%n",
+					test == 0 ? "previous" : "triangle", time, previousTime / time, bytes / tests, hits);
+		}
+	}
+
+	/**
+	 * Creates a random point in a cube around the origin.
+	 *
+	 * @param random the random generator
+	 * @param size   the edge length of the cube
+	 * @return the point
+	 */
+	private static Point randomPoint(Random random, double size) {
+		return new Point((random.nextDouble() - 0.5) * size, (random.nextDouble() - 0.5) * size,
+				(random.nextDouble() - 0.5) * size);
+	}
+}
@@ -0,0 +1,186 @@
+package unittests.geometries;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import geometries.*;
+import primitives.*;
+
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Testing {@link BoundingVolumeHierarchy} Class
+ *
+ * @author Shay and Asaf
+ */
+class BoundingVolumeHierarchyTests {
+
+	/**
+	 * Creates a grid of spheres and triangles for the tests.
+	 *
+	 * @return list of the shapes
+	 */
+	private List<Intersectable> shapes() {
+		List<Intersectable> shapes = new LinkedList<>();
+		for (int i = 0; i < 10; ++i) {
+			for (int j = 0; j < 10; ++j) {
+				if ((i + j) % 2 == 0)
+					shapes.add(new Sphere(new Point(i * 10, j * 10, -50), 3));
+				else
+					shapes.add(new Triangle(new Point(i * 10 - 4, j * 10 - 4, -40),
+							new Point(i * 10 + 4, j * 10 - 4, -40), new Point(i * 10, j * 10 + 4, -40)));
+			}
+		}
+		return shapes;
+	}
+
+	/**
+	 * Sorts the intersection points by their distance from the ray head.
+	 *
+	 * @param ray    the ray
+	 * @param points the points (may be null)
+	 * @return the sorted points, or null
+	 */
+	private List<Point> sorted(Ray ray, List<Point> points) {
+		return points == null ? null
+				: points.stream().sorted(Comparator.comparingDouble(p -> p.distance(ray.getHead()))).toList();
+	}
+
+	/**
+	 * Test method for {@link BoundingVolumeHierarchy#findIntersections(Ray)}.
+	 */
+	@Test
+	void testFindIntersections() {
+		List<Intersectable> shapes = shapes();
+		Plane floor = new Plane(new Point(0, 0, -100), new Vector(0, 0, 1));
+		shapes.add(floor);
+		Geometries flat = new Geometries(shapes.toArray(new Intersectable[0]));
+		BoundingVolumeHierarchy bvh = new BoundingVolumeHierarchy(shapes);
+
+		// ============ Equivalence Partitions Tests ==============
+
+		// TC01: The hierarchy finds exactly the same intersections as the flat collection
+		for (int i = -2; i < 12; ++i) {
+			for (int j = -2; j < 12; ++j) {
+				Ray ray = new Ray(new Point(45, 45, 100), new Vector(i * 10 - 45 + 0.3, j * 10 - 45 + 0.7, -150));
+				assertEquals(sorted(ray, flat.findIntersections(ray)), sorted(ray, bvh.findIntersections(ray)),
+						"Wrong intersections for " + ray);
+			}
+		}
+
+		// TC02: The maximum distance is respected
+		Ray ray = new Ray(new Point(0, 0, 100), new Vector(0, 0, -1));
+		assertEquals(2, bvh.findIntersections(ray, 155).size(), "Wrong number of intersections before max distance");
+
+		// TC03: The unbounded plane is found by a ray missing all the bounded shapes
+		Ray outside = new Ray(new Point(500, 500, 100), new Vector(0, 0, -1));
+		assertEquals(List.of(new Point(500, 500, -100)), bvh.findIntersections(outside),
+				"Unbounded shape was not tested");
+
+		// =============== Boundary Values Tests ==================
+
+		// TC04: Empty hierarchy
+		assertNull(new BoundingVolumeHierarchy(List.of()).findIntersections(ray), "Empty hierarchy has no intersections");
+
+		// TC05: Hierarchy of a single shape
+		assertEquals(2, new BoundingVolumeHierarchy(List.of(new Sphere(Point.ZERO, 1))).findIntersections(ray).size(),
+				"Wrong number of intersections for a single shape");
+	}
+
+	/**
+	 * Test that a ray missing the box of a node never reaches the geometries inside it.
+	 */
+	@Test
+	void testCulling() {
+		int[] calls = { 0 };
+		List<Intersectable> shapes = new LinkedList<>();
+		for (int i = 0; i < 50; ++i) {
+			shapes.add(new Sphere(new Point(i * 3, 0, 0), 1) {
+				@Override
+				public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+					calls[0]++;
+					return super.findGeoIntersectionsHelper(ray, maxDistance);
+				}
+			});
+		}
+		BoundingVolumeHierarchy bvh = new BoundingVolumeHierarchy(shapes);
+
+		// TC01: A ray missing the whole hierarchy tests no shape
+		assertNull(bvh.findIntersections(new Ray(new Point(0, 10, 0), new Vector(1, 0, 0))), "Ray should miss");
+		assertEquals(0, calls[0], "Shapes were tested although the root box was missed");
+
+		// TC02: A ray hitting a single sphere tests only a few shapes
+		assertEquals(2, bvh.findIntersections(new Ray(new Point(30, 0, 10), new Vector(0, 0, -1))).size(),
+				"Wrong number of intersections");
+		assertTrue(calls[0] <= 4, "Too many shapes were tested: " + calls[0]);
+
+		// TC03: Geometries uses the hierarchy once it is built
+		calls[0] = 0;
+		Geometries geometries = new Geometries(shapes.toArray(new Intersectable[0])).buildBVH();
+		assertEquals(2, geometries.findIntersections(new Ray(new Point(30, 0, 10), new Vector(0, 0, -1))).size(),
+				"Wrong number of intersections");
+		assertTrue(calls[0] <= 4, "Geometries did not use the hierarchy");
+	}
+
+	/**
+	 * Test method for {@link BoundingVolumeHierarchy#batchedShare()}.
+	 */
+	@Test
+	void testBatchedShare() {
+		// ============ Equivalence Partitions Tests ==============
+
+		// TC01: The triangles of a tessellated surface are intersected in batches
+		List<Intersectable> surface = new LinkedList<>();
+		for (int i = 0; i < 20; ++i) {
+			for (int j = 0; j < 20; ++j) {
+				Point p00 = new Point(i, j, Math.sin(i * 0.3)), p10 = new Point(i + 1, j, Math.sin((i + 1) * 0.3));
+				Point p01 = new Point(i, j + 1, Math.sin(i * 0.3)), p11 = new Point(i + 1, j + 1, Math.sin((i + 1) * 0.3));
+				surface.add(new Triangle(p00, p10, p11));
+				surface.add(new Triangle(p00, p11, p01));
+			}
+		}
+		assertTrue(new BoundingVolumeHierarchy(surface).batchedShare() >= 0.5,
+				"Too few triangles of a surface are batched");
+
+		// TC02: Spheres and triangles side by side are intersected in batches by a vector kernel
+		if (IntersectionKernel.getDefault().lanes() > 1)
+			assertTrue(new BoundingVolumeHierarchy(shapes()).batchedShare() >= 0.5,
+					"Too few spheres and triangles are batched");
+
+		// TC03: Objects without a batch are never batched
+		List<Intersectable> planes = List.of(new Polygon(new Point(0, 0, 0), new Point(1, 0, 0), new Point(1, 1, 0),
+				new Point(0, 1, 0)), new Polygon(new Point(0, 0, 5), new Point(1, 0, 5), new Point(1, 1, 5),
+				new Point(0, 1, 5)));
+		assertEquals(0, new BoundingVolumeHierarchy(planes).batchedShare(), 0, "Polygons are batched");
+
+		// =============== Boundary Values Tests ==================
+
+		// TC11: Empty hierarchy
+		assertEquals(0, new BoundingVolumeHierarchy(List.of()).batchedShare(), 0, "Empty hierarchy is batched");
+	}
+
+	/**
+	 * Test method for {@link BoundingVolumeHierarchy#findTransparency(Ray, double)}.
+	 */
+	@Test
+	void testFindTransparency() {
+		List<Intersectable> shapes = new LinkedList<>();
+		for (int i = 0; i < 20; ++i)
+			shapes.add(new Sphere(new Point(0, 0, -10 * i), 2).setMaterial(new Material().setKT(i < 5 ? 0.5 : 0)));
+		// A large transparent sphere spanning many cells or nodes must be counted once
+		shapes.add(new Sphere(new Point(0, 0, -100), 200).setMaterial(new Material().setKT(0.5)));
+		BoundingVolumeHierarchy structure = new BoundingVolumeHierarchy(shapes);
+		Ray ray = new Ray(new Point(0, 0, 150), new Vector(0, 0, -1));
+
+		// ============ Equivalence Partitions Tests ==============
+
+		// TC01: Only transparent spheres before the maximum distance
+		assertEquals(new Double3(Math.pow(0.5, 10)), structure.findTransparency(ray, 190),
+				"Wrong transparency through transparent spheres");
+
+		// TC02: An opaque sphere blocks the ray
+		assertEquals(Double3.ZERO, structure.findTransparency(ray, 1000), "Opaque sphere must block");
+	}
+}
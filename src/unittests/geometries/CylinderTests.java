@@ -1,5 +1,6 @@
 package unittests.geometries;
 
+import geometries.BoundingBox;
 import geometries.Cylinder;
 import geometries.Geometries;
 import org.junit.jupiter.api.Test;
@@ -15,6 +16,10 @@ import static org.junit.jupiter.api.Assertions.*;
  * @author Shay and Asaf
  */
 class CylinderTests {
+    /**
+     * Precision for floating-point comparison.
+     */
+    private static final double DELTA = 0.000001;
 
     /**
      * Test method for Cylinder constructor.
@@ -83,4 +88,32 @@ class CylinderTests {
         assertEquals(expectedNormalTop, cylinder.getNormal(centerTopBase),
                 "getNormal() wrong result for point at the center of the top base");
     }
+
+    /**
+     * Test method for {@link geometries.Cylinder#getBoundingBox()}.
+     */
+    @Test
+    void testGetBoundingBox() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Tilted cylinder - the box encloses both base discs
+        Cylinder tilted = new Cylinder(1, new Ray(new Point(0, 0, 0), new Vector(1, 0, 1)), Math.sqrt(2) * 2);
+        BoundingBox box = tilted.getBoundingBox();
+        double e = Math.sqrt(0.5);
+        assertEquals(-e, box.getMin(0), DELTA, "Wrong minimal x");
+        assertEquals(-1, box.getMin(1), DELTA, "Wrong minimal y");
+        assertEquals(-e, box.getMin(2), DELTA, "Wrong minimal z");
+        assertEquals(2 + e, box.getMax(0), DELTA, "Wrong maximal x");
+        assertEquals(1, box.getMax(1), DELTA, "Wrong maximal y");
+        assertEquals(2 + e, box.getMax(2), DELTA, "Wrong maximal z");
+
+        // =============== Boundary Values Tests ==================
+        // TC02: Axis-aligned cylinder - the box is tight
+        box = new Cylinder(2, new Ray(new Point(1, 1, 1), new Vector(0, 0, 1)), 5).getBoundingBox();
+        assertEquals(-1, box.getMin(0), DELTA, "Wrong minimal x");
+        assertEquals(-1, box.getMin(1), DELTA, "Wrong minimal y");
+        assertEquals(1, box.getMin(2), DELTA, "Wrong minimal z");
+        assertEquals(3, box.getMax(0), DELTA, "Wrong maximal x");
+        assertEquals(3, box.getMax(1), DELTA, "Wrong maximal y");
+        assertEquals(6, box.getMax(2), DELTA, "Wrong maximal z");
+    }
 }
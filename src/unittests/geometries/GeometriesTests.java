@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import geometries.*;
 import primitives.*;
 import java.util.List;
+import geometries.Intersectable.GeoPoint;
 
 
 /**
@@ -63,4 +64,230 @@ class GeometriesTests {
 		assertEquals(3, intersections2.size(), "BVA: All shapes intersect");
 
 	}
+
+	/**
+	 * Test case for {@link Geometries#getBoundingBox()}.
+	 */
+	@Test
+	void testGetBoundingBox() {
+		Sphere sphere = new Sphere(new Point(4, 0, 0), 4);
+		Triangle triangle = new Triangle(new Point(0, 2, 0), new Point(0, -2, 0), new Point(-2, 0, 9));
+
+		// ============ Equivalence Partitions Tests ==============
+
+		// TC01: The box of a nested collection encloses all its shapes
+		BoundingBox box = new Geometries(new Geometries(sphere), triangle).getBoundingBox();
+		assertNotNull(box, "Bounded shapes have a bounded collection");
+		assertEquals(-2, box.getMin(0), "Wrong minimal x");
+		assertEquals(-4, box.getMin(1), "Wrong minimal y");
+		assertEquals(-4, box.getMin(2), "Wrong minimal z");
+		assertEquals(8, box.getMax(0), "Wrong maximal x");
+		assertEquals(4, box.getMax(1), "Wrong maximal y");
+		assertEquals(9, box.getMax(2), "Wrong maximal z");
+
+		// TC02: An unbounded shape makes the collection unbounded
+		assertNull(new Geometries(sphere, new Plane(Point.ZERO, new Vector(0, 0, 1))).getBoundingBox(),
+				"A collection with a plane is unbounded");
+
+		// =============== Boundary Values Tests ==================
+
+		// TC03: Empty collection
+		assertNull(new Geometries().getBoundingBox(), "Empty collection has no box");
+
+		// TC04: An empty nested collection does not make the collection unbounded
+		assertNotNull(new Geometries(new Geometries(), sphere).getBoundingBox(), "Empty nested collection is unbounded");
+
+		// TC05: Shapes added to a nested collection after it was added grow the box and are hit
+		Geometries nested = new Geometries(sphere);
+		Geometries geometries = new Geometries(nested);
+		Ray ray = new Ray(new Point(-1, 0, 20), new Vector(0, 0, -1));
+		assertNull(geometries.findIntersections(ray), "Ray should miss the sphere");
+		nested.add(triangle);
+		assertEquals(9, geometries.getBoundingBox().getMax(2), "The box did not grow");
+		assertNotNull(geometries.findIntersections(ray), "The shape added to the nested collection was missed");
+	}
+
+	/**
+	 * Test that the shapes whose box is missed by the ray, or lies beyond the maximum
+	 * distance, are not tested.
+	 */
+	@Test
+	void testBoundingBoxPrefilter() {
+		int[] calls = { 0 };
+		Sphere far = new Sphere(new Point(0, 0, -100), 1) {
+			@Override
+			public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+				calls[0]++;
+				return super.findGeoIntersectionsHelper(ray, maxDistance);
+			}
+		};
+		Geometries geometries = new Geometries(far, new Sphere(Point.ZERO, 1));
+
+		// TC01: The box is missed
+		assertNull(geometries.findIntersections(new Ray(new Point(5, 5, 5), new Vector(1, 0, 0))), "Ray should miss");
+		assertEquals(0, calls[0], "Shape was tested although its box was missed");
+
+		// TC02: The box starts beyond the maximum distance
+		Ray ray = new Ray(new Point(0, 0, 10), new Vector(0, 0, -1));
+		assertEquals(2, geometries.findIntersections(ray, 50).size(), "Wrong number of intersections");
+		assertEquals(0, calls[0], "Shape was tested although its box is beyond the maximum distance");
+
+		// TC03: The box is hit
+		assertEquals(4, geometries.findIntersections(ray).size(), "Wrong number of intersections");
+		assertEquals(1, calls[0], "Shape was not tested although its box was hit");
+	}
+
+	/**
+	 * Test case for {@link Geometries#findTransparency(Ray, double)}.
+	 */
+	@Test
+	void testFindTransparency() {
+		int[] calls = { 0 };
+		Sphere glass = (Sphere) new Sphere(new Point(0, 0, -10), 1).setMaterial(new Material().setKT(0.5));
+		Sphere wall = (Sphere) new Sphere(new Point(0, 0, -20), 1).setMaterial(new Material().setKT(0));
+		Sphere behind = new Sphere(new Point(0, 0, -30), 1) {
+			@Override
+			public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+				calls[0]++;
+				return super.findGeoIntersectionsHelper(ray, maxDistance);
+			}
+		};
+		Geometries geometries = new Geometries(glass, wall, behind);
+		Ray ray = new Ray(Point.ZERO, new Vector(0, 0, -1));
+
+		// ============ Equivalence Partitions Tests ==============
+
+		// TC01: Transparent geometry only - kT is multiplied for every crossing
+		assertEquals(new Double3(0.25), geometries.findTransparency(ray, 15), "Wrong transparency");
+
+		// TC02: Opaque geometry blocks the light, the geometries after it are not tested
+		assertEquals(Double3.ZERO, geometries.findTransparency(ray, 100), "Opaque geometry must block");
+		assertEquals(0, calls[0], "Query did not stop at the first opaque hit");
+
+		// =============== Boundary Values Tests ==================
+
+		// TC03: Nothing before the maximum distance
+		assertEquals(Double3.ONE, geometries.findTransparency(ray, 5), "Nothing blocks the ray");
+	}
+
+	/**
+	 * Test case for {@link Geometries#findClosestGeoIntersection(Ray)}.
+	 */
+	@Test
+	void testFindClosestGeoIntersection() {
+		int[] calls = { 0 };
+		Sphere near = new Sphere(new Point(0, 0, -10), 1);
+		Sphere far = new Sphere(new Point(0, 0, -30), 1) {
+			@Override
+			protected boolean findClosestHitHelper(Ray ray, HitRecord hit) {
+				calls[0]++;
+				return super.findClosestHitHelper(ray, hit);
+			}
+		};
+		Plane floor = new Plane(new Point(0, 0, -50), new Vector(0, 0, 1));
+		Ray ray = new Ray(Point.ZERO, new Vector(0, 0, -1));
+
+		// ============ Equivalence Partitions Tests ==============
+
+		// TC01: The closest hit culls the geometry behind it
+		Geometries geometries = new Geometries(floor, near, far);
+		GeoPoint closest = geometries.findClosestGeoIntersection(ray);
+		assertEquals(new Point(0, 0, -9), closest.point, "Wrong closest intersection");
+		assertSame(near, closest.geometry, "Wrong closest geometry");
+		assertEquals(0, calls[0], "Geometry beyond the closest hit was tested");
+
+		// TC02: The closest hit is in the last geometry
+		geometries = new Geometries(floor, far);
+		assertEquals(new Point(0, 0, -29), geometries.findClosestGeoIntersection(ray).point,
+				"Wrong closest intersection");
+
+		// TC03: Same result through the hierarchy
+		geometries = new Geometries(floor, far, near).buildBVH();
+		assertEquals(new Point(0, 0, -9), geometries.findClosestGeoIntersection(ray).point,
+				"Wrong closest intersection through the hierarchy");
+
+		// =============== Boundary Values Tests ==================
+
+		// TC04: Nothing before the maximum distance
+		assertNull(geometries.findClosestGeoIntersection(ray, 5), "No intersection before max distance");
+
+		// TC05: Empty collection
+		assertNull(new Geometries().findClosestGeoIntersection(ray), "Empty collection has no intersections");
+	}
+
+	/**
+	 * Test method for {@link Geometries#findClosestHit(Ray, HitRecord)}.
+	 */
+	@Test
+	void testFindClosestHit() {
+		Sphere sphere = new Sphere(new Point(0, 0, -10), 1);
+		Triangle triangle = new Triangle(new Point(-2, -2, -5), new Point(2, -2, -5), new Point(0, 2, -5));
+		Polygon square = new Polygon(new Point(-5, -5, -20), new Point(5, -5, -20), new Point(5, 5, -20),
+				new Point(-5, 5, -20));
+		Geometries geometries = new Geometries(square, sphere, triangle);
+		HitRecord hit = new HitRecord();
+
+		// ============ Equivalence Partitions Tests ==============
+
+		// TC01: The record is filled with the closest hit, its point and its normal
+		assertTrue(geometries.findClosestHit(new Ray(Point.ZERO, new Vector(0, 0, -1)), hit), "Ray should hit");
+		assertEquals(5, hit.t, 1e-10, "Wrong hit distance");
+		assertSame(triangle, hit.geometry, "Wrong hit geometry");
+		assertEquals(new Point(0, 0, -5), hit.point, "Wrong hit point");
+		assertEquals(new Vector(0, 0, -1), hit.normal, "Wrong hit normal");
+
+		// TC02: The reused record finds the sphere when the triangle is missed
+		assertTrue(geometries.findClosestHit(new Ray(new Point(0, -5, 0), new Vector(0, 5.5, -10)),
+				hit.reset(Double.POSITIVE_INFINITY)), "Ray should hit");
+		assertSame(sphere, hit.geometry, "Wrong hit geometry");
+		assertEquals(1, hit.point.distance(new Point(0, 0, -10)), 1e-10, "Hit point is not on the sphere");
+		assertEquals(hit.point.subtract(new Point(0, 0, -10)), hit.normal, "Wrong hit normal");
+
+		// TC03: The polygon behind everything else
+		assertTrue(geometries.findClosestHit(new Ray(new Point(4, 4, 0), new Vector(0, 0, -1)),
+				hit.reset(Double.POSITIVE_INFINITY)), "Ray should hit");
+		assertSame(square, hit.geometry, "Wrong hit geometry");
+		assertEquals(20, hit.t, 1e-10, "Wrong hit distance");
+
+		// =============== Boundary Values Tests ==================
+
+		// TC04: A miss leaves the record empty
+		assertFalse(geometries.findClosestHit(new Ray(new Point(4, 4, 0), new Vector(0, 0, 1)),
+				hit.reset(Double.POSITIVE_INFINITY)), "Ray should miss");
+		assertNull(hit.geometry, "Record should be empty");
+
+		// TC05: The initial distance of the record limits the query
+		assertFalse(geometries.findClosestHit(new Ray(new Point(4, 4, 0), new Vector(0, 0, -1)), hit.reset(19)),
+				"No intersection before max distance");
+	}
+
+	/**
+	 * Test that a large collection traverses a hierarchy without {@link Geometries#buildBVH()}.
+	 */
+	@Test
+	void testAutomaticHierarchy() {
+		int[] calls = { 0 };
+		Geometries geometries = new Geometries();
+		// Added from the farthest on, so testing the shapes one by one tests all of them
+		for (int i = 20; i > 0; --i)
+			geometries.add(new Sphere(new Point(0, 0, -10 * i), 1) {
+				@Override
+				protected boolean findClosestHitHelper(Ray ray, HitRecord hit) {
+					calls[0]++;
+					return super.findClosestHitHelper(ray, hit);
+				}
+			});
+		Ray ray = new Ray(Point.ZERO, new Vector(0, 0, -1));
+
+		// ============ Equivalence Partitions Tests ==============
+
+		// TC01: The hierarchy is traversed front to back and culls the far shapes
+		assertEquals(new Point(0, 0, -9), geometries.findClosestGeoIntersection(ray).point, "Wrong closest intersection");
+		assertTrue(calls[0] < 20, "The shapes were tested one by one");
+
+		// TC02: A shape added after the hierarchy was built is found
+		geometries.add(new Sphere(new Point(0, 0, -5), 1));
+		assertEquals(new Point(0, 0, -4), geometries.findClosestGeoIntersection(ray).point,
+				"The added shape was missed");
+	}
 }
@@ -0,0 +1,274 @@
+package unittests.geometries;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import geometries.*;
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Testing {@link IntersectionKernel} Class
+ *
+ * @author Shay and Asaf
+ */
+class IntersectionKernelTests {
+	/** Random generator of the scenes and the rays, seeded for repeatable tests */
+	private final Random random = new Random(19);
+
+	/**
+	 * Retrieves the kernels to test: the scalar one and the vector one.
+	 *
+	 * @return the kernels
+	 */
+	private List<IntersectionKernel> kernels() {
+		List<IntersectionKernel> kernels = new ArrayList<>();
+		kernels.add(IntersectionKernel.scalar());
+		try {
+			kernels.add(IntersectionKernel.vector());
+		} catch (UnsupportedOperationException e) {
+			// the vector API is not available - the scalar kernel is tested alone
+		}
+		return kernels;
+	}
+
+	/**
+	 * Creates a random point in a cube around the origin.
+	 *
+	 * @param size the edge length of the cube
+	 * @return the point
+	 */
+	private Point randomPoint(double size) {
+		return new Point((random.nextDouble() - 0.5) * size, (random.nextDouble() - 0.5) * size,
+				(random.nextDouble() - 0.5) * size);
+	}
+
+	/**
+	 * Creates random rays from heads around the origin, aimed at random targets, at the
+	 * given points and at the heads of the rays themselves.
+	 *
+	 * @param points special points to aim at and to start from
+	 * @return the rays
+	 */
+	private List<Ray> rays(List<Point> points) {
+		List<Ray> rays = new ArrayList<>();
+		for (int i = 0; i < 200; ++i) {
+			Point head = randomPoint(20);
+			rays.add(new Ray(head, randomPoint(10).subtract(head)));
+		}
+		for (Point point : points) {
+			Point head = randomPoint(20);
+			rays.add(new Ray(head, point.subtract(head)));
+			rays.add(new Ray(point, randomPoint(10).subtract(point)));
+		}
+		return rays;
+	}
+
+	/**
+	 * Calculates the distance of the closest hit of a ray with a geometry alone.
+	 *
+	 * @param geometry    the geometry
+	 * @param ray         the ray
+	 * @param maxDistance the maximum distance to consider
+	 * @return the distance, NaN if there is no hit
+	 */
+	private double expected(Geometry geometry, Ray ray, double maxDistance) {
+		HitRecord hit = new HitRecord().reset(maxDistance);
+		return geometry.findClosestHit(ray, hit) ? hit.t : Double.NaN;
+	}
+
+	/**
+	 * Test method for
+	 * {@link IntersectionKernel#intersect(SphereBatch, double, double, double, double, double, double, double, double[], int)}.
+	 */
+	@Test
+	void testSpheres() {
+		List<Sphere> spheres = new ArrayList<>();
+		List<Point> centers = new ArrayList<>();
+		for (int i = 0; i < 13; ++i) {
+			Point center = randomPoint(10);
+			centers.add(center);
+			spheres.add(new Sphere(center, 0.5 + random.nextDouble() * 3));
+		}
+		SphereBatch batch = new SphereBatch(spheres);
+		List<Ray> rays = rays(centers);
+
+		// ============ Equivalence Partitions Tests ==============
+
+		// TC01: Every kernel gives exactly the distances of the spheres, including the rays
+		// starting at the centers, also with a maximum distance
+		for (IntersectionKernel kernel : kernels()) {
+			double[] distances = new double[batch.paddedSize() + 3];
+			for (Ray ray : rays) {
+				for (double max : new double[] { Double.POSITIVE_INFINITY, 5 }) {
+					Point head = ray.getHead();
+					Vector dir = ray.getDirection();
+					kernel.intersect(batch, head.getX(), head.getY(), head.getZ(), dir.getX(), dir.getY(), dir.getZ(),
+							max, distances, 3);
+					for (int i = 0; i < batch.size(); ++i)
+						assertEquals(expected(batch.get(i), ray, max), distances[i + 3],
+								kernel + " wrong distance for " + ray);
+				}
+			}
+		}
+
+		// =============== Boundary Values Tests ==================
+
+		// TC10: A batch of a single sphere, smaller than a vector
+		SphereBatch single = new SphereBatch(List.of(new Sphere(new Point(3, 0, 0), 1)));
+		for (IntersectionKernel kernel : kernels()) {
+			double[] distances = new double[single.paddedSize()];
+			kernel.intersect(single, 0, 0, 0, 1, 0, 0, Double.POSITIVE_INFINITY, distances, 0);
+			assertEquals(2, distances[0], 1e-10, kernel + " wrong distance for a single sphere");
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link IntersectionKernel#intersect(TriangleBatch, double, double, double, double, double, double, double, double[], int)}.
+	 */
+	@Test
+	void testTriangles() {
+		List<Triangle> triangles = new ArrayList<>();
+		List<Point> points = new ArrayList<>();
+		for (int i = 0; i < 11; ++i) {
+			Point a = randomPoint(10), b = randomPoint(10), c = randomPoint(10);
+			triangles.add(new Triangle(a, b, c));
+			// Aim at the vertices, at the middle of an edge and at the centroid
+			points.addAll(List.of(a, b, c, new Point((a.getX() + b.getX()) / 2, (a.getY() + b.getY()) / 2,
+					(a.getZ() + b.getZ()) / 2), new Point((a.getX() + b.getX() + c.getX()) / 3,
+					(a.getY() + b.getY() + c.getY()) / 3, (a.getZ() + b.getZ() + c.getZ()) / 3)));
+		}
+		TriangleBatch batch = new TriangleBatch(triangles);
+		List<Ray> rays = rays(points);
+
+		// ============ Equivalence Partitions Tests ==============
+
+		// TC01: Every kernel gives exactly the distances of the triangles, including the rays
+		// through the vertices and the edges, also with a maximum distance
+		for (IntersectionKernel kernel : kernels()) {
+			double[] distances = new double[batch.paddedSize()];
+			for (Ray ray : rays) {
+				for (double max : new double[] { Double.POSITIVE_INFINITY, 5 }) {
+					Point head = ray.getHead();
+					Vector dir = ray.getDirection();
+					kernel.intersect(batch, head.getX(), head.getY(), head.getZ(), dir.getX(), dir.getY(), dir.getZ(),
+							max, distances, 0);
+					for (int i = 0; i < batch.size(); ++i)
+						assertEquals(expected(batch.get(i), ray, max), distances[i],
+								kernel + " wrong distance for " + ray);
+				}
+			}
+		}
+
+		// =============== Boundary Values Tests ==================
+
+		// TC10: A ray parallel to the plane of a triangle misses it
+		Triangle flat = new Triangle(new Point(0, 0, 0), new Point(1, 0, 0), new Point(0, 1, 0));
+		TriangleBatch flats = new TriangleBatch(List.of(flat, flat));
+		for (IntersectionKernel kernel : kernels()) {
+			double[] distances = new double[flats.paddedSize()];
+			kernel.intersect(flats, -1, 0.2, 0, 1, 0, 0, Double.POSITIVE_INFINITY, distances, 0);
+			assertTrue(Double.isNaN(distances[0]), kernel + " hit a parallel triangle");
+		}
+	}
+
+	/**
+	 * Test method for {@link IntersectionKernel#intersect(SphereBatch, int, RayPacket, int, double[])}
+	 * and {@link IntersectionKernel#intersect(TriangleBatch, int, RayPacket, int, double[])}.
+	 */
+	@Test
+	void testPacket() {
+		SphereBatch spheres = new SphereBatch(List.of(new Sphere(new Point(0, 0, -10), 3),
+				new Sphere(new Point(2, 1, -5), 1)));
+		TriangleBatch triangles = new TriangleBatch(List.of(
+				new Triangle(new Point(-4, -4, -6), new Point(4, -4, -6), new Point(0, 4, -6)),
+				new Triangle(new Point(-4, -4, -8), new Point(0, 4, -9), new Point(4, -4, -7))));
+		RayPacket packet = new RayPacket(13);
+		for (int i = 0; i < 13; ++i)
+			packet.add(new Ray(new Point(0, 0, 1), new Vector(i * 0.1 - 0.6, 0.3 - i * 0.05, -1)));
+
+		// ============ Equivalence Partitions Tests ==============
+
+		// TC01: Every kernel gives the distances of every lane from the first one, as each
+		// ray alone
+		for (IntersectionKernel kernel : kernels()) {
+			double[] distances = new double[16];
+			for (int index = 0; index < 2; ++index) {
+				for (int first : new int[] { 0, 5 }) {
+					Arrays.fill(distances, -1);
+					kernel.intersect(spheres, index, packet, first, distances);
+					for (int lane = first; lane < packet.size(); ++lane)
+						assertEquals(expected(spheres.get(index), packet.getRay(lane), Double.POSITIVE_INFINITY),
+								distances[lane], kernel + " wrong sphere distance in lane " + lane);
+					kernel.intersect(triangles, index, packet, first, distances);
+					for (int lane = first; lane < packet.size(); ++lane)
+						assertEquals(expected(triangles.get(index), packet.getRay(lane), Double.POSITIVE_INFINITY),
+								distances[lane], kernel + " wrong triangle distance in lane " + lane);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link IntersectionKernel#entryDistances(BoundingBox, RayPacket, int, int, double[])}.
+	 */
+	@Test
+	void testEntryDistances() {
+		BoundingBox box = new BoundingBox(-2, -1, -3, 2, 1, -1);
+		RayPacket packet = new RayPacket(24);
+		for (int i = 0; i < 16; ++i)
+			packet.add(new Ray(randomPoint(10), randomPoint(4).subtract(randomPoint(10))));
+		// Rays along the axes, parallel to two slabs, inside and outside of them
+		packet.add(new Ray(new Point(0, 0, 5), new Vector(0, 0, -1)));
+		packet.add(new Ray(new Point(0, 3, 5), new Vector(0, 0, -1)));
+		packet.add(new Ray(new Point(2, 1, 5), new Vector(0, 0, -1)));
+		packet.add(new Ray(new Point(-5, 0, -2), new Vector(1, 0, 0)));
+		packet.add(new Ray(new Point(-5, 0, -4), new Vector(1, 0, 0)));
+		// Rays starting inside the box, and entering it behind the head
+		packet.add(new Ray(new Point(0, 0, -2), new Vector(1, 1, 1)));
+		packet.add(new Ray(new Point(0, 0, 5), new Vector(0, 0, 1)));
+		packet.add(new Ray(new Point(0, 0, 0), new Vector(0, 0, -1)));
+
+		// ============ Equivalence Partitions Tests ==============
+
+		// TC01: Every kernel gives the entry distance of every lane of the range, as each ray alone
+		for (IntersectionKernel kernel : kernels()) {
+			double[] entries = new double[24];
+			for (int[] range : new int[][] { { 0, 24 }, { 5, 19 }, { 17, 18 } }) {
+				Arrays.fill(entries, -1);
+				kernel.entryDistances(box, packet, range[0], range[1], entries);
+				for (int lane = range[0]; lane < range[1]; ++lane)
+					assertEquals(box.entryDistance(packet.getRay(lane), Double.POSITIVE_INFINITY), entries[lane],
+							kernel + " wrong entry distance in lane " + lane);
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link IntersectionKernel#getDefault()}.
+	 */
+	@Test
+	void testGetDefault() {
+		// ============ Equivalence Partitions Tests ==============
+
+		// TC01: There is always a default kernel, with at least a lane
+		assertTrue(IntersectionKernel.getDefault().lanes() >= 1, "No default kernel");
+
+		// TC02: The default kernel is the vector kernel when it is available and wide enough
+		IntersectionKernel vector;
+		try {
+			vector = IntersectionKernel.vector();
+		} catch (UnsupportedOperationException e) {
+			vector = null;
+		}
+		if (System.getProperty("geometries.kernel") == null)
+			assertSame(vector != null && vector.lanes() >= 4 ? vector : IntersectionKernel.scalar(),
+					IntersectionKernel.getDefault(), "Wrong default kernel");
+	}
+}
@@ -6,8 +6,11 @@ import org.junit.jupiter.api.Test;
 
 import geometries.Polygon;
 import primitives.Point;
+import primitives.Ray;
 import primitives.Vector;
 
+import java.util.List;
+
 /**
  * Testing Polygons
  * 
@@ -84,4 +87,47 @@ public class PolygonTests {
 					"Polygon's normal is not orthogonal to one of the edges");
 	}
 
+	/** Test method for {@link geometries.Polygon#findIntersections(primitives.Ray)}. */
+	@Test
+	public void testFindIntersections() {
+		// A square in the plane z=0, counterclockwise and clockwise around the normal
+		Polygon square = new Polygon(new Point(0, 0, 0), new Point(2, 0, 0), new Point(2, 2, 0), new Point(0, 2, 0));
+		Polygon reversed = new Polygon(new Point(0, 2, 0), new Point(2, 2, 0), new Point(2, 0, 0), new Point(0, 0, 0));
+
+		for (Polygon pol : new Polygon[] { square, reversed }) {
+			// ============ Equivalence Partitions Tests ==============
+
+			// TC01: Ray passes inside the polygon
+			List<Point> result = pol.findIntersections(new Ray(new Point(0.5, 1.5, -1), new Vector(0, 0, 1)));
+			assertNotNull(result, "Ray inside the polygon missed it");
+			assertEquals(List.of(new Point(0.5, 1.5, 0)), result, "Wrong intersection point");
+
+			// TC02: Ray passes outside against an edge
+			assertNull(pol.findIntersections(new Ray(new Point(3, 1, -1), new Vector(0, 0, 1))),
+					"Ray outside against an edge hit the polygon");
+
+			// TC03: Ray passes outside against a vertex
+			assertNull(pol.findIntersections(new Ray(new Point(3, 3, -1), new Vector(0, 0, 1))),
+					"Ray outside against a vertex hit the polygon");
+
+			// TC04: Ray passes inside but the polygon is behind its head
+			assertNull(pol.findIntersections(new Ray(new Point(1, 1, 1), new Vector(0, 0, 1))),
+					"Polygon behind the ray head was hit");
+
+			// =============== Boundary Values Tests ==================
+
+			// TC10: Ray passes on an edge
+			assertNull(pol.findIntersections(new Ray(new Point(2, 1, -1), new Vector(0, 0, 1))),
+					"Ray on an edge hit the polygon");
+
+			// TC11: Ray passes on a vertex
+			assertNull(pol.findIntersections(new Ray(new Point(2, 2, -1), new Vector(0, 0, 1))),
+					"Ray on a vertex hit the polygon");
+
+			// TC12: Ray passes on the continuation of an edge
+			assertNull(pol.findIntersections(new Ray(new Point(3, 0, -1), new Vector(0, 0, 1))),
+					"Ray on the continuation of an edge hit the polygon");
+		}
+	}
+
 }
@@ -0,0 +1,125 @@
+package unittests.geometries;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import geometries.*;
+import primitives.*;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Testing {@link RayPacket} Class
+ *
+ * @author Shay and Asaf
+ */
+class RayPacketTests {
+
+	/**
+	 * Creates a grid of spheres and triangles over a floor plane for the tests.
+	 *
+	 * @return list of the shapes
+	 */
+	private List<Intersectable> shapes() {
+		List<Intersectable> shapes = new LinkedList<>();
+		for (int i = 0; i < 10; ++i) {
+			for (int j = 0; j < 10; ++j) {
+				if ((i + j) % 2 == 0)
+					shapes.add(new Sphere(new Point(i * 10, j * 10, -50), 3));
+				else
+					shapes.add(new Triangle(new Point(i * 10 - 4, j * 10 - 4, -40),
+							new Point(i * 10 + 4, j * 10 - 4, -40), new Point(i * 10, j * 10 + 4, -40)));
+			}
+		}
+		shapes.add(new Plane(new Point(0, 0, -100), new Vector(0, 0, 1)));
+		return shapes;
+	}
+
+	/**
+	 * Checks that every lane of packets of coherent rays gets the same closest hit as the
+	 * same ray traced alone.
+	 *
+	 * @param intersectable the object to intersect
+	 * @param side          the number of rays along each side of a packet
+	 */
+	private void assertSameHits(Intersectable intersectable, int side) {
+		RayPacket packet = new RayPacket(side * side);
+		HitRecord expected = new HitRecord(), actual = new HitRecord();
+		for (int x = -20; x < 120; x += side)
+			for (int y = -20; y < 120; y += side) {
+				packet.clear();
+				for (int j = 0; j < side; ++j)
+					for (int i = 0; i < side; ++i)
+						packet.add(new Ray(new Point(45, 45, 100),
+								new Vector(x + i - 45 + 0.3, y + j - 45 + 0.7, -150)));
+				intersectable.findClosestHits(packet);
+				for (int lane = 0; lane < packet.size(); ++lane) {
+					Ray ray = packet.getRay(lane);
+					boolean found = intersectable.findClosestHit(ray, expected.reset(Double.POSITIVE_INFINITY));
+					assertEquals(found, packet.getHit(lane, actual), "Wrong hit for " + ray);
+					assertEquals(expected.geometry, actual.geometry, "Wrong geometry for " + ray);
+					assertEquals(expected.t, actual.t, "Wrong distance for " + ray);
+				}
+			}
+	}
+
+	/**
+	 * Test method for {@link Intersectable#findClosestHits(RayPacket)}.
+	 */
+	@Test
+	void testFindClosestHits() {
+		List<Intersectable> shapes = shapes();
+
+		// ============ Equivalence Partitions Tests ==============
+
+		// TC01: A flat collection finds the same hits for packets as for single rays
+		assertSameHits(new Geometries(shapes.toArray(new Intersectable[0])), 4);
+
+		// TC02: A hierarchy finds the same hits for packets as for single rays
+		assertSameHits(new BoundingVolumeHierarchy(shapes), 4);
+		assertSameHits(new Geometries(shapes.toArray(new Intersectable[0])).buildBVH(), 8);
+
+		// TC03: A geometry without a packet test is tested lane by lane
+		assertSameHits(new Geometries(new Polygon(new Point(0, 0, -60), new Point(90, 0, -60),
+				new Point(90, 90, -60), new Point(0, 90, -60))), 4);
+
+		// =============== Boundary Values Tests ==================
+
+		// TC04: Packets of a single ray
+		assertSameHits(new BoundingVolumeHierarchy(shapes), 1);
+
+		// TC05: An empty packet
+		RayPacket empty = new RayPacket(4);
+		assertDoesNotThrow(() -> new BoundingVolumeHierarchy(shapes).findClosestHits(empty), "Empty packet failed");
+	}
+
+	/**
+	 * Test method for {@link BoundingBox#firstHit(RayPacket, int)}.
+	 */
+	@Test
+	void testFirstHit() {
+		BoundingBox box = new BoundingBox(-1, -1, -1, 1, 1, 1);
+		RayPacket packet = new RayPacket(3);
+		packet.add(new Ray(new Point(5, 5, 5), new Vector(1, 0, 0)));
+		packet.add(new Ray(new Point(0, 0, 5), new Vector(0, 0, -1)));
+		packet.add(new Ray(new Point(0.5, 0, 5), new Vector(0, 0, -1)));
+
+		// ============ Equivalence Partitions Tests ==============
+
+		// TC01: The first lane entering the box is found
+		assertEquals(1, box.firstHit(packet, 0), "Wrong first lane");
+
+		// TC02: The lanes before the given first one are skipped
+		assertEquals(2, box.firstHit(packet, 2), "Wrong first lane");
+
+		// TC03: No lane enters the box
+		assertEquals(-1, new BoundingBox(10, 10, 10, 11, 11, 11).firstHit(packet, 0), "Lane entered a missed box");
+
+		// =============== Boundary Values Tests ==================
+
+		// TC04: A full packet rejects another ray
+		assertThrows(IllegalStateException.class, () -> packet.add(new Ray(Point.ZERO, new Vector(1, 0, 0))),
+				"Full packet accepted a ray");
+	}
+}
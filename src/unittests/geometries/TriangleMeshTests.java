@@ -0,0 +1,225 @@
+package unittests.geometries;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import geometries.*;
+import primitives.*;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Testing {@link TriangleMesh} Class
+ *
+ * @author Shay and Asaf
+ */
+class TriangleMeshTests {
+	/**
+	 * A small constant representing the precision for floating-point comparison.
+	 */
+	private static final double DELTA = 0.000001;
+
+	/** Vertices of the unit cube */
+	private static final double[] CUBE_VERTICES = { 0, 0, 0, 1, 0, 0, 1, 1, 0, 0, 1, 0, 0, 0, 1, 1, 0, 1, 1, 1, 1,
+			0, 1, 1 };
+	/** Faces of the unit cube, two triangles per side */
+	private static final int[] CUBE_INDICES = { 0, 2, 1, 0, 3, 2, 4, 5, 6, 4, 6, 7, 0, 1, 5, 0, 5, 4, 3, 7, 6, 3,
+			6, 2, 0, 4, 7, 0, 7, 3, 1, 2, 6, 1, 6, 5 };
+
+	/**
+	 * Test method for {@link TriangleMesh#TriangleMesh(double[], int[], Material[], int[])}.
+	 */
+	@Test
+	void testConstructor() {
+		// ============ Equivalence Partitions Tests ==============
+
+		// TC01: Correct mesh
+		TriangleMesh cube = new TriangleMesh(CUBE_VERTICES, CUBE_INDICES);
+		assertEquals(12, cube.getFaceCount(), "Wrong number of faces");
+		assertEquals(8, cube.getVertexCount(), "Wrong number of vertices");
+
+		// TC02: A face refers to a missing vertex
+		assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(CUBE_VERTICES, new int[] { 0, 1, 8 }),
+				"Missing vertex accepted");
+
+		// TC03: A face refers to a missing material
+		assertThrows(IllegalArgumentException.class,
+				() -> new TriangleMesh(CUBE_VERTICES, new int[] { 0, 1, 2 }, new Material[1], new int[] { 1 }),
+				"Missing material accepted");
+
+		// =============== Boundary Values Tests ==================
+
+		// TC10: The indices are not triplets
+		assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(CUBE_VERTICES, new int[] { 0, 1 }),
+				"Partial face accepted");
+
+		// TC11: Degenerate face
+		assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(CUBE_VERTICES, new int[] { 0, 1, 1 }),
+				"Degenerate face accepted");
+	}
+
+	/**
+	 * Test method for {@link Intersectable#findClosestHit(Ray, HitRecord)}.
+	 */
+	@Test
+	void testFindClosestHit() {
+		TriangleMesh cube = new TriangleMesh(CUBE_VERTICES, CUBE_INDICES);
+		HitRecord hit = new HitRecord();
+
+		// ============ Equivalence Partitions Tests ==============
+
+		// TC01: Ray hits the cube from outside - the face, the normal and the distance
+		assertTrue(cube.findClosestHit(new Ray(new Point(0.3, 0.6, 5), new Vector(0, 0, -1)), hit),
+				"Missed the cube");
+		assertEquals(4, hit.t, DELTA, "Wrong distance");
+		assertEquals(new Point(0.3, 0.6, 1), hit.point, "Wrong point");
+		assertEquals(1, Math.abs(hit.normal.dotProduct(new Vector(0, 0, 1))), DELTA, "Wrong normal");
+		assertTrue(hit.face >= 0, "The face was not recorded");
+
+		// TC02: Ray starts inside the cube
+		assertTrue(cube.findClosestHit(new Ray(new Point(0.5, 0.5, 0.5), new Vector(1, 0, 0)),
+				hit.reset(Double.POSITIVE_INFINITY)), "Missed the cube from inside");
+		assertEquals(0.5, hit.t, DELTA, "Wrong distance from inside");
+
+		// TC03: Ray misses the cube
+		assertFalse(cube.findClosestHit(new Ray(new Point(2, 2, 5), new Vector(0, 0, -1)),
+				hit.reset(Double.POSITIVE_INFINITY)), "Hit beside the cube");
+
+		// =============== Boundary Values Tests ==================
+
+		// TC10: Ray through the diagonal shared by the two faces of a side does not leak
+		assertTrue(cube.findClosestHit(new Ray(new Point(0.5, 0.5, 5), new Vector(0, 0, -1)),
+				hit.reset(Double.POSITIVE_INFINITY)), "Leaked through the shared edge");
+		assertEquals(4, hit.t, DELTA, "Wrong distance on the shared edge");
+
+		// TC11: Hit beyond the maximum distance
+		assertFalse(cube.findClosestHit(new Ray(new Point(0.3, 0.6, 5), new Vector(0, 0, -1)), hit.reset(3)),
+				"Hit beyond the maximum distance");
+	}
+
+	/**
+	 * Test method for {@link Intersectable#findGeoIntersections(Ray)}.
+	 */
+	@Test
+	void testFindGeoIntersections() {
+		TriangleMesh cube = new TriangleMesh(CUBE_VERTICES, CUBE_INDICES);
+
+		// ============ Equivalence Partitions Tests ==============
+
+		// TC01: Ray crosses the cube - two points with the normals of their sides
+		List<Intersectable.GeoPoint> result = cube.findGeoIntersections(
+				new Ray(new Point(0.3, 0.6, 5), new Vector(0, 0, -1)));
+		assertNotNull(result, "No intersections");
+		assertEquals(2, result.size(), "Wrong number of intersections");
+		for (Intersectable.GeoPoint gp : result)
+			assertEquals(1, Math.abs(gp.getNormal().dotProduct(new Vector(0, 0, 1))), DELTA,
+					"Wrong normal without a face");
+
+		// TC02: Ray misses the cube
+		assertNull(cube.findGeoIntersections(new Ray(new Point(2, 2, 5), new Vector(0, 0, -1))),
+				"Intersections beside the cube");
+	}
+
+	/**
+	 * Test method for {@link TriangleMesh#getMaterial(int)} and {@link Intersectable#findTransparency(Ray, double)}.
+	 */
+	@Test
+	void testMaterials() {
+		Material glass = new Material().setKT(0.5);
+		Material stone = new Material();
+		int[] faceMaterials = { 1, 1, 0, 0, 1, 1, 1, 1, 1, 1, 1, 1 }; // the top side is glass
+		TriangleMesh cube = new TriangleMesh(CUBE_VERTICES, CUBE_INDICES, new Material[] { glass, stone },
+				faceMaterials);
+		HitRecord hit = new HitRecord();
+
+		// ============ Equivalence Partitions Tests ==============
+
+		// TC01: The material of the hit face
+		cube.findClosestHit(new Ray(new Point(0.3, 0.6, 5), new Vector(0, 0, -1)), hit);
+		assertSame(glass, cube.getMaterial(hit.face), "Wrong material of the top");
+		cube.findClosestHit(new Ray(new Point(0.3, 0.6, -5), new Vector(0, 0, 1)), hit.reset(Double.POSITIVE_INFINITY));
+		assertSame(stone, cube.getMaterial(hit.face), "Wrong material of the bottom");
+
+		// TC02: Light through the glass side only is dimmed, through a stone side blocked
+		assertEquals(new Double3(0.5), cube.findTransparency(new Ray(new Point(0.3, 0.6, 5), new Vector(0, 0, -1)), 4.5),
+				"Wrong transparency of the glass");
+		assertEquals(Double3.ZERO, cube.findTransparency(new Ray(new Point(0.3, 0.6, 5), new Vector(0, 0, -1)), 10),
+				"Stone does not block the light");
+	}
+
+	/**
+	 * Test method for {@link Intersectable#findGeoIntersections(Ray)} on faces of very
+	 * different sizes, against the same faces as triangles.
+	 */
+	@Test
+	void testFaceScale() {
+		// ============ Equivalence Partitions Tests ==============
+
+		// TC01: An oblique ray hits a tiny face
+		double[] tiny = { 0, 0, 0, 2e-6, 0, 0, 0, 2e-6, 0 };
+		Ray oblique = new Ray(new Point(5e-7, 5e-7 - 6, 1), new Vector(0, 6, -1));
+		List<Point> result = new TriangleMesh(tiny, new int[] { 0, 1, 2 }).findIntersections(oblique);
+		assertNotNull(result, "Missed a tiny face");
+		assertEquals(Math.sqrt(37), result.getFirst().distance(oblique.getHead()), DELTA, "Wrong distance");
+		assertEquals(result, new Triangle(new Point(0, 0, 0), new Point(2e-6, 0, 0), new Point(0, 2e-6, 0))
+				.findIntersections(oblique), "The face and the triangle disagree");
+
+		// TC02: A ray almost parallel to a huge face misses it
+		double[] huge = { 0, 0, 0, 2e6, 0, 0, 0, 2e6, 0 };
+		Ray grazing = new Ray(new Point(1e5, 1e5, 1e-8), new Vector(1, 0, -1e-14));
+		assertNull(new TriangleMesh(huge, new int[] { 0, 1, 2 }).findIntersections(grazing),
+				"A parallel ray hit a huge face");
+		assertNull(new Triangle(new Point(0, 0, 0), new Point(2e6, 0, 0), new Point(0, 2e6, 0))
+				.findIntersections(grazing), "A parallel ray hit a huge triangle");
+	}
+
+	/**
+	 * Test method for {@link Intersectable#findClosestHit(Ray, HitRecord)} on a large mesh,
+	 * against the same faces as separate triangles.
+	 */
+	@Test
+	void testLargeMesh() {
+		// A height field of 60x60 quads
+		int n = 60;
+		Random random = new Random(20);
+		double[] vertices = new double[(n + 1) * (n + 1) * 3];
+		for (int j = 0; j <= n; ++j)
+			for (int i = 0; i <= n; ++i) {
+				int v = (j * (n + 1) + i) * 3;
+				vertices[v] = i;
+				vertices[v + 1] = j;
+				vertices[v + 2] = random.nextDouble() * 3;
+			}
+		int[] indices = new int[n * n * 6];
+		Geometries triangles = new Geometries();
+		for (int j = 0, f = 0; j < n; ++j)
+			for (int i = 0; i < n; ++i) {
+				int a = j * (n + 1) + i, b = a + 1, c = a + n + 2, d = a + n + 1;
+				for (int[] face : new int[][] { { a, b, c }, { a, c, d } }) {
+					indices[f++] = face[0];
+					indices[f++] = face[1];
+					indices[f++] = face[2];
+					triangles.add(new Triangle(new Point(vertices[face[0] * 3], vertices[face[0] * 3 + 1],
+							vertices[face[0] * 3 + 2]), new Point(vertices[face[1] * 3], vertices[face[1] * 3 + 1],
+							vertices[face[1] * 3 + 2]), new Point(vertices[face[2] * 3], vertices[face[2] * 3 + 1],
+							vertices[face[2] * 3 + 2])));
+				}
+			}
+		TriangleMesh mesh = new TriangleMesh(vertices, indices);
+
+		// ============ Equivalence Partitions Tests ==============
+
+		// TC01: Rays from above hit the mesh at the same points as the triangles
+		HitRecord expected = new HitRecord(), actual = new HitRecord();
+		for (int k = 0; k < 500; ++k) {
+			Ray ray = new Ray(new Point(random.nextDouble() * n, random.nextDouble() * n, 10),
+					new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1));
+			boolean found = triangles.findClosestHit(ray, expected.reset(Double.POSITIVE_INFINITY));
+			if (!found) continue; // on an edge of the triangles, or out of the field
+			assertTrue(mesh.findClosestHit(ray, actual.reset(Double.POSITIVE_INFINITY)), "Missed the mesh " + ray);
+			assertEquals(expected.t, actual.t, DELTA, "Wrong distance " + ray);
+			assertEquals(expected.normal, actual.normal, "Wrong normal " + ray);
+		}
+	}
+}
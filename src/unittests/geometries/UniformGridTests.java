@@ -0,0 +1,151 @@
+package unittests.geometries;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import geometries.*;
+import geometries.Intersectable.GeoPoint;
+import primitives.*;
+
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Testing {@link UniformGrid} Class
+ *
+ * @author Shay and Asaf
+ */
+class UniformGridTests {
+
+	/**
+	 * Creates an even field of spheres, and a floor plane, for the tests.
+	 *
+	 * @return list of the shapes
+	 */
+	private List<Intersectable> shapes() {
+		Random random = new Random(7);
+		List<Intersectable> shapes = new LinkedList<>();
+		for (int i = 0; i < 1000; ++i)
+			shapes.add(new Sphere(new Point(random.nextDouble() * 100, random.nextDouble() * 100,
+					random.nextDouble() * 100), 1 + random.nextDouble()));
+		shapes.add(new Plane(new Point(0, 0, -10), new Vector(0, 0, 1)));
+		return shapes;
+	}
+
+	/**
+	 * Sorts the intersection points by their distance from the ray head.
+	 *
+	 * @param ray    the ray
+	 * @param points the points (may be null)
+	 * @return the sorted points, or null
+	 */
+	private List<Point> sorted(Ray ray, List<Point> points) {
+		return points == null ? null
+				: points.stream().sorted(Comparator.comparingDouble(p -> p.distance(ray.getHead()))).toList();
+	}
+
+	/**
+	 * Test method for {@link UniformGrid#findIntersections(Ray)} and
+	 * {@link UniformGrid#findClosestGeoIntersection(Ray)}.
+	 */
+	@Test
+	void testFindIntersections() {
+		List<Intersectable> shapes = shapes();
+		Geometries flat = new Geometries(shapes.toArray(new Intersectable[0]));
+		UniformGrid grid = new UniformGrid(shapes);
+		Random random = new Random(11);
+
+		// ============ Equivalence Partitions Tests ==============
+
+		// TC01: The grid finds the same intersections and the same closest one as the flat collection
+		for (int k = 0; k < 300; ++k) {
+			Ray ray = new Ray(new Point(random.nextDouble() * 300 - 100, random.nextDouble() * 300 - 100, 200),
+					new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1));
+			assertEquals(sorted(ray, flat.findIntersections(ray)), sorted(ray, grid.findIntersections(ray)),
+					"Wrong intersections for " + ray);
+			GeoPoint closest = ray.findClosestGeoPoint(flat.findGeoIntersections(ray));
+			assertEquals(closest, grid.findClosestGeoIntersection(ray), "Wrong closest intersection for " + ray);
+		}
+
+		// TC02: A ray starting inside the grid
+		Ray inside = new Ray(new Point(50, 50, 50), new Vector(1, 0.3, 0.1));
+		assertEquals(sorted(inside, flat.findIntersections(inside)), sorted(inside, grid.findIntersections(inside)),
+				"Wrong intersections for a ray starting inside the grid");
+
+		// =============== Boundary Values Tests ==================
+
+		// TC03: Ray along a cell boundary axis
+		Ray axial = new Ray(new Point(50, 50, 200), new Vector(0, 0, -1));
+		assertEquals(sorted(axial, flat.findIntersections(axial)), sorted(axial, grid.findIntersections(axial)),
+				"Wrong intersections for an axis-aligned ray");
+
+		// TC04: Empty grid
+		assertNull(new UniformGrid(List.of()).findIntersections(axial), "Empty grid has no intersections");
+
+		// TC05: Grid of a single shape
+		assertEquals(new Point(0, 0, 1),
+				new UniformGrid(List.of(new Sphere(Point.ZERO, 1))).findClosestGeoIntersection(
+						new Ray(new Point(0, 0, 10), new Vector(0, 0, -1))).point,
+				"Wrong closest intersection for a single shape");
+	}
+
+	/**
+	 * Test that the closest-hit walk stops at the first cell with a hit.
+	 */
+	@Test
+	void testEarlyTermination() {
+		int[] calls = { 0 };
+		List<Intersectable> shapes = new LinkedList<>();
+		for (int i = 0; i < 100; ++i) {
+			shapes.add(new Sphere(new Point(i * 4, 0, 0), 1) {
+				@Override
+				protected boolean findClosestHitHelper(Ray ray, HitRecord hit) {
+					calls[0]++;
+					return super.findClosestHitHelper(ray, hit);
+				}
+			});
+		}
+		UniformGrid grid = new UniformGrid(shapes);
+
+		// TC01: A ray along the row of spheres tests only the first ones
+		GeoPoint closest = grid.findClosestGeoIntersection(new Ray(new Point(-10, 0, 0), new Vector(1, 0, 0)));
+		assertEquals(new Point(-1, 0, 0), closest.point, "Wrong closest intersection");
+		assertTrue(calls[0] <= 5, "Too many shapes were tested: " + calls[0]);
+	}
+
+	/**
+	 * Test method for {@link UniformGrid#findTransparency(Ray, double)}.
+	 */
+	@Test
+	void testFindTransparency() {
+		List<Intersectable> shapes = new LinkedList<>();
+		for (int i = 0; i < 20; ++i)
+			shapes.add(new Sphere(new Point(0, 0, -10 * i), 2).setMaterial(new Material().setKT(i < 5 ? 0.5 : 0)));
+		// A large transparent sphere spanning many cells or nodes must be counted once
+		shapes.add(new Sphere(new Point(0, 0, -100), 200).setMaterial(new Material().setKT(0.5)));
+		UniformGrid structure = new UniformGrid(shapes);
+		Ray ray = new Ray(new Point(0, 0, 150), new Vector(0, 0, -1));
+
+		// ============ Equivalence Partitions Tests ==============
+
+		// TC01: Only transparent spheres before the maximum distance
+		assertEquals(new Double3(Math.pow(0.5, 10)), structure.findTransparency(ray, 190),
+				"Wrong transparency through transparent spheres");
+
+		// TC02: An opaque sphere blocks the ray
+		assertEquals(Double3.ZERO, structure.findTransparency(ray, 1000), "Opaque sphere must block");
+
+		// TC03: The faces of a mesh block the ray by their own materials
+		shapes.clear();
+		for (int i = 0; i < 20; ++i)
+			shapes.add(new Sphere(new Point(50, 0, -10 * i), 2));
+		shapes.add(new TriangleMesh(new double[] { -10, -10, -10, 10, -10, -10, 0, 10, -10, -10, -10, -20, 10, -10,
+				-20, 0, 10, -20 }, new int[] { 0, 1, 2, 3, 4, 5 },
+				new Material[] { new Material().setKT(0.5), new Material().setKT(0.25) }, new int[] { 0, 1 }));
+		structure = new UniformGrid(shapes);
+		assertEquals(new Double3(0.125), structure.findTransparency(ray, 1000),
+				"Wrong transparency through the faces of a mesh");
+	}
+}
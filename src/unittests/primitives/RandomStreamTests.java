@@ -0,0 +1,98 @@
+package unittests.primitives;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import primitives.RandomStream;
+import primitives.Util;
+
+/**
+ * Testing {@link RandomStream} Class
+ *
+ * @author Shay and Asaf
+ */
+class RandomStreamTests {
+
+	/**
+	 * Test method for {@link RandomStream#nextDouble()}.
+	 */
+	@Test
+	void testNextDouble() {
+		// ============ Equivalence Partitions Tests ==============
+
+		// TC01: The same key gives the same sequence
+		RandomStream s1 = new RandomStream(1, 2, 3), s2 = new RandomStream(1, 2, 3);
+		for (int i = 0; i < 100; ++i)
+			assertEquals(s1.nextDouble(), s2.nextDouble(), "Streams with the same key differ");
+
+		// TC02: Different keys give different sequences
+		assertNotEquals(new RandomStream(1, 2, 3).nextDouble(), new RandomStream(1, 2, 4).nextDouble(),
+				"Different samples got the same number");
+		assertNotEquals(new RandomStream(1, 2, 3).nextDouble(), new RandomStream(2, 2, 3).nextDouble(),
+				"Different frames got the same number");
+
+		// TC03: The numbers are uniform in [0, 1)
+		RandomStream stream = new RandomStream(7);
+		double sum = 0;
+		for (int i = 0; i < 10000; ++i) {
+			double x = stream.nextDouble();
+			assertTrue(x >= 0 && x < 1, "Number out of range");
+			sum += x;
+		}
+		assertEquals(0.5, sum / 10000, 0.02, "Numbers are not uniform");
+
+		// =============== Boundary Values Tests ==================
+
+		// TC04: Resetting restarts the sequence
+		stream.reset(1, 2, 3);
+		assertEquals(new RandomStream(1, 2, 3).nextDouble(), stream.nextDouble(), "Reset did not restart the stream");
+	}
+
+	/**
+	 * Test method for {@link RandomStream#split(long)}.
+	 */
+	@Test
+	void testSplit() {
+		RandomStream stream = new RandomStream(5);
+
+		// ============ Equivalence Partitions Tests ==============
+
+		// TC01: A split stream does not depend on the numbers drawn from the parent
+		double first = stream.split(1).nextDouble();
+		stream.nextDouble();
+		assertEquals(first, stream.split(1).nextDouble(), "Split stream depends on the parent counter");
+
+		// TC02: Different ids give different streams, different from the parent
+		assertNotEquals(first, stream.split(2).nextDouble(), "Split streams are equal");
+		assertNotEquals(first, new RandomStream(5).nextDouble(), "Split stream equals its parent");
+	}
+
+	/**
+	 * Test method for {@link Util#random(double, double)}.
+	 *
+	 * @throws ExecutionException   if the drawing thread fails
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	@Test
+	void testUtilRandom() throws InterruptedException, ExecutionException {
+		// ============ Equivalence Partitions Tests ==============
+
+		// TC01: The numbers of a keyed stream are the same in any thread
+		RandomStream.current().reset(3, 4, 5);
+		double expected = Util.random(-2, 2);
+		assertTrue(expected >= -2 && expected < 2, "Number out of range");
+		try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+			Future<Double> other = executor.submit(() -> {
+				RandomStream.current().reset(3, 4, 5);
+				return Util.random(-2, 2);
+			});
+			assertEquals(expected, other.get(), "Different number in another thread");
+		}
+	}
+}
@@ -106,4 +106,21 @@ class RayTests {
 		assertEquals(new Point(1, 1, 1), closestPointLast, "Last point closest test failed");
 	}
 
+
+	/**
+	 * Tests the scalar accessors of the head and the direction, {@link Ray#getHeadX()} etc.
+	 */
+	@Test
+	void testScalarAccessors() {
+		// ============ Equivalence Partitions Tests ==============
+
+		// TC01: The coordinates of the head and of the normalized direction
+		Ray ray = new Ray(new Point(1, 2, 3), new Vector(0, 3, 4));
+		assertEquals(1, ray.getHeadX(), 0, "Wrong x of the head");
+		assertEquals(2, ray.getHeadY(), 0, "Wrong y of the head");
+		assertEquals(3, ray.getHeadZ(), 0, "Wrong z of the head");
+		assertEquals(0, ray.getDirectionX(), 1e-10, "Wrong x of the direction");
+		assertEquals(0.6, ray.getDirectionY(), 1e-10, "Wrong y of the direction");
+		assertEquals(0.8, ray.getDirectionZ(), 1e-10, "Wrong z of the direction");
+	}
 }
@@ -6,6 +6,7 @@ package unittests.primitives;
 import static org.junit.jupiter.api.Assertions.*;
 
 import primitives.Point;
+import primitives.Ray;
 import primitives.Vector;
 import primitives.Double3;
 
@@ -259,6 +260,35 @@ class VectorTests {
 
 	}
 
+	/**
+	 * Test method for {@link primitives.Vector#isNormalized()}.
+	 */
+	@Test
+	void testIsNormalized() {
+		Vector v = new Vector(0, 3, 4);
+		Vector n = v.normalize();
+		// ============Equivalence Partitions Tests ==============
+		// TC01: A vector from coordinates is not known to be normalized
+		assertFalse(v.isNormalized(), "vector from coordinates is marked as normalized");
+		// TC02: A normalized vector is known to be normalized, and normalizing it again keeps it
+		assertTrue(n.isNormalized(), "normalized vector is not marked as normalized");
+		assertEquals(n, n.normalize(), "normalized vector changed by normalization");
+		assertTrue(n.normalize().isNormalized(), "normalized again vector is not marked as normalized");
+		// TC03: Operations on a normalized vector lose the mark
+		assertFalse(n.scale(2).isNormalized(), "scaled vector is marked as normalized");
+		assertFalse(n.add(new Vector(1, 0, 0)).isNormalized(), "sum vector is marked as normalized");
+		assertFalse(n.crossProduct(new Vector(1, 0, 0)).isNormalized(), "cross product is marked as normalized");
+		// TC04: The direction of a ray is normalized
+		assertTrue(new Ray(Point.ZERO, v).getDirection().isNormalized(), "ray direction is not marked as normalized");
+		// =============== Boundary Values Tests ==================
+		// TC10: Reversing a normalized vector keeps the mark
+		assertTrue(n.scale(-1).isNormalized(), "reversed normalized vector is not marked as normalized");
+		// TC11: A unit vector from coordinates is not known to be normalized, but is normalized to itself
+		Vector unit = new Vector(0, 1, 0);
+		assertFalse(unit.isNormalized(), "unit vector from coordinates is marked as normalized");
+		assertEquals(unit, unit.normalize(), "unit vector changed by normalization");
+	}
+
 	/**
 	 * Test method for {@link primitives.Vector#subtract(primitives.Vector)}.
 	 */
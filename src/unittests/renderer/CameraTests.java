@@ -1,9 +1,21 @@
 package unittests.renderer;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 
 import org.junit.jupiter.api.Test;
 
+import geometries.Sphere;
+import geometries.Triangle;
+import lighting.AmbientLight;
+import lighting.SpotLight;
 import primitives.*;
 import renderer.*;
 import scene.Scene;
@@ -53,4 +65,544 @@ class CameraTests {
 
 	}
 
+	/**
+	 * Creates a camera builder of a scene with reflections and refractions.
+	 *
+	 * @param imageWriter the image writer of the camera
+	 * @return the camera builder
+	 */
+	private Camera.Builder sceneBuilder(ImageWriter imageWriter) {
+		Scene scene = new Scene("Test");
+		scene.geometries.add(
+				new Sphere(new Point(0, 0, -50), 50d).setEmission(new Color(0, 0, 255))
+						.setMaterial(new Material().setKD(0.4).setKS(0.3).setShininess(100).setKT(0.3)),
+				new Sphere(new Point(0, 0, -50), 25d).setEmission(new Color(255, 0, 0))
+						.setMaterial(new Material().setKD(0.5).setKS(0.5).setShininess(100)),
+				new Triangle(new Point(-150, -150, -115), new Point(150, -150, -135), new Point(75, 75, -150))
+						.setMaterial(new Material().setKD(0.5).setKS(0.5).setShininess(60).setKR(0.8)));
+		scene.setAmbientLight(new AmbientLight(new Color(255, 255, 255), 0.1));
+		scene.lights.add(new SpotLight(new Color(1000, 600, 0), new Point(-100, -100, 500), new Vector(-1, -1, -2))
+				.setKL(0.0004).setKQ(0.0000006));
+		return Camera.getBuilder().setRayTracer(new SimpleRayTracer(scene)).setImageWriter(imageWriter)
+				.setLocation(new Point(0, 0, 1000)).setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+				.setVpDistance(1000).setVpSize(300, 210);
+	}
+
+	/**
+	 * Renders the scene with reflections and refractions into a new image writer.
+	 *
+	 * @param threads  number of rendering threads
+	 * @param tileSize tile edge size
+	 * @param mode     threading mode
+	 * @return the image writer with the rendered pixels
+	 */
+	private ImageWriter render(int threads, int tileSize, Camera.ThreadingMode mode) {
+		ImageWriter imageWriter = new ImageWriter("Test", 53, 37);
+		sceneBuilder(imageWriter).setMultithreading(threads).setTileSize(tileSize).setThreadingMode(mode).build()
+				.renderImage();
+		return imageWriter;
+	}
+
+	/**
+	 * Test method for {@link renderer.Camera#renderImage()} with multithreading.
+	 */
+	@Test
+	void testRenderImageMultithreaded() {
+		ImageWriter serial = render(0, 16, Camera.ThreadingMode.FORK_JOIN);
+
+		// ============ Equivalence Partitions Tests ==============
+		// EP01: Several threads, tiles not dividing the image size
+		ImageWriter parallel = render(4, 7, Camera.ThreadingMode.FORK_JOIN);
+		for (int j = 0; j < 37; ++j)
+			for (int i = 0; i < 53; ++i)
+				assertEquals(serial.getRGB(i, j), parallel.getRGB(i, j), "Different pixel (" + i + "," + j + ")");
+
+		// =============== Boundary Values Tests ==================
+		// BV01: Single thread, single pixel tiles
+		parallel = render(1, 1, Camera.ThreadingMode.FORK_JOIN);
+		for (int j = 0; j < 37; ++j)
+			for (int i = 0; i < 53; ++i)
+				assertEquals(serial.getRGB(i, j), parallel.getRGB(i, j), "Different pixel (" + i + "," + j + ")");
+
+		// BV02: A tile larger than the image
+		parallel = render(-1, 100, Camera.ThreadingMode.FORK_JOIN);
+		for (int j = 0; j < 37; ++j)
+			for (int i = 0; i < 53; ++i)
+				assertEquals(serial.getRGB(i, j), parallel.getRGB(i, j), "Different pixel (" + i + "," + j + ")");
+
+		// BV03: Illegal thread count and tile size
+		assertThrows(IllegalArgumentException.class, () -> cameraBuilder.setMultithreading(-2), "Bad threads count");
+		assertThrows(IllegalArgumentException.class, () -> cameraBuilder.setTileSize(0), "Bad tile size");
+	}
+
+	/**
+	 * Test method for {@link renderer.Camera#renderImage()} with virtual threads.
+	 */
+	@Test
+	void testRenderImageVirtualThreads() {
+		ImageWriter serial = render(0, 16, Camera.ThreadingMode.FORK_JOIN);
+
+		// ============ Equivalence Partitions Tests ==============
+		// EP01: Virtual threads render the same image as the serial rendering
+		ImageWriter parallel = render(3, 5, Camera.ThreadingMode.VIRTUAL_THREADS);
+		for (int j = 0; j < 37; ++j)
+			for (int i = 0; i < 53; ++i)
+				assertEquals(serial.getRGB(i, j), parallel.getRGB(i, j), "Different pixel (" + i + "," + j + ")");
+
+		// EP02: A failing tile fails the whole frame
+		Camera failing = cameraBuilder.setVpSize(8, 8).setImageWriter(new ImageWriter("Test", 40, 40))
+				.setRayTracer(new RayTracerBase(new Scene("Test")) {
+					@Override
+					public Color traceRay(Ray ray) {
+						throw new UnsupportedOperationException("Tile failure");
+					}
+				}).setMultithreading(2).setTileSize(4).setThreadingMode(Camera.ThreadingMode.VIRTUAL_THREADS).build();
+		assertThrows(UnsupportedOperationException.class, failing::renderImage, "Tile failure was not propagated");
+
+		// =============== Boundary Values Tests ==================
+		// BV01: Null threading mode
+		assertThrows(IllegalArgumentException.class, () -> cameraBuilder.setThreadingMode(null), "Null mode");
+	}
+
+	/**
+	 * Test method for {@link renderer.Camera#renderImage()} with super-sampling.
+	 */
+	@Test
+	void testSuperSampling() {
+		int[] rays = { 0 };
+		// Right half of the image is white, left half is black (the camera right vector is -X)
+		RayTracerBase halves = new RayTracerBase(new Scene("Test")) {
+			@Override
+			public Color traceRay(Ray ray) {
+				rays[0]++;
+				return ray.getDirection().getX() < 0 ? Color.WHITE : Color.BLACK;
+			}
+		};
+		Camera.Builder builder = cameraBuilder.setVpSize(8, 8).setRayTracer(halves);
+
+		// ============ Equivalence Partitions Tests ==============
+		// EP01: A pixel on the border of the halves gets the average color of its samples
+		ImageWriter imageWriter = new ImageWriter("Test", 1, 1);
+		builder.setImageWriter(imageWriter).setSuperSampling(4).build().renderImage();
+		assertEquals(16, rays[0], "Wrong number of samples");
+		assertEquals(0x7F7F7F, imageWriter.getRGB(0, 0), "Wrong average color");
+
+		// EP02: The samples of a pixel stay inside the pixel
+		rays[0] = 0;
+		imageWriter = new ImageWriter("Test", 2, 1);
+		builder.setImageWriter(imageWriter).setSuperSampling(3).build().renderImage();
+		assertEquals(18, rays[0], "Wrong number of samples");
+		assertEquals(0x000000, imageWriter.getRGB(0, 0), "Samples left the left pixel");
+		assertEquals(0xFFFFFF, imageWriter.getRGB(1, 0), "Samples left the right pixel");
+
+		// =============== Boundary Values Tests ==================
+		// BV01: A single sample is the ray through the pixel center
+		rays[0] = 0;
+		imageWriter = new ImageWriter("Test", 3, 1);
+		builder.setImageWriter(imageWriter).setSuperSampling(1).build().renderImage();
+		assertEquals(3, rays[0], "Wrong number of samples");
+		assertEquals(0x000000, imageWriter.getRGB(1, 0), "Center ray must hit the border and be black");
+
+		// BV02: Illegal number of samples
+		assertThrows(IllegalArgumentException.class, () -> cameraBuilder.setSuperSampling(0), "Bad samples count");
+	}
+
+	/**
+	 * Test method for {@link renderer.Camera#renderImage()} with adaptive super-sampling.
+	 */
+	@Test
+	void testAdaptiveSuperSampling() {
+		// Right half of the image is white, left half is black (the camera right vector is -X)
+		RayTracerBase halves = new RayTracerBase(new Scene("Test")) {
+			@Override
+			public Color traceRay(Ray ray) {
+				return ray.getDirection().getX() < 0 ? Color.WHITE : Color.BLACK;
+			}
+		};
+		ImageWriter imageWriter = new ImageWriter("Test", 3, 1);
+		Camera.Builder builder = cameraBuilder.setVpSize(6, 2).setRayTracer(halves).setImageWriter(imageWriter);
+
+		// ============ Equivalence Partitions Tests ==============
+		// EP01: Only the squares crossing the border of the halves are subdivided
+		Camera camera = builder.setAdaptiveSuperSampling(2, 10).build().renderImage();
+		assertEquals(4, camera.getSampleCount(0, 0), "Flat pixel must not be subdivided");
+		assertEquals(4, camera.getSampleCount(2, 0), "Flat pixel must not be subdivided");
+		// The pixel, then the 2 quarters touching the border from the white side
+		assertEquals(4 + 5 + 2 * 5, camera.getSampleCount(1, 0), "Wrong subdivision of the border pixel");
+		assertEquals(0x000000, imageWriter.getRGB(0, 0), "Wrong flat pixel color");
+		assertEquals(0xFFFFFF, imageWriter.getRGB(2, 0), "Wrong flat pixel color");
+		int border = imageWriter.getRGB(1, 0) & 0xFF;
+		assertTrue(border > 0 && border < 255, "Border pixel must be gray");
+
+		// =============== Boundary Values Tests ==================
+		// BV01: A high threshold never subdivides
+		camera = builder.setAdaptiveSuperSampling(2, 200).build().renderImage();
+		assertEquals(4, camera.getSampleCount(1, 0), "Border pixel must not be subdivided");
+
+		// BV02: Depth 0 disables the adaptive sampling
+		Camera regular = builder.setAdaptiveSuperSampling(0, 10).build().renderImage();
+		assertThrows(IllegalStateException.class, () -> regular.getSampleCount(1, 0), "No sample count map");
+
+		// BV03: Illegal depth and threshold
+		assertThrows(IllegalArgumentException.class, () -> cameraBuilder.setAdaptiveSuperSampling(-1, 10),
+				"Bad depth");
+		assertThrows(IllegalArgumentException.class, () -> cameraBuilder.setAdaptiveSuperSampling(2, -1),
+				"Bad threshold");
+	}
+
+	/**
+	 * Test method for {@link renderer.Camera#renderImage()} with edge detection anti-aliasing.
+	 */
+	@Test
+	void testEdgeAntiAliasing() {
+		ImageWriter plain = new ImageWriter("Test", 53, 37);
+		sceneBuilder(plain).build().renderImage();
+		ImageWriter full = new ImageWriter("Test", 53, 37);
+		sceneBuilder(full).setSuperSampling(3).build().renderImage();
+		ImageWriter edges = new ImageWriter("Test", 53, 37);
+		Camera camera = sceneBuilder(edges).setEdgeAntiAliasing(3, 0.1).build().renderImage();
+
+		// ============ Equivalence Partitions Tests ==============
+		// EP01: Only edge pixels are super-sampled, exactly as by the full super-sampling
+		int sampled = 0;
+		for (int j = 0; j < 37; ++j)
+			for (int i = 0; i < 53; ++i) {
+				int count = camera.getSampleCount(i, j);
+				if (count == 1) {
+					assertEquals(plain.getRGB(i, j), edges.getRGB(i, j), "Different pixel (" + i + "," + j + ")");
+				} else {
+					assertEquals(1 + 9, count, "Wrong number of samples");
+					assertEquals(full.getRGB(i, j), edges.getRGB(i, j), "Different pixel (" + i + "," + j + ")");
+					++sampled;
+				}
+			}
+		assertTrue(sampled > 0 && sampled < 53 * 37 / 4, "Wrong number of edge pixels: " + sampled);
+		assertEquals(1, camera.getSampleCount(0, 0), "Background pixel must not be sampled");
+		assertEquals(1, camera.getSampleCount(26, 18), "Inner pixel must not be sampled");
+
+		// EP02: The passes give the same image with multithreading
+		ImageWriter parallel = new ImageWriter("Test", 53, 37);
+		sceneBuilder(parallel).setEdgeAntiAliasing(3, 0.1).setMultithreading(3).setTileSize(8).build().renderImage();
+		for (int j = 0; j < 37; ++j)
+			for (int i = 0; i < 53; ++i)
+				assertEquals(edges.getRGB(i, j), parallel.getRGB(i, j), "Different pixel (" + i + "," + j + ")");
+
+		// =============== Boundary Values Tests ==================
+		// BV01: Threshold 0 detects only the edges between geometries
+		Camera geometric = sceneBuilder(new ImageWriter("Test", 53, 37)).setEdgeAntiAliasing(3, 0).build()
+				.renderImage();
+		Camera far = sceneBuilder(new ImageWriter("Test", 53, 37)).setEdgeAntiAliasing(3, 1e9).build().renderImage();
+		for (int j = 0; j < 37; ++j)
+			for (int i = 0; i < 53; ++i)
+				assertEquals(far.getSampleCount(i, j), geometric.getSampleCount(i, j),
+						"Different samples of pixel (" + i + "," + j + ")");
+		assertEquals(1, geometric.getSampleCount(26, 18), "Inner pixel must not be sampled");
+
+		// BV02: Illegal number of samples and threshold
+		assertThrows(IllegalArgumentException.class, () -> cameraBuilder.setEdgeAntiAliasing(-1, 0.1),
+				"Bad samples count");
+		assertThrows(IllegalArgumentException.class, () -> cameraBuilder.setEdgeAntiAliasing(3, -1),
+				"Bad threshold");
+	}
+
+	/**
+	 * Test method for {@link renderer.Camera#renderImage()} with random sampling.
+	 */
+	@Test
+	void testRandomReproducibility() {
+		// A tracer returning random noise
+		RayTracerBase noise = new RayTracerBase(new Scene("Test")) {
+			@Override
+			public Color traceRay(Ray ray) {
+				return new Color(Util.random(0, 255), Util.random(0, 255), Util.random(0, 255));
+			}
+		};
+		Camera.Builder builder = cameraBuilder.setVpSize(8, 8).setRayTracer(noise).setSampler(new StratifiedSampler());
+		ImageWriter serial = new ImageWriter("Test", 20, 20);
+		builder.setImageWriter(serial).setSuperSampling(2).build().renderImage();
+
+		// ============ Equivalence Partitions Tests ==============
+		// EP01: The random numbers do not depend on the threads
+		ImageWriter parallel = new ImageWriter("Test", 20, 20);
+		builder.setImageWriter(parallel).setMultithreading(3).setTileSize(3).build().renderImage();
+		for (int j = 0; j < 20; ++j)
+			for (int i = 0; i < 20; ++i)
+				assertEquals(serial.getRGB(i, j), parallel.getRGB(i, j), "Different pixel (" + i + "," + j + ")");
+
+		// EP02: Another frame gets other random numbers
+		ImageWriter other = new ImageWriter("Test", 20, 20);
+		builder.setImageWriter(other).setFrame(1).build().renderImage();
+		int different = 0;
+		for (int j = 0; j < 20; ++j)
+			for (int i = 0; i < 20; ++i)
+				if (serial.getRGB(i, j) != other.getRGB(i, j)) ++different;
+		assertTrue(different > 300, "Frames have the same noise");
+	}
+
+	/**
+	 * Test method for {@link renderer.Camera#renderProgressive(int, long, int)}.
+	 */
+	@Test
+	void testRenderProgressive() {
+		// ============ Equivalence Partitions Tests ==============
+		// EP01: The full progressive rendering equals the one-shot super-sampled rendering
+		for (Sampler sampler : new Sampler[] { new HaltonSampler(), new SobolSampler() }) {
+			ImageWriter oneShot = new ImageWriter("Test", 53, 37);
+			sceneBuilder(oneShot).setSampler(sampler).setSuperSampling(4).build().renderImage();
+			ImageWriter progressive = new ImageWriter("Test", 53, 37);
+			Camera camera = sceneBuilder(progressive).setSampler(sampler).setMultithreading(2).build()
+					.renderProgressive(16, 0, 0);
+			assertEquals(16, camera.getCompletedPasses(), "Wrong number of passes");
+			for (int j = 0; j < 37; ++j)
+				for (int i = 0; i < 53; ++i)
+					assertEquals(oneShot.getRGB(i, j), progressive.getRGB(i, j), "Different pixel (" + i + "," + j + ")");
+		}
+
+		// EP02: A sampler filling the pixels row by row is replaced by a Sobol sampler
+		ImageWriter sobol = new ImageWriter("Test", 53, 37);
+		sceneBuilder(sobol).setSampler(new SobolSampler()).build().renderProgressive(4, 0, 0);
+		ImageWriter grid = new ImageWriter("Test", 53, 37);
+		sceneBuilder(grid).setSampler(new GridSampler()).build().renderProgressive(4, 0, 0);
+		for (int j = 0; j < 37; ++j)
+			for (int i = 0; i < 53; ++i)
+				assertEquals(sobol.getRGB(i, j), grid.getRGB(i, j), "Different pixel (" + i + "," + j + ")");
+
+		// =============== Boundary Values Tests ==================
+		// BV01: A short time budget stops before the target, after the pass reaching the budget
+		ImageWriter imageWriter = new ImageWriter("Test", 53, 37);
+		Camera camera = sceneBuilder(imageWriter).setClock(clock(1_000_000)).build();
+		assertEquals(5, camera.renderProgressive(100000, 5, 0).getCompletedPasses(), "Wrong number of passes");
+		assertTrue(imageWriter.getRGB(26, 18) != 0, "Passes were not resolved");
+
+		// BV02: Bad arguments
+		assertThrows(IllegalArgumentException.class, () -> camera.renderProgressive(0, 0, 0), "Zero samples");
+		assertThrows(IllegalArgumentException.class, () -> camera.renderProgressive(1, -1, 0), "Negative budget");
+	}
+
+	/**
+	 * Creates a clock advancing by a fixed step on every reading, so the renderings with a
+	 * time budget do not depend on the speed of the machine.
+	 *
+	 * @param step the step of the clock in nanoseconds
+	 * @return the clock
+	 */
+	private LongSupplier clock(long step) {
+		AtomicLong time = new AtomicLong();
+		return () -> time.addAndGet(step);
+	}
+
+	/**
+	 * Test method for {@link renderer.Camera#renderWithDeadline(long, int)}.
+	 */
+	@Test
+	void testRenderWithDeadline() {
+		ImageWriter imageWriter = new ImageWriter("Test", 53, 37);
+		Camera.Builder builder = sceneBuilder(imageWriter).setSampler(new SobolSampler());
+
+		// ============ Equivalence Partitions Tests ==============
+		// EP01: The rendering refines the noisy pixels more
+		Camera camera = builder.setClock(clock(10_000)).build().renderWithDeadline(300, 64);
+		double spp = camera.getAverageSamplesPerPixel();
+		assertTrue(spp > 4 && spp <= 64, "Wrong samples per pixel " + spp);
+		assertTrue(camera.getEstimatedNoise() > 0, "No noise estimated");
+		int min = Integer.MAX_VALUE, max = 0;
+		for (int j = 0; j < 37; ++j)
+			for (int i = 0; i < 53; ++i) {
+				int count = camera.getSampleCount(i, j);
+				assertTrue(count >= 4 && count <= 64, "Wrong sample count " + count);
+				min = Math.min(min, count);
+				max = Math.max(max, count);
+			}
+		assertTrue(max > 2 * min, "Samples were not prioritized");
+		// the flat background in the corner against the edge of the outer sphere
+		assertTrue(camera.getSampleCount(0, 0) < camera.getSampleCount(18, 17),
+				"Edge pixel did not get more samples");
+
+		// =============== Boundary Values Tests ==================
+		// BV01: A budget shorter than the first round still gives a complete image, with a
+		// single sample in the pixels reached after the deadline: the clock is read once at
+		// the start and once per pixel, so the deadline passes at the 1000th pixel
+		Camera cut = builder.setClock(clock(1_000)).build().renderWithDeadline(1, 256);
+		int full = 0;
+		for (int j = 0; j < 37; ++j)
+			for (int i = 0; i < 53; ++i) {
+				int count = cut.getSampleCount(i, j);
+				assertTrue(count == 1 || count == 4, "Wrong sample count " + count);
+				if (count == 4)
+					++full;
+			}
+		assertEquals(999, full, "Wrong number of pixels before the deadline");
+		assertTrue(imageWriter.getRGB(26, 18) != 0, "Image was not resolved");
+		assertTrue(cut.getEstimatedNoise() > 0, "Pixels of a single sample must not be noise-free");
+
+		// BV02: Bad arguments
+		assertThrows(IllegalArgumentException.class, () -> camera.renderWithDeadline(0, 16), "Zero budget");
+		assertThrows(IllegalArgumentException.class, () -> camera.renderWithDeadline(100, 0), "Zero samples");
+	}
+
+	/**
+	 * Test method for {@link renderer.Camera#renderAsync(TileListener)}.
+	 *
+	 * @throws Exception if the rendering fails
+	 */
+	@Test
+	void testRenderAsync() throws Exception {
+		// ============ Equivalence Partitions Tests ==============
+		// EP01: The asynchronous rendering reports every tile and gives the same image
+		ImageWriter imageWriter = new ImageWriter("Test", 53, 37);
+		AtomicLong tilePixels = new AtomicLong();
+		RenderTask task = sceneBuilder(imageWriter).setMultithreading(2).setSuperSampling(2).setTileSize(8).build()
+				.renderAsync((column, row, width, height) -> tilePixels.addAndGet(width * height));
+		assertNotNull(task.get(10, TimeUnit.SECONDS), "No camera returned");
+		assertTrue(task.isDone() && !task.isCancelled(), "Wrong final state");
+		assertEquals(53 * 37, tilePixels.get(), "Wrong tiles reported");
+		assertEquals(53 * 37, task.getPixelsCompleted(), "Wrong pixels completed");
+		assertEquals(4 * 53 * 37, task.getRaysTraced(), "Wrong rays traced");
+		assertEquals(0, task.getEtaMillis(), "Wrong ETA of a completed rendering");
+		ImageWriter superSampled = new ImageWriter("Test", 53, 37);
+		sceneBuilder(superSampled).setSuperSampling(2).build().renderImage();
+		for (int j = 0; j < 37; ++j)
+			for (int i = 0; i < 53; ++i)
+				assertEquals(superSampled.getRGB(i, j), imageWriter.getRGB(i, j), "Different pixel (" + i + "," + j + ")");
+
+		// EP02: A cancelled rendering stops after the running tile
+		CountDownLatch firstTile = new CountDownLatch(1), cancelled = new CountDownLatch(1);
+		RenderTask cancelledTask = sceneBuilder(new ImageWriter("Test", 53, 37)).build()
+				.renderAsync((column, row, width, height) -> {
+					firstTile.countDown();
+					try {
+						cancelled.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				});
+		firstTile.await();
+		assertTrue(cancelledTask.cancel(), "Running rendering was not cancelled");
+		cancelled.countDown();
+		assertThrows(CancellationException.class, cancelledTask::get, "Cancelled rendering completed");
+		assertTrue(cancelledTask.isCancelled(), "Rendering is not cancelled");
+		assertEquals(16 * 16, cancelledTask.getPixelsCompleted(), "Rendering went on after cancel");
+
+		// EP03: A failed rendering reports its failure
+		Camera failing = sceneBuilder(new ImageWriter("Test", 53, 37)).setRayTracer(new RayTracerBase(new Scene("Test")) {
+			@Override
+			public Color traceRay(Ray ray) {
+				throw new IllegalStateException("Tracer failure");
+			}
+		}).build();
+		ExecutionException failure = assertThrows(ExecutionException.class, () -> failing.renderAsync().get(),
+				"Failed rendering completed");
+		assertInstanceOf(IllegalStateException.class, failure.getCause(), "Wrong failure");
+
+		// EP04: Renderings of the same camera at the same time keep their own state
+		Camera camera = sceneBuilder(new ImageWriter("Test", 53, 37)).setMultithreading(2).setTileSize(8).build();
+		RenderTask first = camera.renderAsync(), second = camera.renderAsync();
+		Camera firstCamera = first.get(10, TimeUnit.SECONDS), secondCamera = second.get(10, TimeUnit.SECONDS);
+		assertNotSame(firstCamera, secondCamera, "Renderings share a camera");
+		assertNotSame(camera, firstCamera, "Rendering is done by the camera itself");
+		for (RenderTask rendering : new RenderTask[] { first, second }) {
+			assertEquals(53 * 37, rendering.getPixelsCompleted(), "Wrong pixels completed");
+			assertEquals(53 * 37, rendering.getRaysTraced(), "Wrong rays traced");
+		}
+
+		// =============== Boundary Values Tests ==================
+		// BV01: Cancelling a completed rendering has no effect
+		assertFalse(task.cancel(), "Completed rendering was cancelled");
+		assertFalse(task.isCancelled(), "Completed rendering is cancelled");
+
+		// BV02: A rendering is cancelled once
+		assertFalse(cancelledTask.cancel(), "Cancelled rendering was cancelled again");
+	}
+
+	/**
+	 * Test method for {@link renderer.Camera.TraversalOrder#order(int, int)}.
+	 */
+	@Test
+	void testTraversalOrder() {
+		// ============ Equivalence Partitions Tests ==============
+		// EP01: Every order visits every cell of the grid exactly once
+		for (Camera.TraversalOrder order : Camera.TraversalOrder.values()) {
+			int[] cells = order.order(13, 6);
+			assertEquals(13 * 6, cells.length, "Wrong number of cells");
+			boolean[] visited = new boolean[13 * 6];
+			for (int cell : cells) {
+				assertFalse(visited[cell], order + " visits a cell twice");
+				visited[cell] = true;
+			}
+		}
+
+		// EP02: Morton order visits the quadrants one after the other
+		assertArrayEquals(new int[] { 0, 1, 4, 5, 2, 3, 6, 7 },
+				Arrays.copyOf(Camera.TraversalOrder.MORTON.order(4, 4), 8), "Wrong Morton order");
+
+		// EP03: Every cell of the Hilbert order is adjacent to the one before it
+		int[] hilbert = Camera.TraversalOrder.HILBERT.order(8, 8);
+		for (int k = 1; k < hilbert.length; ++k)
+			assertEquals(1, Math.abs(hilbert[k] % 8 - hilbert[k - 1] % 8) + Math.abs(hilbert[k] / 8 - hilbert[k - 1] / 8),
+					"Hilbert cells are not adjacent");
+
+		// EP04: The rendered image does not depend on the order
+		ImageWriter expected = render(0, 16, Camera.ThreadingMode.FORK_JOIN);
+		for (Camera.TraversalOrder order : Camera.TraversalOrder.values()) {
+			ImageWriter imageWriter = new ImageWriter("Test", 53, 37);
+			sceneBuilder(imageWriter).setMultithreading(2).setTileSize(8).setTileOrder(order).setPixelOrder(order)
+					.build().renderImage();
+			for (int j = 0; j < 37; ++j)
+				for (int i = 0; i < 53; ++i)
+					assertEquals(expected.getRGB(i, j), imageWriter.getRGB(i, j),
+							order + ": different pixel (" + i + "," + j + ")");
+		}
+
+		// =============== Boundary Values Tests ==================
+		// BV01: A single cell
+		for (Camera.TraversalOrder order : Camera.TraversalOrder.values())
+			assertArrayEquals(new int[] { 0 }, order.order(1, 1), order + " order of a single cell");
+	}
+
+	/**
+	 * Test method for {@link renderer.Camera.Builder#setPacketTracing(int)}.
+	 *
+	 * @throws Exception if the rendering fails
+	 */
+	@Test
+	void testPacketTracing() throws Exception {
+		ImageWriter expected = render(0, 16, Camera.ThreadingMode.FORK_JOIN);
+
+		// ============ Equivalence Partitions Tests ==============
+		// EP01: Packet tracing gives the same image as tracing the rays one by one
+		for (int side : new int[] { 4, 8, 3 }) {
+			ImageWriter imageWriter = new ImageWriter("Test", 53, 37);
+			sceneBuilder(imageWriter).setPacketTracing(side).setMultithreading(2).setTileSize(24).build().renderImage();
+			for (int j = 0; j < 37; ++j)
+				for (int i = 0; i < 53; ++i)
+					assertEquals(expected.getRGB(i, j), imageWriter.getRGB(i, j),
+							"Packets of " + side + ": different pixel (" + i + "," + j + ")");
+		}
+
+		// EP02: Packets larger than the tiles write only the pixels of their own tile, so a
+		// tile is reported when all its pixels, and only them, are written
+		AtomicLong written = new AtomicLong(), reported = new AtomicLong(), early = new AtomicLong();
+		ImageWriter counting = new ImageWriter("Test", 53, 37) {
+			@Override
+			public void writePixel(int xIndex, int yIndex, Color color) {
+				written.incrementAndGet();
+				super.writePixel(xIndex, yIndex, color);
+			}
+		};
+		sceneBuilder(counting).setPacketTracing(8).setTileSize(5).build()
+				.renderAsync((column, row, width, height) -> {
+					if (written.get() != reported.addAndGet(width * height))
+						early.incrementAndGet();
+				}).get(10, TimeUnit.SECONDS);
+		assertEquals(0, early.get(), "Tiles were reported with the pixels of other tiles written");
+		assertEquals(53 * 37, written.get(), "Pixels were written twice or not at all");
+		for (int j = 0; j < 37; ++j)
+			for (int i = 0; i < 53; ++i)
+				assertEquals(expected.getRGB(i, j), counting.getRGB(i, j), "Different pixel (" + i + "," + j + ")");
+
+		// =============== Boundary Values Tests ==================
+		// BV01: Bad packet sides
+		assertThrows(IllegalArgumentException.class, () -> cameraBuilder.setPacketTracing(9), "Too large packets");
+		assertThrows(IllegalArgumentException.class, () -> cameraBuilder.setPacketTracing(-1), "Negative packets");
+	}
 }
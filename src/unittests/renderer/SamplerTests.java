@@ -0,0 +1,158 @@
+package unittests.renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import renderer.*;
+
+/**
+ * Testing the {@link Sampler} implementations
+ *
+ * @author Shay and Asaf
+ */
+class SamplerTests {
+	/** All the samplers under test */
+	private final Sampler[] samplers = { new GridSampler(), new StratifiedSampler(), new HaltonSampler(),
+			new SobolSampler(), new BlueNoiseSampler() };
+
+	/**
+	 * Test that all the samplers produce deterministic coordinates in [0, 1).
+	 */
+	@Test
+	void testRange() {
+		// ============ Equivalence Partitions Tests ==============
+		// TC01: Coordinates of several pixels, counts and dimensions
+		for (Sampler sampler : samplers)
+			for (int pixel = 0; pixel < 20; ++pixel)
+				for (int count : new int[] { 1, 9, 16, 300 })
+					for (int index = 0; index < count; ++index)
+						for (int dimension = 0; dimension < 4; ++dimension) {
+							double x = sampler.sample(pixel, index, count, dimension);
+							assertTrue(x >= 0 && x < 1, sampler.getClass().getSimpleName() + " out of range: " + x);
+							assertEquals(x, sampler.sample(pixel, index, count, dimension),
+									sampler.getClass().getSimpleName() + " is not deterministic");
+						}
+	}
+
+	/**
+	 * Test that the stratified samplers place exactly one sample in each stratum.
+	 */
+	@Test
+	void testStratification() {
+		// ============ Equivalence Partitions Tests ==============
+		// TC01: Stratified and grid samplers - one sample in each cell of the 4x4 grid
+		for (Sampler sampler : new Sampler[] { new GridSampler(), new StratifiedSampler(7) })
+			for (int pixel = 0; pixel < 10; ++pixel) {
+				boolean[] cells = new boolean[16];
+				for (int index = 0; index < 16; ++index) {
+					int cell = (int) (sampler.sample(pixel, index, 16, 0) * 4)
+							+ 4 * (int) (sampler.sample(pixel, index, 16, 1) * 4);
+					assertFalse(cells[cell], "Two samples in a cell");
+					cells[cell] = true;
+				}
+			}
+
+		// TC02: Owen scrambled Sobol - one sample in each elementary interval of area 1/16
+		Sampler sobol = new SobolSampler(3);
+		for (int pixel = 0; pixel < 10; ++pixel)
+			for (int columns = 1; columns <= 16; columns *= 2) {
+				boolean[] cells = new boolean[16];
+				for (int index = 0; index < 16; ++index) {
+					int cell = (int) (sobol.sample(pixel, index, 16, 0) * columns)
+							+ columns * (int) (sobol.sample(pixel, index, 16, 1) * (16 / columns));
+					assertFalse(cells[cell], "Two samples in an elementary interval " + columns + "x" + 16 / columns);
+					cells[cell] = true;
+				}
+			}
+
+		// TC03: The padded pair of Sobol dimensions is stratified as well
+		for (int pixel = 0; pixel < 10; ++pixel) {
+			boolean[] cells = new boolean[16];
+			for (int index = 0; index < 16; ++index) {
+				int cell = (int) (sobol.sample(pixel, index, 16, 2) * 4) + 4 * (int) (sobol.sample(pixel, index, 16, 3) * 4);
+				assertFalse(cells[cell], "Two samples in a cell of the padded dimensions");
+				cells[cell] = true;
+			}
+		}
+
+		// =============== Boundary Values Tests ==================
+		// TC04: Halton samples are the radical inverses, rotated per pixel
+		Sampler halton = new HaltonSampler();
+		double first = halton.sample(5, 0, 4, 0);
+		assertEquals(0.5, (halton.sample(5, 1, 4, 0) - first + 1) % 1, 1e-12, "Wrong Halton sample");
+		assertEquals(0.25, (halton.sample(5, 2, 4, 0) - first + 1) % 1, 1e-12, "Wrong Halton sample");
+		first = halton.sample(5, 0, 4, 1);
+		assertEquals(1.0 / 3, (halton.sample(5, 1, 4, 1) - first + 1) % 1, 1e-12, "Wrong Halton sample");
+
+		// TC05: A count that is not a square - the rows of the grid are all covered
+		for (Sampler sampler : new Sampler[] { new GridSampler(), new StratifiedSampler(7) })
+			for (int pixel = 0; pixel < 10; ++pixel) {
+				boolean[] cells = new boolean[6];
+				for (int index = 0; index < 6; ++index) {
+					int cell = (int) (sampler.sample(pixel, index, 6, 0) * 3)
+							+ 3 * (int) (sampler.sample(pixel, index, 6, 1) * 2);
+					assertFalse(cells[cell], "Two samples in a cell of the 3x2 grid");
+					cells[cell] = true;
+				}
+			}
+	}
+
+	/**
+	 * Test method for {@link Sampler#isProgressive()}.
+	 */
+	@Test
+	void testIsProgressive() {
+		// ============ Equivalence Partitions Tests ==============
+		// TC01: The low-discrepancy and blue noise samplers have even prefixes
+		for (Sampler sampler : new Sampler[] { new HaltonSampler(), new SobolSampler(), new BlueNoiseSampler() })
+			assertTrue(sampler.isProgressive(), sampler.getClass().getSimpleName() + " is progressive");
+
+		// TC02: The grid samplers fill the rows one by one
+		for (Sampler sampler : new Sampler[] { new GridSampler(), new StratifiedSampler() })
+			assertFalse(sampler.isProgressive(), sampler.getClass().getSimpleName() + " is not progressive");
+	}
+
+	/**
+	 * Test that the samplers integrate a disk with a smaller error than white noise.
+	 */
+	@Test
+	void testConvergence() {
+		final int count = 64;
+		final int pixels = 200;
+		Random random = new Random(1);
+		double noiseError = 0;
+		for (int pixel = 0; pixel < pixels; ++pixel) {
+			int inside = 0;
+			for (int index = 0; index < count; ++index) {
+				double u = random.nextDouble(), v = random.nextDouble();
+				if (u * u + v * v < 1) ++inside;
+			}
+			noiseError += Math.pow((double) inside / count - Math.PI / 4, 2);
+		}
+
+		// ============ Equivalence Partitions Tests ==============
+		// TC01: The error of every randomized sampler is lower than the error of white noise
+		for (Sampler sampler : new Sampler[] { new StratifiedSampler(), new HaltonSampler(), new SobolSampler(),
+				new BlueNoiseSampler() }) {
+			double error = 0;
+			for (int pixel = 0; pixel < pixels; ++pixel) {
+				int inside = 0;
+				for (int index = 0; index < count; ++index) {
+					double u = sampler.sample(pixel, index, count, 0), v = sampler.sample(pixel, index, count, 1);
+					if (u * u + v * v < 1) ++inside;
+				}
+				error += Math.pow((double) inside / count - Math.PI / 4, 2);
+			}
+			assertTrue(error < noiseError / 2,
+					sampler.getClass().getSimpleName() + " error " + error + " is not below noise " + noiseError);
+		}
+
+		// =============== Boundary Values Tests ==================
+		// TC02: Halton sampler supports a limited number of dimensions
+		assertThrows(IllegalArgumentException.class, () -> new HaltonSampler().sample(0, 0, 1, 100),
+				"Unsupported dimension");
+	}
+}
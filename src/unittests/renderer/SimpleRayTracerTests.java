@@ -0,0 +1,125 @@
+package unittests.renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.Test;
+
+import geometries.*;
+import lighting.AmbientLight;
+import lighting.DirectionalLight;
+import lighting.PointLight;
+import lighting.SpotLight;
+import primitives.*;
+import renderer.SimpleRayTracer;
+import scene.Scene;
+
+/**
+ * Testing {@link SimpleRayTracer} Class
+ *
+ * @author Shay and Asaf
+ */
+class SimpleRayTracerTests {
+	/** Number of rays of a round of samples, on a grid of a square side */
+	private static final int SIDE = 40;
+
+	/**
+	 * Builds a scene of every allocation-free geometry, with reflective and transparent
+	 * materials under a light of every kind.
+	 *
+	 * @return the scene
+	 */
+	private static Scene createScene() {
+		Scene scene = new Scene("Shading scene").setAmbientLight(new AmbientLight(new Color(255, 255, 255), 0.1));
+		Material shiny = new Material().setKD(0.4).setKS(0.3).setShininess(50);
+		scene.geometries.add(
+				new Sphere(new Point(-30, 0, -100), 25).setEmission(new Color(60, 20, 20))
+						.setMaterial(new Material().setKD(0.4).setKS(0.3).setShininess(50).setKR(0.4)),
+				new Sphere(new Point(35, 10, -120), 20).setEmission(new Color(20, 60, 20)).setMaterial(shiny),
+				new Triangle(new Point(-60, -30, -40), new Point(60, -30, -40), new Point(0, 40, -60))
+						.setEmission(new Color(10, 10, 50)).setMaterial(new Material().setKD(0.3).setKT(0.6)),
+				new Polygon(new Point(40, -40, -150), new Point(80, -40, -150), new Point(80, 40, -170),
+						new Point(40, 40, -170)).setEmission(new Color(40, 40, 0)).setMaterial(shiny),
+				new TriangleMesh(new double[] { -80, -40, -160, -40, -40, -160, -60, 0, -180 }, new int[] { 0, 1, 2 })
+						.setEmission(new Color(30, 0, 30)).setMaterial(shiny),
+				new Plane(new Point(0, -50, 0), new Vector(0, 1, 0)).setEmission(new Color(15, 15, 15))
+						.setMaterial(new Material().setKD(0.5).setKR(0.3)));
+		scene.geometries.buildBVH();
+		scene.lights.add(new PointLight(new Color(500, 500, 500), new Point(0, 100, 50)).setKL(1e-4).setKQ(1e-5));
+		scene.lights.add(new SpotLight(new Color(400, 300, 300), new Point(-100, 50, 50), new Vector(1, -0.5, -1))
+				.setNarrowBeam(4).setKL(1e-4).setKQ(1e-6));
+		scene.lights.add(new DirectionalLight(new Color(100, 100, 150), new Vector(1, -1, -1)));
+		return scene;
+	}
+
+	/**
+	 * Creates the rays of a round of samples, from a point in front of the scene towards a grid
+	 * covering the scene.
+	 *
+	 * @return the rays
+	 */
+	private static Ray[] createRays() {
+		Ray[] rays = new Ray[SIDE * SIDE];
+		Point eye = new Point(0, 0, 100);
+		for (int i = 0; i < SIDE; ++i)
+			for (int j = 0; j < SIDE; ++j)
+				rays[i * SIDE + j] = new Ray(eye,
+						new Point(-100 + 200.0 * j / SIDE, -60 + 120.0 * i / SIDE, -100).subtract(eye));
+		return rays;
+	}
+
+	/**
+	 * Shades a round of samples in place.
+	 *
+	 * @param tracer the ray tracer
+	 * @param rays   the rays of the samples
+	 * @param hit    record for the closest hits
+	 * @param color  receives the colors of the samples
+	 * @return the sum of the colors, so the shading cannot be eliminated
+	 */
+	private static double shade(SimpleRayTracer tracer, Ray[] rays, HitRecord hit, Color3 color) {
+		double sum = 0;
+		for (Ray ray : rays)
+			sum += tracer.traceRay(ray, hit, color).r;
+		return sum;
+	}
+
+	/**
+	 * Test method for {@link SimpleRayTracer#traceRay(Ray, HitRecord, Color3)}.
+	 */
+	@Test
+	void testTraceRayInPlace() {
+		SimpleRayTracer tracer = new SimpleRayTracer(createScene());
+		Ray[] rays = createRays();
+		HitRecord hit = new HitRecord();
+		Color3 color = new Color3();
+
+		// ============ Equivalence Partitions Tests ==============
+
+		// TC01: The same colors as the allocating tracing
+		for (Ray ray : rays) {
+			Color expected = tracer.traceRay(ray);
+			tracer.traceRay(ray, hit, color);
+			assertEquals(expected.getRed(), color.r, 0, "Wrong red of " + ray);
+			assertEquals(expected.getGreen(), color.g, 0, "Wrong green of " + ray);
+			assertEquals(expected.getBlue(), color.b, 0, "Wrong blue of " + ray);
+		}
+
+		// TC02: No allocations per shaded sample in steady state
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled(),
+				"Allocated memory of threads is not measured");
+		long thread = Thread.currentThread().threadId();
+		for (int round = 0; round < 200; ++round) // warm up until the JIT has compiled the whole shading
+			shade(tracer, rays, hit, color);
+		long fewest = Long.MAX_VALUE;
+		for (int round = 0; round < 5 && fewest > 0; ++round) { // a round may still be disturbed by the JIT
+			long allocated = threads.getThreadAllocatedBytes(thread);
+			shade(tracer, rays, hit, color);
+			fewest = Math.min(fewest, threads.getThreadAllocatedBytes(thread) - allocated);
+		}
+		assertEquals(0, fewest, "Shading allocates " + (double) fewest / rays.length + " bytes per sample");
+	}
+}